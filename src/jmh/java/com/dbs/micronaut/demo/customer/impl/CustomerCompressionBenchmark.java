@@ -0,0 +1,130 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.customer.contract.CustomerDTO;
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares the CPU cost and the bytes on the wire of customer responses sent as plain JSON, gzipped on every request
+ * (what Netty does above the compression threshold), and gzipped once ahead of time (what CustomerPayloadCache does
+ * for hot customers).
+ * <p>
+ * DEVELOPER NOTE: "customers" is the number of customers in a response: 1 for GET /v1/customers/{id}, more for a batch
+ * or export. Besides the time per response, every result comes with "bytesOnWire" and "responses" lines from the
+ * @AuxCounters state: divide one by the other for the size of a response body. Compare size and time to see where
+ * compression stops paying: below about a kilobyte gzip saves hardly any bytes, but still costs event loop time on
+ * every response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CustomerCompressionBenchmark {
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    @Param({"1", "10", "100"})
+    private int customers;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<CustomerDTO> customerDtos = new ArrayList<>();
+    private byte[] precompressed;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    @Setup
+    public void setup() throws IOException {
+        CustomerTranslatorImpl customerTranslator = new CustomerTranslatorImpl();
+        for (int i = 0; i < customers; i++) {
+            Customer customer = new Customer();
+            customer.setCustomerId(1_000_000 + i);
+            customer.setFullName("Customer Number " + i);
+            customerDtos.add(customerTranslator.toContract(customer));
+        }
+        precompressed = gzip(objectMapper.writeValueAsBytes(customerDtos), Deflater.BEST_COMPRESSION);
+    }
+
+    /**
+     * Serialize the response on every request, and send it uncompressed.
+     */
+    @Benchmark
+    public byte[] plain(BytesOnWire bytesOnWire) throws IOException {
+        return bytesOnWire.send(objectMapper.writeValueAsBytes(customerDtos));
+    }
+
+    /**
+     * Serialize and gzip the response on every request (at Netty's default compression level).
+     */
+    @Benchmark
+    public byte[] gzipEveryRequest(BytesOnWire bytesOnWire) throws IOException {
+        return bytesOnWire.send(gzip(objectMapper.writeValueAsBytes(customerDtos), Deflater.DEFAULT_COMPRESSION));
+    }
+
+    /**
+     * Send a response that was serialized and gzipped ahead of time.
+     */
+    @Benchmark
+    public byte[] precompressed(BytesOnWire bytesOnWire) {
+        return bytesOnWire.send(precompressed);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    private static byte[] gzip(byte[] bytes, int level) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(level);
+            }
+        }) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Counts the responses "sent", and the bytes of their bodies, in every iteration.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class BytesOnWire {
+
+        public long bytesOnWire;
+        public long responses;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytesOnWire = 0;
+            responses = 0;
+        }
+
+        byte[] send(byte[] body) {
+            bytesOnWire += body.length;
+            responses++;
+            return body;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares customer lookups keyed by boxed Integers (and returning Optionals) with the primitive int-keyed lookups
+ * used by the near-cache and batch code paths.
+ * <p>
+ * DEVELOPER NOTE: JMH (the Java Microbenchmark Harness) takes care of warming up the JIT compiler, and of making sure
+ * that the JIT doesn't optimize away the code being measured. Run it with "./gradlew jmh". The "gc" profiler is turned
+ * on in build.gradle, so every result comes with a "gc.alloc.rate.norm" line: the number of bytes allocated per call.
+ * That's the number to watch here, since every allocated byte is eventually work for the garbage collector.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(4)
+public class CustomerLookupBenchmark {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    /**
+     * Customer IDs start well outside of the -128 to 127 range of Integers that Java caches.
+     */
+    private static final int FIRST_CUSTOMER_ID = 1_000_000;
+
+    private static final int PINNED_CUSTOMERS = 64;
+    private static final int LOOKUPS = 1024;
+    private static final int BATCH_SIZE = 100;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final Map<Integer, Customer> boxedCache = new ConcurrentHashMap<>();
+    private final CustomerNearCacheImpl nearCache = new CustomerNearCacheImpl(null, null);
+    private final int[] customerIds = new int[LOOKUPS];
+    private final int[] batch = new int[BATCH_SIZE];
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < PINNED_CUSTOMERS; i++) {
+            Customer customer = new Customer();
+            customer.setCustomerId(FIRST_CUSTOMER_ID + i);
+            boxedCache.put(customer.getCustomerId(), customer);
+            nearCache.pin(customer);
+        }
+
+        // Half of the lookups hit a pinned customer, half miss
+        Random random = new Random(42);
+        for (int i = 0; i < LOOKUPS; i++) {
+            customerIds[i] = FIRST_CUSTOMER_ID + random.nextInt(PINNED_CUSTOMERS * 2);
+        }
+        System.arraycopy(customerIds, 0, batch, 0, BATCH_SIZE);
+    }
+
+    /**
+     * Look up every customer ID the way CustomerService.getCustomer(Integer) used to: a boxed ID, and an Optional.
+     */
+    @Benchmark
+    public void boxedLookup(Blackhole blackhole) {
+        for (int customerId : customerIds) {
+            blackhole.consume(Optional.ofNullable(boxedCache.get(customerId)).orElse(null));
+        }
+    }
+
+    /**
+     * Look up every customer ID in the near-cache, with primitive IDs all the way down.
+     */
+    @Benchmark
+    public void primitiveLookup(Blackhole blackhole) {
+        for (int customerId : customerIds) {
+            blackhole.consume(nearCache.get(customerId));
+        }
+    }
+
+    /**
+     * Collect a batch of Customers into a HashMap keyed by boxed IDs.
+     */
+    @Benchmark
+    public Map<Integer, Customer> boxedBatch() {
+        Map<Integer, Customer> customers = new HashMap<>(BATCH_SIZE * 2);
+        for (int customerId : batch) {
+            Customer customer = boxedCache.get(customerId);
+            if (customer != null) {
+                customers.put(customerId, customer);
+            }
+        }
+        return customers;
+    }
+
+    /**
+     * Collect a batch of Customers into an IntObjectMap, the way CustomerService.getCustomers(int[]) does.
+     */
+    @Benchmark
+    public IntObjectMap<Customer> primitiveBatch() {
+        IntObjectMap<Customer> customers = new IntObjectHashMap<>(BATCH_SIZE);
+        for (int customerId : batch) {
+            Customer customer = nearCache.get(customerId);
+            if (customer != null) {
+                customers.put(customerId, customer);
+            }
+        }
+        return customers;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,122 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import io.micronaut.context.ApplicationContext;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a lookup of a Customer by ID through the EntityManager (CustomerRepositoryImpl: a read-only transaction, the
+ * persistence context and an entity snapshot) with the same lookup through a StatelessSession
+ * (StatelessCustomerRepositoryImpl).
+ * <p>
+ * DEVELOPER NOTE: Both read the same rows of the same in-memory H2 database, through the same connection pool, so the
+ * difference between them is the cost of the Hibernate machinery around the query. Watch both the time per lookup and
+ * "gc.alloc.rate.norm" (the bytes allocated per lookup). Tracing and SQL statistics are turned off, so that they don't
+ * add the same overhead to both. Run it with "./gradlew jmh".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(4)
+public class CustomerStatelessReadBenchmark {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    private static final int FIRST_CUSTOMER_ID = 1_000_000;
+    private static final int CUSTOMERS = 1024;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private ApplicationContext applicationContext;
+    private CustomerRepositoryImpl entityManagerRepository;
+    private StatelessCustomerRepositoryImpl statelessRepository;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    @Setup
+    public void setup() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("datasources.default.url", "jdbc:h2:mem:statelessreadbenchmark;DB_CLOSE_DELAY=-1");
+        properties.put("tracing.enabled", false);
+        properties.put("sql.statistics.enabled", false);
+        properties.put("customer.warm-up.enabled", false);
+        applicationContext = ApplicationContext.run(properties);
+
+        SessionFactory sessionFactory = applicationContext.getBean(SessionFactory.class);
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            session.beginTransaction();
+            for (int i = 0; i < CUSTOMERS; i++) {
+                Customer customer = new Customer();
+                customer.setCustomerId(FIRST_CUSTOMER_ID + i);
+                customer.setFullName("Customer Number " + i);
+                customer.setStreetAddress(i + " Main Street");
+                session.insert(customer);
+            }
+            session.getTransaction().commit();
+        }
+
+        entityManagerRepository = applicationContext.getBean(CustomerRepositoryImpl.class);
+        statelessRepository = new StatelessCustomerRepositoryImpl(entityManagerRepository, sessionFactory);
+    }
+
+    @TearDown
+    public void tearDown() {
+        applicationContext.close();
+    }
+
+    /**
+     * Look up a Customer with EntityManager.find(), the way CustomerRepositoryImpl does.
+     */
+    @Benchmark
+    public Customer entityManagerFind(Lookups lookups) {
+        return entityManagerRepository.findByIdOrNull(lookups.nextCustomerId());
+    }
+
+    /**
+     * Look up a Customer with StatelessSession.get(), the way StatelessCustomerRepositoryImpl does.
+     */
+    @Benchmark
+    public Customer statelessGet(Lookups lookups) {
+        return statelessRepository.findByIdOrNull(lookups.nextCustomerId());
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Hands every benchmark thread the customer IDs to look up, in turn.
+     */
+    @State(Scope.Thread)
+    public static class Lookups {
+
+        private int next;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            next = 0;
+        }
+
+        int nextCustomerId() {
+            next = (next + 1) % CUSTOMERS;
+            return FIRST_CUSTOMER_ID + next;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.customer.contract.CustomerDTO;
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.dbs.micronaut.demo.customer.entity.Order;
+import org.hibernate.collection.internal.PersistentSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.reflect.Method;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of translating a Customer to a CustomerDTO with CustomerTranslatorImpl, compared with a
+ * reflection-based bean copy (the way a runtime mapping library would do it).
+ * <p>
+ * DEVELOPER NOTE: Run with the gc profiler ("-prof gc") and look at gc.alloc.rate.norm, the bytes allocated per
+ * translation. For a Customer whose Orders haven't been loaded (the hot path: every GET /v1/customers/{id}), the
+ * translator should allocate nothing but the CustomerDTO itself. Only a Customer whose Orders have been loaded pays
+ * for a list of order numbers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CustomerTranslatorBenchmark {
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final CustomerTranslatorImpl customerTranslator = new CustomerTranslatorImpl();
+    private final Customer customer = new Customer();
+    private final Customer customerWithOrders = new Customer();
+    private final Method[] getters = new Method[3];
+    private final Method[] setters = new Method[3];
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() throws NoSuchMethodException {
+        for (Customer c : new Customer[]{customer, customerWithOrders}) {
+            c.setCustomerId(1_000_000);
+            c.setFullName("Customer Number 1000000");
+            c.setLastReadTimestamp(Instant.now());
+        }
+        customer.setOrders(new PersistentSet());
+
+        Set<Order> orders = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            Order order = new Order();
+            order.setOrderNumber("ORDER-" + i);
+            order.setCustomer(customerWithOrders);
+            orders.add(order);
+        }
+        customerWithOrders.setOrders(orders);
+
+        // Look the accessors up once, like a runtime mapper would cache them
+        getters[0] = Customer.class.getMethod("getCustomerId");
+        getters[1] = Customer.class.getMethod("getFullName");
+        getters[2] = Customer.class.getMethod("getLastReadTimestamp");
+        setters[0] = CustomerDTO.class.getMethod("setId", Integer.class);
+        setters[1] = CustomerDTO.class.getMethod("setFullName", String.class);
+        setters[2] = CustomerDTO.class.getMethod("setLastReadTimestamp", Instant.class);
+    }
+
+    /**
+     * Translate a Customer whose Orders haven't been loaded.
+     */
+    @Benchmark
+    public CustomerDTO translator() {
+        return customerTranslator.toContract(customer);
+    }
+
+    /**
+     * Translate a Customer with ten loaded Orders.
+     */
+    @Benchmark
+    public CustomerDTO translatorWithOrders() {
+        return customerTranslator.toContract(customerWithOrders);
+    }
+
+    /**
+     * Copy the same properties as translator() through cached reflective getters and setters.
+     */
+    @Benchmark
+    public CustomerDTO reflection() throws ReflectiveOperationException {
+        CustomerDTO customerDto = CustomerDTO.class.getDeclaredConstructor().newInstance();
+        for (int i = 0; i < getters.length; i++) {
+            setters[i].invoke(customerDto, getters[i].invoke(customer));
+        }
+        return customerDto;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,77 @@
+package com.dbs.micronaut.demo.ratelimit.impl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what the rate limiter adds to every request to a rate-limited route.
+ * <p>
+ * DEVELOPER NOTE: At 100,000 requests per second, a rate limiter that takes a microsecond per request would take a
+ * tenth of a CPU core on its own; one that takes 100ns takes a hundredth. Each benchmark runs on 4 threads at once, so
+ * the numbers include contention: "manyClients" is normal traffic (10,000 clients, well within their limits),
+ * "oneClient" is every thread hammering the same bucket (the worst case for the compare-and-set), and "unlimitedPath"
+ * is the cost for a path that no route limits (matching the route patterns, and nothing else). Run it with
+ * "./gradlew jmh".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(4)
+public class RateLimiterBenchmark {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    private static final int CLIENTS = 10_000;
+
+    private static final String CUSTOMER_PATH = "/v1/customers/1234567";
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    /**
+     * A rate so high that no client is ever turned away, so that every call takes the same path.
+     */
+    private final RateLimiterImpl rateLimiter = new RateLimiterImpl("/v1/customers/[0-9]+=1000000000/1000000",
+            Duration.ofMinutes(5));
+
+    private final String[] clients = new String[CLIENTS];
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < CLIENTS; i++) {
+            clients[i] = "10.0." + (i / 256) + "." + (i % 256);
+        }
+    }
+
+    @Benchmark
+    public long manyClients() {
+        return rateLimiter.tryAcquire(CUSTOMER_PATH, clients[ThreadLocalRandom.current().nextInt(CLIENTS)]);
+    }
+
+    @Benchmark
+    public long oneClient() {
+        return rateLimiter.tryAcquire(CUSTOMER_PATH, clients[0]);
+    }
+
+    @Benchmark
+    public long unlimitedPath() {
+        return rateLimiter.tryAcquire("/v1/orders", clients[0]);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
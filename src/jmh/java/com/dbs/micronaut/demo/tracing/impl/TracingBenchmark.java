@@ -0,0 +1,73 @@
+package com.dbs.micronaut.demo.tracing.impl;
+
+import com.dbs.micronaut.demo.tracing.Scope;
+import com.dbs.micronaut.demo.tracing.Span;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what a Span costs: a Span that isn't sampled (the vast majority of them, and the one that matters for
+ * overhead) and a Span that is sampled and exported.
+ * <p>
+ * DEVELOPER NOTE: A traced customer lookup starts about six Spans (request, controller, service, repository, SQL and
+ * serialization). Multiply the "unsampled" result by six, add the "sampled" result times six times the sample ratio,
+ * and compare that with the latency of a request (typically a millisecond or more) to get the overhead of tracing.
+ * Run it with "./gradlew jmh".
+ * <p>
+ * (JMH has a Scope annotation of its own, hence the fully qualified name below.)
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(4)
+public class TracingBenchmark {
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final TracerImpl unsampledTracer = new TracerImpl(new InMemorySpanExporter(1000), true, 0);
+    private final TracerImpl sampledTracer = new TracerImpl(new InMemorySpanExporter(1000), true, 1);
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Start, activate and end a Span (with a child) that isn't sampled.
+     */
+    @Benchmark
+    public Span unsampled() {
+        return traceTwoLevels(unsampledTracer);
+    }
+
+    /**
+     * Start, activate, end and export a Span (with a child) that is sampled.
+     */
+    @Benchmark
+    public Span sampled() {
+        return traceTwoLevels(sampledTracer);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    private static Span traceTwoLevels(TracerImpl tracer) {
+        Span span = tracer.startSpan("parent");
+        Span child;
+        try (Scope scope = tracer.activate(span)) {
+            child = tracer.startSpan("child");
+            child.setAttribute("db.statement", "select 1");
+            child.end();
+        }
+        span.end();
+        return child;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,52 @@
+package com.dbs.micronaut.demo.blocking;
+
+import java.util.Set;
+
+/**
+ * Flags blocking calls (JDBC, Hibernate session operations, socket I/O) made on a Netty event loop thread.
+ * <p>
+ * DEVELOPER NOTE: An event loop thread serves the requests of many connections, one at a time. Every millisecond it
+ * spends waiting on a database or a socket is a millisecond that none of those connections gets served, and nothing
+ * in the code says so: Single.fromCallable() without subscribeOn() runs its callable on whatever thread subscribes to
+ * it, which for a controller is the event loop. Blocking code calls checkBlockingCall() right before it blocks. That
+ * does nothing at all unless "blocking.detector.enabled" is set to true (in development, staging and tests).
+ */
+public interface BlockingCallDetector {
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * The kinds of blocking calls that are detected.
+     */
+    enum CallType {
+        JDBC,
+        HIBERNATE,
+        SOCKET
+    }
+
+    /**
+     * Record a blocking call of the given type if the current thread is an event loop thread: count it, and log its
+     * stack trace the first time it's made from its call site.
+     *
+     * @param operation what is being called (for example "executeQuery" or "load"), for the log
+     */
+    void checkBlockingCall(CallType type, String operation);
+
+    /**
+     * Return true if the current thread is a Netty event loop thread.
+     */
+    boolean isEventLoopThread();
+
+    /**
+     * Return the number of blocking calls of the given type made on event loop threads so far.
+     */
+    long getBlockingCalls(CallType type);
+
+    /**
+     * Return the call sites (the application class, method and line) that have made blocking calls on event loop
+     * threads so far.
+     */
+    Set<String> getCallSites();
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
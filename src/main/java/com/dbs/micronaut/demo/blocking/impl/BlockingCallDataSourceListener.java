@@ -0,0 +1,51 @@
+package com.dbs.micronaut.demo.blocking.impl;
+
+import com.dbs.micronaut.demo.blocking.BlockingCallDetector;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.event.BeanCreatedEvent;
+import io.micronaut.context.event.BeanCreatedEventListener;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+import javax.sql.DataSource;
+
+/**
+ * Replaces every DataSource bean (just after Micronaut creates it) with one that checks every JDBC call that blocks
+ * with the BlockingCallDetector, when "blocking.detector.enabled" is set to true.
+ * <p>
+ * DEVELOPER NOTE: The DataSource is only wrapped when the detector is enabled, so production pays nothing for it.
+ *
+ * @see BlockingCallJdbcHandler
+ */
+@Singleton
+@Requires(property = "blocking.detector.enabled", value = "true")
+public class BlockingCallDataSourceListener implements BeanCreatedEventListener<DataSource> {
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final Provider<BlockingCallDetector> blockingCallDetectorProvider;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    @Inject
+    BlockingCallDataSourceListener(Provider<BlockingCallDetector> blockingCallDetectorProvider) {
+        this.blockingCallDetectorProvider = blockingCallDetectorProvider;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Replace the given DataSource with a checked one.
+     */
+    @Override
+    public DataSource onCreated(BeanCreatedEvent<DataSource> event) {
+        return BlockingCallJdbcHandler.check(blockingCallDetectorProvider.get(), DataSource.class, event.getBean());
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,153 @@
+package com.dbs.micronaut.demo.blocking.impl;
+
+import com.dbs.micronaut.demo.blocking.BlockingCallDetector;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micronaut.context.annotation.Value;
+import io.netty.util.concurrent.FastThreadLocalThread;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.lang.reflect.InvocationHandler;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Flags blocking calls made on Netty event loop threads (see BlockingCallDetector).
+ * <p>
+ * DEVELOPER NOTE: Netty creates its event loop threads as FastThreadLocalThreads, and Micronaut's executors (the "io"
+ * executor, the scheduler) don't, so that is how an event loop thread is recognized. Checking costs a single
+ * instanceof, so JDBC and Hibernate calls made elsewhere pay next to nothing. Only a blocking call that is actually
+ * made on an event loop walks the stack, to find the application code that made it (the first frame in the
+ * application package, outside this package): the stack trace is logged the first time a call site blocks, and after
+ * that the call is only counted (see the "blocking.calls" metric, tagged by call type).
+ *
+ * @see BlockingCallDataSourceListener
+ * @see BlockingCallHibernateListener
+ */
+@Slf4j
+@Singleton
+public class BlockingCallDetectorImpl implements BlockingCallDetector, MeterBinder {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    /**
+     * The most call sites remembered (and logged). Beyond that, blocking calls are only counted.
+     */
+    private static final int MAX_CALL_SITES = 1000;
+
+    private static final String DETECTOR_PACKAGE = BlockingCallDetector.class.getPackage().getName();
+
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance(
+            StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final boolean enabled;
+    private final String applicationPackage;
+    private final Map<CallType, LongAdder> blockingCalls = new EnumMap<>(CallType.class);
+    private final Set<String> callSites = ConcurrentHashMap.newKeySet();
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    /**
+     * Create a new BlockingCallDetectorImpl.
+     *
+     * @param applicationPackage the package of the application code to report as the call site of a blocking call
+     */
+    @Inject
+    BlockingCallDetectorImpl(@Value("${blocking.detector.enabled:false}") boolean enabled,
+                             @Value("${blocking.detector.application-package:com.dbs.micronaut.demo}")
+                                     String applicationPackage) {
+        this.enabled = enabled;
+        this.applicationPackage = applicationPackage;
+        for (CallType type : CallType.values()) {
+            blockingCalls.put(type, new LongAdder());
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    @Override
+    public void checkBlockingCall(CallType type, String operation) {
+        if (!enabled || !isEventLoopThread()) {
+            return;
+        }
+        blockingCalls.get(type).increment();
+
+        String callSite = findCallSite();
+        if ((callSites.size() < MAX_CALL_SITES) && callSites.add(type + " " + callSite)) {
+            log.warn("Blocking {} call ({}) on event loop thread {} from {}", type, operation,
+                    Thread.currentThread().getName(), callSite,
+                    new IllegalStateException("Blocking " + type + " call on an event loop thread"));
+        }
+    }
+
+    @Override
+    public boolean isEventLoopThread() {
+        return Thread.currentThread() instanceof FastThreadLocalThread;
+    }
+
+    @Override
+    public long getBlockingCalls(CallType type) {
+        return blockingCalls.get(type).sum();
+    }
+
+    @Override
+    public Set<String> getCallSites() {
+        return Collections.unmodifiableSet(callSites);
+    }
+
+    /**
+     * Register a "blocking.calls" counter for every call type with Micrometer (and therefore the /metrics endpoint).
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (CallType type : CallType.values()) {
+            FunctionCounter.builder("blocking.calls", blockingCalls.get(type), LongAdder::sum)
+                    .description("Blocking calls made on event loop threads")
+                    .tag("type", type.name().toLowerCase())
+                    .register(registry);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    /**
+     * Return the first stack frame of the current thread in the application package (outside this package), or
+     * failing that, the first one outside this package.
+     * <p>
+     * DEVELOPER NOTE: The other JDBC proxies of the application (SQL statistics, tracing) may be called in between
+     * the code that runs a statement and this detector's own proxy, so InvocationHandlers are skipped as well.
+     */
+    private String findCallSite() {
+        Optional<StackWalker.StackFrame> frame = STACK_WALKER.walk(frames -> frames
+                .filter(f -> !f.getClassName().startsWith(DETECTOR_PACKAGE))
+                .filter(f -> f.getClassName().startsWith(applicationPackage))
+                .filter(f -> !InvocationHandler.class.isAssignableFrom(f.getDeclaringClass()))
+                .findFirst());
+        if (!frame.isPresent()) {
+            frame = STACK_WALKER.walk(frames -> frames
+                    .filter(f -> !f.getClassName().startsWith(DETECTOR_PACKAGE))
+                    .findFirst());
+        }
+        return frame.map(f -> f.getClassName() + "." + f.getMethodName() + ":" + f.getLineNumber()).orElse("unknown");
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,151 @@
+package com.dbs.micronaut.demo.blocking.impl;
+
+import com.dbs.micronaut.demo.blocking.BlockingCallDetector;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.event.BeanCreatedEvent;
+import io.micronaut.context.event.BeanCreatedEventListener;
+import org.hibernate.SessionFactory;
+import org.hibernate.SessionFactoryObserver;
+import org.hibernate.boot.SessionFactoryBuilder;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.DeleteEvent;
+import org.hibernate.event.spi.DeleteEventListener;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.FlushEvent;
+import org.hibernate.event.spi.FlushEventListener;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.LoadEvent;
+import org.hibernate.event.spi.LoadEventListener;
+import org.hibernate.event.spi.MergeEvent;
+import org.hibernate.event.spi.MergeEventListener;
+import org.hibernate.event.spi.PersistEvent;
+import org.hibernate.event.spi.PersistEventListener;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Checks the EntityManager (Hibernate session) operations that may block with the BlockingCallDetector, when
+ * "blocking.detector.enabled" is set to true: finding, persisting, merging and removing entities, loading lazy
+ * collections, and flushing.
+ * <p>
+ * DEVELOPER NOTE: Most of these operations only reach the database some of the time (a find may be answered by the
+ * persistence context, a persist may be queued until the flush). They're flagged anyway: the same code on the event
+ * loop does reach the database as soon as the entity isn't in the persistence context, and the JDBC check (see
+ * BlockingCallDataSourceListener) can only flag the statement, not the EntityManager call that caused it. Like
+ * CustomerOrderSummaryListener, the listeners are registered with every SessionFactory as it's built.
+ */
+@Singleton
+@Requires(property = "blocking.detector.enabled", value = "true")
+public class BlockingCallHibernateListener implements BeanCreatedEventListener<SessionFactoryBuilder>,
+        SessionFactoryObserver, LoadEventListener, PersistEventListener, MergeEventListener, DeleteEventListener,
+        FlushEventListener, InitializeCollectionEventListener {
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final Provider<BlockingCallDetector> blockingCallDetectorProvider;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    @Inject
+    BlockingCallHibernateListener(Provider<BlockingCallDetector> blockingCallDetectorProvider) {
+        this.blockingCallDetectorProvider = blockingCallDetectorProvider;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Observe every SessionFactory that is built by a SessionFactoryBuilder.
+     */
+    @Override
+    public SessionFactoryBuilder onCreated(BeanCreatedEvent<SessionFactoryBuilder> event) {
+        return event.getBean().addSessionFactoryObservers(this);
+    }
+
+    /**
+     * Register this class with the Hibernate event listener registry of a SessionFactory that has just been built,
+     * ahead of Hibernate's own listeners (which do the actual work).
+     */
+    @Override
+    public void sessionFactoryCreated(SessionFactory factory) {
+        EventListenerRegistry registry = ((SessionFactoryImplementor) factory).getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.prependListeners(EventType.LOAD, this);
+        registry.prependListeners(EventType.PERSIST, this);
+        registry.prependListeners(EventType.MERGE, this);
+        registry.prependListeners(EventType.DELETE, this);
+        registry.prependListeners(EventType.FLUSH, this);
+        registry.prependListeners(EventType.INIT_COLLECTION, this);
+    }
+
+    /**
+     * Called by Hibernate when a SessionFactory has been closed. Nothing to clean up.
+     */
+    @Override
+    public void sessionFactoryClosed(SessionFactory factory) {
+    }
+
+    @Override
+    public void onLoad(LoadEvent event, LoadType loadType) {
+        check("load");
+    }
+
+    @Override
+    public void onPersist(PersistEvent event) {
+        check("persist");
+    }
+
+    @Override
+    public void onPersist(PersistEvent event, Map createdAlready) {
+        check("persist");
+    }
+
+    @Override
+    public void onMerge(MergeEvent event) {
+        check("merge");
+    }
+
+    @Override
+    public void onMerge(MergeEvent event, Map copiedAlready) {
+        check("merge");
+    }
+
+    @Override
+    public void onDelete(DeleteEvent event) {
+        check("delete");
+    }
+
+    @Override
+    public void onDelete(DeleteEvent event, Set transientEntities) {
+        check("delete");
+    }
+
+    @Override
+    public void onFlush(FlushEvent event) {
+        check("flush");
+    }
+
+    @Override
+    public void onInitializeCollection(InitializeCollectionEvent event) {
+        check("initializeCollection");
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    private void check(String operation) {
+        blockingCallDetectorProvider.get().checkBlockingCall(BlockingCallDetector.CallType.HIBERNATE, operation);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
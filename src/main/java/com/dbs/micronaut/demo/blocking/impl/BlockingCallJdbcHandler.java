@@ -0,0 +1,80 @@
+package com.dbs.micronaut.demo.blocking.impl;
+
+import com.dbs.micronaut.demo.blocking.BlockingCallDetector;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+
+/**
+ * The InvocationHandler behind a checked DataSource, Connection or Statement. Getting a Connection, committing or
+ * rolling it back, and executing a Statement are checked with the BlockingCallDetector before they're called.
+ * DataSources hand out checked Connections, and Connections hand out checked Statements.
+ *
+ * @see BlockingCallDataSourceListener
+ */
+class BlockingCallJdbcHandler implements InvocationHandler {
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final BlockingCallDetector blockingCallDetector;
+    private final Object target;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    private BlockingCallJdbcHandler(BlockingCallDetector blockingCallDetector, Object target) {
+        this.blockingCallDetector = blockingCallDetector;
+        this.target = target;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Return the given JDBC object (a DataSource, Connection or Statement), checked.
+     */
+    static <T> T check(BlockingCallDetector blockingCallDetector, Class<T> type, T target) {
+        return type.cast(Proxy.newProxyInstance(BlockingCallJdbcHandler.class.getClassLoader(), new Class<?>[]{type},
+                new BlockingCallJdbcHandler(blockingCallDetector, target)));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String methodName = method.getName();
+        Class<?> returnType = method.getReturnType();
+        if (methodName.equals("equals") && (method.getParameterCount() == 1)) {
+            return proxy == args[0];
+        }
+
+        if ((target instanceof Statement) ? methodName.startsWith("execute")
+                : (methodName.equals("getConnection") || methodName.equals("commit")
+                || methodName.equals("rollback"))) {
+            blockingCallDetector.checkBlockingCall(BlockingCallDetector.CallType.JDBC, methodName);
+        }
+
+        Object result;
+        try {
+            result = method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+
+        // Hand out checked Connections and Statements
+        if ((returnType == Connection.class) && !(target instanceof Statement)) {
+            return check(blockingCallDetector, Connection.class, (Connection) result);
+        }
+        if ((target instanceof Connection) && Statement.class.isAssignableFrom(returnType)) {
+            return check(blockingCallDetector, (Class<Object>) returnType, result);
+        }
+        return result;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
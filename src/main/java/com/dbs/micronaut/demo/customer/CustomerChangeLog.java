@@ -0,0 +1,33 @@
+package com.dbs.micronaut.demo.customer;
+
+import com.dbs.micronaut.demo.customer.event.CustomerChange;
+
+import java.util.List;
+
+/**
+ * A bounded, in-process log of the most recent committed changes to Customers and their Orders. Every change gets
+ * the next offset in the log, so that a reader can always pick up exactly where it left off.
+ */
+public interface CustomerChangeLog {
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Return (at most the given number of) the changes starting at the given offset, oldest first.
+     *
+     * @return an empty List if there are no changes at or after the given offset
+     */
+    List<CustomerChange> read(long fromOffset, int maxChanges);
+
+    /**
+     * Return the offset of the oldest change still held in the log. Changes before it have been overwritten.
+     */
+    long getOldestOffset();
+
+    /**
+     * Return the offset that the next change will be given.
+     */
+    long getNextOffset();
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
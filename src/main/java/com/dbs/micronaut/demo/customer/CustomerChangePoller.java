@@ -0,0 +1,19 @@
+package com.dbs.micronaut.demo.customer;
+
+/**
+ * Polls the database for Customers changed by other systems (or other instances of this application), and refreshes
+ * them in the caches and in-memory indexes.
+ */
+public interface CustomerChangePoller {
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Read the Customers changed since the last poll, and publish an EntityChangeEvent for each of them.
+     *
+     * @return the number of changed Customers found
+     */
+    int poll();
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,63 @@
+package com.dbs.micronaut.demo.customer;
+
+/**
+ * Limits how many customer requests may be in progress at once, adapting the limit to how quickly the database is
+ * answering, so that excess requests are turned away immediately instead of queueing up behind a slow database.
+ */
+public interface CustomerConcurrencyLimiter {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    /**
+     * The priority class of a request. Each class may only use its share of the concurrency limit, so less important
+     * requests are turned away first as the limit shrinks.
+     */
+    enum Priority {
+        CRITICAL(1.0), NORMAL(0.9), SHEDDABLE(0.5);
+
+        private final double share;
+
+        Priority(double share) {
+            this.share = share;
+        }
+
+        /**
+         * Return the share (0.0 to 1.0) of the concurrency limit that requests of this priority may use.
+         */
+        public double getShare() {
+            return share;
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Try to start a request of the given priority. Returns false, without waiting, if the request should be turned
+     * away. Every successful call must be followed by exactly one call to release().
+     */
+    boolean tryAcquire(Priority priority);
+
+    /**
+     * Finish a request that was started by tryAcquire().
+     */
+    void release();
+
+    /**
+     * Record how long a single database lookup took, which is used to adapt the concurrency limit.
+     */
+    void recordLatency(long latencyNanos);
+
+    /**
+     * Return the current concurrency limit.
+     */
+    int getLimit();
+
+    /**
+     * Return the number of requests currently in progress.
+     */
+    int getInFlight();
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
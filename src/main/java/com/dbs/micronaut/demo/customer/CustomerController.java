@@ -1,9 +1,14 @@
 package com.dbs.micronaut.demo.customer;
 
+import com.dbs.micronaut.demo.customer.contract.CustomerChangeDTO;
 import com.dbs.micronaut.demo.customer.contract.CustomerDTO;
 import io.micronaut.http.MutableHttpResponse;
+import io.micronaut.http.sse.Event;
+import io.reactivex.Flowable;
 import io.reactivex.Single;
 
+import java.util.List;
+
 /**
  * This REST API controller is responsible for providing an API for managing Customer entities.
  */
@@ -13,8 +18,33 @@ public interface CustomerController {
 
     /**
      * Return a CustomerDTO of a Customer with the given ID.
+     *
+     * @param orderSummary   whether to include the Customer's order count and latest order number (null for false)
+     * @param acceptEncoding the Accept-Encoding header of the request, or null
+     */
+    Single<MutableHttpResponse<?>> getCustomer(Integer customerId, Boolean orderSummary, String acceptEncoding);
+
+    /**
+     * Return CustomerDTOs of the Customers with the given comma-separated IDs.
+     *
+     * @param orderSummary whether to include the Customers' order counts and latest order numbers (null for false)
+     */
+    Single<MutableHttpResponse<List<CustomerDTO>>> getCustomers(String ids, Boolean orderSummary);
+
+    /**
+     * Change the Customer with the given ID as described by the given CustomerDTO, and return the changed Customer.
+     */
+    Single<MutableHttpResponse<?>> updateCustomer(Integer customerId, CustomerDTO customerDto);
+
+    /**
+     * Return CustomerDTOs of the Customers whose full names match the given query, best matches first.
+     */
+    Single<MutableHttpResponse<List<CustomerDTO>>> searchCustomers(String q, Integer limit);
+
+    /**
+     * Return a never-ending stream of the changes to Customers (and their Orders), starting after the given offset.
      */
-    Single<MutableHttpResponse<CustomerDTO>> getCustomer(Integer customerId);
+    Flowable<Event<CustomerChangeDTO>> getCustomerChanges(Long since, Long lastEventId);
 
     // -----------------------------------------------------------------------------------------------------------------
 }
@@ -0,0 +1,29 @@
+package com.dbs.micronaut.demo.customer;
+
+import java.util.Map;
+
+/**
+ * Tracks how often each customer ID is read so that the small set of "hot" customers that receive most of the traffic
+ * can be identified in real time.
+ */
+public interface CustomerHotKeyTracker {
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Record a single read of the Customer with the given ID.
+     */
+    void recordRead(int customerId);
+
+    /**
+     * Returns whether or not the Customer with the given ID is currently considered to be hot.
+     */
+    boolean isHot(int customerId);
+
+    /**
+     * Return the currently hot customer IDs mapped to their estimated read counts, ordered from hottest to coldest.
+     */
+    Map<Integer, Long> getHotCustomerIds();
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,22 @@
+package com.dbs.micronaut.demo.customer;
+
+/**
+ * A compact, probabilistic set of every existing customer ID, used to avoid asking the database for customers that
+ * definitely don't exist.
+ */
+public interface CustomerIdFilter {
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Returns false if the Customer with the given ID definitely does not exist. Returns true if it might exist.
+     */
+    boolean mightContain(int customerId);
+
+    /**
+     * Add the given customer ID to the filter.
+     */
+    void add(int customerId);
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
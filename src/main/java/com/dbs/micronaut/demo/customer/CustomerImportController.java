@@ -0,0 +1,23 @@
+package com.dbs.micronaut.demo.customer;
+
+import com.dbs.micronaut.demo.customer.contract.CustomerImportReportDTO;
+import io.micronaut.http.MutableHttpResponse;
+import io.micronaut.http.multipart.CompletedFileUpload;
+import io.reactivex.Single;
+
+/**
+ * This REST API controller is responsible for providing an API for importing files of Customers in bulk.
+ */
+public interface CustomerImportController {
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Import every row of the uploaded CSV or NDJSON file as a new Customer, and return a report of how it went.
+     *
+     * @param format "csv" or "ndjson", or null to go by the name of the uploaded file
+     */
+    Single<MutableHttpResponse<CustomerImportReportDTO>> importCustomers(CompletedFileUpload file, String format);
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,60 @@
+package com.dbs.micronaut.demo.customer;
+
+import com.dbs.micronaut.demo.customer.contract.CustomerImportReportDTO;
+import com.dbs.micronaut.demo.exception.BusinessException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Imports files of new Customers in bulk.
+ */
+public interface CustomerImporter {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    String INVALID_IMPORT_FORMAT = "Invalid import format [%s], must be [csv] or [ndjson].";
+
+    String MISSING_ID_COLUMN = "The CSV header [%s] has no [id] column.";
+
+    /**
+     * The formats of customer files that can be imported.
+     */
+    enum Format {
+
+        /**
+         * Comma-separated values, with a header line naming the columns: "id", and optionally "fullName" and
+         * "lastReadTimestamp" (in any order, other columns are ignored).
+         */
+        CSV,
+
+        /**
+         * Newline-delimited JSON: one CustomerDTO per line.
+         */
+        NDJSON
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Return the format of a customer file, given the format asked for, or else the name of the file.
+     *
+     * @param format   "csv" or "ndjson" (any case), or null to go by the file name
+     * @param fileName the name of the file (ending in ".csv", ".ndjson" or ".jsonl"), or null
+     * @throws BusinessException if the format is not one that can be imported.
+     */
+    Format getFormat(String format, String fileName) throws BusinessException;
+
+    /**
+     * Import every row of the given customer file as a new Customer. Rows that can't be imported (invalid rows, or
+     * Customers that already exist) are reported, and don't stop the rest of the file from being imported.
+     *
+     * @throws BusinessException if the file can't be imported at all (for example, a CSV file without an ID column).
+     * @throws IOException       if the file can't be read.
+     */
+    CustomerImportReportDTO importFile(Path file, Format format) throws BusinessException, IOException;
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,38 @@
+package com.dbs.micronaut.demo.customer;
+
+import com.dbs.micronaut.demo.customer.entity.Customer;
+
+import java.util.Set;
+
+/**
+ * A small, in-process cache that pins hot Customers in memory so that reads of those Customers never reach the
+ * database.
+ */
+public interface CustomerNearCache {
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Return the pinned Customer with the given ID.
+     *
+     * @return null if the Customer is not pinned
+     */
+    Customer get(int customerId);
+
+    /**
+     * Pin the given Customer into the cache.
+     */
+    void pin(Customer customer);
+
+    /**
+     * Un-pin the Customer with the given ID (if pinned), because it has changed elsewhere.
+     */
+    void evict(int customerId);
+
+    /**
+     * Return the IDs of all currently pinned Customers.
+     */
+    Set<Integer> getPinnedCustomerIds();
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
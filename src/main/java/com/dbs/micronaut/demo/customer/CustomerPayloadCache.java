@@ -0,0 +1,24 @@
+package com.dbs.micronaut.demo.customer;
+
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import io.micronaut.http.MutableHttpResponse;
+
+/**
+ * Holds the JSON of the Customers pinned in the near-cache already serialized (and, where it's worth it, already
+ * compressed), so that responses for hot Customers are just a copy of bytes.
+ */
+public interface CustomerPayloadCache {
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Return a 200-OK response holding the JSON of the given Customer (as a CustomerDTO), if it is pinned in the
+     * near-cache. The JSON is gzipped if the client accepts gzip and the JSON is above the compression threshold.
+     *
+     * @param acceptEncoding the Accept-Encoding header of the request, or null
+     * @return null if the Customer is not pinned, so its JSON isn't cached
+     */
+    MutableHttpResponse<byte[]> getResponse(Customer customer, String acceptEncoding);
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
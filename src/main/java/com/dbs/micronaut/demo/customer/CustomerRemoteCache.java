@@ -0,0 +1,39 @@
+package com.dbs.micronaut.demo.customer;
+
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import io.netty.util.collection.IntObjectMap;
+
+/**
+ * A cache of Customers shared by every instance of the application, which sits between each instance's near-cache and
+ * the database. A Customer read from the database by one instance can then be served to every other instance without
+ * reading it from the database again.
+ */
+public interface CustomerRemoteCache {
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Return the cached Customer with the given ID.
+     *
+     * @return null if the Customer is not cached (or the cache can't be reached)
+     */
+    Customer get(int customerId);
+
+    /**
+     * Return the cached Customers with the given IDs, keyed by customer ID. Customers that aren't cached are simply
+     * left out.
+     */
+    IntObjectMap<Customer> getAll(int[] customerIds);
+
+    /**
+     * Cache the given Customer (just read from the database).
+     */
+    void put(Customer customer);
+
+    /**
+     * Remove the Customer with the given ID from the cache, and from the near-cache of every instance.
+     */
+    void invalidate(int customerId);
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -1,9 +1,12 @@
 package com.dbs.micronaut.demo.customer;
 
 import com.dbs.micronaut.demo.customer.entity.Customer;
+import io.netty.util.collection.IntObjectMap;
 
 import javax.validation.constraints.NotNull;
 import java.util.Optional;
+import java.util.function.IntConsumer;
+import java.util.function.ObjIntConsumer;
 
 /**
  * Defines all application data access functionality related to the persistence and retrieval of Customer entities from
@@ -19,5 +22,27 @@ public interface CustomerRepository {
      */
     Optional<Customer> findById(@NotNull Integer id);
 
+    /**
+     * Return the Customer with the given ID.
+     *
+     * @return null if the Customer is not found
+     */
+    Customer findByIdOrNull(int id);
+
+    /**
+     * Return the Customers with the given IDs, keyed by customer ID. IDs that aren't found are simply left out.
+     */
+    IntObjectMap<Customer> findAllById(@NotNull int[] ids);
+
+    /**
+     * Stream the IDs of every Customer to the given consumer, without loading the Customers themselves.
+     */
+    void forEachCustomerId(@NotNull IntConsumer consumer);
+
+    /**
+     * Stream the full name and ID of every Customer to the given consumer, without loading the Customers themselves.
+     */
+    void forEachCustomerName(@NotNull ObjIntConsumer<String> consumer);
+
     // -----------------------------------------------------------------------------------------------------------------
 }
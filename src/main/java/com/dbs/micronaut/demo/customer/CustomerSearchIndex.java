@@ -0,0 +1,28 @@
+package com.dbs.micronaut.demo.customer;
+
+/**
+ * An in-memory index of the full names of every Customer, used to search for Customers by name without asking the
+ * database to scan the whole CUSTOMERS table.
+ */
+public interface CustomerSearchIndex {
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Return the IDs of (at most the given number of) the Customers whose names match every word of the given query,
+     * best matches first. A word matches a word of a name if it is the whole word, or the start of it.
+     */
+    int[] search(String query, int maxResults);
+
+    /**
+     * Add (or replace) the full name of the Customer with the given ID in the index.
+     */
+    void index(int customerId, String fullName);
+
+    /**
+     * Remove the Customer with the given ID from the index.
+     */
+    void remove(int customerId);
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
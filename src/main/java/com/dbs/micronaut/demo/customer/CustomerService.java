@@ -2,6 +2,9 @@ package com.dbs.micronaut.demo.customer;
 
 import com.dbs.micronaut.demo.customer.entity.Customer;
 import com.dbs.micronaut.demo.exception.BusinessException;
+import io.netty.util.collection.IntObjectMap;
+
+import java.util.List;
 
 /**
  * Defines all application business functionality related to the maintenance of Customer entities.
@@ -21,6 +24,39 @@ public interface CustomerService {
 
     String INVALID_CUSTOMER_ID = "Invalid customer ID [%s].";
 
+    String TOO_MANY_CUSTOMER_IDS = "Too many customer IDs [%s], at most [%s] may be requested at once.";
+
+    /**
+     * The maximum number of Customers that may be requested at once.
+     */
+    int MAX_CUSTOMER_IDS = 100;
+
+    String INVALID_SEARCH_QUERY = "Invalid search query [%s], at least [%s] letters are required.";
+
+    String INVALID_SEARCH_LIMIT = "Invalid search limit [%s], must be between [1] and [%s].";
+
+    String INVALID_FULL_NAME = "Invalid full name [%s], must be between [1] and [%s] characters.";
+
+    /**
+     * The maximum number of characters in a Customer's full name (the size of its column).
+     */
+    int MAX_FULL_NAME_LENGTH = 255;
+
+    /**
+     * The minimum number of letters in a search query.
+     */
+    int MIN_SEARCH_QUERY_LENGTH = 2;
+
+    /**
+     * The number of Customers returned by a search, unless asked for otherwise.
+     */
+    int DEFAULT_SEARCH_RESULTS = 20;
+
+    /**
+     * The maximum number of Customers that may be returned by a search.
+     */
+    int MAX_SEARCH_RESULTS = MAX_CUSTOMER_IDS;
+
     // -----------------------------------------------------------------------------------------------------------------
 
     // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
@@ -33,10 +69,47 @@ public interface CustomerService {
      */
     Customer getCustomer(Integer customerId) throws BusinessException;
 
+    /**
+     * Return a Customer entity with the given ID.
+     *
+     * @return null if the Customer is not found
+     * @throws BusinessException if the given ID is not a valid customer ID.
+     */
+    Customer getCustomer(int customerId) throws BusinessException;
+
+    /**
+     * Return the Customer entities with the given IDs, keyed by customer ID. Customers that aren't found are simply
+     * left out.
+     *
+     * @throws BusinessException if any of the given IDs is not a valid customer ID, or too many IDs are given.
+     */
+    IntObjectMap<Customer> getCustomers(int[] customerIds) throws BusinessException;
+
+    /**
+     * Return (at most the given number of) the Customer entities whose full names match every word of the given query,
+     * best matches first.
+     *
+     * @throws BusinessException if the query is too short, or the number of results is out of range.
+     */
+    List<Customer> searchCustomers(String query, int maxResults) throws BusinessException;
+
+    /**
+     * Change the full name of the Customer with the given ID, and return the changed Customer.
+     *
+     * @return null if the Customer is not found
+     * @throws BusinessException if the given ID is not a valid customer ID, or the full name is blank or too long.
+     */
+    Customer updateCustomer(Integer customerId, String fullName) throws BusinessException;
+
     /**
      * Returns whether or not the given customer ID is a valid customer ID.
      */
     boolean isValidCustomerId(Integer customerId);
 
+    /**
+     * Returns whether or not the given customer ID is a valid customer ID.
+     */
+    boolean isValidCustomerId(int customerId);
+
     // -----------------------------------------------------------------------------------------------------------------
 }
@@ -1,7 +1,10 @@
 package com.dbs.micronaut.demo.customer;
 
+import com.dbs.micronaut.demo.customer.contract.CustomerChangeDTO;
 import com.dbs.micronaut.demo.customer.contract.CustomerDTO;
 import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.dbs.micronaut.demo.customer.entity.CustomerOrderSummary;
+import com.dbs.micronaut.demo.customer.event.CustomerChange;
 
 /**
  * Translate to and from CustomerDTO web service contracts and Customer business entities.
@@ -20,5 +23,17 @@ public interface CustomerTranslator {
      */
     CustomerDTO toContract(Customer customer);
 
+    /**
+     * Translate the given Customer, and its order summary, to a new CustomerDTO contract.
+     *
+     * @param orderSummary the Customer's order summary, or null if it has no Orders
+     */
+    CustomerDTO toContract(Customer customer, CustomerOrderSummary orderSummary);
+
+    /**
+     * Translate the given CustomerChange to a new CustomerChangeDTO contract.
+     */
+    CustomerChangeDTO toContract(CustomerChange change);
+
     // -----------------------------------------------------------------------------------------------------------------
 }
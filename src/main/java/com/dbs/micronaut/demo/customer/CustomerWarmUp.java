@@ -0,0 +1,22 @@
+package com.dbs.micronaut.demo.customer;
+
+/**
+ * Warms the application up after it starts (caches, database connections and the JIT compiler), so that the first
+ * real requests don't pay for it, and tells whether the application is ready for traffic yet.
+ */
+public interface CustomerWarmUp {
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Warm the application up, and mark it as ready once done.
+     */
+    void warmUp();
+
+    /**
+     * Returns whether or not the application has been warmed up and is ready for traffic.
+     */
+    boolean isReady();
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,23 @@
+package com.dbs.micronaut.demo.customer;
+
+import com.dbs.micronaut.demo.customer.entity.Customer;
+
+/**
+ * Writes changes to existing Customers to the database.
+ * <p>
+ * DEVELOPER NOTE: By default, a change is committed before update() returns. With "customer.write-behind.enabled" set
+ * to true, it's only appended to a local journal, and written to the database (together with every other change
+ * journaled since the last flush) a moment later. Either way, an EntityChangeEvent is published once the change has
+ * been committed, so the caches, the search index and the change log only ever hear about committed changes.
+ */
+public interface CustomerWriter {
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Write the given (changed) Customer to the database, replacing the Customer with the same ID.
+     */
+    void update(Customer customer);
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,27 @@
+package com.dbs.micronaut.demo.customer;
+
+import com.dbs.micronaut.demo.customer.contract.OrderDTO;
+import com.dbs.micronaut.demo.customer.contract.OrderPageDTO;
+import io.micronaut.http.MutableHttpResponse;
+import io.reactivex.Single;
+
+/**
+ * This REST API controller is responsible for providing an API for browsing Orders.
+ */
+public interface OrderController {
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Return an OrderDTO of the Order with the given order number.
+     */
+    Single<MutableHttpResponse<OrderDTO>> getOrder(String orderNumber);
+
+    /**
+     * Return a page of OrderDTOs of the Orders of the Customer with the given ID, starting after the given order
+     * number.
+     */
+    Single<MutableHttpResponse<OrderPageDTO>> getCustomerOrders(Integer customerId, String after, Integer limit);
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,47 @@
+package com.dbs.micronaut.demo.customer;
+
+import com.dbs.micronaut.demo.customer.entity.CustomerOrderSummary;
+import com.dbs.micronaut.demo.customer.entity.OrderSummary;
+import io.netty.util.collection.IntObjectMap;
+
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+/**
+ * Defines all application data access functionality related to the retrieval of Orders from a persistence store or
+ * external system (such as a database or external web service).
+ */
+public interface OrderRepository {
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Return a summary of the Order with the given order number.
+     *
+     * @return null if the Order is not found
+     */
+    OrderSummary findByOrderNumber(@NotNull String orderNumber);
+
+    /**
+     * Return summaries of (at most the given number of) the Orders of the given Customer, sorted by order number,
+     * starting after the given order number.
+     *
+     * @param afterOrderNumber the last order number of the previous page, or null for the first page
+     */
+    List<OrderSummary> findByCustomerId(int customerId, String afterOrderNumber, int limit);
+
+    /**
+     * Return the order summaries of the Customers with the given IDs, keyed by customer ID. Customers without a summary
+     * are simply left out.
+     */
+    IntObjectMap<CustomerOrderSummary> findSummariesByCustomerId(@NotNull int[] customerIds);
+
+    /**
+     * Recalculate every Customer's order summary from its Orders.
+     *
+     * @return the number of summaries written
+     */
+    int rebuildSummaries();
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,63 @@
+package com.dbs.micronaut.demo.customer;
+
+import com.dbs.micronaut.demo.customer.entity.CustomerOrderSummary;
+import com.dbs.micronaut.demo.customer.entity.OrderSummary;
+import com.dbs.micronaut.demo.exception.BusinessException;
+import io.netty.util.collection.IntObjectMap;
+
+import java.util.List;
+
+/**
+ * Defines all application business functionality related to the retrieval of Orders.
+ */
+public interface OrderService {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    String INVALID_ORDER_NUMBER = "Invalid order number [%s].";
+
+    String INVALID_PAGE_SIZE = "Invalid page size [%s], must be between [1] and [%s].";
+
+    /**
+     * The number of Orders returned in a page, unless asked for otherwise.
+     */
+    int DEFAULT_PAGE_SIZE = 100;
+
+    /**
+     * The maximum number of Orders that may be returned in a page.
+     */
+    int MAX_PAGE_SIZE = 1000;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Return a summary of the Order with the given order number.
+     *
+     * @return null if the Order is not found
+     * @throws BusinessException if the given order number is not a valid order number.
+     */
+    OrderSummary getOrder(String orderNumber) throws BusinessException;
+
+    /**
+     * Return a page of the Orders of the Customer with the given ID, sorted by order number.
+     *
+     * @param afterOrderNumber the last order number of the previous page, or null for the first page
+     * @param pageSize         the maximum number of Orders to return
+     * @return null if the Customer is not found
+     * @throws BusinessException if the given ID is not a valid customer ID, or the page size is out of range.
+     */
+    List<OrderSummary> getCustomerOrders(int customerId, String afterOrderNumber, int pageSize)
+            throws BusinessException;
+
+    /**
+     * Return the order summaries (order count and latest order number) of the Customers with the given IDs, keyed by
+     * customer ID. Customers without Orders (or that aren't found) are simply left out.
+     *
+     * @throws BusinessException if any of the given IDs is not a valid customer ID, or too many IDs are given.
+     */
+    IntObjectMap<CustomerOrderSummary> getCustomerOrderSummaries(int[] customerIds) throws BusinessException;
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,29 @@
+package com.dbs.micronaut.demo.customer;
+
+import com.dbs.micronaut.demo.customer.contract.OrderDTO;
+import com.dbs.micronaut.demo.customer.contract.OrderPageDTO;
+import com.dbs.micronaut.demo.customer.entity.OrderSummary;
+
+import java.util.List;
+
+/**
+ * Translate OrderSummary business entities to OrderDTO web service contracts.
+ */
+public interface OrderTranslator {
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Translate the given OrderSummary to a new OrderDTO contract.
+     */
+    OrderDTO toContract(OrderSummary order);
+
+    /**
+     * Translate the given page of OrderSummaries to a new OrderPageDTO contract.
+     *
+     * @param pageSize the page size asked for, used to tell whether there might be another page
+     */
+    OrderPageDTO toContract(List<OrderSummary> orders, int pageSize);
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,51 @@
+package com.dbs.micronaut.demo.customer;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A client of a remote key/value cache shared by every instance of the application (such as Redis), with
+ * publish/subscribe messaging between the instances.
+ * <p>
+ * Implementations may throw an (unchecked) exception from any method when the remote cache can't be reached. Callers
+ * should treat that as a cache miss, not as a failed request.
+ */
+public interface RemoteCacheClient {
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Return the value stored under the given key.
+     *
+     * @return null if there is no (unexpired) value under the key
+     */
+    byte[] get(String key);
+
+    /**
+     * Return the values stored under the given keys, in the same order as the keys, with null for every key that has
+     * no (unexpired) value.
+     */
+    List<byte[]> getAll(List<String> keys);
+
+    /**
+     * Store the given value under the given key, for the given number of milliseconds.
+     */
+    void set(String key, byte[] value, long ttlMillis);
+
+    /**
+     * Remove the value stored under the given key, if any.
+     */
+    void delete(String key);
+
+    /**
+     * Send the given message to every subscriber of the given channel, on every instance (including this one).
+     */
+    void publish(String channel, String message);
+
+    /**
+     * Call the given listener with every message published to the given channel from now on.
+     */
+    void subscribe(String channel, Consumer<String> listener);
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
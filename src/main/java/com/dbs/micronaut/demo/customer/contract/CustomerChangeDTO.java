@@ -0,0 +1,58 @@
+package com.dbs.micronaut.demo.customer.contract;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.time.ZonedDateTime;
+
+/**
+ * A single change to a Customer (or to one of its Orders), as streamed to downstream services so that they can
+ * invalidate exactly the cache entries that changed.
+ */
+@Data
+public class CustomerChangeDTO {
+
+    // -------------------------------------------------- PROPERTIES ---------------------------------------------------
+
+    /**
+     * The position of this change in the change stream. Send it back (as the Last-Event-ID header or the "since" query
+     * parameter) to resume the stream after this change.
+     */
+    @JsonProperty("offset")
+    private Long offset;
+
+    /**
+     * The kind of change: CREATED, UPDATED, DELETED, or RESET if changes were missed and everything must be
+     * invalidated.
+     */
+    @JsonProperty("changeType")
+    private String changeType;
+
+    /**
+     * The kind of entity that was changed: CUSTOMER or ORDER.
+     */
+    @JsonProperty("entityType")
+    private String entityType;
+
+    /**
+     * The ID of the changed Customer (or of the Customer that owns the changed Order).
+     */
+    @JsonProperty("customerId")
+    private Integer customerId;
+
+    /**
+     * The number of the changed Order, if an Order was changed.
+     */
+    @JsonProperty("orderNumber")
+    private String orderNumber;
+
+    /**
+     * When the change was recorded.
+     */
+    @JsonProperty("timestamp")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSSSSZ")
+    private ZonedDateTime timestamp;
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
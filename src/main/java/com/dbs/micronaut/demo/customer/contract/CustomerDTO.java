@@ -1,11 +1,12 @@
 package com.dbs.micronaut.demo.customer.contract;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 
-import java.time.ZonedDateTime;
-import java.util.ArrayList;
+import java.time.Instant;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -43,14 +44,15 @@ public class CustomerDTO {
     /**
      * A timestamp indicating the last time this record was read from the database.
      * <p>
-     * DEVELOPER NOTE: @JsonFormat used here defines the string representation of this ZonedDateTime that will be seen
-     * in the JSON. This isn't the whole story, though. You must also register the jsr310 module with any ObjectMapper
+     * DEVELOPER NOTE: @JsonFormat used here defines the string representation of this Instant that will be seen in
+     * the JSON. This isn't the whole story, though. You must also register the jsr310 module with any ObjectMapper
      * that might serialize/deserialize this class. This lets ObjectMapper know how to serialize and deserialize
-     * ZonedDateTime.
+     * Instant. An Instant has no time zone of its own, so it is written in UTC: the time zone is only applied while
+     * the JSON is being written, rather than kept with every Customer.
      */
     @JsonProperty("lastReadTimestamp")
-    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSSSSZ")
-    private ZonedDateTime lastReadTimestamp;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSSSSZ", timezone = "UTC")
+    private Instant lastReadTimestamp;
 
     /**
      * A list of order numbers associated with this Customer.
@@ -60,6 +62,24 @@ public class CustomerDTO {
     @JsonProperty("orderNumbers")
     private List<String> orderNumbers;
 
+    /**
+     * The number of Orders this Customer has. Only included when the order summary was asked for.
+     * <p>
+     * DEVELOPER NOTE: @JsonInclude(NON_NULL) leaves the property out of the JSON altogether when it is null, so
+     * clients that never ask for the order summary never see it.
+     */
+    @JsonProperty("orderCount")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer orderCount;
+
+    /**
+     * The order number of this Customer's most recent Order. Only included when the order summary was asked for, and
+     * the Customer has Orders.
+     */
+    @JsonProperty("latestOrderNumber")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String latestOrderNumber;
+
     // -----------------------------------------------------------------------------------------------------------------
 
     // ----------------------------------------------- PROPERTY METHODS ------------------------------------------------
@@ -71,13 +91,11 @@ public class CustomerDTO {
      * behind the scenes. However, since it is implemented here, Lombok will not create a getOrderNumbers() method and
      * will leave this one as the implementation to use. This method ensures that it's impossible for getOrderNumbers()
      * to return a null, thus the developer doesn't have to worry about null checks when using this List property in
-     * case the JSON didn't have the orderNumbers property.
+     * case the JSON didn't have the orderNumbers property. Without orderNumbers, it returns the one shared, empty (and
+     * unmodifiable) List, rather than a new ArrayList for every CustomerDTO. Use setOrderNumbers() to set them.
      */
     public List<String> getOrderNumbers() {
-        if (orderNumbers == null) {
-            orderNumbers = new ArrayList<>();
-        }
-        return orderNumbers;
+        return (orderNumbers == null) ? Collections.emptyList() : orderNumbers;
     }
 
     // -----------------------------------------------------------------------------------------------------------------
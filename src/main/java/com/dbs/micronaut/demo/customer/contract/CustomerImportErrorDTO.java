@@ -0,0 +1,31 @@
+package com.dbs.micronaut.demo.customer.contract;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Contract describing a row of an imported customer file that could not be imported.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerImportErrorDTO {
+
+    // -------------------------------------------------- PROPERTIES ---------------------------------------------------
+
+    /**
+     * The line number of the row in the file (the first line is line 1).
+     */
+    @JsonProperty("line")
+    private long line;
+
+    /**
+     * Why the row could not be imported.
+     */
+    @JsonProperty("message")
+    private String message;
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
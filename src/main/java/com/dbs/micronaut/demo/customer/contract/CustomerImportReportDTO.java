@@ -0,0 +1,71 @@
+package com.dbs.micronaut.demo.customer.contract;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Contract describing the outcome of a bulk import of a customer file.
+ */
+@Data
+public class CustomerImportReportDTO {
+
+    // -------------------------------------------------- PROPERTIES ---------------------------------------------------
+
+    /**
+     * The format of the file: "csv" or "ndjson".
+     */
+    @JsonProperty("format")
+    private String format;
+
+    /**
+     * The number of (non-blank) rows read from the file, not counting a CSV header.
+     */
+    @JsonProperty("rowsRead")
+    private long rowsRead;
+
+    /**
+     * The number of rows imported as new Customers.
+     */
+    @JsonProperty("rowsImported")
+    private long rowsImported;
+
+    /**
+     * The number of rows that could not be imported.
+     */
+    @JsonProperty("rowsFailed")
+    private long rowsFailed;
+
+    /**
+     * The number of chunks the file was split into, to be parsed and written in parallel.
+     */
+    @JsonProperty("chunks")
+    private int chunks;
+
+    /**
+     * The number of chunks parsed and written at the same time.
+     */
+    @JsonProperty("parallelism")
+    private int parallelism;
+
+    /**
+     * How long the import took, in milliseconds.
+     */
+    @JsonProperty("elapsedMillis")
+    private long elapsedMillis;
+
+    /**
+     * The number of rows read per second.
+     */
+    @JsonProperty("rowsPerSecond")
+    private long rowsPerSecond;
+
+    /**
+     * The rows that could not be imported, in line order (only the first of them, if there were a lot).
+     */
+    @JsonProperty("errors")
+    private List<CustomerImportErrorDTO> errors;
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,30 @@
+package com.dbs.micronaut.demo.customer.contract;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Admin contract describing which customers are currently hot, and which of those are pinned in the near-cache.
+ */
+@Data
+public class HotCustomersDTO {
+
+    // -------------------------------------------------- PROPERTIES ---------------------------------------------------
+
+    /**
+     * The hot customer IDs mapped to their estimated read counts, hottest first.
+     */
+    @JsonProperty("hotCustomerIds")
+    private Map<Integer, Long> hotCustomerIds;
+
+    /**
+     * The IDs of the customers currently pinned in the near-cache.
+     */
+    @JsonProperty("pinnedCustomerIds")
+    private Set<Integer> pinnedCustomerIds;
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
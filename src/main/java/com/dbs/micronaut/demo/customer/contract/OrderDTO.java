@@ -0,0 +1,27 @@
+package com.dbs.micronaut.demo.customer.contract;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * The contract of a single Order.
+ */
+@Data
+public class OrderDTO {
+
+    // -------------------------------------------------- PROPERTIES ---------------------------------------------------
+
+    /**
+     * The unique identifier for this Order.
+     */
+    @JsonProperty("orderNumber")
+    private String orderNumber;
+
+    /**
+     * The ID of the Customer that owns this Order.
+     */
+    @JsonProperty("customerId")
+    private Integer customerId;
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
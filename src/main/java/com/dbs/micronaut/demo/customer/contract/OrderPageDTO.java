@@ -0,0 +1,29 @@
+package com.dbs.micronaut.demo.customer.contract;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * The contract of one page of a Customer's Orders.
+ */
+@Data
+public class OrderPageDTO {
+
+    // -------------------------------------------------- PROPERTIES ---------------------------------------------------
+
+    /**
+     * The Orders on this page, sorted by order number.
+     */
+    @JsonProperty("orders")
+    private List<OrderDTO> orders;
+
+    /**
+     * The value of the "after" query parameter that returns the next page, or null if this is the last page.
+     */
+    @JsonProperty("nextAfter")
+    private String nextAfter;
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -4,8 +4,7 @@ import com.dbs.micronaut.demo.customer.contract.CustomerDTO;
 import lombok.Data;
 
 import javax.persistence.*;
-import java.time.ZonedDateTime;
-import java.util.HashSet;
+import java.time.Instant;
 import java.util.Set;
 
 /**
@@ -25,7 +24,7 @@ import java.util.Set;
  */
 @Data
 @Entity
-@Table(name = "CUSTOMERS")
+@Table(name = "CUSTOMERS", indexes = @Index(name = "CUST_UPDATED_AT_IDX", columnList = "CUST_UPDATED_AT, CUST_ID"))
 public class Customer {
 
     // -------------------------------------------------- PROPERTIES ---------------------------------------------------
@@ -47,8 +46,12 @@ public class Customer {
      * match the Java data type. This is dependent on the database, but an example listing is here:
      *
      * @see <a href="https://docs.oracle.com/cd/E19501-01/819-3659/gcmaz/"/>
+     * <p>
+     * The @Convert annotation hands the address read from the database to a converter first, which shares it with
+     * other Customers at the same address (see StreetAddressConverter).
      */
     @Column(name = "CUST_STREET_ADDR")
+    @Convert(converter = StreetAddressConverter.class)
     private String streetAddress;
 
     /**
@@ -57,6 +60,17 @@ public class Customer {
     @Column(name = "CUST_FULL_NAME")
     private String fullName;
 
+    /**
+     * When this Customer was last inserted or updated in the database.
+     * <p>
+     * DEVELOPER NOTE: A Session sets this whenever it inserts or updates the Customer (see touch()). A StatelessSession
+     * doesn't call JPA callbacks, so code that writes through one sets it itself. Other systems that write to the
+     * CUSTOMERS table directly must set it too: it's how CustomerChangePoller finds the Customers that changed (the
+     * index makes that a range scan).
+     */
+    @Column(name = "CUST_UPDATED_AT")
+    private Instant updatedAt;
+
     /**
      * A list of Orders associated with this Customer.
      * <p>
@@ -66,9 +80,13 @@ public class Customer {
      * means JPA won't actually get the Orders from the database unless you try to access this collection in some other
      * part of the code. The "cascade" stuff means that if this Customer is deleted, then all of the Orders will be
      * deleted, too.
+     * <p>
+     * A new Customer has no Set of Orders at all (null) rather than a new HashSet of its own: Hibernate replaces it
+     * with a Set of its own for every Customer it reads anyway, so the HashSet would only ever be garbage. Give a new
+     * Customer its Orders with setOrders().
      */
     @OneToMany(cascade = {CascadeType.PERSIST, CascadeType.REMOVE}, fetch = FetchType.LAZY, mappedBy = "customer")
-    private Set<Order> orders = new HashSet<>(0);
+    private Set<Order> orders;
 
     /**
      * A list of order numbers associated with this Customer.
@@ -76,9 +94,29 @@ public class Customer {
      * DEVELOPER NOTE: The @Transient annotation tells JPA to NOT store (or read) values from this field into the
      * database. It's good for when you have "temporary" properties that only need to hang around in the Java code
      * during the lifetime of the object, but never need to be persisted in the database.
+     * <p>
+     * An Instant is a single small object (seconds and nanoseconds), where a ZonedDateTime is four of them plus a time
+     * zone. The time zone only matters once the timestamp is written as JSON (see CustomerDTO).
      */
     @Transient
-    private ZonedDateTime lastReadTimestamp;
+    private Instant lastReadTimestamp;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    /**
+     * Set the update timestamp to now, just before the Customer is inserted or updated.
+     * <p>
+     * DEVELOPER NOTE: @PrePersist and @PreUpdate are JPA "callback" annotations: JPA calls the method just before the
+     * entity is inserted (or updated). Hibernate's own @UpdateTimestamp would do the same, but fails outright in a
+     * StatelessSession.
+     */
+    @PrePersist
+    @PreUpdate
+    private void touch() {
+        updatedAt = Instant.now();
+    }
 
     // -----------------------------------------------------------------------------------------------------------------
 }
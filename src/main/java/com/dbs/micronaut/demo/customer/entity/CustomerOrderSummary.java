@@ -0,0 +1,35 @@
+package com.dbs.micronaut.demo.customer.entity;
+
+import lombok.Data;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * The number of Orders a Customer has, and its most recent Order, kept up to date as Orders are inserted and deleted
+ * (see CustomerOrderSummaryListener). A Customer without Orders may not have a summary.
+ */
+@Data
+@Entity
+@Table(name = "CUSTOMER_ORDER_SUMMARIES")
+public class CustomerOrderSummary {
+
+    // -------------------------------------------------- PROPERTIES ---------------------------------------------------
+
+    @Id
+    @Column(name = "CUST_ID")
+    private Integer customerId;
+
+    @Column(name = "ORDER_COUNT", nullable = false)
+    private int orderCount;
+
+    /**
+     * The highest order number of the Customer's Orders (order numbers are handed out in increasing order), or null.
+     */
+    @Column(name = "LATEST_ORDER_NUMBER")
+    private String latestOrderNumber;
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -1,18 +1,25 @@
 package com.dbs.micronaut.demo.customer.entity;
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 import javax.persistence.*;
 import java.io.Serializable;
 
 /**
  * DEVELOPER NOTE: See the Customer class for more information on JPA first. Then come back here.
+ * <p>
+ * The @Index in the @Table annotation asks JPA to create a database index on (CUST_ID, ORDER_NUMBER) when it creates
+ * the table. Without it, finding the Orders of one Customer means reading every row of the ORDERS table. With it, the
+ * database can jump straight to that Customer's Orders, already sorted by order number, which is exactly what paging
+ * through them needs.
  *
  * @see Customer
  */
 @Data
 @Entity
-@Table(name = "ORDERS")
+@Table(name = "ORDERS", indexes = @Index(name = "IDX_ORDERS_CUST_ID", columnList = "CUST_ID, ORDER_NUMBER"))
 public class Order implements Serializable {
 
     // -------------------------------------------------- PROPERTIES ---------------------------------------------------
@@ -38,7 +45,13 @@ public class Order implements Serializable {
      * <p>
      * Basically, Java and relational databases associate entities in reverse. JPA navigates this by having
      * bi-directional references in Java.
+     * <p>
+     * The Customer is left out of the Lombok-generated equals(), hashCode() and toString(): the Customer's own
+     * versions include its Orders, so including the Customer here as well would recurse forever (for example, when
+     * Hibernate puts the Orders of a Customer into its HashSet).
      */
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "CUST_ID")
     private Customer customer;
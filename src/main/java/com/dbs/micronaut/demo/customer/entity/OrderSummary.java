@@ -0,0 +1,51 @@
+package com.dbs.micronaut.demo.customer.entity;
+
+/**
+ * A read-only summary of an Order, holding only the columns of the ORDERS table.
+ * <p>
+ * DEVELOPER NOTE: This is NOT an @Entity. It is a "projection": a query selects just the columns it needs straight
+ * into a new OrderSummary ("select new ...OrderSummary(o.orderNumber, o.customer.customerId) from Order o"). JPA
+ * doesn't have to track it for changes, and never loads the Customer that owns the Order (the customer ID comes
+ * straight from the CUST_ID column), so reading thousands of these is cheap.
+ *
+ * @see Order
+ */
+public class OrderSummary {
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final String orderNumber;
+    private final Integer customerId;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    /**
+     * Create a new OrderSummary.
+     */
+    public OrderSummary(String orderNumber, Integer customerId) {
+        this.orderNumber = orderNumber;
+        this.customerId = customerId;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PROPERTY METHODS ------------------------------------------------
+
+    /**
+     * Return the unique identifier of the Order.
+     */
+    public String getOrderNumber() {
+        return orderNumber;
+    }
+
+    /**
+     * Return the ID of the Customer that owns the Order.
+     */
+    public Integer getCustomerId() {
+        return customerId;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,67 @@
+package com.dbs.micronaut.demo.customer.entity;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Hands every street address read from the database to Customers as a shared String, if an equal one has been read
+ * recently.
+ * <p>
+ * DEVELOPER NOTE: Every row read by JDBC comes with brand new Strings, so a thousand Customers at the same address
+ * (say, "Unknown", or an office building) hold a thousand copies of it, for as long as they're cached. This converter
+ * keeps the last address seen for every slot of a small table (picked by the address' hash), and returns that one
+ * instead of a new copy when they're equal. The table never grows and never needs a lock: two threads writing the same
+ * slot at once just means one of the addresses isn't shared. Addresses that are repeated a lot stay in the table, one
+ * that is never seen again is soon replaced. Code that reads Customers with plain JDBC calls deduplicate() itself.
+ */
+@Converter
+public class StreetAddressConverter implements AttributeConverter<String, String> {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    /**
+     * The number of slots in the table (a power of 2).
+     */
+    private static final int TABLE_SIZE = 4096;
+
+    private static final String[] TABLE = new String[TABLE_SIZE];
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Return the street address to write to the database: the same one.
+     */
+    @Override
+    public String convertToDatabaseColumn(String streetAddress) {
+        return streetAddress;
+    }
+
+    /**
+     * Return the street address read from the database, or an equal one read recently.
+     */
+    @Override
+    public String convertToEntityAttribute(String streetAddress) {
+        return deduplicate(streetAddress);
+    }
+
+    /**
+     * Return the given street address, or an equal one seen recently.
+     */
+    public static String deduplicate(String streetAddress) {
+        if (streetAddress == null) {
+            return null;
+        }
+        int hash = streetAddress.hashCode();
+        int slot = (hash ^ (hash >>> 16)) & (TABLE_SIZE - 1);
+        String shared = TABLE[slot];
+        if (streetAddress.equals(shared)) {
+            return shared;
+        }
+        TABLE[slot] = streetAddress;
+        return streetAddress;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,107 @@
+package com.dbs.micronaut.demo.customer.event;
+
+import com.dbs.micronaut.demo.customer.event.EntityChangeEvent.ChangeType;
+
+import java.time.ZonedDateTime;
+
+/**
+ * A single committed change to a Customer (or to one of its Orders), as recorded in the CustomerChangeLog.
+ * <p>
+ * DEVELOPER NOTE: Unlike an EntityChangeEvent, a CustomerChange doesn't hold on to the changed entity itself... just
+ * enough to tell a downstream cache which entries to throw away. That keeps the change log small, and avoids holding
+ * on to entities (and everything they reference) long after their transaction has finished.
+ */
+public class CustomerChange {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    /**
+     * The kind of entity that was changed.
+     */
+    public enum EntityType {
+        CUSTOMER, ORDER
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final long offset;
+    private final ChangeType changeType;
+    private final EntityType entityType;
+    private final Integer customerId;
+    private final String orderNumber;
+    private final ZonedDateTime timestamp;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    /**
+     * Create a new CustomerChange.
+     *
+     * @param offset      the position of this change in the change log
+     * @param changeType  the kind of change made
+     * @param entityType  the kind of entity that was changed
+     * @param customerId  the ID of the changed Customer (or of the Customer that owns the changed Order)
+     * @param orderNumber the number of the changed Order, or null if a Customer was changed
+     * @param timestamp   when the change was recorded
+     */
+    public CustomerChange(long offset, ChangeType changeType, EntityType entityType, Integer customerId,
+                          String orderNumber, ZonedDateTime timestamp) {
+        this.offset = offset;
+        this.changeType = changeType;
+        this.entityType = entityType;
+        this.customerId = customerId;
+        this.orderNumber = orderNumber;
+        this.timestamp = timestamp;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PROPERTY METHODS ------------------------------------------------
+
+    /**
+     * Return the position of this change in the change log.
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Return the kind of change made.
+     */
+    public ChangeType getChangeType() {
+        return changeType;
+    }
+
+    /**
+     * Return the kind of entity that was changed.
+     */
+    public EntityType getEntityType() {
+        return entityType;
+    }
+
+    /**
+     * Return the ID of the changed Customer (or of the Customer that owns the changed Order).
+     */
+    public Integer getCustomerId() {
+        return customerId;
+    }
+
+    /**
+     * Return the number of the changed Order, or null if a Customer was changed.
+     */
+    public String getOrderNumber() {
+        return orderNumber;
+    }
+
+    /**
+     * Return when the change was recorded.
+     */
+    public ZonedDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
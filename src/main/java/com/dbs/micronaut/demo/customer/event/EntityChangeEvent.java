@@ -0,0 +1,89 @@
+package com.dbs.micronaut.demo.customer.event;
+
+import io.micronaut.context.event.ApplicationEvent;
+
+/**
+ * Published (as a Micronaut application event) whenever a Customer or Order entity change has been committed to the
+ * database.
+ * <p>
+ * DEVELOPER NOTE: Any bean can receive these events by declaring a method annotated with @EventListener that takes an
+ * EntityChangeEvent. This keeps the code that writes to the database from having to know about every in-memory
+ * structure (filters, caches, indexes) that needs to hear about the change.
+ * <p>
+ * A "polled" event is a change found by polling the database (see CustomerChangePoller) rather than committed by this
+ * application. It may have been made by another system, or already announced by the instance that made it, so it is
+ * only meant for refreshing this instance's own caches and indexes: listeners that record or forward changes ignore
+ * it (the change log), or only refresh with it (the remote cache drops its shared copy, but doesn't tell anyone).
+ */
+public class EntityChangeEvent extends ApplicationEvent {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    /**
+     * The kind of change made to the entity.
+     */
+    public enum ChangeType {
+        CREATED, UPDATED, DELETED
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final ChangeType changeType;
+    private final boolean polled;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    /**
+     * Create a new EntityChangeEvent.
+     *
+     * @param entity     the entity that was changed
+     * @param changeType the kind of change made to the entity
+     */
+    public EntityChangeEvent(Object entity, ChangeType changeType) {
+        this(entity, changeType, false);
+    }
+
+    /**
+     * Create a new EntityChangeEvent.
+     *
+     * @param entity     the entity that was changed
+     * @param changeType the kind of change made to the entity
+     * @param polled     whether the change was found by polling the database, rather than committed by this application
+     */
+    public EntityChangeEvent(Object entity, ChangeType changeType, boolean polled) {
+        super(entity);
+        this.changeType = changeType;
+        this.polled = polled;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PROPERTY METHODS ------------------------------------------------
+
+    /**
+     * Return the entity that was changed.
+     */
+    public Object getEntity() {
+        return getSource();
+    }
+
+    /**
+     * Return the kind of change made to the entity.
+     */
+    public ChangeType getChangeType() {
+        return changeType;
+    }
+
+    /**
+     * Return whether the change was found by polling the database, rather than committed by this application.
+     */
+    public boolean isPolled() {
+        return polled;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
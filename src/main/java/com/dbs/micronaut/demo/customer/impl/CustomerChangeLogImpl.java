@@ -0,0 +1,140 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.customer.CustomerChangeLog;
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.dbs.micronaut.demo.customer.entity.Order;
+import com.dbs.micronaut.demo.customer.event.CustomerChange;
+import com.dbs.micronaut.demo.customer.event.CustomerChange.EntityType;
+import com.dbs.micronaut.demo.customer.event.EntityChangeEvent;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.runtime.event.annotation.EventListener;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Records every committed Customer and Order change in a fixed-size ring buffer.
+ * <p>
+ * DEVELOPER NOTE: A ring buffer is an array that is written to in a circle: once the last slot has been written, the
+ * next change overwrites the first slot. The log therefore never uses more memory than the configured capacity, no
+ * matter how many changes happen, and the oldest changes are simply forgotten. A reader that falls so far behind that
+ * the changes it hasn't read yet have been overwritten can tell (its offset is older than getOldestOffset()), and has
+ * to start over from scratch.
+ */
+@Singleton
+public class CustomerChangeLogImpl implements CustomerChangeLog {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    /**
+     * The offset given to the very first change. Readers may use zero to mean "before the first change".
+     */
+    private static final long FIRST_OFFSET = 1;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final CustomerChange[] changes;
+    private long nextOffset = FIRST_OFFSET;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    /**
+     * Create a new CustomerChangeLogImpl.
+     *
+     * @param capacity the number of most recent changes to hold on to
+     */
+    @Inject
+    CustomerChangeLogImpl(@Value("${customer.change-log.capacity:10000}") int capacity) {
+        this.changes = new CustomerChange[Math.max(capacity, 1)];
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Return (at most the given number of) the changes starting at the given offset, oldest first.
+     *
+     * @return an empty List if there are no changes at or after the given offset
+     */
+    @Override
+    public synchronized List<CustomerChange> read(long fromOffset, int maxChanges) {
+        long from = Math.max(fromOffset, getOldestOffset());
+        long to = Math.min(nextOffset, from + maxChanges);
+        if (from >= to) {
+            return Collections.emptyList();
+        }
+
+        List<CustomerChange> read = new ArrayList<>((int) (to - from));
+        for (long offset = from; offset < to; offset++) {
+            read.add(changes[slotOf(offset)]);
+        }
+        return read;
+    }
+
+    /**
+     * Return the offset of the oldest change still held in the log. Changes before it have been overwritten.
+     */
+    @Override
+    public synchronized long getOldestOffset() {
+        return Math.max(FIRST_OFFSET, nextOffset - changes.length);
+    }
+
+    /**
+     * Return the offset that the next change will be given.
+     */
+    @Override
+    public synchronized long getNextOffset() {
+        return nextOffset;
+    }
+
+    /**
+     * Record committed Customer and Order changes. Polled changes are left out: a change committed by this
+     * application was already recorded when it was committed.
+     */
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        if (event.isPolled()) {
+            return;
+        }
+        if (event.getEntity() instanceof Customer) {
+            Customer customer = (Customer) event.getEntity();
+            append(event.getChangeType(), EntityType.CUSTOMER, customer.getCustomerId(), null);
+        } else if (event.getEntity() instanceof Order) {
+            Order order = (Order) event.getEntity();
+            Integer customerId = (order.getCustomer() == null) ? null : order.getCustomer().getCustomerId();
+            append(event.getChangeType(), EntityType.ORDER, customerId, order.getOrderNumber());
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    /**
+     * Append a change to the log, overwriting the oldest change if the log is full.
+     */
+    private synchronized void append(EntityChangeEvent.ChangeType changeType, EntityType entityType, Integer customerId,
+                                     String orderNumber) {
+        changes[slotOf(nextOffset)] = new CustomerChange(nextOffset, changeType, entityType, customerId, orderNumber,
+                ZonedDateTime.now());
+        nextOffset++;
+    }
+
+    /**
+     * Return the slot of the ring buffer that holds the change with the given offset.
+     */
+    private int slotOf(long offset) {
+        return (int) (offset % changes.length);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,276 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.customer.CustomerChangePoller;
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.dbs.micronaut.demo.customer.entity.StreetAddressConverter;
+import com.dbs.micronaut.demo.customer.event.EntityChangeEvent;
+import com.dbs.micronaut.demo.customer.event.EntityChangeEvent.ChangeType;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.context.event.ApplicationEventPublisher;
+import io.micronaut.runtime.event.annotation.EventListener;
+import io.micronaut.runtime.server.event.ServerStartupEvent;
+import io.micronaut.scheduling.TaskExecutors;
+import io.micronaut.scheduling.TaskScheduler;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An optional background job that reads the Customers changed in the CUSTOMERS table since it last looked, and
+ * publishes an EntityChangeEvent for each of them, so that every cache and in-memory index refreshes just those
+ * Customers.
+ * <p>
+ * DEVELOPER NOTE: Changes committed by this application reach the caches and indexes through EntityChangeEvents as
+ * they happen. Changes written to the table directly by other systems (or by other instances of this application) only
+ * reach them with the next periodic reload or rebuild, which re-reads everything. This class closes that gap by
+ * tracking a watermark: the update timestamp (and customer ID, to break ties) of the last changed Customer it has
+ * seen. Every poll reads the Customers changed after the watermark, in update timestamp order, in batches of
+ * "batch-size" rows, and moves the watermark past each change once its event has been published. If a listener fails,
+ * the poll stops there, and the next poll starts again from the change that failed (so a change that always fails
+ * holds the poller up until it is fixed, which the watermark age shows). A poll stops after "max-batches" batches, so
+ * a burst of changes (a bulk load by another system, say) is caught up with over a few polls rather than in one long
+ * one. The events are marked as polled, because they include changes this application has already announced when it
+ * committed them: the change log ignores them, the remote cache only drops its shared copy (without telling the other
+ * instances, which poll for themselves), and otherwise only this instance's caches and indexes refresh.
+ * <p>
+ * A Customer's update timestamp is set by whoever writes it, before the transaction commits. So a poll only reads the
+ * Customers changed more than "lag" ago: a transaction still in flight when the poll runs could otherwise commit a
+ * change timestamped before the watermark, which would never be seen. The lag must be longer than the longest write
+ * transaction, plus the clock difference between the machines writing to the table. Deleted rows leave nothing to
+ * poll for, so deletes by other systems are still only picked up by the periodic reloads and rebuilds.
+ * <p>
+ * Polls are scheduled "interval" apart, give or take a random "jitter" (a fraction of the interval), and the first
+ * poll comes after a random part of the interval. Without that, every instance started by the same deploy would query
+ * the database at the same moment, every interval, forever. This bean only exists when
+ * "customer.change-poller.enabled" is set to true.
+ */
+@Slf4j
+@Singleton
+@Requires(property = "customer.change-poller.enabled", value = "true")
+public class CustomerChangePollerImpl implements CustomerChangePoller, MeterBinder {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    private static final String SELECT_CHANGED_CUSTOMERS = "select CUST_ID, CUST_FULL_NAME, CUST_STREET_ADDR, "
+            + "CUST_UPDATED_AT from CUSTOMERS where (CUST_UPDATED_AT > ? or (CUST_UPDATED_AT = ? and CUST_ID > ?)) "
+            + "and CUST_UPDATED_AT <= ? order by CUST_UPDATED_AT, CUST_ID";
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final DataSource dataSource;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TaskScheduler taskScheduler;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final long intervalNanos;
+    private final double jitter;
+    private final int batchSize;
+    private final int maxBatches;
+    private final Duration lag;
+
+    /**
+     * The update timestamp and customer ID of the last changed Customer seen.
+     */
+    private volatile Instant watermarkTimestamp;
+    private int watermarkCustomerId = Integer.MIN_VALUE;
+
+    private volatile ScheduledFuture<?> scheduledPoll;
+    private volatile boolean closed;
+
+    private final LongAdder changes = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    /**
+     * Create a new CustomerChangePollerImpl, whose first poll reads the Customers changed from "lag" before now.
+     *
+     * @param interval   the average time between polls
+     * @param jitter     how much the time between polls varies, as a fraction of the interval (0 to 1)
+     * @param batchSize  the number of changed Customers read at a time
+     * @param maxBatches the number of batches read by a single poll, at most
+     * @param lag        how long ago a change must have been made for a poll to read it
+     */
+    @Inject
+    CustomerChangePollerImpl(DataSource dataSource, ApplicationEventPublisher eventPublisher,
+                             @Named(TaskExecutors.SCHEDULED) TaskScheduler taskScheduler,
+                             @Value("${customer.change-poller.interval:10s}") Duration interval,
+                             @Value("${customer.change-poller.jitter:0.2}") double jitter,
+                             @Value("${customer.change-poller.batch-size:500}") int batchSize,
+                             @Value("${customer.change-poller.max-batches:20}") int maxBatches,
+                             @Value("${customer.change-poller.lag:5s}") Duration lag) {
+        this.dataSource = dataSource;
+        this.eventPublisher = eventPublisher;
+        this.taskScheduler = taskScheduler;
+        this.intervalNanos = interval.toNanos();
+        this.jitter = Math.min(1, Math.max(0, jitter));
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBatches = Math.max(1, maxBatches);
+        this.lag = lag;
+        this.watermarkTimestamp = Instant.now().minus(lag);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Read the Customers changed (more than "lag" ago) since the last poll, up to "max-batches" batches of them, and
+     * publish a polled UPDATED EntityChangeEvent for each of them. If the database can't be read, or a listener
+     * throws, the next poll starts from the first change that wasn't published.
+     *
+     * @return the number of changed Customers found (and published)
+     */
+    @Override
+    public synchronized int poll() {
+        Timestamp upTo = Timestamp.from(Instant.now().minus(lag));
+        int found = 0;
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_CHANGED_CUSTOMERS)) {
+            statement.setMaxRows(batchSize);
+            for (int batch = 0; batch < maxBatches; batch++) {
+                List<Customer> customers = readBatch(statement, upTo);
+                for (Customer customer : customers) {
+                    eventPublisher.publishEvent(new EntityChangeEvent(customer, ChangeType.UPDATED, true));
+                    watermarkTimestamp = customer.getUpdatedAt();
+                    watermarkCustomerId = customer.getCustomerId();
+                    found++;
+                }
+                if (customers.size() < batchSize) {
+                    break;
+                }
+            }
+        } catch (SQLException e) {
+            errors.increment();
+            log.warn("Unable to poll for customer changes after {}, will retry from there", watermarkTimestamp, e);
+        } finally {
+            changes.add(found);
+        }
+        return found;
+    }
+
+    /**
+     * Schedule the first poll as soon as the HTTP server is up.
+     */
+    @EventListener
+    public void onStartup(ServerStartupEvent event) {
+        scheduleNext(ThreadLocalRandom.current().nextLong(intervalNanos + 1));
+    }
+
+    /**
+     * Stop polling.
+     */
+    @PreDestroy
+    public void close() {
+        closed = true;
+        ScheduledFuture<?> poll = scheduledPoll;
+        if (poll != null) {
+            poll.cancel(false);
+        }
+    }
+
+    /**
+     * Register the change poller metrics with Micrometer (and therefore the /metrics endpoint).
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("customer.change-poller.changes", changes, LongAdder::sum)
+                .description("Changed customers found in the database and refreshed")
+                .register(registry);
+        FunctionCounter.builder("customer.change-poller.errors", errors, LongAdder::sum)
+                .description("Polls for changed customers that failed")
+                .register(registry);
+        Gauge.builder("customer.change-poller.watermark.age", this,
+                poller -> Duration.between(poller.watermarkTimestamp, Instant.now()).toMillis() / 1000.0)
+                .description("How far behind the database the customer change poller is (at least the lag)")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    /**
+     * Return the time until the next poll: the interval, give or take up to the jitter.
+     */
+    long nextDelayNanos() {
+        long spread = (long) (intervalNanos * jitter);
+        return intervalNanos - spread + ThreadLocalRandom.current().nextLong((2 * spread) + 1);
+    }
+
+    /**
+     * Return the next batch of Customers changed after the watermark (and no later than the given timestamp).
+     */
+    private List<Customer> readBatch(PreparedStatement statement, Timestamp upTo) throws SQLException {
+        Timestamp after = Timestamp.from(watermarkTimestamp);
+        statement.setTimestamp(1, after);
+        statement.setTimestamp(2, after);
+        statement.setInt(3, watermarkCustomerId);
+        statement.setTimestamp(4, upTo);
+        List<Customer> customers = new ArrayList<>();
+        Instant now = Instant.now();
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                Customer customer = new Customer();
+                customer.setCustomerId(resultSet.getInt(1));
+                customer.setFullName(resultSet.getString(2));
+                customer.setStreetAddress(StreetAddressConverter.deduplicate(resultSet.getString(3)));
+                customer.setUpdatedAt(resultSet.getTimestamp(4).toInstant());
+                customer.setLastReadTimestamp(now);
+                customers.add(customer);
+            }
+        }
+        return customers;
+    }
+
+    /**
+     * Poll, and then schedule the next poll.
+     */
+    private void pollAndScheduleNext() {
+        try {
+            poll();
+        } catch (RuntimeException e) {
+            errors.increment();
+            log.warn("Unable to refresh changed customers", e);
+        } finally {
+            scheduleNext(nextDelayNanos());
+        }
+    }
+
+    private void scheduleNext(long delayNanos) {
+        if (!closed) {
+            scheduledPoll = taskScheduler.schedule(Duration.ofNanos(delayNanos), this::pollAndScheduleNext);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
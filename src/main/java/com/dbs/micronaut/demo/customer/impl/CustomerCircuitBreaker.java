@@ -0,0 +1,166 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+/**
+ * A circuit breaker guarding calls to a single datasource.
+ * <p>
+ * DEVELOPER NOTE: Like the one in your house, a circuit breaker "trips" when something goes wrong, and stops anything
+ * else from flowing through it. While it is CLOSED, every call goes through and the outcome of the last few calls is
+ * remembered. Once too many of them have failed (or timed out), it OPENs, and every call is refused straight away
+ * without even trying... a struggling database gets a break instead of being buried under retries, and callers get an
+ * answer immediately instead of waiting for a time-out. After a while it goes HALF_OPEN, and lets a single trial call
+ * through: if it succeeds the breaker CLOSEs again, if it fails the breaker OPENs again.
+ * <p>
+ * This is a plain class rather than a bean, so there can be one per datasource.
+ */
+public class CustomerCircuitBreaker {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    /**
+     * The state of a circuit breaker.
+     */
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final String name;
+    private final double failureRateThreshold;
+    private final long openDurationNanos;
+
+    /**
+     * The outcomes (true for a failure) of the last calls, in a ring buffer (guarded by "this").
+     */
+    private final boolean[] outcomes;
+    private int position;
+    private int calls;
+    private int failures;
+
+    private volatile State state = State.CLOSED;
+    private long openedAt;
+    private boolean trialInProgress;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    /**
+     * Create a new, CLOSED, CustomerCircuitBreaker.
+     *
+     * @param name                 the name of the datasource guarded by this circuit breaker
+     * @param windowSize           the number of most recent calls whose failure rate is watched
+     * @param failureRateThreshold the failure rate (0.0 to 1.0) at which the circuit breaker opens
+     * @param openDurationNanos    how long the circuit breaker stays open before letting a trial call through
+     */
+    public CustomerCircuitBreaker(String name, int windowSize, double failureRateThreshold, long openDurationNanos) {
+        this.name = name;
+        this.outcomes = new boolean[Math.max(1, windowSize)];
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationNanos = openDurationNanos;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Returns whether or not a call may be made. Every permitted call must be followed by exactly one call to
+     * onSuccess() or onFailure().
+     */
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.nanoTime() - openedAt < openDurationNanos) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                trialInProgress = true;
+                return true;
+            default:
+                if (trialInProgress) {
+                    return false;
+                }
+                trialInProgress = true;
+                return true;
+        }
+    }
+
+    /**
+     * Record that a permitted call succeeded.
+     */
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            close();
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    /**
+     * Record that a permitted call failed (or took too long).
+     */
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED) {
+            record(true);
+            if ((calls >= (outcomes.length + 1) / 2) && ((double) failures / calls >= failureRateThreshold)) {
+                open();
+            }
+        }
+    }
+
+    /**
+     * Return the name of the datasource guarded by this circuit breaker.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Return the current state of this circuit breaker.
+     */
+    public State getState() {
+        return state;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    private void record(boolean failure) {
+        if (calls == outcomes.length) {
+            if (outcomes[position]) {
+                failures--;
+            }
+        } else {
+            calls++;
+        }
+        outcomes[position] = failure;
+        if (failure) {
+            failures++;
+        }
+        position = (position + 1) % outcomes.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        trialInProgress = false;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        trialInProgress = false;
+        position = 0;
+        calls = 0;
+        failures = 0;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,119 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.dbs.micronaut.demo.customer.entity.StreetAddressConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Converts Customers to and from a compact binary form, for storing in a remote cache.
+ * <p>
+ * DEVELOPER NOTE: Every byte of a cached value is sent over the network on every cache hit, and stored in the memory
+ * of the cache server for every cached Customer. JSON would spell out every property name in every value, and Java
+ * serialization writes out the class description as well. This format instead writes just the values, in a fixed
+ * order, after a version byte (so that the format can change without misreading values written by older instances):
+ * <pre>
+ * [version][customer ID][full name length + 1][full name UTF-8][street address length + 1][street address UTF-8]
+ * [last read timestamp epoch millis + 1]
+ * </pre>
+ * Every number is a "varint": 7 bits per byte, with the high bit set on every byte but the last. Small numbers (like
+ * string lengths) take a single byte, and a customer ID up to about 2 million takes three. A length or timestamp of
+ * zero means null. A typical Customer takes about 50 bytes.
+ */
+class CustomerCodec {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    private static final int VERSION = 1;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    private CustomerCodec() {
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Return the binary form of the given Customer. Its Orders are not included.
+     */
+    static byte[] encode(Customer customer) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        out.write(VERSION);
+        writeVarLong(out, customer.getCustomerId());
+        writeString(out, customer.getFullName());
+        writeString(out, customer.getStreetAddress());
+        writeVarLong(out, (customer.getLastReadTimestamp() == null) ? 0
+                : customer.getLastReadTimestamp().toEpochMilli() + 1);
+        return out.toByteArray();
+    }
+
+    /**
+     * Return the Customer in the given binary form.
+     *
+     * @return null if the given bytes were written in a format this version of the application doesn't know
+     */
+    static Customer decode(byte[] bytes) {
+        if ((bytes.length == 0) || (bytes[0] != VERSION)) {
+            return null;
+        }
+        int[] position = {1};
+        Customer customer = new Customer();
+        customer.setCustomerId((int) readVarLong(bytes, position));
+        customer.setFullName(readString(bytes, position));
+        customer.setStreetAddress(StreetAddressConverter.deduplicate(readString(bytes, position)));
+        long lastRead = readVarLong(bytes, position);
+        customer.setLastReadTimestamp((lastRead == 0) ? null : Instant.ofEpochMilli(lastRead - 1));
+        return customer;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        if (value == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length + 1);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static String readString(byte[] bytes, int[] position) {
+        int length = (int) readVarLong(bytes, position) - 1;
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(bytes, position[0], length, StandardCharsets.UTF_8);
+        position[0] += length;
+        return value;
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(byte[] bytes, int[] position) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = bytes[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,112 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.customer.CustomerConcurrencyLimiter;
+import com.dbs.micronaut.demo.customer.CustomerConcurrencyLimiter.Priority;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MutableHttpResponse;
+import io.micronaut.http.annotation.Filter;
+import io.micronaut.http.filter.HttpServerFilter;
+import io.micronaut.http.filter.ServerFilterChain;
+import io.reactivex.Flowable;
+import org.reactivestreams.Publisher;
+
+import javax.inject.Inject;
+
+/**
+ * Admission control for the customer endpoints: every request must get a permit from the CustomerConcurrencyLimiter
+ * before it is handled, or it is turned away immediately.
+ * <p>
+ * DEVELOPER NOTE: An HttpServerFilter sees every request matching its @Filter pattern before any controller does, and
+ * can either pass it on down the "chain" (to the next filter, and eventually the controller) or answer it itself.
+ * <p>
+ * Callers say how important their request is with a priority header (CRITICAL, NORMAL or SHEDDABLE, NORMAL if not
+ * given). A rejected SHEDDABLE or NORMAL request gets a 429 - TOO MANY REQUESTS, and a rejected CRITICAL request (which
+ * means the service is completely full) gets a 503 - SERVICE UNAVAILABLE. Both say when to try again.
+ * <p>
+ * The change stream is never limited: it is a single long-lived request per client, which would otherwise hold on to a
+ * permit for as long as the client stays connected. Neither is the bulk import: a single import can run for minutes,
+ * holding on to a permit all that time, and it has its own limit on how much it does at once
+ * ("customer.import.parallelism").
+ */
+@Filter("/v1/customers/**")
+public class CustomerConcurrencyLimitFilter implements HttpServerFilter {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    private static final String CHANGES_PATH = "/v1/customers/changes";
+    private static final String IMPORT_PATH = "/v1/customers/import";
+
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final CustomerConcurrencyLimiter customerConcurrencyLimiter;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final String priorityHeader;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    @Inject
+    CustomerConcurrencyLimitFilter(CustomerConcurrencyLimiter customerConcurrencyLimiter,
+                                   @Value("${customer.concurrency-limit.priority-header:X-Caller-Priority}")
+                                           String priorityHeader) {
+        this.customerConcurrencyLimiter = customerConcurrencyLimiter;
+        this.priorityHeader = priorityHeader;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Pass the given request on if a permit is available for it (and give the permit back once the response has been
+     * sent), otherwise turn it away.
+     */
+    @Override
+    public Publisher<MutableHttpResponse<?>> doFilter(HttpRequest<?> request, ServerFilterChain chain) {
+        if (CHANGES_PATH.equals(request.getPath()) || IMPORT_PATH.equals(request.getPath())) {
+            return chain.proceed(request);
+        }
+
+        Priority priority = toPriority(request.getHeaders().get(priorityHeader));
+        if (!customerConcurrencyLimiter.tryAcquire(priority)) {
+            HttpStatus status = (priority == Priority.CRITICAL) ? HttpStatus.SERVICE_UNAVAILABLE
+                    : HttpStatus.TOO_MANY_REQUESTS;
+            return Flowable.just(HttpResponse.status(status).header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS));
+        }
+
+        return Flowable.fromPublisher(chain.proceed(request)).doFinally(customerConcurrencyLimiter::release);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    /**
+     * Return the Priority named by the given header value (in any case), or NORMAL if it doesn't name one.
+     */
+    private static Priority toPriority(String headerValue) {
+        if (headerValue != null) {
+            for (Priority priority : Priority.values()) {
+                if (priority.name().equalsIgnoreCase(headerValue.trim())) {
+                    return priority;
+                }
+            }
+        }
+        return Priority.NORMAL;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,202 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.customer.CustomerConcurrencyLimiter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micronaut.context.annotation.Value;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * An adaptive concurrency limiter, driven by the latency of customer lookups in the database.
+ * <p>
+ * DEVELOPER NOTE: A fixed limit ("at most 50 requests at once") is always wrong: too high when the database is slow
+ * (requests queue up, and every one of them times out), too low when it is fast (capacity is wasted). Instead, this
+ * limiter keeps two moving averages of database latency: a short-term one (how fast is it right now?) and a long-term
+ * one (how fast is it normally?). Their ratio is the "gradient". While latency is normal the gradient is 1.0, and the
+ * limit creeps upwards (by about the square root of the limit, which allows for a little queueing). When latency
+ * rises above normal the gradient drops below 1.0, and the limit shrinks in proportion... so the limit finds the
+ * concurrency the database can actually sustain, without anyone having to configure it. This is the "gradient"
+ * algorithm used by Netflix's concurrency-limits library.
+ * <p>
+ * Requests over the limit are rejected straight away. A quick "try again later" is far better for everyone than a
+ * slow time-out, and it stops a slow database from turning into a pile-up of waiting threads.
+ */
+@Singleton
+public class CustomerConcurrencyLimiterImpl implements CustomerConcurrencyLimiter, MeterBinder {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    /**
+     * How quickly the short-term latency average follows new samples (roughly the last 10 samples).
+     */
+    private static final double SHORT_SMOOTHING = 0.1;
+
+    /**
+     * How quickly the long-term latency average follows new samples (roughly the last 500 samples).
+     */
+    private static final double LONG_SMOOTHING = 0.002;
+
+    /**
+     * How much slower than normal the database may get before the limit starts to shrink.
+     */
+    private static final double TOLERANCE = 1.5;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLongArray rejections = new AtomicLongArray(Priority.values().length);
+
+    /**
+     * The current limit, as a whole number of requests (read on every request without locking).
+     */
+    private volatile int limit;
+
+    /**
+     * The estimated limit and latency averages (guarded by "this").
+     */
+    private double estimatedLimit;
+    private double shortLatency;
+    private double longLatency;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    /**
+     * Create a new CustomerConcurrencyLimiterImpl.
+     *
+     * @param smoothing how much of each newly calculated limit is applied at once (0.0 to 1.0)
+     */
+    @Inject
+    CustomerConcurrencyLimiterImpl(@Value("${customer.concurrency-limit.initial-limit:20}") int initialLimit,
+                                   @Value("${customer.concurrency-limit.min-limit:4}") int minLimit,
+                                   @Value("${customer.concurrency-limit.max-limit:200}") int maxLimit,
+                                   @Value("${customer.concurrency-limit.smoothing:0.2}") double smoothing) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Try to start a request of the given priority. Returns false, without waiting, if the request should be turned
+     * away (because requests of its priority have already used up their share of the limit).
+     */
+    @Override
+    public boolean tryAcquire(Priority priority) {
+        int allowed = Math.max(1, (int) (limit * priority.getShare()));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                rejections.incrementAndGet(priority.ordinal());
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Finish a request that was started by tryAcquire().
+     */
+    @Override
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Record how long a single database lookup took, and adapt the concurrency limit to it.
+     */
+    @Override
+    public synchronized void recordLatency(long latencyNanos) {
+        if (latencyNanos <= 0) {
+            return;
+        }
+        if (longLatency == 0) {
+            shortLatency = latencyNanos;
+            longLatency = latencyNanos;
+            return;
+        }
+
+        shortLatency += (latencyNanos - shortLatency) * SHORT_SMOOTHING;
+        longLatency += (latencyNanos - longLatency) * LONG_SMOOTHING;
+
+        // Once the database has recovered, quickly forget how slow it was
+        if (longLatency / shortLatency > 2) {
+            longLatency *= 0.95;
+        }
+
+        // Don't grow the limit while it isn't even being used
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longLatency / shortLatency));
+        if ((gradient == 1.0) && (inFlight.get() < estimatedLimit / 2)) {
+            return;
+        }
+
+        double newLimit = (estimatedLimit * gradient) + Math.sqrt(estimatedLimit);
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit,
+                (estimatedLimit * (1 - smoothing)) + (newLimit * smoothing)));
+        limit = (int) estimatedLimit;
+    }
+
+    /**
+     * Return the current concurrency limit.
+     */
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Return the number of requests currently in progress.
+     */
+    @Override
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Return the number of requests of the given priority that have been turned away.
+     */
+    public long getRejections(Priority priority) {
+        return rejections.get(priority.ordinal());
+    }
+
+    /**
+     * Register the limiter metrics with Micrometer (and therefore the /metrics endpoint).
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("customer.concurrency.limit", this, CustomerConcurrencyLimiterImpl::getLimit)
+                .description("Current adaptive concurrency limit of the customer endpoints")
+                .register(registry);
+        Gauge.builder("customer.concurrency.in.flight", this, CustomerConcurrencyLimiterImpl::getInFlight)
+                .description("Customer requests currently in progress")
+                .register(registry);
+        for (Priority priority : Priority.values()) {
+            FunctionCounter.builder("customer.concurrency.rejections", this, limiter -> limiter.getRejections(priority))
+                    .description("Customer requests turned away by the concurrency limiter")
+                    .tag("priority", priority.name().toLowerCase())
+                    .register(registry);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -1,17 +1,41 @@
 package com.dbs.micronaut.demo.customer.impl;
 
+import com.dbs.micronaut.demo.customer.CustomerChangeLog;
 import com.dbs.micronaut.demo.customer.CustomerController;
+import com.dbs.micronaut.demo.customer.CustomerPayloadCache;
 import com.dbs.micronaut.demo.customer.CustomerService;
 import com.dbs.micronaut.demo.customer.CustomerTranslator;
+import com.dbs.micronaut.demo.customer.OrderService;
+import com.dbs.micronaut.demo.customer.contract.CustomerChangeDTO;
 import com.dbs.micronaut.demo.customer.contract.CustomerDTO;
 import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.dbs.micronaut.demo.customer.entity.CustomerOrderSummary;
+import com.dbs.micronaut.demo.customer.event.CustomerChange;
+import com.dbs.micronaut.demo.exception.BusinessException;
+import com.dbs.micronaut.demo.tracing.Traced;
+import io.micronaut.context.annotation.Value;
 import io.micronaut.http.HttpResponse;
+import io.micronaut.http.MediaType;
 import io.micronaut.http.MutableHttpResponse;
+import io.micronaut.http.annotation.Body;
 import io.micronaut.http.annotation.Controller;
 import io.micronaut.http.annotation.Get;
+import io.micronaut.http.annotation.Header;
+import io.micronaut.http.annotation.Put;
+import io.micronaut.http.annotation.QueryValue;
+import io.micronaut.http.sse.Event;
+import io.netty.util.collection.IntObjectMap;
+import io.reactivex.Flowable;
 import io.reactivex.Single;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This REST API controller is responsible for providing an API for managing Customer entities.
@@ -37,6 +61,20 @@ public class CustomerControllerImpl implements CustomerController {
      * multi-threaded, etc.
      */
 
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    /**
+     * The change type of the event sent when a change stream has missed changes.
+     */
+    private static final String RESET = "RESET";
+
+    /**
+     * The maximum number of changes read from the change log (and queued for a client) at a time.
+     */
+    private static final int MAX_CHANGES_PER_POLL = 100;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
     // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
 
     /**
@@ -48,6 +86,15 @@ public class CustomerControllerImpl implements CustomerController {
 
     private final CustomerService customerService;
     private final CustomerTranslator customerTranslator;
+    private final CustomerChangeLog customerChangeLog;
+    private final CustomerPayloadCache customerPayloadCache;
+    private final OrderService orderService;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final Duration changePollInterval;
 
     // -----------------------------------------------------------------------------------------------------------------
 
@@ -62,9 +109,16 @@ public class CustomerControllerImpl implements CustomerController {
      */
 
     @Inject
-    CustomerControllerImpl(CustomerService customerService, CustomerTranslator customerTranslator) {
+    CustomerControllerImpl(CustomerService customerService, CustomerTranslator customerTranslator,
+                           CustomerChangeLog customerChangeLog, CustomerPayloadCache customerPayloadCache,
+                           OrderService orderService,
+                           @Value("${customer.change-log.poll-interval:250ms}") Duration changePollInterval) {
         this.customerService = customerService;
         this.customerTranslator = customerTranslator;
+        this.customerChangeLog = customerChangeLog;
+        this.customerPayloadCache = customerPayloadCache;
+        this.orderService = orderService;
+        this.changePollInterval = changePollInterval;
     }
 
     // -----------------------------------------------------------------------------------------------------------------
@@ -79,9 +133,17 @@ public class CustomerControllerImpl implements CustomerController {
      * method part of a "reactive" controller, meaning an event loop is used to process this request (like NodeJS) and
      * thus allows this service to handle more concurrent requests.
      * </p>
+     * Hot Customers (those pinned in the near-cache) are answered with JSON that was serialized, and gzipped if the
+     * client accepts it, ahead of time (see CustomerPayloadCache).
+     * <p>
+     * With orderSummary=true (GET /v1/customers/{customerId}?orderSummary=true), the response also includes the
+     * Customer's order count and latest order number, read from its order summary (a single lookup, however many
+     * Orders it has).
      */
+    @Traced
     @Get(uri = "/customers/{customerId}")
-    public Single<MutableHttpResponse<CustomerDTO>> getCustomer(Integer customerId) {
+    public Single<MutableHttpResponse<?>> getCustomer(Integer customerId, @Nullable @QueryValue Boolean orderSummary,
+                                                      @Nullable @Header("Accept-Encoding") String acceptEncoding) {
 
         /**
          * DEVELOPER NOTE: Basically returns a function that will be called when the underlying web server (Netty) is
@@ -101,6 +163,20 @@ public class CustomerControllerImpl implements CustomerController {
                 return HttpResponse.notFound();
             }
 
+            // Order summary asked for?
+            if (Boolean.TRUE.equals(orderSummary)) {
+                IntObjectMap<CustomerOrderSummary> summaries = orderService.getCustomerOrderSummaries(
+                        new int[]{customer.getCustomerId()});
+                return HttpResponse.ok(customerTranslator.toContract(customer,
+                        summaries.get(customer.getCustomerId())));
+            }
+
+            // Hot customer? Its JSON is ready to go.
+            MutableHttpResponse<byte[]> cachedResponse = customerPayloadCache.getResponse(customer, acceptEncoding);
+            if (cachedResponse != null) {
+                return cachedResponse;
+            }
+
             // Translate to contract
             CustomerDTO customerDto = customerTranslator.toContract(customer);
 
@@ -110,5 +186,179 @@ public class CustomerControllerImpl implements CustomerController {
         });
     }
 
+    /**
+     * Return CustomerDTOs of the Customers with the given comma-separated IDs (for example, GET /v1/customers?ids=1,2,3),
+     * in the order they were asked for. Customers that aren't found are simply left out. With orderSummary=true, every
+     * Customer's order count and latest order number are included, all read with a single query.
+     */
+    @Get(uri = "/customers")
+    public Single<MutableHttpResponse<List<CustomerDTO>>> getCustomers(@QueryValue String ids,
+                                                                       @Nullable @QueryValue Boolean orderSummary) {
+        return Single.fromCallable(() -> {
+
+            // Get the customers (may throw a BusinessException)
+            int[] customerIds = parseCustomerIds(ids);
+            IntObjectMap<Customer> customers = customerService.getCustomers(customerIds);
+            IntObjectMap<CustomerOrderSummary> summaries = Boolean.TRUE.equals(orderSummary)
+                    ? orderService.getCustomerOrderSummaries(customerIds) : null;
+
+            // Translate to contract, each Customer only once
+            List<CustomerDTO> customerDtos = new ArrayList<>(customers.size());
+            for (int customerId : customerIds) {
+                Customer customer = customers.remove(customerId);
+                if (customer != null) {
+                    customerDtos.add((summaries == null) ? customerTranslator.toContract(customer)
+                            : customerTranslator.toContract(customer, summaries.get(customerId)));
+                }
+            }
+
+            // Return 200-OK and the Customers
+            return HttpResponse.ok(customerDtos);
+
+        });
+    }
+
+    /**
+     * Change the Customer with the given ID (for example, PUT /v1/customers/123 with {"fullName": "John Smith"}), and
+     * return the changed Customer. The ID in the path is the one changed; the full name is the only property of a
+     * Customer that can be changed.
+     * <p>
+     * With write-behind enabled (see WriteBehindCustomerWriter), the 200 - OK only means that the change has been
+     * journaled: it's written to the database (and seen by GET requests) a moment later.
+     */
+    @Put(uri = "/customers/{customerId}")
+    public Single<MutableHttpResponse<?>> updateCustomer(Integer customerId, @Body CustomerDTO customerDto) {
+        return Single.fromCallable(() -> {
+
+            // Change the customer (may throw a BusinessException)
+            Customer customer = customerService.updateCustomer(customerId, customerDto.getFullName());
+
+            // Customer not found?
+            if (customer == null) {
+                return HttpResponse.notFound();
+            }
+
+            // Return 200-OK and the changed Customer
+            return HttpResponse.ok(customerTranslator.toContract(customer));
+
+        });
+    }
+
+    /**
+     * Return CustomerDTOs of the Customers whose full names match every word of the given query (for example,
+     * GET /v1/customers/search?q=john+smi), best matches first. A word matches a word of a name if it is the whole
+     * word, or the start of it.
+     */
+    @Get(uri = "/customers/search")
+    public Single<MutableHttpResponse<List<CustomerDTO>>> searchCustomers(@QueryValue String q,
+                                                                          @Nullable @QueryValue Integer limit) {
+        return Single.fromCallable(() -> {
+
+            // Search for the customers (may throw a BusinessException)
+            int maxResults = (limit == null) ? CustomerService.DEFAULT_SEARCH_RESULTS : limit;
+            List<Customer> customers = customerService.searchCustomers(q, maxResults);
+
+            // Translate to contract
+            List<CustomerDTO> customerDtos = new ArrayList<>(customers.size());
+            for (Customer customer : customers) {
+                customerDtos.add(customerTranslator.toContract(customer));
+            }
+
+            // Return 200-OK and the Customers
+            return HttpResponse.ok(customerDtos);
+
+        });
+    }
+
+    /**
+     * Return a never-ending Server-Sent Events stream of the changes to Customers (and their Orders), so that
+     * downstream services can invalidate exactly what changed instead of polling every Customer they have cached.
+     * <p>
+     * Every event's ID is its offset in the stream. A client that reconnects with the standard Last-Event-ID header
+     * (or the "since" query parameter) set to the last offset it saw picks up exactly where it left off. Without
+     * either, only changes made from now on are sent. If the changes a client asked for are no longer available, it
+     * is sent a single RESET event (and should throw away everything it has cached) followed by the latest changes.
+     * <p>
+     * DEVELOPER NOTE: This stream is "pulled" by the client rather than "pushed" at it. The change log is checked
+     * every poll interval, but ticks are dropped (onBackpressureDrop) while the client is still busy with the last
+     * batch, and concatMapIterable only fetches the next batch once the client has asked for more. A slow client
+     * therefore never causes changes to pile up in memory... it just falls behind in the change log, which holds
+     * a bounded number of changes no matter how many clients are connected.
+     */
+    @Get(uri = "/customers/changes", produces = MediaType.TEXT_EVENT_STREAM)
+    public Flowable<Event<CustomerChangeDTO>> getCustomerChanges(@Nullable @QueryValue Long since,
+                                                                 @Nullable @Header("Last-Event-ID") Long lastEventId) {
+        long lastSeenOffset = (lastEventId != null) ? lastEventId
+                : (since != null) ? since
+                : customerChangeLog.getNextOffset() - 1;
+
+        return Flowable.defer(() -> {
+            AtomicLong nextOffset = new AtomicLong(lastSeenOffset + 1);
+            return Flowable.interval(0, changePollInterval.toMillis(), TimeUnit.MILLISECONDS)
+                    .onBackpressureDrop()
+                    .concatMapIterable(tick -> readChanges(nextOffset), 1);
+        });
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    /**
+     * Read the next batch of changes for a change stream, starting at (and then advancing) the given offset.
+     */
+    private List<Event<CustomerChangeDTO>> readChanges(AtomicLong nextOffset) {
+        List<CustomerChange> changes = customerChangeLog.read(nextOffset.get(), MAX_CHANGES_PER_POLL);
+
+        // Missed changes (or an offset from before a restart)? The client has to start over.
+        boolean missedChanges = changes.isEmpty()
+                ? nextOffset.get() > customerChangeLog.getNextOffset()
+                : changes.get(0).getOffset() > nextOffset.get();
+        if (missedChanges) {
+            CustomerChangeDTO resetDto = new CustomerChangeDTO();
+            resetDto.setOffset(customerChangeLog.getNextOffset() - 1);
+            resetDto.setChangeType(RESET);
+            nextOffset.set(resetDto.getOffset() + 1);
+            return Collections.singletonList(Event.of(resetDto).id(String.valueOf(resetDto.getOffset())).name("reset"));
+        }
+
+        List<Event<CustomerChangeDTO>> events = new ArrayList<>(changes.size());
+        for (CustomerChange change : changes) {
+            events.add(Event.of(customerTranslator.toContract(change)).id(String.valueOf(change.getOffset()))
+                    .name("change"));
+            nextOffset.set(change.getOffset() + 1);
+        }
+        return events;
+    }
+
+    /**
+     * Parse the given comma-separated customer IDs straight into an array of primitive ints.
+     *
+     * @throws BusinessException if any of the IDs is not a number.
+     */
+    private static int[] parseCustomerIds(String ids) throws BusinessException {
+        int count = 1;
+        for (int i = 0; i < ids.length(); i++) {
+            if (ids.charAt(i) == ',') {
+                count++;
+            }
+        }
+
+        int[] customerIds = new int[count];
+        int start = 0;
+        for (int i = 0; i < count; i++) {
+            int end = ids.indexOf(',', start);
+            end = (end < 0) ? ids.length() : end;
+            try {
+                customerIds[i] = Integer.parseInt(ids, start, end, 10);
+            } catch (NumberFormatException e) {
+                throw new BusinessException(String.format(CustomerService.INVALID_CUSTOMER_ID,
+                        ids.substring(start, end)));
+            }
+            start = end + 1;
+        }
+        return customerIds;
+    }
+
     // -----------------------------------------------------------------------------------------------------------------
 }
@@ -0,0 +1,231 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.customer.CustomerHotKeyTracker;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.scheduling.annotation.Scheduled;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Tracks customer reads using a Count-Min Sketch, and keeps the top customer IDs by estimated read count as the "hot"
+ * set.
+ * <p>
+ * DEVELOPER NOTE: A Count-Min Sketch is a fixed-size table of counters (DEPTH rows of "width" counters each). Every
+ * read increments one counter per row, chosen by a different hash function per row. Because several IDs can share a
+ * counter, each counter can only over-estimate... so the smallest of the counters for an ID is the best estimate of
+ * how many times it was read. The memory used is the same whether there are ten customers or ten million, and
+ * recording a read is just a handful of lock-free atomic increments, which makes it cheap enough to sit in front of
+ * every single read.
+ * <p>
+ * Only IDs whose estimate reaches the configured minimum are offered to the (small) hot set, and all counters are
+ * periodically halved so that customers that were hot an hour ago, but aren't anymore, age out. The hot set itself is
+ * a primitive int-keyed map that is copied (under a lock) whenever its membership changes, so that the far more common
+ * isHot() checks are lock-free and never box the customer ID.
+ */
+@Singleton
+public class CustomerHotKeyTrackerImpl implements CustomerHotKeyTracker {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    /**
+     * The number of rows (hash functions) in the sketch.
+     */
+    private static final int DEPTH = 4;
+
+    /**
+     * Seeds used to derive an independent hash function for each row of the sketch.
+     */
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final AtomicIntegerArray counters;
+    private final int widthMask;
+    private final int capacity;
+    private final int minReads;
+
+    /**
+     * The hot customer IDs mapped to their estimated read counts. Never modified once published (but the counts are).
+     */
+    private volatile IntObjectMap<AtomicInteger> hotCustomerIds = new IntObjectHashMap<>();
+
+    /**
+     * The estimate of the coldest hot customer ID when the hot set was last full. A candidate must beat this estimate
+     * to get into a full hot set, which lets most candidates be turned away without taking the lock.
+     */
+    private volatile int coldestHotCount;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    /**
+     * Create a new CustomerHotKeyTrackerImpl.
+     *
+     * @param sketchWidth the number of counters in each row of the sketch (rounded up to a power of two)
+     * @param capacity    the maximum number of customer IDs that can be hot at the same time
+     * @param minReads    the minimum estimated number of reads before a customer ID can be considered hot
+     */
+    @Inject
+    CustomerHotKeyTrackerImpl(@Value("${customer.hot-keys.sketch-width:4096}") int sketchWidth,
+                              @Value("${customer.hot-keys.capacity:64}") int capacity,
+                              @Value("${customer.hot-keys.min-reads:50}") int minReads) {
+        int width = Integer.highestOneBit(Math.max(sketchWidth - 1, 1)) << 1;
+        this.counters = new AtomicIntegerArray(DEPTH * width);
+        this.widthMask = width - 1;
+        this.capacity = capacity;
+        this.minReads = minReads;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Record a single read of the Customer with the given ID.
+     */
+    @Override
+    public void recordRead(int customerId) {
+
+        // Increment one counter per row, the smallest result is the estimate
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(indexOf(row, customerId)));
+        }
+
+        if (estimate >= minReads) {
+            offer(customerId, estimate);
+        }
+    }
+
+    /**
+     * Returns whether or not the Customer with the given ID is currently considered to be hot.
+     */
+    @Override
+    public boolean isHot(int customerId) {
+        return hotCustomerIds.containsKey(customerId);
+    }
+
+    /**
+     * Return the currently hot customer IDs mapped to their estimated read counts, ordered from hottest to coldest.
+     */
+    @Override
+    public Map<Integer, Long> getHotCustomerIds() {
+        Map<Integer, Long> hottestFirst = new LinkedHashMap<>();
+        hotCustomerIds.entrySet().stream()
+                .sorted(Comparator.comparingInt((Map.Entry<Integer, AtomicInteger> entry) -> entry.getValue().get())
+                        .reversed())
+                .forEach(entry -> hottestFirst.put(entry.getKey(), (long) entry.getValue().get()));
+        return hottestFirst;
+    }
+
+    /**
+     * Halve every counter in the sketch (and every hot estimate), and drop the hot customer IDs that have fallen below
+     * the minimum number of reads.
+     */
+    @Scheduled(fixedDelay = "${customer.hot-keys.decay-interval:1m}")
+    public synchronized void decay() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.updateAndGet(i, count -> count >>> 1);
+        }
+        IntObjectMap<AtomicInteger> stillHot = new IntObjectHashMap<>(capacity);
+        for (IntObjectMap.PrimitiveEntry<AtomicInteger> entry : hotCustomerIds.entries()) {
+            if (entry.value().updateAndGet(count -> count >>> 1) >= minReads) {
+                stillHot.put(entry.key(), entry.value());
+            }
+        }
+        hotCustomerIds = stillHot;
+        coldestHotCount = 0;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    /**
+     * Offer the given customer ID to the hot set. If the hot set is full, the customer ID replaces the coldest hot
+     * customer ID, but only if its estimate is higher.
+     */
+    private void offer(int customerId, int estimate) {
+
+        // Already hot? Just refresh the estimate (no lock needed)
+        AtomicInteger hotCount = hotCustomerIds.get(customerId);
+        if (hotCount != null) {
+            hotCount.set(estimate);
+            return;
+        }
+
+        // Full, and not hotter than the coldest hot customer ID? Turn it away without locking.
+        if ((hotCustomerIds.size() >= capacity) && (estimate <= coldestHotCount)) {
+            return;
+        }
+
+        synchronized (this) {
+            IntObjectMap<AtomicInteger> current = hotCustomerIds;
+            if (current.containsKey(customerId) || (capacity <= 0)) {
+                return;
+            }
+
+            int coldestCustomerId = 0;
+            if (current.size() >= capacity) {
+                coldestCustomerId = coldestCustomerId(current);
+                if (current.get(coldestCustomerId).get() >= estimate) {
+                    coldestHotCount = current.get(coldestCustomerId).get();
+                    return;
+                }
+            }
+
+            IntObjectMap<AtomicInteger> updated = new IntObjectHashMap<>(capacity);
+            updated.putAll(current);
+            if (updated.size() >= capacity) {
+                updated.remove(coldestCustomerId);
+            }
+            updated.put(customerId, new AtomicInteger(estimate));
+            hotCustomerIds = updated;
+            if (updated.size() >= capacity) {
+                coldestHotCount = updated.get(coldestCustomerId(updated)).get();
+            }
+        }
+    }
+
+    /**
+     * Return the customer ID in the given (non-empty) hot set with the lowest estimated read count.
+     * <p>
+     * DEVELOPER NOTE: The entries() iterator of a Netty primitive map hands back the *same* entry object every time
+     * (it is a cursor, to avoid allocating), so the key has to be copied out rather than keeping the entry itself.
+     */
+    private static int coldestCustomerId(IntObjectMap<AtomicInteger> hotSet) {
+        int coldestCustomerId = 0;
+        int coldestCount = Integer.MAX_VALUE;
+        for (IntObjectMap.PrimitiveEntry<AtomicInteger> entry : hotSet.entries()) {
+            if (entry.value().get() <= coldestCount) {
+                coldestCustomerId = entry.key();
+                coldestCount = entry.value().get();
+            }
+        }
+        return coldestCustomerId;
+    }
+
+    /**
+     * Return the index of the counter for the given customer ID in the given row of the sketch.
+     */
+    private int indexOf(int row, int customerId) {
+        int hash = customerId * SEEDS[row];
+        hash ^= hash >>> 16;
+        hash *= 0x7FEB352D;
+        hash ^= hash >>> 15;
+        return (row * (widthMask + 1)) + (hash & widthMask);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
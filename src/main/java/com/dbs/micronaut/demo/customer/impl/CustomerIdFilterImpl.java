@@ -0,0 +1,250 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.customer.CustomerIdFilter;
+import com.dbs.micronaut.demo.customer.CustomerRepository;
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.dbs.micronaut.demo.customer.event.EntityChangeEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.runtime.event.annotation.EventListener;
+import io.micronaut.scheduling.annotation.Scheduled;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Bloom filter of every existing customer ID.
+ * <p>
+ * DEVELOPER NOTE: A Bloom filter is an array of bits. Adding an ID sets a few bits (one per hash function), and
+ * checking an ID tests those same bits. If any of them is not set, the ID was definitely never added. If all of them
+ * are set, the ID was *probably* added... other IDs might have set those bits (a "false positive"). A false positive
+ * only costs a database query that returns nothing, which is what happens today for every missing ID anyway. With 1%
+ * false positives, each customer costs under 10 bits, so a million customers fit in about 1.2MB.
+ * <p>
+ * The filter starts out "open" (everything might exist) until it has been built by streaming every customer ID from
+ * the repository. IDs can't be removed from a Bloom filter, so the whole filter is periodically rebuilt in the
+ * background to forget deleted customers, and new customers are added as they are committed to the database.
+ * <p>
+ * The filter only hears about new customers committed by this instance, by other instances (through the remote cache's
+ * invalidation messages, when the remote cache is enabled), and by other systems (through CustomerChangePoller, when
+ * it is enabled). A customer inserted any other way is turned away as not found until the next rebuild, which can be
+ * up to "customer.id-filter.rebuild-interval" later. So the filter is off (everything might exist) unless
+ * "customer.id-filter.enabled" is set to true, which is only safe where every new customer reaches it in one of those
+ * ways, or where that delay is acceptable.
+ */
+@Slf4j
+@Singleton
+public class CustomerIdFilterImpl implements CustomerIdFilter, MeterBinder {
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final CustomerRepository customerRepository;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final boolean enabled;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * The bits of the filter, or null until the filter has been built for the first time.
+     */
+    private volatile AtomicLongArray bits;
+
+    /**
+     * The bits of the filter currently being rebuilt (if any), so that IDs added during the rebuild are not lost.
+     */
+    private volatile AtomicLongArray rebuildingBits;
+
+    private final AtomicLong definiteMisses = new AtomicLong();
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    /**
+     * Create a new CustomerIdFilterImpl sized for the given number of customers and false-positive rate.
+     */
+    @Inject
+    CustomerIdFilterImpl(CustomerRepository customerRepository,
+                         @Value("${customer.id-filter.enabled:false}") boolean enabled,
+                         @Value("${customer.id-filter.expected-customers:1000000}") long expectedCustomers,
+                         @Value("${customer.id-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.customerRepository = customerRepository;
+        this.enabled = enabled;
+
+        // The standard optimal Bloom filter sizing formulas, with the bit count rounded up to whole longs
+        double optimalBits = -expectedCustomers * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        this.bitCount = Math.max(64, ((long) Math.ceil(optimalBits / 64)) * 64);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedCustomers * Math.log(2)));
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Returns false if the Customer with the given ID definitely does not exist. Returns true if it might exist (or if
+     * the filter is disabled, or hasn't been built yet).
+     */
+    @Override
+    public boolean mightContain(int customerId) {
+        AtomicLongArray currentBits = bits;
+        if (currentBits == null) {
+            return true;
+        }
+
+        long hash1 = hash(customerId);
+        long hash2 = hash(hash1) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hash1 + (i * hash2), bitCount);
+            if ((currentBits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                definiteMisses.incrementAndGet();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Add the given customer ID to the filter.
+     */
+    @Override
+    public void add(int customerId) {
+        AtomicLongArray currentBits = bits;
+        if (currentBits != null) {
+            set(currentBits, customerId);
+        }
+        AtomicLongArray currentRebuildingBits = rebuildingBits;
+        if (currentRebuildingBits != null) {
+            set(currentRebuildingBits, customerId);
+        }
+    }
+
+    /**
+     * Add newly committed Customers to the filter. Updated Customers are added too: a Customer inserted by another
+     * system is only ever heard about as an update (see CustomerChangePoller).
+     */
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        if ((event.getChangeType() != EntityChangeEvent.ChangeType.DELETED) && (event.getEntity() instanceof Customer)
+                && (((Customer) event.getEntity()).getCustomerId() != null)) {
+            add(((Customer) event.getEntity()).getCustomerId());
+        }
+    }
+
+    /**
+     * Build a brand new filter from every customer ID in the repository, and swap it in once complete. Runs at startup,
+     * and then periodically to forget customers that have been deleted. Does nothing if the filter is disabled, which
+     * leaves it open.
+     */
+    @Scheduled(initialDelay = "0s", fixedDelay = "${customer.id-filter.rebuild-interval:1h}")
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        AtomicLongArray freshBits = new AtomicLongArray((int) (bitCount >>> 6));
+        rebuildingBits = freshBits;
+        try {
+            long start = System.currentTimeMillis();
+            customerRepository.forEachCustomerId(customerId -> set(freshBits, customerId));
+            bits = freshBits;
+            log.info("Built customer ID filter ({} bytes, {} hashes) in {}ms", getMemoryBytes(), hashCount,
+                    System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.error("Unable to build customer ID filter, leaving the previous filter in place", e);
+        } finally {
+            rebuildingBits = null;
+        }
+    }
+
+    /**
+     * Return the current expected false-positive rate, based on how many of the bits have been set.
+     */
+    public double getFalsePositiveRate() {
+        AtomicLongArray currentBits = bits;
+        if (currentBits == null) {
+            return 1.0;
+        }
+
+        long bitsSet = 0;
+        for (int i = 0; i < currentBits.length(); i++) {
+            bitsSet += Long.bitCount(currentBits.get(i));
+        }
+        return Math.pow((double) bitsSet / bitCount, hashCount);
+    }
+
+    /**
+     * Return the number of bytes of memory used by the bits of the filter.
+     */
+    public long getMemoryBytes() {
+        return bitCount >>> 3;
+    }
+
+    /**
+     * Return the number of lookups that were rejected as definitely not existing.
+     */
+    public long getDefiniteMisses() {
+        return definiteMisses.get();
+    }
+
+    /**
+     * Register the filter metrics with Micrometer (and therefore the /metrics endpoint).
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("customer.id.filter.false.positive.rate", this, CustomerIdFilterImpl::getFalsePositiveRate)
+                .description("Expected false-positive rate of the customer ID filter")
+                .register(registry);
+        Gauge.builder("customer.id.filter.memory", this, CustomerIdFilterImpl::getMemoryBytes)
+                .description("Memory used by the customer ID filter")
+                .baseUnit("bytes")
+                .register(registry);
+        FunctionCounter.builder("customer.id.filter.definite.misses", this, CustomerIdFilterImpl::getDefiniteMisses)
+                .description("Customer lookups short-circuited because the customer definitely does not exist")
+                .register(registry);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    /**
+     * Set the bits for the given customer ID in the given bit array.
+     */
+    private void set(AtomicLongArray targetBits, int customerId) {
+        long hash1 = hash(customerId);
+        long hash2 = hash(hash1) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hash1 + (i * hash2), bitCount);
+            long mask = 1L << bit;
+            int word = (int) (bit >>> 6);
+            if ((targetBits.get(word) & mask) == 0) {
+                targetBits.getAndAccumulate(word, mask, (current, newBit) -> current | newBit);
+            }
+        }
+    }
+
+    /**
+     * A fast, well-mixed 64-bit hash (the MurmurHash3 finalizer).
+     */
+    private static long hash(long value) {
+        long hash = value * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
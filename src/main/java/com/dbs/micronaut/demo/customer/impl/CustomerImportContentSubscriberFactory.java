@@ -0,0 +1,75 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import io.micronaut.context.annotation.Replaces;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.annotation.Consumes;
+import io.micronaut.http.server.netty.FormDataHttpContentSubscriberFactory;
+import io.micronaut.http.server.netty.HttpContentProcessor;
+import io.micronaut.http.server.netty.HttpContentSubscriberFactory;
+import io.micronaut.http.server.netty.NettyHttpRequest;
+import io.micronaut.http.server.netty.configuration.NettyHttpServerConfiguration;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Reads form and multipart request bodies, allowing the upload to POST /v1/customers/import (and only that) to be as
+ * large as "micronaut.server.multipart.max-file-size".
+ * <p>
+ * DEVELOPER NOTE: Micronaut checks every request body against "micronaut.server.max-request-size" as it arrives,
+ * multipart uploads included, and only then against the multipart "max-file-size". There is no way to configure a
+ * larger limit for a single route, and raising the limit for every route would let any request (a JSON body, say,
+ * which is held in memory) be just as large. So this class replaces Micronaut's own factory, and hands the import
+ * upload to a copy of the server configuration whose request size limit is the multipart one. Every other request
+ * keeps the global limit. The import upload is held in memory too (see CustomerImportControllerImpl), so the multipart
+ * limit is still kept well below what the heap can hold.
+ *
+ * @see CustomerImportControllerImpl
+ */
+@Singleton
+@Replaces(FormDataHttpContentSubscriberFactory.class)
+@Consumes({MediaType.APPLICATION_FORM_URLENCODED, MediaType.MULTIPART_FORM_DATA})
+public class CustomerImportContentSubscriberFactory implements HttpContentSubscriberFactory {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    static final String IMPORT_PATH = "/v1/customers/import";
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final FormDataHttpContentSubscriberFactory defaultFactory;
+    private final FormDataHttpContentSubscriberFactory importFactory;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    @Inject
+    CustomerImportContentSubscriberFactory(NettyHttpServerConfiguration serverConfiguration) {
+        NettyHttpServerConfiguration importConfiguration = new NettyHttpServerConfiguration();
+        importConfiguration.setMultipart(serverConfiguration.getMultipart());
+        importConfiguration.setDefaultCharset(serverConfiguration.getDefaultCharset());
+        importConfiguration.setMaxRequestSize(Math.max(serverConfiguration.getMaxRequestSize(),
+                serverConfiguration.getMultipart().getMaxFileSize()));
+
+        this.defaultFactory = new FormDataHttpContentSubscriberFactory(serverConfiguration);
+        this.importFactory = new FormDataHttpContentSubscriberFactory(importConfiguration);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Return the processor for the body of the given request: with the multipart size limit for the import upload, or
+     * the global request size limit for everything else.
+     */
+    @Override
+    public HttpContentProcessor build(NettyHttpRequest request) {
+        return IMPORT_PATH.equals(request.getPath()) ? importFactory.build(request) : defaultFactory.build(request);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,110 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.customer.CustomerImportController;
+import com.dbs.micronaut.demo.customer.CustomerImporter;
+import com.dbs.micronaut.demo.customer.contract.CustomerImportReportDTO;
+import com.dbs.micronaut.demo.exception.BusinessException;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.MutableHttpResponse;
+import io.micronaut.http.annotation.Controller;
+import io.micronaut.http.annotation.Post;
+import io.micronaut.http.annotation.QueryValue;
+import io.micronaut.http.multipart.CompletedFileUpload;
+import io.micronaut.scheduling.TaskExecutors;
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * This REST API controller is responsible for providing an API for importing files of Customers in bulk.
+ * <p>
+ * DEVELOPER NOTE: The uploaded file is copied to a temporary file once it has all arrived, and imported from there: the
+ * importer reads its chunks from the file in parallel. Both the copy and the import itself happen off the event loop,
+ * on the I/O thread pool.
+ * <p>
+ * The upload is received as a CompletedFileUpload, held in memory ("micronaut.server.multipart.disk" is false), which
+ * is why the upload size is limited. In this version of Micronaut, an upload buffered on disk is deleted as soon as the
+ * request has been read, before the controller gets to it, and StreamingFileUpload.transferTo() (which moves it
+ * elsewhere) only works while the upload is still arriving.
+ *
+ * @see CustomerImporter
+ */
+@Controller("/v1")
+public class CustomerImportControllerImpl implements CustomerImportController {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    private static final String TEMP_FILE_PREFIX = "customer-import-";
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final CustomerImporter customerImporter;
+    private final ExecutorService executorService;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    @Inject
+    CustomerImportControllerImpl(CustomerImporter customerImporter,
+                                 @Named(TaskExecutors.IO) ExecutorService executorService) {
+        this.customerImporter = customerImporter;
+        this.executorService = executorService;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Import every row of the CSV or NDJSON file uploaded (as the "file" part of a multipart form) to
+     * POST /v1/customers/import, and return a report of how it went: the number of rows imported, and why any of them
+     * weren't.
+     */
+    @Post(uri = "/customers/import", consumes = MediaType.MULTIPART_FORM_DATA)
+    public Single<MutableHttpResponse<CustomerImportReportDTO>> importCustomers(CompletedFileUpload file,
+                                                                                @Nullable @QueryValue String format) {
+        return Single.defer(() -> {
+
+            // Check the format first (may throw a BusinessException)
+            CustomerImporter.Format fileFormat = customerImporter.getFormat(format, file.getFilename());
+
+            // Copy the upload to a temporary file, then import it
+            File tempFile = File.createTempFile(TEMP_FILE_PREFIX, ".tmp");
+            return Single.fromCallable(() -> importCustomers(file, tempFile, fileFormat))
+                    .subscribeOn(Schedulers.from(executorService))
+                    .doFinally(() -> Files.deleteIfExists(tempFile.toPath()));
+
+        });
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    /**
+     * Copy the given upload to the given temporary file, and import it from there.
+     */
+    private MutableHttpResponse<CustomerImportReportDTO> importCustomers(CompletedFileUpload file, File tempFile,
+                                                                        CustomerImporter.Format fileFormat)
+            throws BusinessException, IOException {
+        try (InputStream inputStream = file.getInputStream()) {
+            Files.copy(inputStream, tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return HttpResponse.ok(customerImporter.importFile(tempFile.toPath(), fileFormat));
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
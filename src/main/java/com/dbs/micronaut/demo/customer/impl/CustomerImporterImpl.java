@@ -0,0 +1,570 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.customer.CustomerImporter;
+import com.dbs.micronaut.demo.customer.CustomerService;
+import com.dbs.micronaut.demo.customer.CustomerTranslator;
+import com.dbs.micronaut.demo.customer.contract.CustomerDTO;
+import com.dbs.micronaut.demo.customer.contract.CustomerImportErrorDTO;
+import com.dbs.micronaut.demo.customer.contract.CustomerImportReportDTO;
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.dbs.micronaut.demo.customer.event.EntityChangeEvent;
+import com.dbs.micronaut.demo.customer.event.EntityChangeEvent.ChangeType;
+import com.dbs.micronaut.demo.exception.BusinessException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.context.event.ApplicationEventPublisher;
+import io.micronaut.scheduling.TaskExecutors;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Imports CSV and NDJSON files of new Customers in bulk: the file is split into chunks, which are parsed, validated
+ * and written to the database in parallel.
+ * <p>
+ * DEVELOPER NOTE: Saving Customers one at a time through the EntityManager is fine for a web request, but far too slow
+ * for a file of millions of them: every entity is tracked in the persistence context (which grows with every row),
+ * dirty-checked at every flush, and every insert is a separate round trip to the database. So this class:
+ * <ul>
+ * <li>splits the file into chunks of (roughly) chunk-size bytes, each ending at the end of a line, so that every
+ * chunk can be read and parsed on its own, by its own thread, without ever holding the whole file in memory;</li>
+ * <li>writes the Customers of a chunk in batches of batch-size, each in a Hibernate StatelessSession (no persistence
+ * context, no dirty checking) with JDBC batching, so that a whole batch of inserts is sent to the database at once;
+ * </li>
+ * <li>if a batch fails (say, because one of its Customers already exists), retries its Customers one at a time, so
+ * that the one bad row is reported and the rest of the batch is still imported.</li>
+ * </ul>
+ * A StatelessSession bypasses Hibernate's event listeners, so HibernateEntityEventPublisher never hears about the
+ * imported Customers. This class publishes their EntityChangeEvents itself once each batch has been committed, so that
+ * the ID filter, search index, change log and caches know about them straight away.
+ * <p>
+ * CSV files must start with a header line. Quoted fields (with "" for a quote inside them) are supported, but a field
+ * can't span lines.
+ */
+@Slf4j
+@Singleton
+public class CustomerImporterImpl implements CustomerImporter {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    static final String INVALID_ROW = "Invalid row: %s";
+
+    static final String INVALID_TIMESTAMP = "Invalid lastReadTimestamp [%s].";
+
+    static final String UNTERMINATED_QUOTE = "Unterminated quoted field.";
+
+    static final String SAVE_FAILED = "Customer [%s] could not be saved: %s";
+
+    private static final String ID_COLUMN = "id";
+    private static final String FULL_NAME_COLUMN = "fullname";
+    private static final String LAST_READ_TIMESTAMP_COLUMN = "lastreadtimestamp";
+
+    /**
+     * The number of bytes read at a time when looking for the end of a line.
+     */
+    private static final int LINE_SCAN_BUFFER_SIZE = 8192;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final SessionFactory sessionFactory;
+    private final CustomerService customerService;
+    private final CustomerTranslator customerTranslator;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ExecutorService executorService;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final int parallelism;
+    private final int chunkSize;
+    private final int batchSize;
+    private final int maxErrors;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    /**
+     * Create a new CustomerImporterImpl.
+     *
+     * @param parallelism the number of chunks parsed and written at the same time (and database connections used)
+     * @param chunkSize   the (approximate) number of bytes in a chunk (8MB by default)
+     * @param batchSize   the number of Customers inserted in a single JDBC batch and transaction
+     * @param maxErrors   the maximum number of failed rows listed in an import report
+     */
+    @Inject
+    CustomerImporterImpl(SessionFactory sessionFactory, CustomerService customerService,
+                         CustomerTranslator customerTranslator, ObjectMapper objectMapper,
+                         ApplicationEventPublisher eventPublisher,
+                         @Named(TaskExecutors.IO) ExecutorService executorService,
+                         @Value("${customer.import.parallelism:4}") int parallelism,
+                         @Value("${customer.import.chunk-size:8388608}") int chunkSize,
+                         @Value("${customer.import.batch-size:1000}") int batchSize,
+                         @Value("${customer.import.max-errors:1000}") int maxErrors) {
+        this.sessionFactory = sessionFactory;
+        this.customerService = customerService;
+        this.customerTranslator = customerTranslator;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.executorService = executorService;
+        this.parallelism = Math.max(1, parallelism);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxErrors = maxErrors;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    @Override
+    public Format getFormat(String format, String fileName) throws BusinessException {
+        String name = (format != null) ? format.trim().toLowerCase(Locale.ROOT)
+                : (fileName != null) ? fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT)
+                : "";
+        switch (name) {
+            case "csv":
+                return Format.CSV;
+            case "ndjson":
+            case "jsonl":
+                return Format.NDJSON;
+            default:
+                throw new BusinessException(String.format(INVALID_IMPORT_FORMAT, (format != null) ? format : fileName));
+        }
+    }
+
+    @Override
+    public CustomerImportReportDTO importFile(Path file, Format format) throws BusinessException, IOException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+
+            // A CSV file starts with a header naming its columns
+            long dataStart = 0;
+            int[] columns = null;
+            if (format == Format.CSV) {
+                dataStart = nextLineStart(channel, 0, size);
+                columns = parseHeader(readString(channel, 0, dataStart));
+            }
+
+            // Split the rest of the file into chunks that end at the end of a line
+            List<Long> chunkStarts = new ArrayList<>();
+            for (long chunkStart = dataStart; chunkStart < size; ) {
+                chunkStarts.add(chunkStart);
+                chunkStart = nextLineStart(channel, Math.min(size, chunkStart + chunkSize), size);
+            }
+            chunkStarts.add(size);
+            int chunks = chunkStarts.size() - 1;
+
+            // Import the chunks in parallel, each worker taking the next chunk until there are none left
+            ChunkResult[] results = new ChunkResult[chunks];
+            AtomicInteger nextChunk = new AtomicInteger();
+            int workers = Math.min(parallelism, chunks);
+            final int[] csvColumns = columns;
+            List<Future<?>> futures = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                futures.add(executorService.submit(() -> {
+                    for (int chunk = nextChunk.getAndIncrement(); chunk < chunks; chunk = nextChunk.getAndIncrement()) {
+                        long chunkStart = chunkStarts.get(chunk);
+                        String text = readString(channel, chunkStart, chunkStarts.get(chunk + 1) - chunkStart);
+                        results[chunk] = importChunk(text, format, csvColumns);
+                    }
+                    return null;
+                }));
+            }
+            awaitAll(futures);
+
+            return createReport(format, results, workers, (dataStart > 0) ? 1 : 0, System.nanoTime() - start);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    /**
+     * Parse, validate and save every row of a chunk, in batches.
+     *
+     * @param columns the indexes of the ID, full name and last read timestamp columns of a CSV file
+     */
+    private ChunkResult importChunk(String text, Format format, int[] columns) {
+        ChunkResult result = new ChunkResult();
+        List<Customer> batch = new ArrayList<>(Math.min(batchSize, 1024));
+        List<Integer> batchLines = new ArrayList<>(Math.min(batchSize, 1024));
+        for (int lineStart = 0; lineStart < text.length(); ) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            lineEnd = (lineEnd < 0) ? text.length() : lineEnd;
+            int contentEnd = ((lineEnd > lineStart) && (text.charAt(lineEnd - 1) == '\r')) ? lineEnd - 1 : lineEnd;
+            String line = text.substring(lineStart, contentEnd);
+            lineStart = lineEnd + 1;
+            result.lines++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+
+            // Parse, validate and translate the row
+            result.rowsRead++;
+            try {
+                CustomerDTO customerDto = (format == Format.CSV) ? parseCsvRow(line, columns) : parseJsonRow(line);
+                if (!customerService.isValidCustomerId(customerDto.getId())) {
+                    throw new BusinessException(String.format(CustomerService.INVALID_CUSTOMER_ID,
+                            customerDto.getId()));
+                }
+                batch.add(customerTranslator.toEntity(customerDto));
+                batchLines.add(result.lines);
+            } catch (BusinessException e) {
+                result.addError(result.lines, e.getMessage(), maxErrors);
+                continue;
+            }
+
+            if (batch.size() >= batchSize) {
+                saveBatch(batch, batchLines, result);
+            }
+        }
+        saveBatch(batch, batchLines, result);
+        return result;
+    }
+
+    /**
+     * Insert the given Customers in a single JDBC batch and transaction, or (if that fails) one at a time, and then
+     * clear the batch.
+     */
+    private void saveBatch(List<Customer> batch, List<Integer> batchLines, ChunkResult result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            insert(batch);
+            result.rowsImported += batch.size();
+            publishCreated(batch);
+        } catch (RuntimeException batchException) {
+            for (int i = 0; i < batch.size(); i++) {
+                Customer customer = batch.get(i);
+                try {
+                    insert(batch.subList(i, i + 1));
+                    result.rowsImported++;
+                    publishCreated(batch.subList(i, i + 1));
+                } catch (RuntimeException e) {
+                    result.addError(batchLines.get(i),
+                            String.format(SAVE_FAILED, customer.getCustomerId(), rootCauseMessage(e)), maxErrors);
+                }
+            }
+        }
+        batch.clear();
+        batchLines.clear();
+    }
+
+    /**
+     * Insert the given Customers in a StatelessSession, committing them all or none of them. Their update timestamps
+     * are set to now (a StatelessSession doesn't call Customer's JPA callbacks).
+     */
+    private void insert(List<Customer> customers) {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            session.setJdbcBatchSize(batchSize);
+            Transaction transaction = session.beginTransaction();
+            try {
+                Instant now = Instant.now();
+                for (Customer customer : customers) {
+                    customer.setUpdatedAt(now);
+                    session.insert(customer);
+                }
+                transaction.commit();
+            } catch (RuntimeException e) {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+                throw e;
+            }
+        }
+    }
+
+    private void publishCreated(List<Customer> customers) {
+        for (Customer customer : customers) {
+            eventPublisher.publishEvent(new EntityChangeEvent(customer, ChangeType.CREATED));
+        }
+    }
+
+    /**
+     * Return the report of an import, given the results of each of its chunks (in file order).
+     *
+     * @param headerLines the number of lines before the first chunk
+     */
+    private CustomerImportReportDTO createReport(Format format, ChunkResult[] results, int workers, long headerLines,
+                                                 long elapsedNanos) {
+        CustomerImportReportDTO report = new CustomerImportReportDTO();
+        List<CustomerImportErrorDTO> errors = new ArrayList<>();
+
+        // Number the lines of every chunk from the start of the file
+        long linesBefore = headerLines;
+        for (ChunkResult result : results) {
+            report.setRowsRead(report.getRowsRead() + result.rowsRead);
+            report.setRowsImported(report.getRowsImported() + result.rowsImported);
+            report.setRowsFailed(report.getRowsFailed() + result.rowsFailed);
+            for (CustomerImportErrorDTO error : result.errors) {
+                error.setLine(error.getLine() + linesBefore);
+                errors.add(error);
+            }
+            linesBefore += result.lines;
+        }
+        errors.sort(Comparator.comparingLong(CustomerImportErrorDTO::getLine));
+
+        report.setFormat(format.name().toLowerCase(Locale.ROOT));
+        report.setChunks(results.length);
+        report.setParallelism(workers);
+        report.setElapsedMillis(elapsedNanos / 1_000_000);
+        report.setRowsPerSecond((elapsedNanos == 0) ? 0 : report.getRowsRead() * 1_000_000_000 / elapsedNanos);
+        report.setErrors(new ArrayList<>(errors.subList(0, Math.min(errors.size(), maxErrors))));
+        log.info("Imported {} of {} customers ({} failed) in {} ms, {} rows/s, {} chunks on {} threads.",
+                report.getRowsImported(), report.getRowsRead(), report.getRowsFailed(), report.getElapsedMillis(),
+                report.getRowsPerSecond(), report.getChunks(), report.getParallelism());
+        return report;
+    }
+
+    /**
+     * Return the indexes of the ID, full name and last read timestamp columns named by the given CSV header (-1 for a
+     * column that isn't there).
+     *
+     * @throws BusinessException if there's no ID column.
+     */
+    private static int[] parseHeader(String header) throws BusinessException {
+        String line = header.startsWith("\uFEFF") ? header.substring(1) : header;
+        List<String> names = parseCsvLine(line.trim());
+        int[] columns = {-1, -1, -1};
+        for (int i = 0; (names != null) && (i < names.size()); i++) {
+            switch (names.get(i).trim().toLowerCase(Locale.ROOT)) {
+                case ID_COLUMN:
+                    columns[0] = i;
+                    break;
+                case FULL_NAME_COLUMN:
+                    columns[1] = i;
+                    break;
+                case LAST_READ_TIMESTAMP_COLUMN:
+                    columns[2] = i;
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (columns[0] < 0) {
+            throw new BusinessException(String.format(MISSING_ID_COLUMN, line.trim()));
+        }
+        return columns;
+    }
+
+    /**
+     * Parse a CSV row into a CustomerDTO.
+     *
+     * @throws BusinessException if the row can't be parsed.
+     */
+    private static CustomerDTO parseCsvRow(String line, int[] columns) throws BusinessException {
+        List<String> fields = parseCsvLine(line);
+        if (fields == null) {
+            throw new BusinessException(String.format(INVALID_ROW, UNTERMINATED_QUOTE));
+        }
+
+        CustomerDTO customerDto = new CustomerDTO();
+        String id = field(fields, columns[0]);
+        try {
+            customerDto.setId((id == null) ? null : Integer.valueOf(id.trim()));
+        } catch (NumberFormatException e) {
+            throw new BusinessException(String.format(CustomerService.INVALID_CUSTOMER_ID, id));
+        }
+        customerDto.setFullName(field(fields, columns[1]));
+        String timestamp = field(fields, columns[2]);
+        if ((timestamp != null) && !timestamp.trim().isEmpty()) {
+            try {
+                customerDto.setLastReadTimestamp(ZonedDateTime.parse(timestamp.trim()).toInstant());
+            } catch (DateTimeParseException e) {
+                throw new BusinessException(String.format(INVALID_TIMESTAMP, timestamp));
+            }
+        }
+        return customerDto;
+    }
+
+    /**
+     * Parse an NDJSON row into a CustomerDTO.
+     *
+     * @throws BusinessException if the row isn't a valid CustomerDTO.
+     */
+    private CustomerDTO parseJsonRow(String line) throws BusinessException {
+        try {
+            return objectMapper.readValue(line, CustomerDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new BusinessException(String.format(INVALID_ROW, e.getOriginalMessage()));
+        } catch (IOException e) {
+            throw new BusinessException(String.format(INVALID_ROW, e.getMessage()));
+        }
+    }
+
+    /**
+     * Split a line of a CSV file into its fields.
+     *
+     * @return null if a quoted field isn't closed
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        int i = 0;
+        while (true) {
+            field.setLength(0);
+            if ((i < line.length()) && (line.charAt(i) == '"')) {
+                // Quoted field: read up to the closing quote, and skip to the next comma
+                i++;
+                while (true) {
+                    int quote = line.indexOf('"', i);
+                    if (quote < 0) {
+                        return null;
+                    }
+                    field.append(line, i, quote);
+                    i = quote + 1;
+                    if ((i < line.length()) && (line.charAt(i) == '"')) {
+                        field.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                int comma = line.indexOf(',', i);
+                i = (comma < 0) ? line.length() : comma;
+            } else {
+                int comma = line.indexOf(',', i);
+                int end = (comma < 0) ? line.length() : comma;
+                field.append(line, i, end);
+                i = end;
+            }
+            fields.add(field.toString());
+            if (i >= line.length()) {
+                return fields;
+            }
+            i++;
+        }
+    }
+
+    private static String field(List<String> fields, int column) {
+        return ((column >= 0) && (column < fields.size())) ? fields.get(column) : null;
+    }
+
+    /**
+     * Return the position just after the end of the line at (or after) the given position, or the size of the file.
+     */
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(LINE_SCAN_BUFFER_SIZE);
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Read the given range of the file as UTF-8 text.
+     * <p>
+     * DEVELOPER NOTE: Positional reads don't move the channel's own position, so every worker can read its own chunk
+     * of the same channel at the same time.
+     */
+    private static String readString(FileChannel channel, long position, long length) {
+        ByteBuffer buffer = ByteBuffer.allocate((int) length);
+        try {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Wait for all the given workers to finish, rethrowing the first thing that went wrong in any of them.
+     */
+    private static void awaitAll(List<Future<?>> futures) throws IOException {
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while importing customers", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static String rootCauseMessage(Throwable e) {
+        Throwable cause = e;
+        while ((cause.getCause() != null) && (cause.getCause() != cause)) {
+            cause = cause.getCause();
+        }
+        String message = String.valueOf(cause.getMessage());
+        int lineBreak = message.indexOf('\n');
+        return (lineBreak < 0) ? message : message.substring(0, lineBreak).trim();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * What happened to the rows of one chunk of a file. Line numbers are counted from the start of the chunk.
+     */
+    private static class ChunkResult {
+
+        private int lines;
+        private long rowsRead;
+        private long rowsImported;
+        private long rowsFailed;
+        private final List<CustomerImportErrorDTO> errors = new ArrayList<>();
+
+        void addError(long line, String message, int maxErrors) {
+            rowsFailed++;
+            if (errors.size() < maxErrors) {
+                errors.add(new CustomerImportErrorDTO(line, message));
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.customer.CustomerHotKeyTracker;
+import com.dbs.micronaut.demo.customer.CustomerNearCache;
+import com.dbs.micronaut.demo.customer.CustomerRepository;
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.dbs.micronaut.demo.customer.event.EntityChangeEvent;
+import io.micronaut.runtime.event.annotation.EventListener;
+import io.micronaut.scheduling.annotation.Scheduled;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Pins hot Customers in memory and keeps them fresh in the background.
+ * <p>
+ * DEVELOPER NOTE: Only Customers that the CustomerHotKeyTracker considers hot are ever pinned, so the size of this
+ * cache is bounded by the capacity of the tracker. Instead of expiring entries (which would send the hottest Customers
+ * back to the database every time they expire), a scheduled job re-reads every pinned Customer from the repository
+ * and un-pins the ones that have cooled off. Request threads therefore never wait on the database for a hot Customer.
+ * <p>
+ * The pinned Customers are kept in a primitive int-keyed map that is never modified once it has been published.
+ * Every change (which is rare) builds a new copy and swaps it in, so that reads (which are constant) need no locks
+ * and never box the customer ID.
+ */
+@Singleton
+public class CustomerNearCacheImpl implements CustomerNearCache {
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final CustomerRepository customerRepository;
+    private final CustomerHotKeyTracker customerHotKeyTracker;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private volatile IntObjectMap<Customer> pinnedCustomers = new IntObjectHashMap<>();
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    @Inject
+    CustomerNearCacheImpl(CustomerRepository customerRepository, CustomerHotKeyTracker customerHotKeyTracker) {
+        this.customerRepository = customerRepository;
+        this.customerHotKeyTracker = customerHotKeyTracker;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Return the pinned Customer with the given ID.
+     *
+     * @return null if the Customer is not pinned
+     */
+    @Override
+    public Customer get(int customerId) {
+        return pinnedCustomers.get(customerId);
+    }
+
+    /**
+     * Pin the given Customer into the cache.
+     */
+    @Override
+    public synchronized void pin(Customer customer) {
+        IntObjectMap<Customer> updated = new IntObjectHashMap<>(pinnedCustomers.size() + 1);
+        updated.putAll(pinnedCustomers);
+        updated.put(customer.getCustomerId(), customer);
+        pinnedCustomers = updated;
+    }
+
+    /**
+     * Un-pin the Customer with the given ID (if pinned), because it has changed elsewhere. It will be pinned again the
+     * next time it is read, if it is still hot.
+     */
+    @Override
+    public synchronized void evict(int customerId) {
+        if (pinnedCustomers.containsKey(customerId)) {
+            IntObjectMap<Customer> updated = new IntObjectHashMap<>(pinnedCustomers.size());
+            updated.putAll(pinnedCustomers);
+            updated.remove(customerId);
+            pinnedCustomers = updated;
+        }
+    }
+
+    /**
+     * Return the IDs of all currently pinned Customers.
+     */
+    @Override
+    public Set<Integer> getPinnedCustomerIds() {
+        return new HashSet<>(pinnedCustomers.keySet());
+    }
+
+    /**
+     * Replace pinned Customers with their committed changes, and un-pin them when they are deleted, so that a pinned
+     * Customer is never stale for longer than it takes to commit.
+     */
+    @EventListener
+    public synchronized void onEntityChange(EntityChangeEvent event) {
+        if (!(event.getEntity() instanceof Customer) || (((Customer) event.getEntity()).getCustomerId() == null)) {
+            return;
+        }
+
+        Customer customer = (Customer) event.getEntity();
+        if (!pinnedCustomers.containsKey(customer.getCustomerId())
+                || (event.getChangeType() == EntityChangeEvent.ChangeType.CREATED)) {
+            return;
+        }
+
+        IntObjectMap<Customer> updated = new IntObjectHashMap<>(pinnedCustomers.size());
+        updated.putAll(pinnedCustomers);
+        if (event.getChangeType() == EntityChangeEvent.ChangeType.DELETED) {
+            updated.remove(customer.getCustomerId());
+        } else {
+            updated.put(customer.getCustomerId(), customer);
+        }
+        pinnedCustomers = updated;
+    }
+
+    /**
+     * Un-pin the Customers that are no longer hot, and re-read the rest from the repository so that they don't go
+     * stale.
+     */
+    @Scheduled(fixedDelay = "${customer.near-cache.refresh-interval:30s}")
+    public void refresh() {
+
+        // Re-read outside of the lock, since this goes to the repository
+        IntObjectMap<Customer> checked = pinnedCustomers;
+        IntObjectMap<Customer> refreshed = new IntObjectHashMap<>(checked.size());
+        for (IntObjectMap.PrimitiveEntry<Customer> entry : checked.entries()) {
+            Customer customer = customerHotKeyTracker.isHot(entry.key())
+                    ? customerRepository.findByIdOrNull(entry.key())
+                    : null;
+            if (customer != null) {
+                refreshed.put(entry.key(), customer);
+            }
+        }
+
+        // Only replace the Customers that are still pinned as they were read: anything evicted, changed or pinned in
+        // the meantime is newer than what was just read from the repository, so it wins
+        synchronized (this) {
+            IntObjectMap<Customer> updated = new IntObjectHashMap<>(pinnedCustomers.size());
+            for (IntObjectMap.PrimitiveEntry<Customer> entry : pinnedCustomers.entries()) {
+                if (checked.get(entry.key()) != entry.value()) {
+                    updated.put(entry.key(), entry.value());
+                } else if (refreshed.containsKey(entry.key())) {
+                    updated.put(entry.key(), refreshed.get(entry.key()));
+                }
+            }
+            pinnedCustomers = updated;
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
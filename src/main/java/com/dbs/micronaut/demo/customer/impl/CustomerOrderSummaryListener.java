@@ -0,0 +1,222 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.dbs.micronaut.demo.customer.entity.Order;
+import io.micronaut.context.event.BeanCreatedEvent;
+import io.micronaut.context.event.BeanCreatedEventListener;
+import org.hibernate.SessionFactory;
+import org.hibernate.SessionFactoryObserver;
+import org.hibernate.boot.SessionFactoryBuilder;
+import org.hibernate.engine.jdbc.spi.JdbcCoordinator;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+
+import javax.inject.Singleton;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Objects;
+
+/**
+ * Keeps the CUSTOMER_ORDER_SUMMARIES table (see CustomerOrderSummary) up to date as Orders are inserted, moved to
+ * another Customer, and deleted.
+ * <p>
+ * DEVELOPER NOTE: Counting a Customer's Orders (or finding its latest one) on every read costs more the more Orders it
+ * has. Instead, this class updates the Customer's summary row with every Order inserted or deleted, so reading it is a
+ * single primary key lookup no matter how many Orders there are. Unlike HibernateEntityEventPublisher, this class uses
+ * the (not "post commit") listeners that Hibernate calls while it flushes, and updates the summary with the same JDBC
+ * connection, in the same transaction, as the Order itself: the summary commits (or rolls back) together with the
+ * Order, and is never out of step with it. Updating the summary row also locks it until the transaction commits, so
+ * concurrent Orders of the same Customer can't lose each other's counts.
+ * <p>
+ * An Order's order number is its ID, so the only update that matters is a change of Customer: the Order is un-counted
+ * from its old Customer's summary and counted in its new one. The old Customer comes from the state Hibernate loaded
+ * the Order with, so an Order that is updated without having been loaded first (with Session.update() on a detached
+ * Order, say) can't be un-counted, and its old Customer's summary is only corrected by the next rebuild.
+ * <p>
+ * The summary of a Customer's first Order is inserted if updating it finds no row. Two transactions inserting the
+ * first Orders of the same Customer at the same time can therefore both try to insert it, and one of them fails
+ * with a primary key violation (and can simply be retried).
+ */
+@Singleton
+public class CustomerOrderSummaryListener implements BeanCreatedEventListener<SessionFactoryBuilder>,
+        SessionFactoryObserver, PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    private static final String CUSTOMER_PROPERTY = "customer";
+
+    private static final String ADD_ORDER = "update CUSTOMER_ORDER_SUMMARIES set ORDER_COUNT = ORDER_COUNT + 1, "
+            + "LATEST_ORDER_NUMBER = case when (LATEST_ORDER_NUMBER is null) or (LATEST_ORDER_NUMBER < ?) then ? "
+            + "else LATEST_ORDER_NUMBER end where CUST_ID = ?";
+
+    private static final String INSERT_SUMMARY = "insert into CUSTOMER_ORDER_SUMMARIES "
+            + "(CUST_ID, ORDER_COUNT, LATEST_ORDER_NUMBER) values (?, 1, ?)";
+
+    /**
+     * DEVELOPER NOTE: The Order has already been deleted by the time this runs, so if it was the latest Order, the
+     * highest remaining order number is the new latest. The ORDERS (CUST_ID, ORDER_NUMBER) index makes that a single
+     * index lookup.
+     */
+    private static final String REMOVE_ORDER = "update CUSTOMER_ORDER_SUMMARIES set ORDER_COUNT = ORDER_COUNT - 1, "
+            + "LATEST_ORDER_NUMBER = case when LATEST_ORDER_NUMBER = ? then "
+            + "(select max(ORDER_NUMBER) from ORDERS where CUST_ID = ?) else LATEST_ORDER_NUMBER end where CUST_ID = ?";
+
+    private static final String DELETE_SUMMARY = "delete from CUSTOMER_ORDER_SUMMARIES where CUST_ID = ?";
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Observe every SessionFactory that is built by a SessionFactoryBuilder.
+     */
+    @Override
+    public SessionFactoryBuilder onCreated(BeanCreatedEvent<SessionFactoryBuilder> event) {
+        return event.getBean().addSessionFactoryObservers(this);
+    }
+
+    /**
+     * Register this class with the Hibernate event listener registry of a SessionFactory that has just been built.
+     */
+    @Override
+    public void sessionFactoryCreated(SessionFactory factory) {
+        EventListenerRegistry registry = ((SessionFactoryImplementor) factory).getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    /**
+     * Called by Hibernate when a SessionFactory has been closed. Nothing to clean up.
+     */
+    @Override
+    public void sessionFactoryClosed(SessionFactory factory) {
+    }
+
+    /**
+     * Called by Hibernate (while flushing) after an entity has been inserted. Counts the Order in its Customer's
+     * summary.
+     */
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        Integer customerId = orderCustomerId(event.getEntity());
+        if (customerId == null) {
+            return;
+        }
+        addOrder(event.getSession(), customerId, ((Order) event.getEntity()).getOrderNumber());
+    }
+
+    /**
+     * Called by Hibernate (while flushing) after an entity has been updated. Moves an Order that now belongs to another
+     * Customer from its old Customer's summary to its new one.
+     */
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Order) || (event.getOldState() == null)) {
+            return;
+        }
+        int customerIndex = event.getPersister().getEntityMetamodel().getPropertyIndex(CUSTOMER_PROPERTY);
+        Customer oldCustomer = (Customer) event.getOldState()[customerIndex];
+        Integer oldCustomerId = (oldCustomer == null) ? null : oldCustomer.getCustomerId();
+        Integer newCustomerId = orderCustomerId(event.getEntity());
+        if (Objects.equals(oldCustomerId, newCustomerId)) {
+            return;
+        }
+
+        String orderNumber = ((Order) event.getEntity()).getOrderNumber();
+        if (oldCustomerId != null) {
+            executeUpdate(event.getSession(), REMOVE_ORDER, orderNumber, oldCustomerId, oldCustomerId);
+        }
+        if (newCustomerId != null) {
+            addOrder(event.getSession(), newCustomerId, orderNumber);
+        }
+    }
+
+    /**
+     * Called by Hibernate (while flushing) after an entity has been deleted. Un-counts a deleted Order, and deletes the
+     * summary of a deleted Customer.
+     */
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if ((event.getEntity() instanceof Customer) && (((Customer) event.getEntity()).getCustomerId() != null)) {
+            executeUpdate(event.getSession(), DELETE_SUMMARY, ((Customer) event.getEntity()).getCustomerId());
+            return;
+        }
+        Integer customerId = orderCustomerId(event.getEntity());
+        if (customerId != null) {
+            executeUpdate(event.getSession(), REMOVE_ORDER, ((Order) event.getEntity()).getOrderNumber(), customerId,
+                    customerId);
+        }
+    }
+
+    /**
+     * The summary is written in the same transaction as the Order, so there's nothing to do after the commit.
+     * <p>
+     * DEVELOPER NOTE: Deprecated in favour of requiresPostCommitHandling(), but still abstract in Hibernate 5.3.
+     */
+    @Override
+    @SuppressWarnings("deprecation")
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    /**
+     * Return the ID of the Customer of the given entity, if it is an Order, or else null.
+     */
+    private static Integer orderCustomerId(Object entity) {
+        if (!(entity instanceof Order) || (((Order) entity).getCustomer() == null)) {
+            return null;
+        }
+        return ((Order) entity).getCustomer().getCustomerId();
+    }
+
+    /**
+     * Count the Order with the given order number in the summary of the Customer with the given ID, inserting the
+     * summary if it's the Customer's first Order.
+     */
+    private static void addOrder(SharedSessionContractImplementor session, int customerId, String orderNumber) {
+        if (executeUpdate(session, ADD_ORDER, orderNumber, orderNumber, customerId) == 0) {
+            executeUpdate(session, INSERT_SUMMARY, customerId, orderNumber);
+        }
+    }
+
+    /**
+     * Execute the given SQL with the JDBC connection (and therefore the transaction) of the given session, and return
+     * the number of rows it updated.
+     * <p>
+     * DEVELOPER NOTE: A native query would make Hibernate flush the session first, which isn't allowed while it is in
+     * the middle of flushing it (which is when these listeners are called). Going through the session's
+     * JdbcCoordinator is how Hibernate runs its own statements, and the statement is closed the same way.
+     */
+    private static int executeUpdate(SharedSessionContractImplementor session, String sql, Object... parameters) {
+        JdbcCoordinator jdbcCoordinator = session.getJdbcCoordinator();
+        PreparedStatement statement = jdbcCoordinator.getStatementPreparer().prepareStatement(sql);
+        try {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            return jdbcCoordinator.getResultSetReturn().executeUpdate(statement);
+        } catch (SQLException e) {
+            throw session.getJdbcServices().getSqlExceptionHelper().convert(e, "Could not update order summary", sql);
+        } finally {
+            jdbcCoordinator.getLogicalConnection().getResourceRegistry().release(statement);
+            jdbcCoordinator.afterStatementExecution();
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,208 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.customer.CustomerNearCache;
+import com.dbs.micronaut.demo.customer.CustomerPayloadCache;
+import com.dbs.micronaut.demo.customer.CustomerTranslator;
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.MutableHttpResponse;
+import io.micronaut.scheduling.annotation.Scheduled;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serializes (and compresses) the JSON of each pinned Customer once, and serves every response for it from those
+ * bytes.
+ * <p>
+ * DEVELOPER NOTE: Netty compresses every response above "micronaut.server.netty.compression-threshold" bytes (when the
+ * client sends "Accept-Encoding: gzip") all over again, on the event loop, at the default compression level. A hot
+ * Customer is read thousands of times between changes, so its JSON is serialized and gzipped just once here instead
+ * (at the best compression level, since the CPU is only spent once). Responses that already have a Content-Encoding
+ * are passed through Netty's compressor untouched. Small JSON (below the same threshold) is never gzipped: the gzip
+ * header and trailer alone are 18 bytes, and tiny payloads hardly compress.
+ * <p>
+ * A cached payload remembers the Customer object it was built from. The near-cache replaces that object whenever
+ * the Customer changes (or is refreshed), so a payload is simply rebuilt as soon as it no longer belongs to the pinned
+ * Customer, and nothing has to be invalidated.
+ */
+@Slf4j
+@Singleton
+public class CustomerPayloadCacheImpl implements CustomerPayloadCache, MeterBinder {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    private static final String GZIP = "gzip";
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final CustomerNearCache customerNearCache;
+    private final CustomerTranslator customerTranslator;
+    private final ObjectMapper objectMapper;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final int compressionThreshold;
+
+    private final Map<Integer, Payload> payloads = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong builds = new AtomicLong();
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    @Inject
+    CustomerPayloadCacheImpl(CustomerNearCache customerNearCache, CustomerTranslator customerTranslator,
+                             ObjectMapper objectMapper,
+                             @Value("${micronaut.server.netty.compression-threshold:1024}") int compressionThreshold) {
+        this.customerNearCache = customerNearCache;
+        this.customerTranslator = customerTranslator;
+        this.objectMapper = objectMapper;
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Return a 200-OK response holding the cached JSON of the given Customer, if it is pinned in the near-cache.
+     */
+    @Override
+    public MutableHttpResponse<byte[]> getResponse(Customer customer, String acceptEncoding) {
+        int customerId = customer.getCustomerId();
+        if (customerNearCache.get(customerId) != customer) {
+            return null;
+        }
+
+        Payload payload = payloads.get(customerId);
+        if ((payload == null) || (payload.customer != customer)) {
+            payload = build(customer);
+            if (payload == null) {
+                return null;
+            }
+            payloads.put(customerId, payload);
+            builds.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+
+        boolean gzip = (payload.gzipped != null) && acceptsGzip(acceptEncoding);
+        MutableHttpResponse<byte[]> response = HttpResponse.ok(gzip ? payload.gzipped : payload.json)
+                .contentType(MediaType.APPLICATION_JSON_TYPE)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        return gzip ? response.header(HttpHeaders.CONTENT_ENCODING, GZIP) : response;
+    }
+
+    /**
+     * Forget the payloads of Customers that are no longer pinned (or have changed since their payload was built).
+     */
+    @Scheduled(fixedDelay = "${customer.near-cache.refresh-interval:30s}")
+    public void prune() {
+        payloads.values().removeIf(payload -> customerNearCache.get(payload.customer.getCustomerId())
+                != payload.customer);
+    }
+
+    /**
+     * Register the payload cache metrics with Micrometer (and therefore the /metrics endpoint).
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("customer.payload.cache.hits", hits, AtomicLong::get)
+                .description("Hot customer responses served from already serialized JSON")
+                .register(registry);
+        FunctionCounter.builder("customer.payload.cache.builds", builds, AtomicLong::get)
+                .description("Hot customer payloads serialized (and compressed)")
+                .register(registry);
+    }
+
+    /**
+     * Return true if the given Accept-Encoding header (for example "gzip, deflate;q=0.5") accepts gzip.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            if (name.equalsIgnoreCase(GZIP) || name.equals("*")) {
+                return (parts.length < 2) || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    /**
+     * Serialize the given Customer, and gzip it if it's big enough to be worth it.
+     *
+     * @return null if the Customer couldn't be serialized (so it is left to be serialized as usual)
+     */
+    private Payload build(Customer customer) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(customerTranslator.toContract(customer));
+            return new Payload(customer, json, (json.length >= compressionThreshold) ? gzip(json) : null);
+        } catch (JsonProcessingException e) {
+            log.warn("Unable to serialize customer [{}]", customer.getCustomerId(), e);
+            return null;
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * The serialized (and possibly gzipped) JSON of a Customer.
+     */
+    private static class Payload {
+
+        private final Customer customer;
+        private final byte[] json;
+        private final byte[] gzipped;
+
+        private Payload(Customer customer, byte[] json, byte[] gzipped) {
+            this.customer = customer;
+            this.json = json;
+            this.gzipped = gzipped;
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.customer.CustomerIdFilter;
+import com.dbs.micronaut.demo.customer.CustomerNearCache;
+import com.dbs.micronaut.demo.customer.CustomerRemoteCache;
+import com.dbs.micronaut.demo.customer.RemoteCacheClient;
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.dbs.micronaut.demo.customer.event.EntityChangeEvent;
+import com.dbs.micronaut.demo.customer.event.EntityChangeEvent.ChangeType;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.runtime.event.annotation.EventListener;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A cache of Customers shared by every instance of the application, stored in a remote cache (see RemoteCacheClient)
+ * in a compact binary form (see CustomerCodec).
+ * <p>
+ * DEVELOPER NOTE: With several instances of the application, each with its own near-cache, every instance would
+ * otherwise read every Customer from the database itself. With a shared cache, a Customer read by any instance is
+ * served to all of them, so the database load no longer grows with the number of instances. Lookups go:
+ * <ol>
+ * <li>Near-cache (in this instance's memory, the hottest Customers only, no network at all).</li>
+ * <li>This shared cache (a network round trip to the cache server, but no query).</li>
+ * <li>The database, after which the Customer is put into this shared cache for everyone else.</li>
+ * </ol>
+ * When a Customer changes, it is removed from the shared cache, and an invalidation message is published to every
+ * instance so that each of them un-pins its own near-cache copy. The instance making the change already knows about it
+ * (its near-cache hears the change directly), so it ignores its own messages. Creations are published too (there is
+ * nothing to remove from the shared cache yet), so that every instance adds the new Customer to its CustomerIdFilter:
+ * otherwise the other instances would turn lookups of it away as not found until their next filter rebuild.
+ * <p>
+ * The shared cache is only an optimization, so if the cache server can't be reached, lookups simply carry on to the
+ * database. Cached Customers also expire after a while, in case an invalidation message is ever lost.
+ */
+@Slf4j
+@Singleton
+public class CustomerRemoteCacheImpl implements CustomerRemoteCache, MeterBinder {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    private static final String KEY_PREFIX = "customer:";
+
+    static final String INVALIDATION_CHANNEL = "customer-invalidations";
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final RemoteCacheClient remoteCacheClient;
+    private final CustomerNearCache customerNearCache;
+    private final CustomerIdFilter customerIdFilter;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final boolean enabled;
+    private final long ttlMillis;
+
+    /**
+     * Identifies this instance in the invalidation messages it publishes.
+     */
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    /**
+     * Create a new CustomerRemoteCacheImpl, and subscribe to the invalidation messages of the other instances.
+     */
+    @Inject
+    CustomerRemoteCacheImpl(RemoteCacheClient remoteCacheClient, CustomerNearCache customerNearCache,
+                            CustomerIdFilter customerIdFilter,
+                            @Value("${customer.remote-cache.enabled:false}") boolean enabled,
+                            @Value("${customer.remote-cache.ttl:10m}") Duration ttl) {
+        this.remoteCacheClient = remoteCacheClient;
+        this.customerNearCache = customerNearCache;
+        this.customerIdFilter = customerIdFilter;
+        this.enabled = enabled;
+        this.ttlMillis = ttl.toMillis();
+        if (enabled) {
+            remoteCacheClient.subscribe(INVALIDATION_CHANNEL, this::onInvalidation);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Return the cached Customer with the given ID.
+     *
+     * @return null if the Customer is not cached (or the cache can't be reached)
+     */
+    @Override
+    public Customer get(int customerId) {
+        if (!enabled) {
+            return null;
+        }
+        try {
+            byte[] bytes = remoteCacheClient.get(KEY_PREFIX + customerId);
+            Customer customer = (bytes == null) ? null : CustomerCodec.decode(bytes);
+            (customer == null ? misses : hits).incrementAndGet();
+            return customer;
+        } catch (RuntimeException e) {
+            errors.incrementAndGet();
+            log.debug("Unable to read customer [{}] from the remote cache", customerId, e);
+            return null;
+        }
+    }
+
+    /**
+     * Return the cached Customers with the given IDs (all in a single round trip), keyed by customer ID. Customers that
+     * aren't cached are simply left out.
+     */
+    @Override
+    public IntObjectMap<Customer> getAll(int[] customerIds) {
+        IntObjectMap<Customer> customers = new IntObjectHashMap<>(customerIds.length);
+        if (!enabled || (customerIds.length == 0)) {
+            return customers;
+        }
+        List<String> keys = new ArrayList<>(customerIds.length);
+        for (int customerId : customerIds) {
+            keys.add(KEY_PREFIX + customerId);
+        }
+        try {
+            List<byte[]> values = remoteCacheClient.getAll(keys);
+            for (int i = 0; i < customerIds.length; i++) {
+                Customer customer = (values.get(i) == null) ? null : CustomerCodec.decode(values.get(i));
+                if (customer != null) {
+                    customers.put(customerIds[i], customer);
+                }
+            }
+            hits.addAndGet(customers.size());
+            misses.addAndGet(customerIds.length - customers.size());
+        } catch (RuntimeException e) {
+            errors.incrementAndGet();
+            log.debug("Unable to read {} customers from the remote cache", customerIds.length, e);
+        }
+        return customers;
+    }
+
+    /**
+     * Cache the given Customer (just read from the database).
+     */
+    @Override
+    public void put(Customer customer) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            remoteCacheClient.set(KEY_PREFIX + customer.getCustomerId(), CustomerCodec.encode(customer), ttlMillis);
+        } catch (RuntimeException e) {
+            errors.incrementAndGet();
+            log.debug("Unable to write customer [{}] to the remote cache", customer.getCustomerId(), e);
+        }
+    }
+
+    /**
+     * Remove the Customer with the given ID from the cache, and tell every other instance to un-pin it.
+     */
+    @Override
+    public void invalidate(int customerId) {
+        invalidate(customerId, ChangeType.UPDATED);
+    }
+
+    /**
+     * Invalidate Customers as their changes are committed, and tell every other instance about new Customers. Polled
+     * changes only remove the shared copy, without telling anyone: every instance polls for itself (and un-pins its
+     * own near-cache copy), so publishing them would only evict every near-cache copy again, once per instance, for
+     * every change. The shared copy must still go, or every near-cache would re-read the stale Customer from it until
+     * it expires.
+     */
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        if (!(event.getEntity() instanceof Customer) || (((Customer) event.getEntity()).getCustomerId() == null)) {
+            return;
+        }
+        int customerId = ((Customer) event.getEntity()).getCustomerId();
+        if (event.isPolled()) {
+            if (event.getChangeType() != ChangeType.CREATED) {
+                remove(customerId);
+            }
+        } else if (event.getChangeType() != ChangeType.CREATED) {
+            invalidate(customerId, event.getChangeType());
+        } else if (enabled) {
+            try {
+                publish(ChangeType.CREATED, customerId);
+            } catch (RuntimeException e) {
+                errors.incrementAndGet();
+                log.warn("Unable to publish the creation of customer [{}]", customerId, e);
+            }
+        }
+    }
+
+    /**
+     * Register the remote cache metrics with Micrometer (and therefore the /metrics endpoint).
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("customer.remote.cache.hits", hits, AtomicLong::get)
+                .description("Customer lookups answered by the remote cache")
+                .register(registry);
+        FunctionCounter.builder("customer.remote.cache.misses", misses, AtomicLong::get)
+                .description("Customer lookups the remote cache couldn't answer")
+                .register(registry);
+        FunctionCounter.builder("customer.remote.cache.errors", errors, AtomicLong::get)
+                .description("Remote cache calls that failed")
+                .register(registry);
+        FunctionCounter.builder("customer.remote.cache.invalidations", invalidations, AtomicLong::get)
+                .description("Invalidations received from other instances")
+                .register(registry);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    /**
+     * Remove the Customer with the given ID from the cache, and tell every other instance how it changed: a deleted
+     * Customer is un-pinned, but must not be added back to anyone's customer ID filter.
+     */
+    private void invalidate(int customerId, ChangeType changeType) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            remoteCacheClient.delete(KEY_PREFIX + customerId);
+            publish(changeType, customerId);
+        } catch (RuntimeException e) {
+            errors.incrementAndGet();
+            log.warn("Unable to invalidate customer [{}] in the remote cache", customerId, e);
+        }
+    }
+
+    /**
+     * Remove the Customer with the given ID from the cache, without telling any other instance.
+     */
+    private void remove(int customerId) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            remoteCacheClient.delete(KEY_PREFIX + customerId);
+        } catch (RuntimeException e) {
+            errors.incrementAndGet();
+            log.warn("Unable to remove customer [{}] from the remote cache", customerId, e);
+        }
+    }
+
+    /**
+     * Tell every other instance about a Customer change. The message is "[instance ID] [change type] [customer ID]".
+     */
+    private void publish(ChangeType changeType, int customerId) {
+        remoteCacheClient.publish(INVALIDATION_CHANNEL, instanceId + " " + changeType + " " + customerId);
+    }
+
+    /**
+     * Un-pin a Customer changed by another instance, and add a Customer created (or changed) by another instance to
+     * the customer ID filter.
+     */
+    private void onInvalidation(String message) {
+        String[] parts = message.split(" ");
+        if ((parts.length != 3) || parts[0].equals(instanceId)) {
+            return;
+        }
+        try {
+            ChangeType changeType = ChangeType.valueOf(parts[1]);
+            int customerId = Integer.parseInt(parts[2]);
+            if (changeType != ChangeType.DELETED) {
+                customerIdFilter.add(customerId);
+            }
+            if (changeType != ChangeType.CREATED) {
+                customerNearCache.evict(customerId);
+                invalidations.incrementAndGet();
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring invalid invalidation message [{}]", message);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -2,17 +2,28 @@ package com.dbs.micronaut.demo.customer.impl;
 
 import com.dbs.micronaut.demo.customer.CustomerRepository;
 import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.dbs.micronaut.demo.tracing.Traced;
 import io.micronaut.configuration.hibernate.jpa.scope.CurrentSession;
 import io.micronaut.runtime.ApplicationConfiguration;
 import io.micronaut.spring.tx.annotation.Transactional;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import org.hibernate.annotations.QueryHints;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
 import javax.validation.constraints.NotNull;
-import java.time.ZonedDateTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.IntConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Stream;
 
 /**
  * This JPA (Java Persistence Architecture) repository interface provides methods to return Customer data from the
@@ -31,6 +42,20 @@ import java.util.Optional;
 @Singleton
 public class CustomerRepositoryImpl implements CustomerRepository {
 
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    /**
+     * The number of rows fetched from the database at a time when streaming query results.
+     */
+    private static final int FETCH_SIZE = 1000;
+
+    /**
+     * The maximum number of IDs in the "in" list of a single query (some databases limit it to 1000).
+     */
+    private static final int IN_LIST_SIZE = 500;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
     // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
 
     /**
@@ -73,14 +98,140 @@ public class CustomerRepositoryImpl implements CustomerRepository {
      * of letting Spring JPA auto-implement them from a repository interface. That's because Micronaut is compile-time
      * linked, and can't use Java reflection to automatically implement the interface.
      */
+    @Traced
     @Transactional(readOnly = true)
     public Optional<Customer> findById(@NotNull Integer id) {
-        Optional<Customer> customer = Optional.ofNullable(entityManager.find(Customer.class, id));
-        if (customer.isPresent()) {
-            customer.get().setLastReadTimestamp(ZonedDateTime.now());
+        return Optional.ofNullable(findByIdOrNull(id));
+    }
+
+    /**
+     * Return the Customer with the given ID.
+     * <p>
+     * DEVELOPER NOTE: The JPA API only deals in objects, so the ID still gets boxed on its way into the EntityManager.
+     * This method only saves the Optional, but callers of the CustomerRepository interface don't need to know that
+     * (other implementations, such as CustomerSnapshotRepositoryImpl, never box the ID at all).
+     *
+     * @return null if the Customer is not found
+     */
+    @Traced
+    @Transactional(readOnly = true)
+    public Customer findByIdOrNull(int id) {
+        Customer customer = entityManager.find(Customer.class, id);
+        if (customer != null) {
+            customer.setLastReadTimestamp(Instant.now());
+        }
+        return customer;
+    }
+
+    /**
+     * Return the Customer with the given ID, giving up if the database hasn't answered within the given time.
+     * <p>
+     * DEVELOPER NOTE: A caller that stops waiting (see ResilientCustomerRepositoryImpl) can't interrupt a query that is
+     * already running, so the query carries a timeout of its own, enforced by the JDBC driver, and the thread and the
+     * connection are given back when it expires. EntityManager.find() doesn't take a query timeout, so this is a query.
+     *
+     * @return null if the Customer is not found
+     * @throws javax.persistence.QueryTimeoutException if the database didn't answer in time
+     */
+    @Traced
+    @Transactional(readOnly = true)
+    public Customer findByIdOrNull(int id, @NotNull Duration timeout) {
+        List<Customer> found = entityManager
+                .createQuery("select c from Customer c where c.customerId = :id", Customer.class)
+                .setParameter("id", id)
+                .setHint(QueryHints.TIMEOUT_JPA, toTimeoutMillis(timeout))
+                .getResultList();
+        if (found.isEmpty()) {
+            return null;
         }
+        Customer customer = found.get(0);
+        customer.setLastReadTimestamp(Instant.now());
         return customer;
     }
 
+    /**
+     * Return the Customers with the given IDs, keyed by customer ID. IDs that aren't found are simply left out.
+     * <p>
+     * DEVELOPER NOTE: One "where customerId in (...)" query per IN_LIST_SIZE IDs is a lot cheaper than one query per
+     * ID, since every query is a round-trip to the database.
+     */
+    @Traced
+    @Transactional(readOnly = true)
+    public IntObjectMap<Customer> findAllById(@NotNull int[] ids) {
+        return findAllById(ids, null);
+    }
+
+    /**
+     * Return the Customers with the given IDs, keyed by customer ID, giving up if the database hasn't answered any one
+     * of the queries within the given time (or never, if null).
+     *
+     * @throws javax.persistence.QueryTimeoutException if the database didn't answer in time
+     */
+    @Traced
+    @Transactional(readOnly = true)
+    public IntObjectMap<Customer> findAllById(@NotNull int[] ids, Duration timeout) {
+        IntObjectMap<Customer> customers = new IntObjectHashMap<>(ids.length);
+        Instant now = Instant.now();
+        for (int from = 0; from < ids.length; from += IN_LIST_SIZE) {
+            List<Integer> chunk = new ArrayList<>(Math.min(IN_LIST_SIZE, ids.length - from));
+            for (int i = from; i < Math.min(from + IN_LIST_SIZE, ids.length); i++) {
+                chunk.add(ids[i]);
+            }
+
+            TypedQuery<Customer> query = entityManager
+                    .createQuery("select c from Customer c where c.customerId in :ids", Customer.class)
+                    .setParameter("ids", chunk);
+            if (timeout != null) {
+                query.setHint(QueryHints.TIMEOUT_JPA, toTimeoutMillis(timeout));
+            }
+            List<Customer> found = query.getResultList();
+            for (Customer customer : found) {
+                customer.setLastReadTimestamp(now);
+                customers.put(customer.getCustomerId(), customer);
+            }
+        }
+        return customers;
+    }
+
+    /**
+     * Stream the IDs of every Customer to the given consumer, without loading the Customers themselves.
+     * <p>
+     * DEVELOPER NOTE: getResultList() would load every ID into one giant List before returning. getResultStream()
+     * instead walks a database cursor, fetching FETCH_SIZE rows at a time, so this works for a table of any size.
+     */
+    @Transactional(readOnly = true)
+    public void forEachCustomerId(@NotNull IntConsumer consumer) {
+        try (Stream<Integer> customerIds = entityManager
+                .createQuery("select c.customerId from Customer c", Integer.class)
+                .setHint(QueryHints.FETCH_SIZE, FETCH_SIZE)
+                .getResultStream()) {
+            customerIds.forEach(consumer::accept);
+        }
+    }
+
+    /**
+     * Stream the full name and ID of every Customer to the given consumer, without loading the Customers themselves.
+     */
+    @Transactional(readOnly = true)
+    public void forEachCustomerName(@NotNull ObjIntConsumer<String> consumer) {
+        try (Stream<Object[]> rows = entityManager
+                .createQuery("select c.customerId, c.fullName from Customer c", Object[].class)
+                .setHint(QueryHints.FETCH_SIZE, FETCH_SIZE)
+                .getResultStream()) {
+            rows.forEach(row -> consumer.accept((String) row[1], (Integer) row[0]));
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    /**
+     * Return the given query timeout in milliseconds (JDBC drivers only enforce whole seconds, so at least one).
+     */
+    private static int toTimeoutMillis(Duration timeout) {
+        return (int) Math.max(1000, Math.min(Integer.MAX_VALUE, timeout.toMillis()));
+    }
+
     // -----------------------------------------------------------------------------------------------------------------
 }
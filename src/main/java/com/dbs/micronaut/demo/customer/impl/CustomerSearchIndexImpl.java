@@ -0,0 +1,400 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.customer.CustomerRepository;
+import com.dbs.micronaut.demo.customer.CustomerSearchIndex;
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.dbs.micronaut.demo.customer.event.EntityChangeEvent;
+import io.micronaut.runtime.event.annotation.EventListener;
+import io.micronaut.scheduling.annotation.Scheduled;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory inverted index of the full names of every Customer.
+ * <p>
+ * DEVELOPER NOTE: Searching a name column with "where CUST_FULL_NAME like '%smi%'" can't use a database index (because
+ * of the leading wildcard), so the database reads every row of the table for every search. An "inverted index" turns
+ * that around: each name is split into lower-case words ("tokens"), and every token, plus every prefix of it, points
+ * back to the Customers whose names contain it. "John Smith" is found under "jo", "joh", "john", "sm", "smi", "smit"
+ * and "smith". A search is then a couple of hash map lookups, no matter how many Customers there are.
+ * <p>
+ * Only prefixes of up to {@link #MAX_PREFIX_LENGTH} characters are indexed, which bounds the memory used per name. A
+ * search starts from the smallest list of Customers matching any one query word, and checks each of them against the
+ * full tokens of their name, so longer query words still only match the right names.
+ * <p>
+ * The index is built at startup by streaming every name from the repository, and then kept up to date as Customers
+ * are committed to the database. It is also periodically rebuilt in the background (and swapped in once complete) to
+ * pick up changes made to the table by other systems.
+ */
+@Slf4j
+@Singleton
+public class CustomerSearchIndexImpl implements CustomerSearchIndex {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    /**
+     * Query words shorter than this are ignored (a single letter would match almost every Customer).
+     */
+    static final int MIN_TERM_LENGTH = 2;
+
+    /**
+     * Prefixes longer than this aren't indexed, longer query words are checked against the tokens of each candidate.
+     */
+    static final int MAX_PREFIX_LENGTH = 8;
+
+    private static final String[] NO_TOKENS = new String[0];
+
+    private static final int[] NO_RESULTS = new int[0];
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final CustomerRepository customerRepository;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Every indexed token and token prefix, mapped to the Customers (and the tokens of their names) that contain it.
+     */
+    private Map<String, IntObjectMap<String[]>> postings = new HashMap<>();
+
+    /**
+     * The tokens of the name of every indexed Customer, so that they can be removed from the postings again.
+     */
+    private IntObjectMap<String[]> tokensByCustomerId = new IntObjectHashMap<>();
+
+    /**
+     * The latest full name (or null, if removed) of every Customer changed while the index is being rebuilt (if it
+     * is), so that those changes can be applied to the new index before it is swapped in.
+     */
+    private IntObjectMap<String> changedDuringRebuild;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    @Inject
+    CustomerSearchIndexImpl(CustomerRepository customerRepository) {
+        this.customerRepository = customerRepository;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Return the IDs of (at most the given number of) the Customers whose names match every word of the given query,
+     * best matches first. Customers matching more whole words rank first, then those with shorter names (which are
+     * closer matches), then those with lower IDs.
+     */
+    @Override
+    public int[] search(String query, int maxResults) {
+        String[] terms = tokenize(query);
+        if ((terms.length == 0) || (maxResults < 1)) {
+            return NO_RESULTS;
+        }
+
+        // Each result is ranked by a single long (score, then name length, then ID), kept sorted best first
+        long[] ranks = new long[maxResults];
+        int resultCount = 0;
+
+        lock.readLock().lock();
+        try {
+
+            // Start from the smallest list of candidates, every candidate has to match every term anyway
+            IntObjectMap<String[]> candidates = null;
+            for (String term : terms) {
+                IntObjectMap<String[]> termPostings = postings.get(prefix(term));
+                if (termPostings == null) {
+                    return NO_RESULTS;
+                }
+                if ((candidates == null) || (termPostings.size() < candidates.size())) {
+                    candidates = termPostings;
+                }
+            }
+
+            // DEVELOPER NOTE: The entries() of a Netty IntObjectMap reuse a single entry object as they iterate, so
+            // the key and value are read out of it straight away.
+            for (IntObjectMap.PrimitiveEntry<String[]> entry : candidates.entries()) {
+                int customerId = entry.key();
+                String[] tokens = entry.value();
+                int score = score(terms, tokens);
+                if (score == 0) {
+                    continue;
+                }
+
+                long rank = rank(score, tokens, customerId);
+                if ((resultCount == maxResults) && (rank <= ranks[resultCount - 1])) {
+                    continue;
+                }
+                int position = (resultCount == maxResults) ? resultCount - 1 : resultCount++;
+                while ((position > 0) && (ranks[position - 1] < rank)) {
+                    ranks[position] = ranks[position - 1];
+                    position--;
+                }
+                ranks[position] = rank;
+            }
+
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        int[] customerIds = new int[resultCount];
+        for (int i = 0; i < resultCount; i++) {
+            customerIds[i] = ~(int) ranks[i];
+        }
+        return customerIds;
+    }
+
+    /**
+     * Add (or replace) the full name of the Customer with the given ID in the index.
+     */
+    @Override
+    public void index(int customerId, String fullName) {
+        String[] tokens = tokenize(fullName);
+        lock.writeLock().lock();
+        try {
+            unindex(postings, tokensByCustomerId, customerId);
+            index(postings, tokensByCustomerId, customerId, tokens);
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.put(customerId, fullName);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove the Customer with the given ID from the index.
+     */
+    @Override
+    public void remove(int customerId) {
+        lock.writeLock().lock();
+        try {
+            unindex(postings, tokensByCustomerId, customerId);
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.put(customerId, null);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Keep the index up to date as Customers are committed to the database.
+     */
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        if (!(event.getEntity() instanceof Customer) || (((Customer) event.getEntity()).getCustomerId() == null)) {
+            return;
+        }
+
+        Customer customer = (Customer) event.getEntity();
+        if (event.getChangeType() == EntityChangeEvent.ChangeType.DELETED) {
+            remove(customer.getCustomerId());
+        } else {
+            index(customer.getCustomerId(), customer.getFullName());
+        }
+    }
+
+    /**
+     * Build a brand new index from the name of every Customer in the repository, and swap it in once complete. Runs at
+     * startup, and then periodically to pick up changes made to the table by other systems.
+     */
+    @Scheduled(initialDelay = "0s", fixedDelay = "${customer.search-index.rebuild-interval:1h}")
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new IntObjectHashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            long start = System.currentTimeMillis();
+            Map<String, IntObjectMap<String[]>> freshPostings = new HashMap<>();
+            IntObjectMap<String[]> freshTokensByCustomerId = new IntObjectHashMap<>();
+            customerRepository.forEachCustomerName((fullName, customerId) ->
+                    index(freshPostings, freshTokensByCustomerId, customerId, tokenize(fullName)));
+
+            lock.writeLock().lock();
+            try {
+                for (IntObjectMap.PrimitiveEntry<String> entry : changedDuringRebuild.entries()) {
+                    unindex(freshPostings, freshTokensByCustomerId, entry.key());
+                    index(freshPostings, freshTokensByCustomerId, entry.key(), tokenize(entry.value()));
+                }
+                postings = freshPostings;
+                tokensByCustomerId = freshTokensByCustomerId;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Built customer search index ({} customers, {} terms) in {}ms", getCustomerCount(),
+                    getTermCount(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.error("Unable to build customer search index, leaving the previous index in place", e);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                changedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Return the number of Customers in the index.
+     */
+    public int getCustomerCount() {
+        lock.readLock().lock();
+        try {
+            return tokensByCustomerId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Return the number of distinct tokens and token prefixes in the index.
+     */
+    public int getTermCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    /**
+     * Add the given tokens of the name of the Customer with the given ID to the given postings.
+     */
+    private static void index(Map<String, IntObjectMap<String[]>> postings, IntObjectMap<String[]> tokensByCustomerId,
+                              int customerId, String[] tokens) {
+        if (tokens.length == 0) {
+            return;
+        }
+        tokensByCustomerId.put(customerId, tokens);
+        for (String token : tokens) {
+            for (int length = MIN_TERM_LENGTH; length <= Math.min(token.length(), MAX_PREFIX_LENGTH); length++) {
+                postings.computeIfAbsent(token.substring(0, length), key -> new IntObjectHashMap<>(4))
+                        .put(customerId, tokens);
+            }
+        }
+    }
+
+    /**
+     * Remove the Customer with the given ID from the given postings.
+     */
+    private static void unindex(Map<String, IntObjectMap<String[]>> postings,
+                                IntObjectMap<String[]> tokensByCustomerId, int customerId) {
+        String[] tokens = tokensByCustomerId.remove(customerId);
+        if (tokens == null) {
+            return;
+        }
+        for (String token : tokens) {
+            for (int length = MIN_TERM_LENGTH; length <= Math.min(token.length(), MAX_PREFIX_LENGTH); length++) {
+                String key = token.substring(0, length);
+                IntObjectMap<String[]> termPostings = postings.get(key);
+                if (termPostings != null) {
+                    termPostings.remove(customerId);
+                    if (termPostings.isEmpty()) {
+                        postings.remove(key);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Split the given text into its distinct, lower-case words of at least MIN_TERM_LENGTH letters or digits.
+     */
+    static String[] tokenize(String text) {
+        if (text == null) {
+            return NO_TOKENS;
+        }
+
+        List<String> tokens = new ArrayList<>(4);
+        String lowerCaseText = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lowerCaseText.length(); i++) {
+            boolean wordCharacter = (i < lowerCaseText.length()) && Character.isLetterOrDigit(lowerCaseText.charAt(i));
+            if (wordCharacter && (start < 0)) {
+                start = i;
+            } else if (!wordCharacter && (start >= 0)) {
+                String token = lowerCaseText.substring(start, i);
+                if ((token.length() >= MIN_TERM_LENGTH) && !tokens.contains(token)) {
+                    tokens.add(token);
+                }
+                start = -1;
+            }
+        }
+        return tokens.isEmpty() ? NO_TOKENS : tokens.toArray(NO_TOKENS);
+    }
+
+    /**
+     * Return the indexed prefix of the given token.
+     */
+    private static String prefix(String token) {
+        return (token.length() > MAX_PREFIX_LENGTH) ? token.substring(0, MAX_PREFIX_LENGTH) : token;
+    }
+
+    /**
+     * Score how well the given name tokens match the given query terms: 2 for every term that is a whole token, 1 for
+     * every term that is only the start of a token, or 0 if any term doesn't match at all.
+     */
+    private static int score(String[] terms, String[] tokens) {
+        int score = 0;
+        for (String term : terms) {
+            int termScore = 0;
+            for (String token : tokens) {
+                if (token.equals(term)) {
+                    termScore = 2;
+                    break;
+                } else if (token.startsWith(term)) {
+                    termScore = 1;
+                }
+            }
+            if (termScore == 0) {
+                return 0;
+            }
+            score += termScore;
+        }
+        return score;
+    }
+
+    /**
+     * Pack the score, the (inverted) name length and the (inverted) customer ID into a single long, so that a higher
+     * long is a better match.
+     */
+    private static long rank(int score, String[] tokens, int customerId) {
+        int nameLength = 0;
+        for (String token : tokens) {
+            nameLength += token.length();
+        }
+        return ((long) score << 48) | ((long) (0xFFFF - Math.min(nameLength, 0xFFFF)) << 32)
+                | (~customerId & 0xFFFFFFFFL);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -1,17 +1,33 @@
 package com.dbs.micronaut.demo.customer.impl;
 
+import com.dbs.micronaut.demo.customer.CustomerConcurrencyLimiter;
+import com.dbs.micronaut.demo.customer.CustomerHotKeyTracker;
+import com.dbs.micronaut.demo.customer.CustomerIdFilter;
+import com.dbs.micronaut.demo.customer.CustomerNearCache;
+import com.dbs.micronaut.demo.customer.CustomerRemoteCache;
 import com.dbs.micronaut.demo.customer.CustomerRepository;
+import com.dbs.micronaut.demo.customer.CustomerSearchIndex;
 import com.dbs.micronaut.demo.customer.CustomerService;
+import com.dbs.micronaut.demo.customer.CustomerWriter;
 import com.dbs.micronaut.demo.customer.entity.Customer;
 import com.dbs.micronaut.demo.exception.BusinessException;
+import com.dbs.micronaut.demo.tenant.TenantResolver;
+import com.dbs.micronaut.demo.tracing.Traced;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Implements all application business functionality related to the maintenance of Customer entities.
  */
 @Singleton
+@Traced
 public class CustomerServiceImpl implements CustomerService {
 
     /**
@@ -22,6 +38,10 @@ public class CustomerServiceImpl implements CustomerService {
      *
      * The @Singleton annotation tells Micronaut to only instantiate one of this class, which is therefore going to be
      * used by every web request passing through this app... concurrently, multi-threaded, etc.
+     *
+     * The @Traced annotation records a tracing Span for every call of a public method. It annotates the whole class
+     * rather than individual methods, because Micronaut 1.0 can only replace a bean with advice declared on its class
+     * (as the controller tests do with a mock of this class).
      */
 
     // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
@@ -35,6 +55,14 @@ public class CustomerServiceImpl implements CustomerService {
      */
 
     private final CustomerRepository customerRepository;
+    private final CustomerHotKeyTracker customerHotKeyTracker;
+    private final CustomerNearCache customerNearCache;
+    private final CustomerIdFilter customerIdFilter;
+    private final CustomerSearchIndex customerSearchIndex;
+    private final CustomerConcurrencyLimiter customerConcurrencyLimiter;
+    private final CustomerRemoteCache customerRemoteCache;
+    private final TenantResolver tenantResolver;
+    private final CustomerWriter customerWriter;
 
     // -----------------------------------------------------------------------------------------------------------------
 
@@ -48,8 +76,21 @@ public class CustomerServiceImpl implements CustomerService {
      */
 
     @Inject
-    CustomerServiceImpl(CustomerRepository customerRepository) {
+    CustomerServiceImpl(CustomerRepository customerRepository, CustomerHotKeyTracker customerHotKeyTracker,
+                        CustomerNearCache customerNearCache, CustomerIdFilter customerIdFilter,
+                        CustomerSearchIndex customerSearchIndex,
+                        CustomerConcurrencyLimiter customerConcurrencyLimiter,
+                        CustomerRemoteCache customerRemoteCache, TenantResolver tenantResolver,
+                        CustomerWriter customerWriter) {
         this.customerRepository = customerRepository;
+        this.customerHotKeyTracker = customerHotKeyTracker;
+        this.customerNearCache = customerNearCache;
+        this.customerIdFilter = customerIdFilter;
+        this.customerSearchIndex = customerSearchIndex;
+        this.customerConcurrencyLimiter = customerConcurrencyLimiter;
+        this.customerRemoteCache = customerRemoteCache;
+        this.tenantResolver = tenantResolver;
+        this.customerWriter = customerWriter;
     }
 
     // -----------------------------------------------------------------------------------------------------------------
@@ -76,14 +117,233 @@ public class CustomerServiceImpl implements CustomerService {
             throw new BusinessException(String.format(INVALID_CUSTOMER_ID, customerId));
         }
 
-        return customerRepository.findById(customerId).orElse(null);
+        return findCustomer(customerId);
+    }
+
+    /**
+     * Return a Customer entity with the given ID.
+     * <p>
+     * DEVELOPER NOTE: This overload takes a primitive "int" instead of an Integer object. Every Integer outside of the
+     * range -128 to 127 is a brand new object on the heap, and so is every Optional. On its own that's nothing, but at
+     * thousands of requests per second that garbage adds up to real garbage collection work. The batch and cache code
+     * paths use primitive IDs all the way down for this reason.
+     *
+     * @return null if the Customer is not found
+     * @throws BusinessException if the given ID is not a valid customer ID.
+     */
+    public Customer getCustomer(int customerId) throws BusinessException {
+
+        // Business validation
+        if (!isValidCustomerId(customerId)) {
+            throw new BusinessException(String.format(INVALID_CUSTOMER_ID, customerId));
+        }
+
+        return findCustomer(customerId);
+    }
+
+    /**
+     * Return the Customer entities with the given IDs, keyed by customer ID. Customers that aren't found are simply
+     * left out.
+     * <p>
+     * DEVELOPER NOTE: An IntObjectMap (from the Netty library that Micronaut's HTTP server is built on) is a hash map
+     * keyed by a primitive int. Unlike a HashMap&lt;Integer, Customer&gt;, it doesn't need an Integer object for every
+     * key or an Entry object for every value.
+     *
+     * @throws BusinessException if any of the given IDs is not a valid customer ID, or too many IDs are given.
+     */
+    public IntObjectMap<Customer> getCustomers(int[] customerIds) throws BusinessException {
+
+        // Business validation
+        if (customerIds.length > MAX_CUSTOMER_IDS) {
+            throw new BusinessException(String.format(TOO_MANY_CUSTOMER_IDS, customerIds.length, MAX_CUSTOMER_IDS));
+        }
+        for (int customerId : customerIds) {
+            if (!isValidCustomerId(customerId)) {
+                throw new BusinessException(String.format(INVALID_CUSTOMER_ID, customerId));
+            }
+        }
+
+        // The caches only know the default tenant's Customers
+        if (!tenantResolver.isDefaultTenant()) {
+            return customerRepository.findAllById(customerIds);
+        }
+
+        // Serve what we can from memory or the shared cache, and only ask the database for the rest (all at once)
+        IntObjectMap<Customer> customers = new IntObjectHashMap<>(customerIds.length);
+        int[] misses = new int[customerIds.length];
+        int missCount = 0;
+        for (int customerId : customerIds) {
+            customerHotKeyTracker.recordRead(customerId);
+            Customer customer = customerNearCache.get(customerId);
+            if (customer != null) {
+                customers.put(customerId, customer);
+            } else if (customerIdFilter.mightContain(customerId)) {
+                misses[missCount++] = customerId;
+            }
+        }
+
+        if (missCount > 0) {
+            IntObjectMap<Customer> cached = customerRemoteCache.getAll(Arrays.copyOf(misses, missCount));
+            int remaining = 0;
+            for (int i = 0; i < missCount; i++) {
+                Customer customer = cached.get(misses[i]);
+                if (customer != null) {
+                    putFound(customers, misses[i], customer);
+                } else {
+                    misses[remaining++] = misses[i];
+                }
+            }
+            missCount = remaining;
+        }
+
+        if (missCount > 0) {
+            IntObjectMap<Customer> found = customerRepository.findAllById(Arrays.copyOf(misses, missCount));
+            for (IntObjectMap.PrimitiveEntry<Customer> entry : found.entries()) {
+                customerRemoteCache.put(entry.value());
+                putFound(customers, entry.key(), entry.value());
+            }
+        }
+        return customers;
+    }
+
+    /**
+     * Return (at most the given number of) the Customer entities whose full names match every word of the given query,
+     * best matches first.
+     * <p>
+     * DEVELOPER NOTE: The search itself never touches the database, the search index only knows the IDs of the best
+     * matches. Those Customers are then fetched all at once (through the near-cache), just like a batch lookup.
+     *
+     * @throws BusinessException if the query is too short, or the number of results is out of range.
+     */
+    public List<Customer> searchCustomers(String query, int maxResults) throws BusinessException {
+
+        // Business validation
+        if ((query == null) || (query.trim().length() < MIN_SEARCH_QUERY_LENGTH)) {
+            throw new BusinessException(String.format(INVALID_SEARCH_QUERY, query, MIN_SEARCH_QUERY_LENGTH));
+        }
+        if ((maxResults < 1) || (maxResults > MAX_SEARCH_RESULTS)) {
+            throw new BusinessException(String.format(INVALID_SEARCH_LIMIT, maxResults, MAX_SEARCH_RESULTS));
+        }
+
+        // Keep the ranked order, skipping any Customer deleted since the search
+        int[] customerIds = customerSearchIndex.search(query, maxResults);
+        IntObjectMap<Customer> customers = getCustomers(customerIds);
+        List<Customer> rankedCustomers = new ArrayList<>(customers.size());
+        for (int customerId : customerIds) {
+            Customer customer = customers.get(customerId);
+            if (customer != null) {
+                rankedCustomers.add(customer);
+            }
+        }
+        return rankedCustomers;
+    }
+
+    /**
+     * Change the full name of the Customer with the given ID, and return the changed Customer.
+     * <p>
+     * DEVELOPER NOTE: The Customer read (from the repository, not the caches, which may be behind) is never changed
+     * itself: it may be shared with other requests. A copy with the new full name is written instead, and the caches
+     * pick it up from the EntityChangeEvent published once it has been committed (see CustomerWriter). With
+     * write-behind enabled, that happens a moment after this method returns.
+     *
+     * @return null if the Customer is not found
+     * @throws BusinessException if the given ID is not a valid customer ID, or the full name is blank or too long.
+     */
+    public Customer updateCustomer(Integer customerId, String fullName) throws BusinessException {
+
+        // Business validation
+        if (!isValidCustomerId(customerId)) {
+            throw new BusinessException(String.format(INVALID_CUSTOMER_ID, customerId));
+        }
+        if ((fullName == null) || fullName.trim().isEmpty() || (fullName.length() > MAX_FULL_NAME_LENGTH)) {
+            throw new BusinessException(String.format(INVALID_FULL_NAME, fullName, MAX_FULL_NAME_LENGTH));
+        }
+        if (!tenantResolver.isDefaultTenant()) {
+            throw new BusinessException(String.format(TenantResolver.TENANT_NOT_ROUTED, "Customer updates",
+                    tenantResolver.getCurrentTenant()));
+        }
+
+        Customer customer = customerRepository.findByIdOrNull(customerId);
+        if (customer == null) {
+            return null;
+        }
+
+        Customer updated = new Customer();
+        updated.setCustomerId(customer.getCustomerId());
+        updated.setStreetAddress(customer.getStreetAddress());
+        updated.setFullName(fullName);
+        updated.setLastReadTimestamp(Instant.now());
+        customerWriter.update(updated);
+        return updated;
     }
 
     /**
      * Returns whether or not the given customer ID is a valid customer ID.
      */
     public boolean isValidCustomerId(Integer customerId) {
-        return (customerId != null) && (customerId > 0);
+        return (customerId != null) && isValidCustomerId(customerId.intValue());
+    }
+
+    /**
+     * Returns whether or not the given customer ID is a valid customer ID.
+     */
+    public boolean isValidCustomerId(int customerId) {
+        return customerId > 0;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    /**
+     * Return the (already validated) Customer with the given ID from the near-cache, or else from the shared remote
+     * cache, or else from the repository.
+     */
+    private Customer findCustomer(int customerId) {
+
+        // The caches only know the default tenant's Customers (see TenantCustomerRepositoryImpl)
+        if (!tenantResolver.isDefaultTenant()) {
+            return customerRepository.findByIdOrNull(customerId);
+        }
+
+        // Hot customers are served from memory and never reach the database
+        customerHotKeyTracker.recordRead(customerId);
+        Customer customer = customerNearCache.get(customerId);
+        if (customer != null) {
+            return customer;
+        }
+
+        // Customers that definitely don't exist aren't worth a trip to the database
+        if (!customerIdFilter.mightContain(customerId)) {
+            return null;
+        }
+
+        // Another instance may already have read this Customer from the database
+        customer = customerRemoteCache.get(customerId);
+        if (customer == null) {
+
+            // How long the lookup takes (including waiting for a database connection) drives the concurrency limit
+            long start = System.nanoTime();
+            customer = customerRepository.findByIdOrNull(customerId);
+            customerConcurrencyLimiter.recordLatency(System.nanoTime() - start);
+            if (customer != null) {
+                customerRemoteCache.put(customer);
+            }
+        }
+        if ((customer != null) && customerHotKeyTracker.isHot(customerId)) {
+            customerNearCache.pin(customer);
+        }
+        return customer;
+    }
+
+    /**
+     * Add a Customer found outside of the near-cache to the given results, pinning it if it's hot.
+     */
+    private void putFound(IntObjectMap<Customer> customers, int customerId, Customer customer) {
+        customers.put(customerId, customer);
+        if (customerHotKeyTracker.isHot(customerId)) {
+            customerNearCache.pin(customer);
+        }
     }
 
     // -----------------------------------------------------------------------------------------------------------------
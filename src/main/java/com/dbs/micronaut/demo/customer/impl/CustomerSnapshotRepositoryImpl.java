@@ -0,0 +1,296 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.customer.CustomerRepository;
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.dbs.micronaut.demo.customer.event.EntityChangeEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micronaut.context.annotation.Primary;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.runtime.event.annotation.EventListener;
+import io.micronaut.scheduling.annotation.Scheduled;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.sql.DataSource;
+import javax.validation.constraints.NotNull;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.IntConsumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * An optional CustomerRepository for read-mostly deployments that serves every read from an off-heap snapshot of the
+ * entire CUSTOMERS table, without any JDBC calls.
+ * <p>
+ * DEVELOPER NOTE: @Requires means this bean only exists when "customer.snapshot.enabled" is set to true (and tenancy,
+ * which reads other tenants' Customers from their own databases, isn't enabled), and @Primary means that, when it does
+ * exist, it is injected everywhere a CustomerRepository is needed instead of the JPA-based
+ * CustomerRepositoryImpl (which still exists, and can still be injected by asking for CustomerRepositoryImpl).
+ * <p>
+ * The snapshot is loaded with plain JDBC (streaming the rows, never holding them all on the heap) at startup and then
+ * periodically reloaded and swapped in, which picks up changes made by other systems. Changes committed by this
+ * application are applied to the snapshot immediately as they happen.
+ * <p>
+ * Until the first snapshot has loaded, every read is passed on to the JPA-based CustomerRepositoryImpl. Otherwise
+ * anything that reads the repository at startup (such as the customer ID filter and the search index, which are built
+ * at startup too) would find an empty table.
+ *
+ * @see CustomerSnapshotStore
+ */
+@Slf4j
+@Singleton
+@Primary
+@Requires(property = "customer.snapshot.enabled", value = "true")
+@Requires(property = "tenancy.enabled", notEquals = "true")
+public class CustomerSnapshotRepositoryImpl implements CustomerRepository, MeterBinder {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    private static final String SELECT_CUSTOMERS = "select CUST_ID, CUST_FULL_NAME, CUST_STREET_ADDR from CUSTOMERS";
+
+    /**
+     * The number of rows fetched from the database at a time when loading the snapshot.
+     */
+    private static final int FETCH_SIZE = 1000;
+
+    static final String INVALID_INITIAL_CUSTOMERS =
+            "Invalid customer.snapshot.initial-customers [%d], must be from 1 to %d.";
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final CustomerRepositoryImpl customerRepository;
+    private final DataSource dataSource;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final int initialCustomers;
+    private final int initialDataBytes;
+
+    private volatile CustomerSnapshotStore store;
+    /**
+     * When the current snapshot was loaded. Null until the first snapshot has loaded.
+     */
+    private volatile Instant loadedTimestamp;
+
+    /**
+     * Customer changes committed while a reload is in progress, which are re-applied to the new snapshot before it is swapped
+     * in (the reload might have read those rows before they changed). Null when no reload is in progress.
+     */
+    private List<EntityChangeEvent> changedDuringReload;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    /**
+     * Create a new CustomerSnapshotRepositoryImpl.
+     *
+     * @param initialCustomers   the number of customers to size a new snapshot for (it grows if needed)
+     * @param initialRecordBytes the average size of a customer record to size a new snapshot for
+     * @throws IllegalArgumentException if the initial number of customers is out of range
+     */
+    @Inject
+    CustomerSnapshotRepositoryImpl(CustomerRepositoryImpl customerRepository, DataSource dataSource,
+                                   @Value("${customer.snapshot.initial-customers:1000000}") int initialCustomers,
+                                   @Value("${customer.snapshot.initial-record-bytes:64}") int initialRecordBytes) {
+        this.customerRepository = customerRepository;
+        this.dataSource = dataSource;
+        if ((initialCustomers < 1) || (initialCustomers > CustomerSnapshotStore.MAX_CUSTOMERS)) {
+            throw new IllegalArgumentException(String.format(INVALID_INITIAL_CUSTOMERS, initialCustomers,
+                    CustomerSnapshotStore.MAX_CUSTOMERS));
+        }
+        this.initialCustomers = initialCustomers;
+        this.initialDataBytes = (int) Math.min(CustomerSnapshotStore.MAX_DATA_BYTES,
+                (long) initialCustomers * Math.max(initialRecordBytes, 0));
+        this.store = new CustomerSnapshotStore(1, 0);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Return the Customer with the given ID from the snapshot, if found. If not found, then the value inside the
+     * Optional returned will be null.
+     */
+    @Override
+    public Optional<Customer> findById(@NotNull Integer id) {
+        return Optional.ofNullable(findByIdOrNull(id));
+    }
+
+    /**
+     * Return the Customer with the given ID from the snapshot.
+     *
+     * @return null if the Customer is not in the snapshot
+     */
+    @Override
+    public Customer findByIdOrNull(int id) {
+        if (loadedTimestamp == null) {
+            return customerRepository.findByIdOrNull(id);
+        }
+        Customer customer = store.get(id);
+        if (customer != null) {
+            customer.setLastReadTimestamp(loadedTimestamp);
+        }
+        return customer;
+    }
+
+    /**
+     * Return the Customers with the given IDs from the snapshot, keyed by customer ID. IDs that aren't in the snapshot
+     * are simply left out.
+     */
+    @Override
+    public IntObjectMap<Customer> findAllById(@NotNull int[] ids) {
+        if (loadedTimestamp == null) {
+            return customerRepository.findAllById(ids);
+        }
+        IntObjectMap<Customer> customers = new IntObjectHashMap<>(ids.length);
+        for (int id : ids) {
+            Customer customer = findByIdOrNull(id);
+            if (customer != null) {
+                customers.put(id, customer);
+            }
+        }
+        return customers;
+    }
+
+    /**
+     * Stream the IDs of every Customer in the snapshot to the given consumer.
+     */
+    @Override
+    public void forEachCustomerId(@NotNull IntConsumer consumer) {
+        if (loadedTimestamp == null) {
+            customerRepository.forEachCustomerId(consumer);
+            return;
+        }
+        store.forEachCustomerId(consumer);
+    }
+
+    /**
+     * Stream the full name and ID of every Customer in the snapshot to the given consumer.
+     */
+    @Override
+    public void forEachCustomerName(@NotNull ObjIntConsumer<String> consumer) {
+        if (loadedTimestamp == null) {
+            customerRepository.forEachCustomerName(consumer);
+            return;
+        }
+        store.forEachCustomerId(customerId -> {
+            Customer customer = store.get(customerId);
+            if (customer != null) {
+                consumer.accept(customer.getFullName(), customerId);
+            }
+        });
+    }
+
+    /**
+     * Load a brand new snapshot of the CUSTOMERS table and swap it in once complete. Runs at startup, and then
+     * periodically to pick up changes made to the table by other systems.
+     */
+    @Scheduled(initialDelay = "0s", fixedDelay = "${customer.snapshot.reload-interval:10m}")
+    public void reload() {
+        long start = System.currentTimeMillis();
+        synchronized (this) {
+            changedDuringReload = new ArrayList<>();
+        }
+        CustomerSnapshotStore snapshot = new CustomerSnapshotStore(initialCustomers, initialDataBytes);
+        Instant timestamp = Instant.now();
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_CUSTOMERS)) {
+            statement.setFetchSize(FETCH_SIZE);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    int customerId = resultSet.getInt(1);
+                    String fullName = resultSet.getString(2);
+                    String streetAddress = resultSet.getString(3);
+                    while (!snapshot.put(customerId, fullName, streetAddress)) {
+                        snapshot = snapshot.grow();
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            log.error("Unable to load the customer snapshot, leaving the previous snapshot in place", e);
+            synchronized (this) {
+                changedDuringReload = null;
+            }
+            return;
+        }
+
+        synchronized (this) {
+            store = snapshot;
+            loadedTimestamp = timestamp;
+            changedDuringReload.forEach(this::apply);
+            changedDuringReload = null;
+        }
+        log.info("Loaded {} customers into the customer snapshot ({} bytes off-heap) in {}ms", snapshot.size(),
+                snapshot.getOffHeapBytes(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Apply Customers committed by this application to the snapshot as soon as they are committed.
+     */
+    @EventListener
+    public synchronized void onEntityChange(EntityChangeEvent event) {
+        if ((event.getEntity() instanceof Customer) && (((Customer) event.getEntity()).getCustomerId() != null)) {
+            apply(event);
+            if (changedDuringReload != null) {
+                changedDuringReload.add(event);
+            }
+        }
+    }
+
+    /**
+     * Register the snapshot footprint metrics with Micrometer (and therefore the /metrics endpoint).
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("customer.snapshot.size", this, repository -> repository.store.size())
+                .description("Number of customers in the off-heap customer snapshot")
+                .register(registry);
+        Gauge.builder("customer.snapshot.memory", this, repository -> repository.store.getOffHeapBytes())
+                .description("Off-heap memory allocated by the customer snapshot")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("customer.snapshot.garbage", this, repository -> repository.store.getGarbageBytes())
+                .description("Off-heap memory held by replaced customer records until the next reload")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    /**
+     * Apply the Customer change of the given event to the current snapshot, growing it if it is full.
+     */
+    private void apply(EntityChangeEvent event) {
+        Customer customer = (Customer) event.getEntity();
+        if (event.getChangeType() == EntityChangeEvent.ChangeType.DELETED) {
+            store.remove(customer.getCustomerId());
+            return;
+        }
+        while (!store.put(customer.getCustomerId(), customer.getFullName(), customer.getStreetAddress())) {
+            store = store.grow();
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,290 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.customer.entity.Customer;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.function.IntConsumer;
+
+/**
+ * A compact, off-heap store of Customer names and addresses keyed by customer ID.
+ * <p>
+ * DEVELOPER NOTE: Everything in this class lives in two "direct" ByteBuffers, which are allocated outside of the Java
+ * heap. The garbage collector never has to scan or copy them, no matter how many customers they hold.
+ * <ul>
+ * <li>The index is an open-addressing hash table of 8-byte slots: [customer ID][offset of the record in the data
+ * region]. A customer ID of zero marks an empty slot, and an offset of -1 marks a removed customer.</li>
+ * <li>The data region holds one packed record per customer: [name length][name UTF-8 bytes][address length][address
+ * UTF-8 bytes], where a length of -1 means null. Records are only ever appended; updating a customer appends a new
+ * record and points the index at it.</li>
+ * </ul>
+ * There is a single writer (all writes are synchronized) and any number of lock-free readers. The writer always
+ * fills in a record before publishing its offset (and an offset before publishing its ID) with "release" semantics,
+ * and readers read them back with "acquire" semantics, so a reader never sees a half-written record.
+ */
+class CustomerSnapshotStore {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private static final int SLOT_BYTES = 8;
+    private static final int EMPTY = 0;
+    private static final int REMOVED = -1;
+    private static final int NULL_LENGTH = -1;
+
+    /**
+     * The index is kept at most half full, so that lookups rarely probe more than one or two slots.
+     */
+    private static final double MAX_LOAD_FACTOR = 0.5;
+
+    /**
+     * The most customers a store can hold: any more, and the index wouldn't fit in a single (2GB) buffer.
+     */
+    static final int MAX_CUSTOMERS = 1 << 26;
+
+    /**
+     * The most bytes of record data a store can hold (the largest buffer the JVM allocates).
+     */
+    static final int MAX_DATA_BYTES = Integer.MAX_VALUE - 8;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final ByteBuffer index;
+    private final int slotMask;
+    private final ByteBuffer data;
+
+    private int dataEnd;
+    private int usedSlots;
+    private volatile int size;
+    private volatile long garbageBytes;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    /**
+     * Create a new, empty store able to hold (at least) the given number of customers and bytes of record data.
+     */
+    CustomerSnapshotStore(int customers, int dataBytes) {
+        int slots = Integer.highestOneBit(Math.max((int) (customers / MAX_LOAD_FACTOR) - 1, 1)) << 1;
+        this.index = ByteBuffer.allocateDirect(slots * SLOT_BYTES).order(ByteOrder.nativeOrder());
+        this.slotMask = slots - 1;
+        this.data = ByteBuffer.allocateDirect(Math.max(dataBytes, 64)).order(ByteOrder.nativeOrder());
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Store (or replace) the name and address of the Customer with the given ID.
+     *
+     * @return false if there is no room left in the store, in which case nothing was changed
+     */
+    synchronized boolean put(int customerId, String fullName, String streetAddress) {
+        if (customerId == EMPTY) {
+            return true;
+        }
+
+        byte[] name = encode(fullName);
+        byte[] address = encode(streetAddress);
+        int recordBytes = 8 + length(name) + length(address);
+        int slot = findSlot(customerId);
+        boolean newSlot = ((int) INTS.getAcquire(index, slot)) == EMPTY;
+        if ((dataEnd + recordBytes > data.capacity()) || (newSlot && (usedSlots + 1 > capacity()))) {
+            return false;
+        }
+
+        // Write the record first...
+        int offset = dataEnd;
+        int position = write(offset, name);
+        write(position, address);
+        dataEnd += recordBytes;
+
+        // ...then publish it
+        int previousOffset = (int) INTS.getAcquire(index, slot + 4);
+        if (newSlot) {
+            INTS.setRelease(index, slot + 4, offset);
+            INTS.setRelease(index, slot, customerId);
+            usedSlots++;
+            size++;
+        } else {
+            INTS.setRelease(index, slot + 4, offset);
+            if (previousOffset == REMOVED) {
+                size++;
+            } else {
+                garbageBytes += recordBytes(previousOffset);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Remove the Customer with the given ID from the store.
+     */
+    synchronized void remove(int customerId) {
+        int slot = findSlot(customerId);
+        if ((customerId == EMPTY) || ((int) INTS.getAcquire(index, slot) == EMPTY)) {
+            return;
+        }
+
+        int offset = (int) INTS.getAcquire(index, slot + 4);
+        if (offset != REMOVED) {
+            garbageBytes += recordBytes(offset);
+            INTS.setRelease(index, slot + 4, REMOVED);
+            size--;
+        }
+    }
+
+    /**
+     * Return a new Customer read from the record for the given customer ID.
+     *
+     * @return null if the Customer is not in the store
+     */
+    Customer get(int customerId) {
+        if (customerId == EMPTY) {
+            return null;
+        }
+
+        int slot = findSlot(customerId);
+        if ((int) INTS.getAcquire(index, slot) == EMPTY) {
+            return null;
+        }
+        int offset = (int) INTS.getAcquire(index, slot + 4);
+        if (offset == REMOVED) {
+            return null;
+        }
+
+        Customer customer = new Customer();
+        customer.setCustomerId(customerId);
+        int nameLength = data.getInt(offset);
+        customer.setFullName(decode(offset + 4, nameLength));
+        int addressOffset = offset + 4 + Math.max(nameLength, 0);
+        customer.setStreetAddress(decode(addressOffset + 4, data.getInt(addressOffset)));
+        return customer;
+    }
+
+    /**
+     * Pass the ID of every Customer in the store to the given consumer.
+     */
+    void forEachCustomerId(IntConsumer consumer) {
+        for (int slot = 0; slot < index.capacity(); slot += SLOT_BYTES) {
+            int customerId = (int) INTS.getAcquire(index, slot);
+            if ((customerId != EMPTY) && ((int) INTS.getAcquire(index, slot + 4) != REMOVED)) {
+                consumer.accept(customerId);
+            }
+        }
+    }
+
+    /**
+     * Return a copy of this store, with twice the room, and without any space wasted by replaced or removed records.
+     */
+    synchronized CustomerSnapshotStore grow() {
+        CustomerSnapshotStore grown = new CustomerSnapshotStore(Math.min(capacity() * 2, MAX_CUSTOMERS),
+                (int) Math.min(MAX_DATA_BYTES, (dataEnd - garbageBytes) * 2L + 1024));
+        forEachCustomerId(customerId -> {
+            Customer customer = get(customerId);
+            grown.put(customerId, customer.getFullName(), customer.getStreetAddress());
+        });
+        return grown;
+    }
+
+    /**
+     * Return the number of Customers in the store.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Return the number of bytes allocated off-heap by the store.
+     */
+    long getOffHeapBytes() {
+        return (long) index.capacity() + data.capacity();
+    }
+
+    /**
+     * Return the number of bytes of the data region used by records that have since been replaced or removed.
+     */
+    long getGarbageBytes() {
+        return garbageBytes;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    /**
+     * Return the maximum number of index slots that may be used.
+     */
+    private int capacity() {
+        return (int) ((slotMask + 1) * MAX_LOAD_FACTOR);
+    }
+
+    /**
+     * Return the byte position of the index slot holding the given customer ID, or of the empty slot where it belongs.
+     */
+    private int findSlot(int customerId) {
+        int hash = customerId * 0x9E3779B9;
+        int slot = (hash ^ (hash >>> 16)) & slotMask;
+        while (true) {
+            int slotCustomerId = (int) INTS.getAcquire(index, slot * SLOT_BYTES);
+            if ((slotCustomerId == customerId) || (slotCustomerId == EMPTY)) {
+                return slot * SLOT_BYTES;
+            }
+            slot = (slot + 1) & slotMask;
+        }
+    }
+
+    /**
+     * Return the total size of the record at the given offset.
+     */
+    private int recordBytes(int offset) {
+        int nameLength = Math.max(data.getInt(offset), 0);
+        return 8 + nameLength + Math.max(data.getInt(offset + 4 + nameLength), 0);
+    }
+
+    /**
+     * Write a length-prefixed string at the given position of the data region, returning the position after it.
+     */
+    private int write(int position, byte[] value) {
+        data.putInt(position, (value == null) ? NULL_LENGTH : value.length);
+        if (value != null) {
+            ByteBuffer target = data.duplicate();
+            target.position(position + 4);
+            target.put(value);
+        }
+        return position + 4 + length(value);
+    }
+
+    /**
+     * Decode the string with the given length at the given position of the data region.
+     */
+    private String decode(int position, int length) {
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        ByteBuffer source = data.duplicate();
+        source.position(position);
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] encode(String value) {
+        return (value == null) ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] value) {
+        return (value == null) ? 0 : value.length;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -1,10 +1,21 @@
 package com.dbs.micronaut.demo.customer.impl;
 
 import com.dbs.micronaut.demo.customer.CustomerTranslator;
+import com.dbs.micronaut.demo.customer.contract.CustomerChangeDTO;
 import com.dbs.micronaut.demo.customer.contract.CustomerDTO;
 import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.dbs.micronaut.demo.customer.entity.CustomerOrderSummary;
+import com.dbs.micronaut.demo.customer.entity.Order;
+import com.dbs.micronaut.demo.customer.event.CustomerChange;
+import org.hibernate.Hibernate;
 
 import javax.inject.Singleton;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Translate to and from CustomerDTO web service contracts and Customer business entities.
@@ -14,6 +25,12 @@ import javax.inject.Singleton;
  * a separate entity class, even if it's nearly identical to the contract class, allows for an evolving layer of
  * business logic while at the same time remaining backward compatible with any API versioning that is necessary. Also,
  * having proper business entity classes allows for implementing the "tell, don't ask" design principle.
+ * <p>
+ * The mapping is written out by hand on purpose: it's what a compile-time mapper generator would produce anyway (plain
+ * getter and setter calls, no reflection), and it runs for every Customer in every response. Every property of
+ * Customer and CustomerDTO must be mapped here (or deliberately left out, like the street address, which isn't part of
+ * the contract). CustomerTranslatorImplTest fails when a property is added to either class and forgotten here, and
+ * CustomerTranslatorBenchmark shows what a mapping costs.
  */
 @Singleton
 public class CustomerTranslatorImpl implements CustomerTranslator {
@@ -30,11 +47,17 @@ public class CustomerTranslatorImpl implements CustomerTranslator {
         customer.setCustomerId(customerDto.getId());
         customer.setLastReadTimestamp(customerDto.getLastReadTimestamp());
         customer.setStreetAddress("Unknown");
+        customer.setUpdatedAt(Instant.now());
+        customer.setOrders(toOrders(customerDto.getOrderNumbers(), customer));
         return customer;
     }
 
     /**
      * Translate the given Customer to a new CustomerDTO contract.
+     * <p>
+     * DEVELOPER NOTE: The order numbers are only mapped if the Customer's Orders have already been loaded. Touching
+     * a lazy collection that hasn't been would run a query for every Customer translated (or fail outright, for a
+     * Customer read through a StatelessSession), and most Customers are looked up without their Orders.
      */
     public CustomerDTO toContract(Customer customer) {
 
@@ -42,8 +65,69 @@ public class CustomerTranslatorImpl implements CustomerTranslator {
         customerDto.setFullName(customer.getFullName());
         customerDto.setId(customer.getCustomerId());
         customerDto.setLastReadTimestamp(customer.getLastReadTimestamp());
+        customerDto.setOrderNumbers(toOrderNumbers(customer.getOrders()));
+        return customerDto;
+    }
+
+    /**
+     * Translate the given Customer, and its order summary, to a new CustomerDTO contract.
+     */
+    public CustomerDTO toContract(Customer customer, CustomerOrderSummary orderSummary) {
+
+        CustomerDTO customerDto = toContract(customer);
+        customerDto.setOrderCount((orderSummary == null) ? 0 : orderSummary.getOrderCount());
+        customerDto.setLatestOrderNumber((orderSummary == null) ? null : orderSummary.getLatestOrderNumber());
         return customerDto;
     }
 
+    /**
+     * Translate the given CustomerChange to a new CustomerChangeDTO contract.
+     */
+    public CustomerChangeDTO toContract(CustomerChange change) {
+
+        CustomerChangeDTO changeDto = new CustomerChangeDTO();
+        changeDto.setOffset(change.getOffset());
+        changeDto.setChangeType(change.getChangeType().name());
+        changeDto.setEntityType(change.getEntityType().name());
+        changeDto.setCustomerId(change.getCustomerId());
+        changeDto.setOrderNumber(change.getOrderNumber());
+        changeDto.setTimestamp(change.getTimestamp());
+        return changeDto;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    /**
+     * Return new Orders, belonging to the given Customer, with the given order numbers.
+     */
+    private static Set<Order> toOrders(List<String> orderNumbers, Customer customer) {
+        Set<Order> orders = new HashSet<>((int) (orderNumbers.size() / .75f) + 1);
+        for (String orderNumber : orderNumbers) {
+            Order order = new Order();
+            order.setOrderNumber(orderNumber);
+            order.setCustomer(customer);
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    /**
+     * Return the sorted order numbers of the given Orders, or null (without allocating anything) if there are none or
+     * they haven't been loaded.
+     */
+    private static List<String> toOrderNumbers(Set<Order> orders) {
+        if ((orders == null) || !Hibernate.isInitialized(orders) || orders.isEmpty()) {
+            return null;
+        }
+        List<String> orderNumbers = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            orderNumbers.add(order.getOrderNumber());
+        }
+        Collections.sort(orderNumbers);
+        return orderNumbers;
+    }
+
     // -----------------------------------------------------------------------------------------------------------------
 }
@@ -0,0 +1,301 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.customer.CustomerController;
+import com.dbs.micronaut.demo.customer.CustomerHotKeyTracker;
+import com.dbs.micronaut.demo.customer.CustomerWarmUp;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.health.HealthStatus;
+import io.micronaut.management.health.indicator.HealthIndicator;
+import io.micronaut.management.health.indicator.HealthResult;
+import io.micronaut.runtime.event.annotation.EventListener;
+import io.micronaut.runtime.server.event.ServerShutdownEvent;
+import io.micronaut.runtime.server.event.ServerStartupEvent;
+import io.micronaut.scheduling.TaskExecutors;
+import io.reactivex.Flowable;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+
+/**
+ * Warms the application up in the background once the HTTP server has started, and reports the application as DOWN on
+ * the /health endpoint until it is done.
+ * <p>
+ * DEVELOPER NOTE: A freshly started JVM is slow. Code is first interpreted, and only compiled to fast machine code by
+ * the JIT ("Just-In-Time") compiler once it has run thousands of times. Hibernate builds its query plans the first time
+ * each query runs, the connection pool opens its connections lazily, and every cache is empty. An instance that takes
+ * full traffic straight after a deploy does all of that on its first few thousand requests, which is a latency spike.
+ * <p>
+ * So instead, right after startup, this class:
+ * <ol>
+ * <li>Opens the connection pool's connections up front.</li>
+ * <li>Sends synthetic requests through the CustomerController for the hottest customer IDs (configured, and/or the ones
+ * that were hot when the previous instance shut down), which both loads those customers into the caches and runs the
+ * whole request path often enough for the JIT compiler to compile it.</li>
+ * <li>Only then reports UP on /health, which is what a load balancer (or Kubernetes readiness probe) checks before
+ * sending the instance any traffic.</li>
+ * </ol>
+ * The synthetic requests call the controller directly rather than over HTTP, so they skip the HTTP filters (such as
+ * the concurrency limiter) and don't show up as traffic.
+ */
+@Slf4j
+@Singleton
+public class CustomerWarmUpImpl implements CustomerWarmUp, HealthIndicator {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    private static final String NAME = "customerWarmUp";
+
+    /**
+     * The Accept-Encoding of synthetic requests, so that they warm up the gzip code paths too.
+     */
+    private static final String GZIP = "gzip";
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final CustomerController customerController;
+    private final CustomerHotKeyTracker customerHotKeyTracker;
+    private final DataSource dataSource;
+    private final ExecutorService executorService;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final boolean enabled;
+    private final List<Integer> configuredCustomerIds;
+    private final Path accessLog;
+    private final int requests;
+    private final long timeoutNanos;
+
+    private volatile boolean ready;
+    private volatile int warmedCustomers;
+    private volatile int warmedConnections;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    /**
+     * Create a new CustomerWarmUpImpl.
+     *
+     * @param customerIds comma-separated customer IDs to always warm up
+     * @param accessLog   the file that the hot customer IDs are saved to at shutdown and read back from at startup, or
+     *                    empty for none
+     * @param requests    the number of synthetic requests to send
+     */
+    @Inject
+    CustomerWarmUpImpl(CustomerController customerController, CustomerHotKeyTracker customerHotKeyTracker,
+                       DataSource dataSource, @Named(TaskExecutors.IO) ExecutorService executorService,
+                       @Value("${customer.warm-up.enabled:true}") boolean enabled,
+                       @Value("${customer.warm-up.customer-ids:}") String customerIds,
+                       @Value("${customer.warm-up.access-log:}") String accessLog,
+                       @Value("${customer.warm-up.requests:10000}") int requests,
+                       @Value("${customer.warm-up.timeout:2m}") Duration timeout) {
+        this.customerController = customerController;
+        this.customerHotKeyTracker = customerHotKeyTracker;
+        this.dataSource = dataSource;
+        this.executorService = executorService;
+        this.enabled = enabled;
+        this.configuredCustomerIds = parseCustomerIds(customerIds);
+        this.accessLog = accessLog.trim().isEmpty() ? null : Paths.get(accessLog.trim());
+        this.requests = requests;
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Start warming up in the background as soon as the HTTP server is up.
+     */
+    @EventListener
+    public void onStartup(ServerStartupEvent event) {
+        if (enabled) {
+            executorService.submit(this::warmUp);
+        } else {
+            ready = true;
+        }
+    }
+
+    /**
+     * Save the currently hot customer IDs to the access log, for the next instance to warm up with.
+     */
+    @EventListener
+    public void onShutdown(ServerShutdownEvent event) {
+        saveHotCustomerIds();
+    }
+
+    /**
+     * Warm the application up, and mark it as ready once done. If anything goes wrong, the application is marked as
+     * ready anyway... a cold instance is still better than no instance.
+     */
+    @Override
+    public void warmUp() {
+        long start = System.nanoTime();
+        try {
+            warmConnectionPool();
+            warmCustomers(start + timeoutNanos);
+        } catch (RuntimeException e) {
+            log.warn("Warm-up failed, continuing cold", e);
+        } finally {
+            ready = true;
+            log.info("Warmed up {} connections and {} customers in {}ms", warmedConnections, warmedCustomers,
+                    Duration.ofNanos(System.nanoTime() - start).toMillis());
+        }
+    }
+
+    /**
+     * Returns whether or not the application has been warmed up and is ready for traffic.
+     */
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Report DOWN on the /health endpoint (so 503 Service Unavailable) until the application has been warmed up.
+     */
+    @Override
+    public Publisher<HealthResult> getResult() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("connections", warmedConnections);
+        details.put("customers", warmedCustomers);
+        return Flowable.just(HealthResult.builder(NAME, ready ? HealthStatus.UP : HealthStatus.DOWN)
+                .details(details)
+                .build());
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    /**
+     * Open the connection pool's minimum number of idle connections now, rather than on the first requests, by
+     * borrowing that many connections at once (and then returning them).
+     */
+    private void warmConnectionPool() {
+        int connections = 1;
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                connections = dataSource.unwrap(HikariDataSource.class).getMinimumIdle();
+            }
+        } catch (SQLException e) {
+            log.debug("Unable to read the connection pool size", e);
+        }
+
+        List<Connection> borrowed = new ArrayList<>(connections);
+        try {
+            for (int i = 0; i < connections; i++) {
+                borrowed.add(dataSource.getConnection());
+            }
+        } catch (SQLException e) {
+            log.warn("Unable to open database connection {} of {}", borrowed.size() + 1, connections, e);
+        } finally {
+            warmedConnections = borrowed.size();
+            for (Connection connection : borrowed) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    log.debug("Unable to return a database connection", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Send synthetic requests through the CustomerController, cycling through the customer IDs to warm up, until the
+     * configured number of requests has been sent (or the deadline has passed).
+     */
+    private void warmCustomers(long deadline) {
+        Set<Integer> customerIds = new LinkedHashSet<>(configuredCustomerIds);
+        customerIds.addAll(loadHotCustomerIds());
+        if (customerIds.isEmpty()) {
+            return;
+        }
+        warmedCustomers = customerIds.size();
+
+        Integer[] ids = customerIds.toArray(new Integer[0]);
+        for (int i = 0; (i < requests) && (System.nanoTime() - deadline < 0); i++) {
+            try {
+                customerController.getCustomer(ids[i % ids.length], null, GZIP).blockingGet();
+            } catch (RuntimeException e) {
+                log.debug("Warm-up request for customer [{}] failed", ids[i % ids.length], e);
+            }
+        }
+    }
+
+    /**
+     * Read the customer IDs that were hot when the previous instance shut down from the access log, if any.
+     */
+    private List<Integer> loadHotCustomerIds() {
+        if ((accessLog == null) || !Files.isReadable(accessLog)) {
+            return new ArrayList<>();
+        }
+        try {
+            return parseCustomerIds(String.join(",", Files.readAllLines(accessLog, StandardCharsets.UTF_8)));
+        } catch (IOException e) {
+            log.warn("Unable to read the access log [{}]", accessLog, e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Write the currently hot customer IDs (hottest first, one per line) to the access log, if any.
+     */
+    private void saveHotCustomerIds() {
+        if (accessLog == null) {
+            return;
+        }
+        List<String> lines = customerHotKeyTracker.getHotCustomerIds().keySet().stream()
+                .map(String::valueOf)
+                .collect(Collectors.toList());
+        try {
+            Files.write(accessLog, lines, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            log.warn("Unable to write the access log [{}]", accessLog, e);
+        }
+    }
+
+    /**
+     * Parse the given comma-separated customer IDs, skipping any that aren't numbers.
+     */
+    private static List<Integer> parseCustomerIds(String customerIds) {
+        List<Integer> ids = new ArrayList<>();
+        for (String id : customerIds.split(",")) {
+            try {
+                if (!id.trim().isEmpty()) {
+                    ids.add(Integer.valueOf(id.trim()));
+                }
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring invalid warm-up customer ID [{}]", id);
+            }
+        }
+        return ids;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,94 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.customer.CustomerWriter;
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.dbs.micronaut.demo.customer.event.EntityChangeEvent;
+import com.dbs.micronaut.demo.customer.event.EntityChangeEvent.ChangeType;
+import io.micronaut.context.event.ApplicationEventPublisher;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Writes changes to existing Customers to the database, committing them before returning.
+ * <p>
+ * DEVELOPER NOTE: Like CustomerImporterImpl, this class writes through a Hibernate StatelessSession: the Customer is
+ * already complete, so there's nothing to be gained from loading it into a persistence context first, and a batch of
+ * updates goes to the database as a single JDBC batch. A StatelessSession bypasses Hibernate's event listeners (and
+ * JPA callbacks), so this class sets the update timestamps itself, and publishes the EntityChangeEvents itself once the
+ * changes have been committed.
+ *
+ * @see WriteBehindCustomerWriter
+ */
+@Singleton
+public class CustomerWriterImpl implements CustomerWriter {
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final SessionFactory sessionFactory;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    @Inject
+    CustomerWriterImpl(SessionFactory sessionFactory, ApplicationEventPublisher eventPublisher) {
+        this.sessionFactory = sessionFactory;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Write the given (changed) Customer to the database, replacing the Customer with the same ID.
+     *
+     * @throws org.hibernate.StaleStateException if there's no Customer with its ID (any more).
+     */
+    @Override
+    public void update(Customer customer) {
+        updateAll(Collections.singletonList(customer));
+    }
+
+    /**
+     * Write the given (changed) Customers to the database in a single JDBC batch and transaction, all of them or none
+     * of them, and then publish an UPDATED EntityChangeEvent for each of them. Their update timestamps are set to now.
+     *
+     * @throws org.hibernate.StaleStateException if there's no Customer with one of their IDs (any more).
+     */
+    public void updateAll(List<Customer> customers) {
+        if (customers.isEmpty()) {
+            return;
+        }
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            session.setJdbcBatchSize(customers.size());
+            Transaction transaction = session.beginTransaction();
+            try {
+                Instant now = Instant.now();
+                for (Customer customer : customers) {
+                    customer.setUpdatedAt(now);
+                    session.update(customer);
+                }
+                transaction.commit();
+            } catch (RuntimeException e) {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+                throw e;
+            }
+        }
+        for (Customer customer : customers) {
+            eventPublisher.publishEvent(new EntityChangeEvent(customer, ChangeType.UPDATED));
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,142 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.customer.event.EntityChangeEvent;
+import com.dbs.micronaut.demo.customer.event.EntityChangeEvent.ChangeType;
+import io.micronaut.context.event.ApplicationEventPublisher;
+import io.micronaut.context.event.BeanCreatedEvent;
+import io.micronaut.context.event.BeanCreatedEventListener;
+import org.hibernate.SessionFactory;
+import org.hibernate.SessionFactoryObserver;
+import org.hibernate.boot.SessionFactoryBuilder;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Listens to Hibernate for committed entity changes and re-publishes them as Micronaut EntityChangeEvents.
+ * <p>
+ * DEVELOPER NOTE: Hibernate has its own event system that fires for every insert, update and delete it performs. This
+ * class hooks into it as soon as Hibernate has built the SessionFactory: when Micronaut creates the SessionFactoryBuilder
+ * (a BeanCreatedEventListener is called with every new bean of the given type), this class adds itself to it as a
+ * SessionFactoryObserver, which Hibernate calls once the SessionFactory it builds is ready. That way, this class never
+ * causes the SessionFactory to be built itself (see LazySessionFactoryListener). The "post commit" flavour of the
+ * Hibernate listeners is used so that nobody hears about a change that was later rolled back.
+ */
+@Singleton
+public class HibernateEntityEventPublisher implements BeanCreatedEventListener<SessionFactoryBuilder>,
+        SessionFactoryObserver, PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    @Inject
+    HibernateEntityEventPublisher(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Observe every SessionFactory that is built by a SessionFactoryBuilder.
+     */
+    @Override
+    public SessionFactoryBuilder onCreated(BeanCreatedEvent<SessionFactoryBuilder> event) {
+        return event.getBean().addSessionFactoryObservers(this);
+    }
+
+    /**
+     * Register this class with the Hibernate event listener registry of a SessionFactory that has just been built.
+     */
+    @Override
+    public void sessionFactoryCreated(SessionFactory factory) {
+        EventListenerRegistry registry = ((SessionFactoryImplementor) factory).getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    /**
+     * Called by Hibernate when a SessionFactory has been closed. Nothing to clean up.
+     */
+    @Override
+    public void sessionFactoryClosed(SessionFactory factory) {
+    }
+
+    /**
+     * Called by Hibernate after an inserted entity has been committed.
+     */
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        eventPublisher.publishEvent(new EntityChangeEvent(event.getEntity(), ChangeType.CREATED));
+    }
+
+    /**
+     * Called by Hibernate when the transaction of an inserted entity failed to commit. Nothing changed, so there's
+     * nothing to publish.
+     */
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    /**
+     * Called by Hibernate after an updated entity has been committed.
+     */
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        eventPublisher.publishEvent(new EntityChangeEvent(event.getEntity(), ChangeType.UPDATED));
+    }
+
+    /**
+     * Called by Hibernate when the transaction of an updated entity failed to commit.
+     */
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    /**
+     * Called by Hibernate after a deleted entity has been committed.
+     */
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        eventPublisher.publishEvent(new EntityChangeEvent(event.getEntity(), ChangeType.DELETED));
+    }
+
+    /**
+     * Called by Hibernate when the transaction of a deleted entity failed to commit.
+     */
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    /**
+     * Tell Hibernate to call this listener only once the transaction has been committed.
+     * <p>
+     * DEVELOPER NOTE: Deprecated in favour of requiresPostCommitHandling(), but still abstract in Hibernate 5.3.
+     */
+    @Override
+    @SuppressWarnings("deprecation")
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return true;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,52 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.customer.CustomerHotKeyTracker;
+import com.dbs.micronaut.demo.customer.CustomerNearCache;
+import com.dbs.micronaut.demo.customer.contract.HotCustomersDTO;
+import io.micronaut.management.endpoint.annotation.Endpoint;
+import io.micronaut.management.endpoint.annotation.Read;
+
+import javax.inject.Inject;
+
+/**
+ * Admin endpoint that reports the customers currently considered hot.
+ * <p>
+ * DEVELOPER NOTE: @Endpoint is a Micronaut "management" endpoint, the same mechanism behind the built-in /health and
+ * /beans endpoints. A GET to /hotcustomers calls the @Read method. Management endpoints are "sensitive" by default
+ * (meaning they require security to be configured), which this one isn't since it only exposes customer IDs.
+ */
+@Endpoint(id = "hotcustomers", defaultSensitive = false)
+public class HotCustomersEndpoint {
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final CustomerHotKeyTracker customerHotKeyTracker;
+    private final CustomerNearCache customerNearCache;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    @Inject
+    HotCustomersEndpoint(CustomerHotKeyTracker customerHotKeyTracker, CustomerNearCache customerNearCache) {
+        this.customerHotKeyTracker = customerHotKeyTracker;
+        this.customerNearCache = customerNearCache;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Return the hot customer IDs and the IDs of the customers pinned in the near-cache.
+     */
+    @Read
+    public HotCustomersDTO getHotCustomers() {
+        HotCustomersDTO hotCustomersDto = new HotCustomersDTO();
+        hotCustomersDto.setHotCustomerIds(customerHotKeyTracker.getHotCustomerIds());
+        hotCustomersDto.setPinnedCustomerIds(customerNearCache.getPinnedCustomerIds());
+        return hotCustomersDto;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
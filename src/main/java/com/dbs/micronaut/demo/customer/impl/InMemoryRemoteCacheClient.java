@@ -0,0 +1,109 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.customer.RemoteCacheClient;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * An in-process stand-in for a remote cache, used when no remote cache server is configured (and in tests).
+ * <p>
+ * DEVELOPER NOTE: This behaves like a remote cache that only this instance (or, in tests, every instance sharing this
+ * object) is connected to: values expire, and messages are delivered to every subscriber. Published messages are
+ * delivered straight away on the publishing thread, which keeps tests deterministic.
+ */
+@Singleton
+@Requires(property = "customer.remote-cache.type", notEquals = "redis")
+public class InMemoryRemoteCacheClient implements RemoteCacheClient {
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final int maxEntries;
+
+    /**
+     * The cached values, each with the System.nanoTime() at which it expires.
+     */
+    private final Map<String, Map.Entry<byte[], Long>> entries = new ConcurrentHashMap<>();
+
+    private final Map<String, List<Consumer<String>>> subscribers = new ConcurrentHashMap<>();
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    /**
+     * Create a new InMemoryRemoteCacheClient holding at most the given number of values.
+     */
+    @Inject
+    InMemoryRemoteCacheClient(@Value("${customer.remote-cache.in-memory.max-entries:10000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    @Override
+    public byte[] get(String key) {
+        Map.Entry<byte[], Long> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.getValue() >= 0) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.getKey();
+    }
+
+    @Override
+    public List<byte[]> getAll(List<String> keys) {
+        List<byte[]> values = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            values.add(get(key));
+        }
+        return values;
+    }
+
+    /**
+     * Store the given value under the given key, for the given number of milliseconds. When full, an arbitrary value
+     * is dropped to make room.
+     */
+    @Override
+    public void set(String key, byte[] value, long ttlMillis) {
+        if ((entries.size() >= maxEntries) && !entries.containsKey(key)) {
+            entries.keySet().stream().findAny().ifPresent(entries::remove);
+        }
+        entries.put(key, new AbstractMap.SimpleImmutableEntry<>(value,
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttlMillis)));
+    }
+
+    @Override
+    public void delete(String key) {
+        entries.remove(key);
+    }
+
+    @Override
+    public void publish(String channel, String message) {
+        for (Consumer<String> listener : subscribers.getOrDefault(channel, new ArrayList<>())) {
+            listener.accept(message);
+        }
+    }
+
+    @Override
+    public void subscribe(String channel, Consumer<String> listener) {
+        subscribers.computeIfAbsent(channel, name -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,96 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.customer.OrderController;
+import com.dbs.micronaut.demo.customer.OrderService;
+import com.dbs.micronaut.demo.customer.OrderTranslator;
+import com.dbs.micronaut.demo.customer.contract.OrderDTO;
+import com.dbs.micronaut.demo.customer.contract.OrderPageDTO;
+import com.dbs.micronaut.demo.customer.entity.OrderSummary;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.MutableHttpResponse;
+import io.micronaut.http.annotation.Controller;
+import io.micronaut.http.annotation.Get;
+import io.micronaut.http.annotation.QueryValue;
+import io.reactivex.Single;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import java.util.List;
+
+/**
+ * This REST API controller is responsible for providing an API for browsing Orders.
+ *
+ * @see OrderService
+ */
+@Controller("/v1")
+public class OrderControllerImpl implements OrderController {
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final OrderService orderService;
+    private final OrderTranslator orderTranslator;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    @Inject
+    OrderControllerImpl(OrderService orderService, OrderTranslator orderTranslator) {
+        this.orderService = orderService;
+        this.orderTranslator = orderTranslator;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Return an OrderDTO of the Order with the given order number.
+     */
+    @Get(uri = "/orders/{orderNumber}")
+    public Single<MutableHttpResponse<OrderDTO>> getOrder(String orderNumber) {
+        return Single.fromCallable(() -> {
+
+            // Get the order (may throw a BusinessException)
+            OrderSummary order = orderService.getOrder(orderNumber);
+
+            // Order not found?
+            if (order == null) {
+                return HttpResponse.notFound();
+            }
+
+            // Return 200-OK and the Order
+            return HttpResponse.ok(orderTranslator.toContract(order));
+
+        });
+    }
+
+    /**
+     * Return a page of OrderDTOs of the Orders of the Customer with the given ID, sorted by order number.
+     * <p>
+     * DEVELOPER NOTE: The first page is GET /v1/customers/{customerId}/orders. Every page tells the caller the "after"
+     * value of the next page (GET /v1/customers/{customerId}/orders?after=...), until the last page.
+     */
+    @Get(uri = "/customers/{customerId}/orders")
+    public Single<MutableHttpResponse<OrderPageDTO>> getCustomerOrders(Integer customerId,
+                                                                      @Nullable @QueryValue String after,
+                                                                      @Nullable @QueryValue Integer limit) {
+        return Single.fromCallable(() -> {
+
+            // Get the page of orders (may throw a BusinessException)
+            int pageSize = (limit == null) ? OrderService.DEFAULT_PAGE_SIZE : limit;
+            List<OrderSummary> orders = orderService.getCustomerOrders(customerId, after, pageSize);
+
+            // Customer not found?
+            if (orders == null) {
+                return HttpResponse.notFound();
+            }
+
+            // Return 200-OK and the page of Orders
+            return HttpResponse.ok(orderTranslator.toContract(orders, pageSize));
+
+        });
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
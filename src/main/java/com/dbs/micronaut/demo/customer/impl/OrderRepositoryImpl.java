@@ -0,0 +1,149 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.customer.OrderRepository;
+import com.dbs.micronaut.demo.customer.entity.CustomerOrderSummary;
+import com.dbs.micronaut.demo.customer.entity.Order;
+import com.dbs.micronaut.demo.customer.entity.OrderSummary;
+import io.micronaut.configuration.hibernate.jpa.scope.CurrentSession;
+import io.micronaut.spring.tx.annotation.Transactional;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This JPA repository provides methods to return Order data from the database.
+ * <p>
+ * DEVELOPER NOTE: A Customer can have tens of thousands of Orders, so nothing here ever goes through
+ * Customer.getOrders() (which would load every single one of them into memory). Instead, every query selects just the
+ * columns it needs into an OrderSummary, and Orders are read a page at a time.
+ *
+ * @see Order
+ * @see OrderSummary
+ */
+@Singleton
+public class OrderRepositoryImpl implements OrderRepository {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    private static final String SELECT_SUMMARY = "select new com.dbs.micronaut.demo.customer.entity.OrderSummary("
+            + "o.orderNumber, o.customer.customerId) from Order o ";
+
+    private static final String DELETE_SUMMARIES = "delete from CUSTOMER_ORDER_SUMMARIES";
+
+    private static final String INSERT_SUMMARIES = "insert into CUSTOMER_ORDER_SUMMARIES "
+            + "(CUST_ID, ORDER_COUNT, LATEST_ORDER_NUMBER) "
+            + "select CUST_ID, count(*), max(ORDER_NUMBER) from ORDERS where CUST_ID is not null group by CUST_ID";
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    @Inject
+    OrderRepositoryImpl(@CurrentSession EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Return a summary of the Order with the given order number.
+     *
+     * @return null if the Order is not found
+     */
+    @Transactional(readOnly = true)
+    public OrderSummary findByOrderNumber(@NotNull String orderNumber) {
+        List<OrderSummary> orders = entityManager
+                .createQuery(SELECT_SUMMARY + "where o.orderNumber = :orderNumber", OrderSummary.class)
+                .setParameter("orderNumber", orderNumber)
+                .getResultList();
+        return orders.isEmpty() ? null : orders.get(0);
+    }
+
+    /**
+     * Return summaries of (at most the given number of) the Orders of the given Customer, sorted by order number,
+     * starting after the given order number.
+     * <p>
+     * DEVELOPER NOTE: This is "keyset" pagination. The usual way to page is "offset" pagination (setFirstResult(5000)),
+     * but then the database has to find and throw away the first 5000 rows to get to the page... every page gets
+     * slower than the last. Here, each page instead starts "after the last order number of the previous page", which
+     * the (CUST_ID, ORDER_NUMBER) index on the ORDERS table can jump straight to, so every page is just as fast as the
+     * first one.
+     *
+     * @param afterOrderNumber the last order number of the previous page, or null for the first page
+     */
+    @Transactional(readOnly = true)
+    public List<OrderSummary> findByCustomerId(int customerId, String afterOrderNumber, int limit) {
+        TypedQuery<OrderSummary> query;
+        if (afterOrderNumber == null) {
+            query = entityManager.createQuery(SELECT_SUMMARY
+                    + "where o.customer.customerId = :customerId order by o.orderNumber", OrderSummary.class);
+        } else {
+            query = entityManager.createQuery(SELECT_SUMMARY
+                    + "where o.customer.customerId = :customerId and o.orderNumber > :afterOrderNumber "
+                    + "order by o.orderNumber", OrderSummary.class)
+                    .setParameter("afterOrderNumber", afterOrderNumber);
+        }
+
+        return query.setParameter("customerId", customerId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+
+    /**
+     * Return the order summaries of the Customers with the given IDs (at most CustomerService.MAX_CUSTOMER_IDS of
+     * them, so a single "in" list will do), keyed by customer ID.
+     */
+    @Transactional(readOnly = true)
+    public IntObjectMap<CustomerOrderSummary> findSummariesByCustomerId(@NotNull int[] customerIds) {
+        IntObjectMap<CustomerOrderSummary> summaries = new IntObjectHashMap<>(customerIds.length);
+        if (customerIds.length == 0) {
+            return summaries;
+        }
+
+        List<Integer> ids = new ArrayList<>(customerIds.length);
+        for (int customerId : customerIds) {
+            ids.add(customerId);
+        }
+        List<CustomerOrderSummary> found = entityManager
+                .createQuery("select s from CustomerOrderSummary s where s.customerId in :ids",
+                        CustomerOrderSummary.class)
+                .setParameter("ids", ids)
+                .getResultList();
+        for (CustomerOrderSummary summary : found) {
+            summaries.put(summary.getCustomerId(), summary);
+        }
+        return summaries;
+    }
+
+    /**
+     * Recalculate every Customer's order summary from its Orders.
+     * <p>
+     * DEVELOPER NOTE: This is two set-based statements that the database runs without sending a single row to this
+     * application, in one transaction: readers see the old summaries until the new ones are committed.
+     */
+    @Transactional
+    public int rebuildSummaries() {
+        entityManager.createNativeQuery(DELETE_SUMMARIES).executeUpdate();
+        return entityManager.createNativeQuery(INSERT_SUMMARIES).executeUpdate();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,149 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.customer.CustomerService;
+import com.dbs.micronaut.demo.customer.OrderRepository;
+import com.dbs.micronaut.demo.customer.OrderService;
+import com.dbs.micronaut.demo.customer.entity.CustomerOrderSummary;
+import com.dbs.micronaut.demo.customer.entity.OrderSummary;
+import com.dbs.micronaut.demo.exception.BusinessException;
+import com.dbs.micronaut.demo.tenant.TenantResolver;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.runtime.event.annotation.EventListener;
+import io.micronaut.runtime.server.event.ServerStartupEvent;
+import io.netty.util.collection.IntObjectMap;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.List;
+
+/**
+ * Implements all application business functionality related to the retrieval of Orders.
+ */
+@Slf4j
+@Singleton
+public class OrderServiceImpl implements OrderService {
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final OrderRepository orderRepository;
+    private final CustomerService customerService;
+    private final TenantResolver tenantResolver;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final boolean rebuildSummariesOnStartup;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    /**
+     * Create a new OrderServiceImpl.
+     *
+     * @param rebuildSummariesOnStartup whether to recalculate every Customer's order summary at startup
+     */
+    @Inject
+    OrderServiceImpl(OrderRepository orderRepository, CustomerService customerService, TenantResolver tenantResolver,
+                     @Value("${customer.order-summary.rebuild-on-startup:true}") boolean rebuildSummariesOnStartup) {
+        this.orderRepository = orderRepository;
+        this.customerService = customerService;
+        this.tenantResolver = tenantResolver;
+        this.rebuildSummariesOnStartup = rebuildSummariesOnStartup;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Return a summary of the Order with the given order number.
+     *
+     * @return null if the Order is not found
+     * @throws BusinessException if the given order number is not a valid order number.
+     */
+    public OrderSummary getOrder(String orderNumber) throws BusinessException {
+
+        // Business validation
+        if ((orderNumber == null) || orderNumber.trim().isEmpty()) {
+            throw new BusinessException(String.format(INVALID_ORDER_NUMBER, orderNumber));
+        }
+
+        return orderRepository.findByOrderNumber(orderNumber);
+    }
+
+    /**
+     * Return a page of the Orders of the Customer with the given ID, sorted by order number.
+     *
+     * @param afterOrderNumber the last order number of the previous page, or null for the first page
+     * @param pageSize         the maximum number of Orders to return
+     * @return null if the Customer is not found
+     * @throws BusinessException if the given ID is not a valid customer ID, or the page size is out of range.
+     */
+    public List<OrderSummary> getCustomerOrders(int customerId, String afterOrderNumber, int pageSize)
+            throws BusinessException {
+
+        // Business validation
+        if (!customerService.isValidCustomerId(customerId)) {
+            throw new BusinessException(String.format(CustomerService.INVALID_CUSTOMER_ID, customerId));
+        }
+        if ((pageSize < 1) || (pageSize > MAX_PAGE_SIZE)) {
+            throw new BusinessException(String.format(INVALID_PAGE_SIZE, pageSize, MAX_PAGE_SIZE));
+        }
+
+        // No Orders might mean no Customer, but only look the Customer up when it matters
+        List<OrderSummary> orders = orderRepository.findByCustomerId(customerId, afterOrderNumber, pageSize);
+        if (orders.isEmpty() && (customerService.getCustomer(customerId) == null)) {
+            return null;
+        }
+        return orders;
+    }
+
+    /**
+     * Return the order summaries of the Customers with the given IDs, keyed by customer ID.
+     *
+     * @throws BusinessException if any of the given IDs is not a valid customer ID, or too many IDs are given.
+     */
+    public IntObjectMap<CustomerOrderSummary> getCustomerOrderSummaries(int[] customerIds) throws BusinessException {
+
+        // Business validation
+        if (customerIds.length > CustomerService.MAX_CUSTOMER_IDS) {
+            throw new BusinessException(String.format(CustomerService.TOO_MANY_CUSTOMER_IDS, customerIds.length,
+                    CustomerService.MAX_CUSTOMER_IDS));
+        }
+        for (int customerId : customerIds) {
+            if (!customerService.isValidCustomerId(customerId)) {
+                throw new BusinessException(String.format(CustomerService.INVALID_CUSTOMER_ID, customerId));
+            }
+        }
+
+        // Orders are only kept in the default tenant's data source
+        if (!tenantResolver.isDefaultTenant()) {
+            throw new BusinessException(String.format(TenantResolver.TENANT_NOT_ROUTED, "Order summaries",
+                    tenantResolver.getCurrentTenant()));
+        }
+
+        return orderRepository.findSummariesByCustomerId(customerIds);
+    }
+
+    /**
+     * Recalculate every Customer's order summary once the HTTP server is up, so that Orders that were written before
+     * summaries were kept (or by anything other than this application) are counted.
+     * <p>
+     * DEVELOPER NOTE: Once the summaries have been built, they are kept up to date as Orders are written (see
+     * CustomerOrderSummaryListener), so with a large ORDERS table this can be turned off after the first deployment.
+     */
+    @EventListener
+    public void onStartup(ServerStartupEvent event) {
+        if (rebuildSummariesOnStartup) {
+            long start = System.nanoTime();
+            int summaries = orderRepository.rebuildSummaries();
+            log.info("Rebuilt {} customer order summaries in {} ms.", summaries,
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,54 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.customer.OrderTranslator;
+import com.dbs.micronaut.demo.customer.contract.OrderDTO;
+import com.dbs.micronaut.demo.customer.contract.OrderPageDTO;
+import com.dbs.micronaut.demo.customer.entity.OrderSummary;
+
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Translate OrderSummary business entities to OrderDTO web service contracts.
+ */
+@Singleton
+public class OrderTranslatorImpl implements OrderTranslator {
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Translate the given OrderSummary to a new OrderDTO contract.
+     */
+    public OrderDTO toContract(OrderSummary order) {
+
+        OrderDTO orderDto = new OrderDTO();
+        orderDto.setOrderNumber(order.getOrderNumber());
+        orderDto.setCustomerId(order.getCustomerId());
+        return orderDto;
+    }
+
+    /**
+     * Translate the given page of OrderSummaries to a new OrderPageDTO contract.
+     * <p>
+     * DEVELOPER NOTE: A full page *might* be followed by another page, so the caller is told where the next page
+     * starts. A page that isn't full is definitely the last one.
+     *
+     * @param pageSize the page size asked for, used to tell whether there might be another page
+     */
+    public OrderPageDTO toContract(List<OrderSummary> orders, int pageSize) {
+
+        OrderPageDTO orderPageDto = new OrderPageDTO();
+        List<OrderDTO> orderDtos = new ArrayList<>(orders.size());
+        for (OrderSummary order : orders) {
+            orderDtos.add(toContract(order));
+        }
+        orderPageDto.setOrders(orderDtos);
+        if (!orders.isEmpty() && (orders.size() >= pageSize)) {
+            orderPageDto.setNextAfter(orders.get(orders.size() - 1).getOrderNumber());
+        }
+        return orderPageDto;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,222 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.blocking.BlockingCallDetector;
+import com.dbs.micronaut.demo.customer.RemoteCacheClient;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * A RemoteCacheClient for a Redis server, used when "customer.remote-cache.type" is set to "redis".
+ * <p>
+ * DEVELOPER NOTE: This talks to Redis directly over its protocol (see RespConnection), using only a handful of
+ * commands: GET, MGET, SET (with PX, an expiry in milliseconds), DEL, PUBLISH and SUBSCRIBE. Request/reply commands
+ * borrow a connection from a small pool, so that concurrent requests don't queue up behind each other. A subscribed
+ * connection can't be used for anything else, so every subscription gets its own connection, and its own (daemon)
+ * thread that waits for messages. If the connection drops, the thread reconnects and subscribes again... messages
+ * published in the meantime are lost, which is why cached values also expire.
+ */
+@Slf4j
+@Singleton
+@Requires(property = "customer.remote-cache.type", value = "redis")
+public class RedisRemoteCacheClient implements RemoteCacheClient {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    private static final long RECONNECT_DELAY_MILLIS = 1000;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final BlockingCallDetector blockingCallDetector;
+    private final String host;
+    private final int port;
+    private final int timeoutMillis;
+
+    /**
+     * The idle connections, ready to be borrowed.
+     */
+    private final BlockingQueue<RespConnection> idleConnections;
+
+    /**
+     * The connection of every subscriber thread, so that they can be closed (which is what stops the threads).
+     */
+    private final List<RespConnection> subscriberConnections = new CopyOnWriteArrayList<>();
+
+    private volatile boolean closed;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    /**
+     * Create a new RedisRemoteCacheClient for the given server, keeping at most the given number of idle connections.
+     */
+    @Inject
+    RedisRemoteCacheClient(BlockingCallDetector blockingCallDetector,
+                           @Value("${customer.remote-cache.redis.host:localhost}") String host,
+                           @Value("${customer.remote-cache.redis.port:6379}") int port,
+                           @Value("${customer.remote-cache.redis.timeout:100ms}") Duration timeout,
+                           @Value("${customer.remote-cache.redis.pool-size:8}") int poolSize) {
+        this.blockingCallDetector = blockingCallDetector;
+        this.host = host;
+        this.port = port;
+        this.timeoutMillis = (int) timeout.toMillis();
+        this.idleConnections = new ArrayBlockingQueue<>(Math.max(1, poolSize));
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    @Override
+    public byte[] get(String key) {
+        return (byte[]) call(RespConnection.bytes("GET"), RespConnection.bytes(key));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<byte[]> getAll(List<String> keys) {
+        List<byte[]> values = new ArrayList<>(keys.size());
+        if (keys.isEmpty()) {
+            return values;
+        }
+        byte[][] command = new byte[keys.size() + 1][];
+        command[0] = RespConnection.bytes("MGET");
+        for (int i = 0; i < keys.size(); i++) {
+            command[i + 1] = RespConnection.bytes(keys.get(i));
+        }
+        for (Object value : (List<Object>) call(command)) {
+            values.add((byte[]) value);
+        }
+        return values;
+    }
+
+    @Override
+    public void set(String key, byte[] value, long ttlMillis) {
+        call(RespConnection.bytes("SET"), RespConnection.bytes(key), value, RespConnection.bytes("PX"),
+                RespConnection.bytes(Long.toString(ttlMillis)));
+    }
+
+    @Override
+    public void delete(String key) {
+        call(RespConnection.bytes("DEL"), RespConnection.bytes(key));
+    }
+
+    @Override
+    public void publish(String channel, String message) {
+        call(RespConnection.bytes("PUBLISH"), RespConnection.bytes(channel), RespConnection.bytes(message));
+    }
+
+    /**
+     * Start a (daemon) thread that subscribes to the given channel and calls the given listener with every message.
+     */
+    @Override
+    public void subscribe(String channel, Consumer<String> listener) {
+        Thread subscriber = new Thread(() -> listen(channel, listener), "redis-subscriber-" + channel);
+        subscriber.setDaemon(true);
+        subscriber.start();
+    }
+
+    /**
+     * Close every connection, and stop every subscriber.
+     */
+    @PreDestroy
+    public void close() {
+        closed = true;
+        subscriberConnections.forEach(RedisRemoteCacheClient::closeQuietly);
+        for (RespConnection connection = idleConnections.poll(); connection != null;
+             connection = idleConnections.poll()) {
+            closeQuietly(connection);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    /**
+     * Send the given command on a pooled connection, and return its reply.
+     */
+    private Object call(byte[]... command) {
+        blockingCallDetector.checkBlockingCall(BlockingCallDetector.CallType.SOCKET, "redis");
+        RespConnection connection = idleConnections.poll();
+        try {
+            if (connection == null) {
+                connection = new RespConnection(host, port, timeoutMillis);
+            }
+            return connection.call(command);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Redis command failed on " + host + ":" + port, e);
+        } finally {
+            if ((connection != null) && (connection.isBroken() || closed || !idleConnections.offer(connection))) {
+                closeQuietly(connection);
+            }
+        }
+    }
+
+    /**
+     * Subscribe to the given channel, and call the given listener with every message until closed, reconnecting
+     * whenever the connection drops.
+     */
+    private void listen(String channel, Consumer<String> listener) {
+        while (!closed) {
+            RespConnection connection = null;
+            try {
+                connection = new RespConnection(host, port, 0);
+                subscriberConnections.add(connection);
+                connection.call(RespConnection.bytes("SUBSCRIBE"), RespConnection.bytes(channel));
+                while (!closed) {
+
+                    // Every message arrives as ["message", channel, message]
+                    Object reply = connection.read();
+                    List<?> elements = (reply instanceof List) ? (List<?>) reply : null;
+                    if ((elements != null) && (elements.size() == 3)
+                            && "message".equals(new String((byte[]) elements.get(0), StandardCharsets.UTF_8))) {
+                        listener.accept(new String((byte[]) elements.get(2), StandardCharsets.UTF_8));
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                if (!closed) {
+                    log.warn("Lost the subscription to Redis channel [{}], reconnecting", channel, e);
+                    try {
+                        Thread.sleep(RECONNECT_DELAY_MILLIS);
+                    } catch (InterruptedException interrupted) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            } finally {
+                if (connection != null) {
+                    subscriberConnections.remove(connection);
+                    closeQuietly(connection);
+                }
+            }
+        }
+    }
+
+    private static void closeQuietly(RespConnection connection) {
+        try {
+            connection.close();
+        } catch (IOException e) {
+            log.debug("Unable to close a Redis connection", e);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
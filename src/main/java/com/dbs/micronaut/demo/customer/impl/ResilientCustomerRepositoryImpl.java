@@ -0,0 +1,520 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.customer.CustomerRepository;
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.dbs.micronaut.demo.customer.entity.StreetAddressConverter;
+import com.dbs.micronaut.demo.customer.event.EntityChangeEvent;
+import com.dbs.micronaut.demo.customer.event.EntityChangeEvent.ChangeType;
+import com.dbs.micronaut.demo.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micronaut.context.BeanContext;
+import io.micronaut.context.annotation.Primary;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.inject.qualifiers.Qualifiers;
+import io.micronaut.runtime.event.annotation.EventListener;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import javax.sql.DataSource;
+import javax.validation.constraints.NotNull;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * An optional CustomerRepository that protects customer lookups from a slow or failing database.
+ * <p>
+ * DEVELOPER NOTE: This class is a "decorator": it implements CustomerRepository by handing every call to the JPA-based
+ * CustomerRepositoryImpl, but adds behaviour around the lookups by ID:
+ * <ul>
+ * <li>Timeouts: a lookup runs on a thread pool of its own (the "customer-reads" executor, with a fixed number of
+ * threads), and the caller only waits for so long. A slow query no longer holds the request thread hostage for its
+ * full duration. A running query can't be interrupted, so it carries the same timeout itself, and gives its thread and
+ * its connection back when that expires. With a fixed number of threads, a slow database can only ever tie up that
+ * many threads and connections: the lookups queued behind them are skipped once their callers have given up.</li>
+ * <li>Circuit breakers: one per datasource (see CustomerCircuitBreaker). When the database keeps failing, lookups stop
+ * being sent to it at all for a while.</li>
+ * <li>Hedged reads: if an alternate datasource (such as a read replica) is configured, and the database hasn't answered
+ * within its usual (95th percentile) latency, the same lookup is sent to the alternate datasource too, and whichever
+ * answers first wins. The slowest 5% of lookups, which often are slow for reasons that have nothing to do with the
+ * lookup itself (a pause, a lock, a busy connection), are cut short, for the price of about 5% more queries. The
+ * alternate datasource is also tried straight away if the database fails.</li>
+ * <li>Fallback: when the database can't answer (the circuit breaker is open, or the lookup failed or timed out), the
+ * last Customer successfully read with that ID is returned instead, if there is one. A slightly stale answer is
+ * usually better than none. If there isn't one, a ServiceUnavailableException (503) is thrown. A Customer is
+ * forgotten as soon as it is updated or deleted, so the fallback is never older than the last known change.</li>
+ * </ul>
+ * This bean only exists when "customer.resilience.enabled" is set to true (and the snapshot repository, which doesn't
+ * query the database for lookups at all, isn't enabled, and neither is tenancy, which reads other tenants' Customers
+ * from their own databases).
+ *
+ * @see CustomerCircuitBreaker
+ */
+@Slf4j
+@Singleton
+@Primary
+@Requires(property = "customer.resilience.enabled", value = "true")
+@Requires(property = "customer.snapshot.enabled", notEquals = "true")
+@Requires(property = "tenancy.enabled", notEquals = "true")
+public class ResilientCustomerRepositoryImpl implements CustomerRepository, MeterBinder {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    private static final String PRIMARY_DATASOURCE = "default";
+
+    /**
+     * The name of the executor (see "micronaut.executors" in application.yml) that the lookups run on.
+     */
+    private static final String READ_EXECUTOR = "customer-reads";
+
+    private static final String SELECT_CUSTOMER = "select CUST_ID, CUST_FULL_NAME, CUST_STREET_ADDR from CUSTOMERS "
+            + "where CUST_ID = ?";
+
+    /**
+     * The number of most recent database latencies that the hedge delay is calculated from.
+     */
+    private static final int LATENCY_SAMPLES = 1000;
+
+    /**
+     * How often (in samples) the hedge delay is recalculated. Must divide LATENCY_SAMPLES evenly.
+     */
+    private static final int LATENCY_RECALCULATION_INTERVAL = 100;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final CustomerRepositoryImpl customerRepository;
+    private final DataSource hedgeDataSource;
+    private final ExecutorService executorService;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final Duration timeout;
+    private final long timeoutNanos;
+    private final long minHedgeDelayNanos;
+
+    private final CustomerCircuitBreaker primaryCircuitBreaker;
+    private final CustomerCircuitBreaker hedgeCircuitBreaker;
+
+    /**
+     * The last Customer successfully read with each ID, for the most recently read IDs (guarded by itself).
+     */
+    private final Map<Integer, Customer> fallbackCustomers;
+
+    /**
+     * The most recent database latencies, in a ring buffer (guarded by itself).
+     */
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+
+    /**
+     * Where the next latency goes in the ring buffer, and how many of its entries are filled (which stops at
+     * LATENCY_SAMPLES, so that neither ever overflows).
+     */
+    private int latencyPosition;
+    private int latencyCount;
+
+    private volatile long hedgeDelayNanos;
+
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    /**
+     * Create a new ResilientCustomerRepositoryImpl around the JPA-based CustomerRepositoryImpl, hedging with the named
+     * alternate datasource (if any).
+     */
+    @Inject
+    ResilientCustomerRepositoryImpl(CustomerRepositoryImpl customerRepository, BeanContext beanContext,
+                                    @Named(READ_EXECUTOR) ExecutorService executorService,
+                                    @Value("${customer.resilience.hedge.datasource:}") String hedgeDataSourceName,
+                                    @Value("${customer.resilience.timeout:1s}") Duration timeout,
+                                    @Value("${customer.resilience.hedge.min-delay:5ms}") Duration minHedgeDelay,
+                                    @Value("${customer.resilience.window-size:20}") int windowSize,
+                                    @Value("${customer.resilience.failure-rate-threshold:0.5}") double failureRateThreshold,
+                                    @Value("${customer.resilience.open-duration:10s}") Duration openDuration,
+                                    @Value("${customer.resilience.fallback-cache-size:10000}") int fallbackCacheSize) {
+        this(customerRepository,
+                hedgeDataSourceName.isEmpty() ? null
+                        : beanContext.getBean(DataSource.class, Qualifiers.byName(hedgeDataSourceName)),
+                hedgeDataSourceName, executorService, timeout, minHedgeDelay, windowSize, failureRateThreshold,
+                openDuration, fallbackCacheSize);
+    }
+
+    /**
+     * Create a new ResilientCustomerRepositoryImpl around the given CustomerRepositoryImpl, hedging with the given
+     * alternate datasource (or not at all, if null).
+     */
+    ResilientCustomerRepositoryImpl(CustomerRepositoryImpl customerRepository, DataSource hedgeDataSource,
+                                    String hedgeDataSourceName, ExecutorService executorService, Duration timeout,
+                                    Duration minHedgeDelay, int windowSize, double failureRateThreshold,
+                                    Duration openDuration, int fallbackCacheSize) {
+        this.customerRepository = customerRepository;
+        this.hedgeDataSource = hedgeDataSource;
+        this.executorService = executorService;
+        this.timeout = timeout;
+        this.timeoutNanos = timeout.toNanos();
+        this.minHedgeDelayNanos = minHedgeDelay.toNanos();
+        this.hedgeDelayNanos = Math.max(minHedgeDelayNanos, timeoutNanos / 2);
+        this.primaryCircuitBreaker = new CustomerCircuitBreaker(PRIMARY_DATASOURCE, windowSize, failureRateThreshold,
+                openDuration.toNanos());
+        this.hedgeCircuitBreaker = (hedgeDataSource == null) ? null : new CustomerCircuitBreaker(hedgeDataSourceName,
+                windowSize, failureRateThreshold, openDuration.toNanos());
+        this.fallbackCustomers = new LinkedHashMap<Integer, Customer>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Customer> eldest) {
+                return size() > fallbackCacheSize;
+            }
+        };
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Return the Customer with the given ID, if found. If not found, then the value inside the Optional returned will
+     * be null.
+     */
+    @Override
+    public Optional<Customer> findById(@NotNull Integer id) {
+        return Optional.ofNullable(findByIdOrNull(id));
+    }
+
+    /**
+     * Return the Customer with the given ID from the database (or the alternate datasource, whichever answers first),
+     * or else the last Customer successfully read with that ID.
+     *
+     * @return null if the Customer is not found
+     * @throws ServiceUnavailableException if the Customer can't be read, and has never been read before.
+     */
+    @Override
+    public Customer findByIdOrNull(int id) {
+        if (!primaryCircuitBreaker.tryAcquire()) {
+            return fallback(id, null);
+        }
+
+        CompletableFuture<Customer> primary = attempt(primaryCircuitBreaker,
+                () -> customerRepository.findByIdOrNull(id, timeout), true);
+        CompletableFuture<Customer> hedge = null;
+        long deadline = System.nanoTime() + timeoutNanos;
+        try {
+            if (hedgeDataSource == null) {
+                return remember(id, primary.get(timeoutNanos, TimeUnit.NANOSECONDS));
+            }
+
+            // Give the database its usual amount of time before asking the alternate datasource too
+            CompletableFuture<Customer> first = primary;
+            try {
+                return remember(id, primary.get(Math.min(hedgeDelayNanos, timeoutNanos), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException | ExecutionException e) {
+                if (hedgeCircuitBreaker.tryAcquire()) {
+                    hedges.incrementAndGet();
+                    hedge = attempt(hedgeCircuitBreaker, () -> readFromHedgeDataSource(id), false);
+                    first = primary.isCompletedExceptionally() ? hedge : firstSuccessful(primary, hedge);
+                }
+            }
+            return remember(id, first.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+
+        } catch (TimeoutException | ExecutionException e) {
+            primary.cancel(true);
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+            return fallback(id, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return fallback(id, e);
+        }
+    }
+
+    /**
+     * Return the Customers with the given IDs, keyed by customer ID. IDs that aren't found are simply left out. If the
+     * database can't answer, the last Customers successfully read with the given IDs are returned instead.
+     *
+     * @throws ServiceUnavailableException if the Customers can't be read, and none of them has ever been read before.
+     */
+    @Override
+    public IntObjectMap<Customer> findAllById(@NotNull int[] ids) {
+        if (!primaryCircuitBreaker.tryAcquire()) {
+            return fallbackAll(ids, null);
+        }
+
+        CompletableFuture<IntObjectMap<Customer>> primary = attempt(primaryCircuitBreaker,
+                () -> customerRepository.findAllById(ids, timeout), false);
+        try {
+            IntObjectMap<Customer> customers = primary.get(timeoutNanos, TimeUnit.NANOSECONDS);
+            for (int id : ids) {
+                remember(id, customers.get(id));
+            }
+            return customers;
+        } catch (TimeoutException | ExecutionException e) {
+            primary.cancel(true);
+            return fallbackAll(ids, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return fallbackAll(ids, e);
+        }
+    }
+
+    /**
+     * Stream the IDs of every Customer to the given consumer, straight from the database.
+     */
+    @Override
+    public void forEachCustomerId(@NotNull IntConsumer consumer) {
+        customerRepository.forEachCustomerId(consumer);
+    }
+
+    /**
+     * Stream the full name and ID of every Customer to the given consumer, straight from the database.
+     */
+    @Override
+    public void forEachCustomerName(@NotNull ObjIntConsumer<String> consumer) {
+        customerRepository.forEachCustomerName(consumer);
+    }
+
+    /**
+     * Forget the previously read Customer when it is updated or deleted, so that a stale (or deleted) Customer is
+     * never served as the fallback. Changes made by other instances arrive here too, once polled (see
+     * CustomerChangePoller).
+     */
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        if (!(event.getEntity() instanceof Customer) || (((Customer) event.getEntity()).getCustomerId() == null)
+                || (event.getChangeType() == ChangeType.CREATED)) {
+            return;
+        }
+        synchronized (fallbackCustomers) {
+            fallbackCustomers.remove(((Customer) event.getEntity()).getCustomerId());
+        }
+    }
+
+    /**
+     * Return the current state of the circuit breaker of the database.
+     */
+    public CustomerCircuitBreaker.State getPrimaryState() {
+        return primaryCircuitBreaker.getState();
+    }
+
+    /**
+     * Return how long a lookup currently waits for the database before asking the alternate datasource too.
+     */
+    public long getHedgeDelayNanos() {
+        return hedgeDelayNanos;
+    }
+
+    /**
+     * Return the number of lookups that were also sent to the alternate datasource.
+     */
+    public long getHedges() {
+        return hedges.get();
+    }
+
+    /**
+     * Return the number of lookups that were answered with (or failed for lack of) a previously read Customer.
+     */
+    public long getFallbacks() {
+        return fallbacks.get();
+    }
+
+    /**
+     * Register the circuit breaker, hedge and fallback metrics with Micrometer (and therefore the /metrics endpoint).
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (CustomerCircuitBreaker circuitBreaker : Arrays.asList(primaryCircuitBreaker, hedgeCircuitBreaker)) {
+            if (circuitBreaker != null) {
+                Gauge.builder("customer.repository.circuit.state", circuitBreaker,
+                        breaker -> breaker.getState().ordinal())
+                        .description("State of the circuit breaker (0 = closed, 1 = open, 2 = half-open)")
+                        .tag("datasource", circuitBreaker.getName())
+                        .register(registry);
+            }
+        }
+        Gauge.builder("customer.repository.hedge.delay", this, repository -> repository.getHedgeDelayNanos() / 1e6)
+                .description("How long a customer lookup waits before also asking the alternate datasource")
+                .baseUnit("milliseconds")
+                .register(registry);
+        FunctionCounter.builder("customer.repository.hedges", this, ResilientCustomerRepositoryImpl::getHedges)
+                .description("Customer lookups also sent to the alternate datasource")
+                .register(registry);
+        FunctionCounter.builder("customer.repository.fallbacks", this, ResilientCustomerRepositoryImpl::getFallbacks)
+                .description("Customer lookups the database couldn't answer")
+                .register(registry);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    /**
+     * Start the given (already permitted) call on the read thread pool, and report its outcome to the given circuit
+     * breaker once it completes (a call cancelled because it took too long counts as a failure).
+     */
+    private <T> CompletableFuture<T> attempt(CustomerCircuitBreaker circuitBreaker, Supplier<T> call,
+                                             boolean recordLatency) {
+        long start = System.nanoTime();
+        CompletableFuture<T> future = CompletableFuture.supplyAsync(call, executorService);
+        future.whenComplete((result, error) -> {
+            if (error == null) {
+                circuitBreaker.onSuccess();
+                if (recordLatency) {
+                    recordLatency(System.nanoTime() - start);
+                }
+            } else {
+                circuitBreaker.onFailure();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Return a future that completes with the result of whichever of the given futures succeeds first, or fails if
+     * both of them fail.
+     */
+    private static <T> CompletableFuture<T> firstSuccessful(CompletableFuture<T> primary, CompletableFuture<T> hedge) {
+        CompletableFuture<T> first = new CompletableFuture<>();
+        AtomicInteger remaining = new AtomicInteger(2);
+        BiConsumer<T, Throwable> onComplete = (result, error) -> {
+            if (error == null) {
+                first.complete(result);
+            } else if (remaining.decrementAndGet() == 0) {
+                first.completeExceptionally(error);
+            }
+        };
+        primary.whenComplete(onComplete);
+        hedge.whenComplete(onComplete);
+        return first;
+    }
+
+    /**
+     * Read the Customer with the given ID from the alternate datasource, with plain JDBC.
+     */
+    private Customer readFromHedgeDataSource(int id) {
+        try (Connection connection = hedgeDataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_CUSTOMER)) {
+            statement.setQueryTimeout((int) Math.max(1, TimeUnit.NANOSECONDS.toSeconds(timeoutNanos)));
+            statement.setInt(1, id);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next()) {
+                    return null;
+                }
+                Customer customer = new Customer();
+                customer.setCustomerId(resultSet.getInt(1));
+                customer.setFullName(resultSet.getString(2));
+                customer.setStreetAddress(StreetAddressConverter.deduplicate(resultSet.getString(3)));
+                customer.setLastReadTimestamp(Instant.now());
+                return customer;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Unable to read customer [" + id + "] from the alternate datasource", e);
+        }
+    }
+
+    /**
+     * Remember the given Customer (just read with the given ID) as the fallback for that ID, and return it.
+     */
+    private Customer remember(int id, Customer customer) {
+        synchronized (fallbackCustomers) {
+            if (customer == null) {
+                fallbackCustomers.remove(id);
+            } else {
+                fallbackCustomers.put(id, customer);
+            }
+        }
+        return customer;
+    }
+
+    /**
+     * Return the last Customer successfully read with the given ID, because the database couldn't be asked (if the
+     * given cause is null) or couldn't answer.
+     */
+    private Customer fallback(int id, Throwable cause) {
+        fallbacks.incrementAndGet();
+        Customer customer;
+        synchronized (fallbackCustomers) {
+            customer = fallbackCustomers.get(id);
+        }
+        if (customer == null) {
+            throw new ServiceUnavailableException("Customer [" + id + "] is temporarily unavailable.", cause);
+        }
+        log.debug("Serving previously read customer [{}]", id, cause);
+        return customer;
+    }
+
+    /**
+     * Return the last Customers successfully read with the given IDs, because the database couldn't be asked (if the
+     * given cause is null) or couldn't answer.
+     */
+    private IntObjectMap<Customer> fallbackAll(int[] ids, Throwable cause) {
+        fallbacks.incrementAndGet();
+        IntObjectMap<Customer> customers = new IntObjectHashMap<>(ids.length);
+        synchronized (fallbackCustomers) {
+            for (int id : ids) {
+                Customer customer = fallbackCustomers.get(id);
+                if (customer != null) {
+                    customers.put(id, customer);
+                }
+            }
+        }
+        if (customers.isEmpty() && (ids.length > 0)) {
+            throw new ServiceUnavailableException("Customers " + Arrays.toString(ids) + " are temporarily unavailable.",
+                    cause);
+        }
+        return customers;
+    }
+
+    /**
+     * Record the latency of a successful database lookup, recalculating the hedge delay (the 95th percentile latency)
+     * every so often.
+     */
+    private void recordLatency(long latencyNanos) {
+        long[] sortedLatencies = null;
+        synchronized (latencies) {
+            latencies[latencyPosition] = latencyNanos;
+            latencyPosition = (latencyPosition + 1) % LATENCY_SAMPLES;
+            latencyCount = Math.min(latencyCount + 1, LATENCY_SAMPLES);
+            if (latencyPosition % LATENCY_RECALCULATION_INTERVAL == 0) {
+                sortedLatencies = Arrays.copyOf(latencies, latencyCount);
+            }
+        }
+        if (sortedLatencies != null) {
+            Arrays.sort(sortedLatencies);
+            long p95 = sortedLatencies[(int) (sortedLatencies.length * 0.95)];
+            hedgeDelayNanos = Math.max(minHedgeDelayNanos, p95);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
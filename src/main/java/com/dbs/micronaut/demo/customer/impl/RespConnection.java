@@ -0,0 +1,203 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A single connection to a Redis server (or anything else that speaks its protocol, "RESP").
+ * <p>
+ * DEVELOPER NOTE: RESP is a simple text-framed protocol. A command is sent as an array of "bulk strings":
+ * <pre>
+ * *3\r\n$3\r\nSET\r\n$3\r\nkey\r\n$5\r\nvalue\r\n
+ * </pre>
+ * (an array of 3 elements, then each element as its length in bytes followed by its bytes). Every reply starts with a
+ * single character giving its type: "+" a simple string, "-" an error, ":" an integer, "$" a bulk string (or null, if
+ * its length is -1) and "*" an array of further replies. Values are sent as raw bytes, so binary values need no
+ * escaping.
+ * <p>
+ * A connection is not thread-safe. It is either borrowed by one thread at a time for request/reply commands, or owned
+ * by a single subscriber thread.
+ */
+class RespConnection implements Closeable {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+
+    private boolean broken;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    /**
+     * Open a new connection to the given server.
+     *
+     * @param timeoutMillis how long to wait to connect, and for each reply (zero to wait forever)
+     */
+    RespConnection(String host, int port, int timeoutMillis) throws IOException {
+        this.socket = new Socket();
+        socket.setTcpNoDelay(true);
+        socket.connect(new InetSocketAddress(host, port), timeoutMillis);
+        socket.setSoTimeout(timeoutMillis);
+        this.in = new BufferedInputStream(socket.getInputStream());
+        this.out = new BufferedOutputStream(socket.getOutputStream());
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Send a command, and return its reply: a String (simple string), Long (integer), byte[] (bulk string), List
+     * (array), or null.
+     *
+     * @throws IOException if the server can't be reached, or replies with an error
+     */
+    Object call(byte[]... command) throws IOException {
+        send(command);
+        return read();
+    }
+
+    /**
+     * Send a command without waiting for its reply.
+     */
+    void send(byte[]... command) throws IOException {
+        try {
+            writeLine('*', command.length);
+            for (byte[] argument : command) {
+                writeLine('$', argument.length);
+                out.write(argument);
+                out.write(CRLF);
+            }
+            out.flush();
+        } catch (IOException e) {
+            broken = true;
+            throw e;
+        }
+    }
+
+    /**
+     * Read the next reply from the server.
+     */
+    Object read() throws IOException {
+        int type;
+        String line;
+        try {
+            type = in.read();
+            line = readLine();
+        } catch (IOException e) {
+            broken = true;
+            throw e;
+        }
+
+        // An error reply leaves the connection ready for the next command, anything else going wrong might not
+        if (type == '-') {
+            throw new IOException("Redis error: " + line);
+        }
+        try {
+            switch (type) {
+                case '+':
+                    return line;
+                case ':':
+                    return Long.parseLong(line);
+                case '$':
+                    return readBulk(Integer.parseInt(line));
+                case '*':
+                    int length = Integer.parseInt(line);
+                    if (length < 0) {
+                        return null;
+                    }
+                    List<Object> elements = new ArrayList<>(length);
+                    for (int i = 0; i < length; i++) {
+                        elements.add(read());
+                    }
+                    return elements;
+                default:
+                    throw new IOException("Unexpected reply type [" + type + "]");
+            }
+        } catch (IOException | RuntimeException e) {
+            broken = true;
+            throw e;
+        }
+    }
+
+    /**
+     * Returns whether or not this connection failed, and should be closed rather than used again.
+     */
+    boolean isBroken() {
+        return broken;
+    }
+
+    /**
+     * Encode the given String as UTF-8, for use as a command argument.
+     */
+    static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        broken = true;
+        socket.close();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    private void writeLine(char type, int value) throws IOException {
+        out.write(type);
+        out.write(bytes(Integer.toString(value)));
+        out.write(CRLF);
+    }
+
+    private String readLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int b = in.read(); b != '\r'; b = in.read()) {
+            if (b < 0) {
+                throw new EOFException("Connection closed by the server");
+            }
+            line.append((char) b);
+        }
+        in.read();
+        return line.toString();
+    }
+
+    private byte[] readBulk(int length) throws IOException {
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        for (int read = 0; read < length; ) {
+            int count = in.read(value, read, length - read);
+            if (count < 0) {
+                throw new EOFException("Connection closed by the server");
+            }
+            read += count;
+        }
+        in.read();
+        in.read();
+        return value;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
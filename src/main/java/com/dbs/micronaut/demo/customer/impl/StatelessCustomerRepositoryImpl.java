@@ -0,0 +1,148 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.customer.CustomerRepository;
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.dbs.micronaut.demo.tracing.Traced;
+import io.micronaut.context.annotation.Primary;
+import io.micronaut.context.annotation.Requires;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.validation.constraints.NotNull;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.IntConsumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * An optional CustomerRepository that reads Customers by ID through a Hibernate StatelessSession instead of the
+ * EntityManager.
+ * <p>
+ * DEVELOPER NOTE: A Customer read through the EntityManager (see CustomerRepositoryImpl) is thrown away as soon as it
+ * has been translated to a CustomerDTO, but the EntityManager doesn't know that. Every lookup begins a (read-only)
+ * transaction around the current session, puts the Customer in the session's persistence context (the "first-level
+ * cache"), and keeps a snapshot of its loaded state to dirty-check it against at flush time. A StatelessSession does
+ * none of that: it runs the same query (with its own connection, in auto-commit mode, so without a transaction) and
+ * simply hands back the Customer. See CustomerStatelessReadBenchmark for what that saves per lookup.
+ * <p>
+ * The price is that a Customer read this way is detached from the start: its Orders can't be lazily loaded from it
+ * (use the OrderService instead, which never loads a Customer's Orders collection anyway). Everything other than
+ * lookups by ID is handed to the JPA-based CustomerRepositoryImpl.
+ * <p>
+ * This bean only exists when "customer.repository.stateless-reads" is set to true (and neither the snapshot repository
+ * nor the resilient repository nor the tenant repository, which wrap lookups in their own way, is enabled).
+ */
+@Singleton
+@Primary
+@Requires(property = "customer.repository.stateless-reads", value = "true")
+@Requires(property = "customer.snapshot.enabled", notEquals = "true")
+@Requires(property = "customer.resilience.enabled", notEquals = "true")
+@Requires(property = "tenancy.enabled", notEquals = "true")
+public class StatelessCustomerRepositoryImpl implements CustomerRepository {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    /**
+     * The maximum number of IDs in the "in" list of a single query (some databases limit it to 1000).
+     */
+    private static final int IN_LIST_SIZE = 500;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final CustomerRepository customerRepository;
+    private final SessionFactory sessionFactory;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    /**
+     * Create a new StatelessCustomerRepositoryImpl, handing everything but lookups by ID to the JPA-based
+     * CustomerRepositoryImpl.
+     */
+    @Inject
+    StatelessCustomerRepositoryImpl(CustomerRepositoryImpl customerRepository, SessionFactory sessionFactory) {
+        this.customerRepository = customerRepository;
+        this.sessionFactory = sessionFactory;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Return the Customer with the given ID, if found. If not found, then the value inside the Optional returned will
+     * be null.
+     */
+    @Override
+    public Optional<Customer> findById(@NotNull Integer id) {
+        return Optional.ofNullable(findByIdOrNull(id));
+    }
+
+    /**
+     * Return the Customer with the given ID, read through a StatelessSession.
+     *
+     * @return null if the Customer is not found
+     */
+    @Override
+    @Traced
+    public Customer findByIdOrNull(int id) {
+        Customer customer;
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            customer = (Customer) session.get(Customer.class, id);
+        }
+        if (customer != null) {
+            customer.setLastReadTimestamp(Instant.now());
+        }
+        return customer;
+    }
+
+    /**
+     * Return the Customers with the given IDs, read through a single StatelessSession, keyed by customer ID. IDs that
+     * aren't found are simply left out.
+     */
+    @Override
+    @Traced
+    public IntObjectMap<Customer> findAllById(@NotNull int[] ids) {
+        IntObjectMap<Customer> customers = new IntObjectHashMap<>(ids.length);
+        Instant now = Instant.now();
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            for (int from = 0; from < ids.length; from += IN_LIST_SIZE) {
+                List<Integer> chunk = new ArrayList<>(Math.min(IN_LIST_SIZE, ids.length - from));
+                for (int i = from; i < Math.min(from + IN_LIST_SIZE, ids.length); i++) {
+                    chunk.add(ids[i]);
+                }
+
+                List<Customer> found = session
+                        .createQuery("select c from Customer c where c.customerId in :ids", Customer.class)
+                        .setParameter("ids", chunk)
+                        .getResultList();
+                for (Customer customer : found) {
+                    customer.setLastReadTimestamp(now);
+                    customers.put(customer.getCustomerId(), customer);
+                }
+            }
+        }
+        return customers;
+    }
+
+    @Override
+    public void forEachCustomerId(@NotNull IntConsumer consumer) {
+        customerRepository.forEachCustomerId(consumer);
+    }
+
+    @Override
+    public void forEachCustomerName(@NotNull ObjIntConsumer<String> consumer) {
+        customerRepository.forEachCustomerName(consumer);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,342 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.customer.CustomerRepository;
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.dbs.micronaut.demo.customer.entity.StreetAddressConverter;
+import com.dbs.micronaut.demo.tenant.TenantResolver;
+import com.dbs.micronaut.demo.tracing.Traced;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micronaut.context.BeanLocator;
+import io.micronaut.context.annotation.Primary;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.inject.qualifiers.Qualifiers;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.sql.DataSource;
+import javax.validation.constraints.NotNull;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * An optional CustomerRepository that reads the Customers of every tenant other than the default one (see
+ * TenantResolver) from the tenant's own data source, through a cache of the tenant's own.
+ * <p>
+ * DEVELOPER NOTE: One tenant's bulk load shouldn't slow down everybody else's lookups. Every tenant has its own
+ * connection pool (the data source named after it), so a tenant can only ever use up its own connections. Its Customers
+ * are cached in a cache of its own, holding at most "tenancy.cache-size" of them ("quota"), for at most
+ * "tenancy.cache-ttl", so a tenant reading lots of different Customers can only ever evict its own. The caches in front
+ * of the repository (near-cache, remote cache, ID filter) only know the default tenant's Customers, so CustomerService
+ * skips them for other tenants. Cache hits and misses and cache sizes are metrics, tagged by tenant.
+ * <p>
+ * Lookups for the default tenant, and everything other than lookups by ID, are handed to the JPA-based
+ * CustomerRepositoryImpl. A tenant's Customers are read with plain JDBC (like the hedge reads of
+ * ResilientCustomerRepositoryImpl), so a tenant needs nothing but a data source: no SessionFactory, and no transaction
+ * manager of its own. The tenant's database owns its CUSTOMERS table; Hibernate doesn't create or update it.
+ * <p>
+ * This bean only exists when "tenancy.enabled" is set to true. It takes precedence over the snapshot, resilient and
+ * stateless repositories, which step aside when tenancy is enabled: they only know the default tenant's database, so
+ * they would serve other tenants the default tenant's Customers.
+ */
+@Singleton
+@Primary
+@Requires(property = "tenancy.enabled", value = "true")
+public class TenantCustomerRepositoryImpl implements CustomerRepository, MeterBinder {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    /**
+     * The maximum number of IDs in the "in" list of a single query (some databases limit it to 1000).
+     */
+    private static final int IN_LIST_SIZE = 500;
+
+    private static final String SELECT_CUSTOMERS = "select CUST_ID, CUST_FULL_NAME, CUST_STREET_ADDR from CUSTOMERS "
+            + "where CUST_ID in ";
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final CustomerRepository customerRepository;
+    private final TenantResolver tenantResolver;
+    private final BeanLocator beanLocator;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final long cacheTtlNanos;
+
+    /**
+     * The data source and cache of every tenant other than the default one, by tenant.
+     */
+    private final Map<String, TenantStore> stores = new HashMap<>();
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    /**
+     * Create a new TenantCustomerRepositoryImpl, handing the default tenant (and everything but lookups by ID) to the
+     * JPA-based CustomerRepositoryImpl.
+     *
+     * @param cacheSize the most Customers cached per tenant
+     * @param cacheTtl  how long a tenant's Customer is cached
+     */
+    @Inject
+    TenantCustomerRepositoryImpl(CustomerRepositoryImpl customerRepository, TenantResolver tenantResolver,
+                                 BeanLocator beanLocator,
+                                 @Value("${tenancy.cache-size:10000}") int cacheSize,
+                                 @Value("${tenancy.cache-ttl:30s}") Duration cacheTtl) {
+        this.customerRepository = customerRepository;
+        this.tenantResolver = tenantResolver;
+        this.beanLocator = beanLocator;
+        this.cacheTtlNanos = cacheTtl.toNanos();
+        for (String tenant : tenantResolver.getTenants()) {
+            stores.put(tenant, new TenantStore(tenant, cacheSize));
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Return the Customer with the given ID, if found. If not found, then the value inside the Optional returned will
+     * be null.
+     */
+    @Override
+    public Optional<Customer> findById(@NotNull Integer id) {
+        return Optional.ofNullable(findByIdOrNull(id));
+    }
+
+    /**
+     * Return the current tenant's Customer with the given ID.
+     *
+     * @return null if the Customer is not found
+     */
+    @Override
+    @Traced
+    public Customer findByIdOrNull(int id) {
+        TenantStore store = currentStore();
+        if (store == null) {
+            return customerRepository.findByIdOrNull(id);
+        }
+
+        Customer customer = store.getCached(id);
+        if (customer != null) {
+            return customer;
+        }
+        List<Customer> found = readCustomers(store, Collections.singletonList(id));
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    /**
+     * Return the current tenant's Customers with the given IDs, keyed by customer ID. IDs that aren't found are simply
+     * left out.
+     */
+    @Override
+    @Traced
+    public IntObjectMap<Customer> findAllById(@NotNull int[] ids) {
+        TenantStore store = currentStore();
+        if (store == null) {
+            return customerRepository.findAllById(ids);
+        }
+
+        IntObjectMap<Customer> customers = new IntObjectHashMap<>(ids.length);
+        List<Integer> misses = new ArrayList<>();
+        for (int id : ids) {
+            Customer customer = store.getCached(id);
+            if (customer != null) {
+                customers.put(id, customer);
+            } else {
+                misses.add(id);
+            }
+        }
+
+        if (misses.isEmpty()) {
+            return customers;
+        }
+        for (Customer customer : readCustomers(store, misses)) {
+            customers.put(customer.getCustomerId(), customer);
+        }
+        return customers;
+    }
+
+    /**
+     * Call the given consumer with every customer ID of the default tenant.
+     */
+    @Override
+    public void forEachCustomerId(@NotNull IntConsumer consumer) {
+        customerRepository.forEachCustomerId(consumer);
+    }
+
+    /**
+     * Call the given consumer with the full name and ID of every Customer of the default tenant.
+     */
+    @Override
+    public void forEachCustomerName(@NotNull ObjIntConsumer<String> consumer) {
+        customerRepository.forEachCustomerName(consumer);
+    }
+
+    /**
+     * Return the number of Customers in the given tenant's cache (0 for the default tenant, or an unknown one).
+     */
+    public int getCacheSize(String tenant) {
+        TenantStore store = stores.get(tenant);
+        return (store == null) ? 0 : store.size();
+    }
+
+    /**
+     * Register every tenant's cache metrics with Micrometer (and therefore the /metrics endpoint).
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (TenantStore store : stores.values()) {
+            Gauge.builder("tenant.customer.cache.size", store, TenantStore::size)
+                    .description("Customers in the tenant's cache")
+                    .tag("tenant", store.tenant)
+                    .register(registry);
+            FunctionCounter.builder("tenant.customer.cache.hits", store.hits, LongAdder::sum)
+                    .description("Customer lookups answered by the tenant's cache")
+                    .tag("tenant", store.tenant)
+                    .register(registry);
+            FunctionCounter.builder("tenant.customer.cache.misses", store.misses, LongAdder::sum)
+                    .description("Customer lookups that had to read the tenant's data source")
+                    .tag("tenant", store.tenant)
+                    .register(registry);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    /**
+     * Return the data source and cache of the current tenant, or null for the default tenant.
+     */
+    private TenantStore currentStore() {
+        return tenantResolver.isDefaultTenant() ? null : stores.get(tenantResolver.getCurrentTenant());
+    }
+
+    /**
+     * Read the Customers with the given IDs from the given tenant's data source, with plain JDBC (at most IN_LIST_SIZE
+     * IDs per query), and cache them.
+     */
+    private List<Customer> readCustomers(TenantStore store, List<Integer> ids) {
+        List<Customer> customers = new ArrayList<>(ids.size());
+        Instant now = Instant.now();
+        try (Connection connection = store.getDataSource().getConnection()) {
+            for (int from = 0; from < ids.size(); from += IN_LIST_SIZE) {
+                List<Integer> chunk = ids.subList(from, Math.min(from + IN_LIST_SIZE, ids.size()));
+                String[] parameters = new String[chunk.size()];
+                Arrays.fill(parameters, "?");
+                try (PreparedStatement statement = connection.prepareStatement(
+                        SELECT_CUSTOMERS + "(" + String.join(",", parameters) + ")")) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        statement.setInt(i + 1, chunk.get(i));
+                    }
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            Customer customer = new Customer();
+                            customer.setCustomerId(resultSet.getInt(1));
+                            customer.setFullName(resultSet.getString(2));
+                            customer.setStreetAddress(
+                                    StreetAddressConverter.deduplicate(resultSet.getString(3)));
+                            customer.setLastReadTimestamp(now);
+                            store.cache(customer);
+                            customers.add(customer);
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Unable to read customers from the data source of tenant [" + store.tenant
+                    + "]", e);
+        }
+        return customers;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * The data source and the Customer cache of a single tenant.
+     * <p>
+     * DEVELOPER NOTE: The cache is a LinkedHashMap in access order, so the Customer read longest ago is the one
+     * evicted when it's full. It's only ever used while holding its lock, which is held just long enough to look up
+     * or add a single Customer.
+     */
+    private class TenantStore {
+
+        private final String tenant;
+        private final Map<Integer, Map.Entry<Customer, Long>> cache;
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private volatile DataSource dataSource;
+
+        TenantStore(String tenant, int cacheSize) {
+            this.tenant = tenant;
+            this.cache = Collections.synchronizedMap(new LinkedHashMap<Integer, Map.Entry<Customer, Long>>(
+                    16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, Map.Entry<Customer, Long>> eldest) {
+                    return size() > cacheSize;
+                }
+            });
+        }
+
+        /**
+         * Return the tenant's data source (the one named after the tenant), looking it up the first time.
+         */
+        DataSource getDataSource() {
+            if (dataSource == null) {
+                dataSource = beanLocator.getBean(DataSource.class, Qualifiers.byName(tenant));
+            }
+            return dataSource;
+        }
+
+        /**
+         * Return the cached Customer with the given ID, or null if it isn't cached (or has expired).
+         */
+        Customer getCached(int id) {
+            Map.Entry<Customer, Long> entry = cache.get(id);
+            if ((entry == null) || (System.nanoTime() - entry.getValue() >= 0)) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.getKey();
+        }
+
+        void cache(Customer customer) {
+            cache.put(customer.getCustomerId(), new AbstractMap.SimpleImmutableEntry<>(customer,
+                    System.nanoTime() + cacheTtlNanos));
+        }
+
+        int size() {
+            return cache.size();
+        }
+    }
+}
@@ -0,0 +1,480 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.customer.CustomerWriter;
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.dbs.micronaut.demo.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micronaut.context.annotation.Primary;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.scheduling.annotation.Scheduled;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.StaleStateException;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+/**
+ * An optional CustomerWriter that acknowledges a change as soon as it has been appended to a local journal, and writes
+ * it to the database a moment later ("write-behind"), in a batch with every other change journaled in the meantime.
+ * <p>
+ * DEVELOPER NOTE: High-frequency changes (say, a profile being edited field by field) don't need a commit each. The
+ * journal is a memory-mapped file: appending a change is a copy into memory that the operating system writes to disk
+ * in its own time, which still survives the application crashing (but not the machine, unless "force-writes" is set).
+ * Changes are coalesced by customer ID, so a Customer changed ten times between flushes is written once, with its
+ * latest values. Every "flush-interval", the pending changes are written in JDBC batches of "batch-size" (see
+ * CustomerWriterImpl), after which the journal is checkpointed: at startup, only the changes after the checkpoint are
+ * replayed (and written by the first flush). A change to a Customer that has since been deleted is dropped.
+ * <p>
+ * The journal starts with a header (a magic number, the current epoch and the checkpoint), followed by records: the
+ * length and CRC32 of the payload, and the payload itself (the epoch, the customer ID, the full name and the street
+ * address). Once everything in the journal has been written, the epoch is incremented and the journal starts over
+ * from the top: the records of earlier epochs left behind are ignored, as is a record torn by a crash (its CRC is
+ * wrong). If the journal fills up before a flush, the change that didn't fit flushes it straight away, and if even
+ * that doesn't make room (because the database is down), the change is refused with a 503 - SERVICE UNAVAILABLE.
+ * <p>
+ * Until a change has been flushed, the caches (and the database) still hold the Customer as it was: readers see the
+ * change within a flush interval, not immediately. This bean only exists when "customer.write-behind.enabled" is set
+ * to true.
+ */
+@Slf4j
+@Singleton
+@Primary
+@Requires(property = "customer.write-behind.enabled", value = "true")
+public class WriteBehindCustomerWriter implements CustomerWriter, MeterBinder {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    static final String JOURNAL_FULL = "The customer update journal is full, the change to customer [%s] was not "
+            + "saved.";
+
+    /**
+     * Marks a file as a customer update journal ("CUJ1").
+     */
+    private static final int MAGIC = 0x43554A31;
+
+    private static final int EPOCH_POSITION = 8;
+
+    private static final int CHECKPOINT_POSITION = 16;
+
+    /**
+     * The magic number, 4 unused bytes, the epoch and the checkpoint.
+     */
+    private static final int HEADER_SIZE = 24;
+
+    /**
+     * The length and the CRC32 of a record's payload.
+     */
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    /**
+     * The length written for a null String.
+     */
+    private static final int NULL_LENGTH = -1;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final CustomerWriterImpl customerWriter;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final int batchSize;
+    private final boolean forceWrites;
+    private final FileChannel channel;
+
+    /**
+     * The journal, whose position is where the next record is appended. It's also the lock that guards the epoch and
+     * the pending changes.
+     */
+    private final MappedByteBuffer journal;
+
+    private long epoch;
+
+    /**
+     * The changes journaled since the last flush started, by customer ID.
+     */
+    private IntObjectMap<Customer> pending = new IntObjectHashMap<>();
+
+    /**
+     * The number of changes being written by the flush in progress.
+     */
+    private volatile int flushing;
+
+    private final Object flushLock = new Object();
+
+    private final LongAdder journaled = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder flushed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchNanos = new LongAdder();
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    /**
+     * Create a new WriteBehindCustomerWriter, replaying the changes in the given journal file that were never written
+     * to the database.
+     *
+     * @param journalFile the journal file, created (with its directory) if it doesn't exist
+     * @param journalSize the size of the journal file in bytes (16MB by default)
+     * @param batchSize   the number of Customers written in a single JDBC batch and transaction
+     * @param forceWrites whether every change is forced to disk before it's acknowledged
+     */
+    @Inject
+    WriteBehindCustomerWriter(CustomerWriterImpl customerWriter,
+                              @Value("${customer.write-behind.journal:customer-updates.journal}") String journalFile,
+                              @Value("${customer.write-behind.journal-size:16777216}") int journalSize,
+                              @Value("${customer.write-behind.batch-size:500}") int batchSize,
+                              @Value("${customer.write-behind.force-writes:false}") boolean forceWrites) {
+        this.customerWriter = customerWriter;
+        this.batchSize = Math.max(1, batchSize);
+        this.forceWrites = forceWrites;
+        Path path = Paths.get(journalFile).toAbsolutePath();
+        try {
+            Files.createDirectories(path.getParent());
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            this.journal = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    Math.max(channel.size(), Math.max(journalSize, HEADER_SIZE * 2)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open customer update journal " + path, e);
+        }
+        int replayed = recover();
+        if (replayed > 0) {
+            log.info("Replayed {} customer updates ({} customers) from journal {}", replayed, pending.size(), path);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Journal the given (changed) Customer, to be written to the database by the next flush.
+     *
+     * @throws ServiceUnavailableException if the journal is full, and can't be flushed.
+     */
+    @Override
+    public void update(Customer customer) {
+        byte[] fullName = encode(customer.getFullName());
+        byte[] streetAddress = encode(customer.getStreetAddress());
+        if (!append(customer, fullName, streetAddress)) {
+            flush();
+            if (!append(customer, fullName, streetAddress)) {
+                throw new ServiceUnavailableException(String.format(JOURNAL_FULL, customer.getCustomerId()));
+            }
+        }
+    }
+
+    /**
+     * Write every pending change to the database, in batches, and checkpoint the journal. Changes that can't be
+     * written (because the database is down) stay pending, for the next flush.
+     */
+    @Scheduled(fixedDelay = "${customer.write-behind.flush-interval:1s}")
+    public void flush() {
+        synchronized (flushLock) {
+            IntObjectMap<Customer> changes;
+            int journalEnd;
+            synchronized (journal) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                changes = pending;
+                pending = new IntObjectHashMap<>();
+                journalEnd = journal.position();
+                flushing = changes.size();
+            }
+
+            List<Customer> customers = new ArrayList<>(changes.values());
+            int written = 0;
+            try {
+                while (written < customers.size()) {
+                    List<Customer> batch = customers.subList(written, Math.min(written + batchSize, customers.size()));
+                    writeBatch(batch);
+                    written += batch.size();
+                    flushing = customers.size() - written;
+                }
+                checkpoint(journalEnd);
+            } catch (RuntimeException e) {
+                log.warn("Unable to write {} journaled customer updates, will retry", customers.size() - written, e);
+                requeue(customers.subList(written, customers.size()));
+            } finally {
+                flushing = 0;
+            }
+        }
+    }
+
+    /**
+     * Return the number of changes that haven't been written to the database yet.
+     */
+    public int getQueueDepth() {
+        synchronized (journal) {
+            return pending.size() + flushing;
+        }
+    }
+
+    /**
+     * Flush the pending changes (whatever can't be written is replayed at the next startup), and close the journal.
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        flush();
+        synchronized (journal) {
+            journal.force();
+            channel.close();
+        }
+    }
+
+    /**
+     * Register the write-behind metrics with Micrometer (and therefore the /metrics endpoint).
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("customer.write-behind.queue.depth", this, WriteBehindCustomerWriter::getQueueDepth)
+                .description("Journaled customer updates not yet written to the database")
+                .register(registry);
+        Gauge.builder("customer.write-behind.journal.used", this, WriteBehindCustomerWriter::getJournalUsed)
+                .description("Bytes of the customer update journal in use")
+                .baseUnit("bytes")
+                .register(registry);
+        FunctionCounter.builder("customer.write-behind.journaled", journaled, LongAdder::sum)
+                .description("Customer updates appended to the journal")
+                .register(registry);
+        FunctionCounter.builder("customer.write-behind.coalesced", coalesced, LongAdder::sum)
+                .description("Journaled customer updates replaced by a later update before being written")
+                .register(registry);
+        FunctionCounter.builder("customer.write-behind.flushed", flushed, LongAdder::sum)
+                .description("Journaled customer updates written to the database")
+                .register(registry);
+        FunctionCounter.builder("customer.write-behind.dropped", dropped, LongAdder::sum)
+                .description("Journaled customer updates dropped because the customer no longer exists")
+                .register(registry);
+        FunctionTimer.builder("customer.write-behind.flush", this, writer -> writer.batches.sum(),
+                writer -> writer.batchNanos.sum(), TimeUnit.NANOSECONDS)
+                .description("Batches of journaled customer updates written to the database")
+                .register(registry);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    /**
+     * Append a record of the given Customer to the journal, and make it pending.
+     *
+     * @return false if the record doesn't fit in what's left of the journal
+     */
+    private boolean append(Customer customer, byte[] fullName, byte[] streetAddress) {
+        synchronized (journal) {
+            int payloadSize = Long.BYTES + Integer.BYTES * 3 + length(fullName) + length(streetAddress);
+            int start = journal.position();
+            if (journal.remaining() < RECORD_HEADER_SIZE + payloadSize) {
+                return false;
+            }
+
+            // Payload first, then its CRC, then its length (a zero length marks the end of the journal)
+            journal.position(start + RECORD_HEADER_SIZE);
+            journal.putLong(epoch);
+            journal.putInt(customer.getCustomerId());
+            putBytes(fullName);
+            putBytes(streetAddress);
+            journal.putInt(start + Integer.BYTES, crcOf(start + RECORD_HEADER_SIZE, payloadSize));
+            journal.putInt(start, payloadSize);
+            if (forceWrites) {
+                journal.force();
+            }
+
+            journaled.increment();
+            if (pending.put(customer.getCustomerId(), customer) != null) {
+                coalesced.increment();
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Write a batch of changes to the database. If the batch fails because one of its Customers has been deleted,
+     * its changes are written one at a time instead, and the changes to deleted Customers are dropped.
+     */
+    private void writeBatch(List<Customer> batch) {
+        long start = System.nanoTime();
+        try {
+            customerWriter.updateAll(batch);
+            flushed.add(batch.size());
+        } catch (StaleStateException batchException) {
+            for (Customer customer : batch) {
+                try {
+                    customerWriter.update(customer);
+                    flushed.increment();
+                } catch (StaleStateException e) {
+                    log.warn("Dropped journaled update of customer [{}], it no longer exists",
+                            customer.getCustomerId());
+                    dropped.increment();
+                }
+            }
+        } finally {
+            batches.increment();
+            batchNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Make the given changes pending again, unless the Customer has been changed again since.
+     */
+    private void requeue(List<Customer> customers) {
+        synchronized (journal) {
+            for (Customer customer : customers) {
+                pending.putIfAbsent(customer.getCustomerId(), customer);
+            }
+        }
+    }
+
+    /**
+     * Record that every record before the given position in the journal has been written to the database. If nothing
+     * has been appended since, the journal starts over from the top, in a new epoch.
+     */
+    private void checkpoint(int journalEnd) {
+        synchronized (journal) {
+            if (journal.position() == journalEnd) {
+                epoch++;
+                journal.putLong(EPOCH_POSITION, epoch);
+                journal.putLong(CHECKPOINT_POSITION, HEADER_SIZE);
+                journal.putInt(HEADER_SIZE, 0);
+                journal.position(HEADER_SIZE);
+            } else {
+                journal.putLong(CHECKPOINT_POSITION, journalEnd);
+            }
+            if (forceWrites) {
+                journal.force();
+            }
+        }
+    }
+
+    /**
+     * Read the journal's header (or write one, for a new journal), and make every valid record after the checkpoint
+     * pending again, leaving the journal positioned after the last of them.
+     *
+     * @return the number of records replayed
+     */
+    private int recover() {
+        synchronized (journal) {
+            if (journal.getInt(0) != MAGIC) {
+                epoch = 1;
+                journal.putInt(0, MAGIC);
+                journal.putLong(EPOCH_POSITION, epoch);
+                journal.putLong(CHECKPOINT_POSITION, HEADER_SIZE);
+                journal.putInt(HEADER_SIZE, 0);
+                journal.position(HEADER_SIZE);
+                return 0;
+            }
+
+            epoch = journal.getLong(EPOCH_POSITION);
+            int position = (int) journal.getLong(CHECKPOINT_POSITION);
+            int replayed = 0;
+            for (Customer customer = readRecord(position); customer != null; customer = readRecord(position)) {
+                pending.put(customer.getCustomerId(), customer);
+                position = journal.position();
+                replayed++;
+            }
+            journal.position(position);
+            return replayed;
+        }
+    }
+
+    /**
+     * Read the record at the given position of the journal, leaving the journal positioned after it.
+     *
+     * @return null if there's no valid record of the current epoch at the given position
+     */
+    private Customer readRecord(int position) {
+        if ((position < HEADER_SIZE) || (position > journal.capacity() - RECORD_HEADER_SIZE)) {
+            return null;
+        }
+        int payloadSize = journal.getInt(position);
+        int payloadStart = position + RECORD_HEADER_SIZE;
+        if ((payloadSize < Long.BYTES + Integer.BYTES * 3) || (payloadSize > journal.capacity() - payloadStart)
+                || (journal.getInt(position + Integer.BYTES) != crcOf(payloadStart, payloadSize))
+                || (journal.getLong(payloadStart) != epoch)) {
+            return null;
+        }
+
+        journal.position(payloadStart + Long.BYTES);
+        Customer customer = new Customer();
+        customer.setCustomerId(journal.getInt());
+        customer.setFullName(getString());
+        customer.setStreetAddress(getString());
+        journal.position(payloadStart + payloadSize);
+        return customer;
+    }
+
+    private int crcOf(int start, int length) {
+        ByteBuffer payload = journal.duplicate();
+        payload.position(start).limit(start + length);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private void putBytes(byte[] bytes) {
+        if (bytes == null) {
+            journal.putInt(NULL_LENGTH);
+        } else {
+            journal.putInt(bytes.length);
+            journal.put(bytes);
+        }
+    }
+
+    private String getString() {
+        int length = journal.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        journal.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private long getJournalUsed() {
+        synchronized (journal) {
+            return journal.position();
+        }
+    }
+
+    private static byte[] encode(String value) {
+        return (value == null) ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] bytes) {
+        return (bytes == null) ? 0 : bytes.length;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,24 @@
+package com.dbs.micronaut.demo.exception;
+
+/**
+ * This exception type is thrown when a request can't be answered because something the application depends on (such
+ * as the database) is unavailable. An application that throws this exception will result in an HTTP 503 - SERVICE
+ * UNAVAILABLE status code being returned to a web service caller.
+ * <p>
+ * DEVELOPER NOTE: Unlike a BusinessException, this is an unchecked (Runtime) exception. It's thrown from deep inside the
+ * repository layer, through interfaces whose callers can't do anything about it except let it bubble up.
+ */
+public class ServiceUnavailableException extends RuntimeException {
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+
+    public ServiceUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,40 @@
+package com.dbs.micronaut.demo.exception;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.annotation.Produces;
+import io.micronaut.http.server.exceptions.ExceptionHandler;
+
+import javax.inject.Singleton;
+
+/**
+ * This class is registered with Micronaut and handles any ServiceUnavailableException that is thrown by any Controller.
+ */
+@Produces
+@Singleton
+@Requires(classes = {ServiceUnavailableException.class, ExceptionHandler.class})
+public class ServiceUnavailableExceptionHandler implements ExceptionHandler<ServiceUnavailableException, HttpResponse> {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    private static final String RETRY_AFTER_SECONDS = "5";
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Converts a ServiceUnavailableException into an HTTP 503 - SERVICE UNAVAILABLE (saying when to try again) and
+     * returns the exception message.
+     */
+    @Override
+    public HttpResponse handle(HttpRequest request, ServiceUnavailableException exception) {
+        return HttpResponse.status(HttpStatus.SERVICE_UNAVAILABLE, exception.getMessage())
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,22 @@
+package com.dbs.micronaut.demo.ratelimit;
+
+/**
+ * Limits how many requests each client (an API key, or an IP address) may make to each rate-limited route, per second.
+ * <p>
+ * DEVELOPER NOTE: A concurrency limit protects the service as a whole, but one client hammering the same endpoint in
+ * a tight loop can take every permit of it, and turn everyone else away. A rate limit per client turns that client
+ * away instead, before its requests cost anything. The routes and their rates are configured with "rate-limit.routes"
+ * (see application.yml). Nothing is limited unless "rate-limit.enabled" is set to true.
+ */
+public interface RateLimiter {
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Try to make a request for the given client to the given path. Returns 0 if the request may go ahead (always,
+     * for a path that no route limits), or how many nanoseconds the client must wait before its next request would.
+     */
+    long tryAcquire(String path, String client);
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
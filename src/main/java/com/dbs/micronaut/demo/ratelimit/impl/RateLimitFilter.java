@@ -0,0 +1,115 @@
+package com.dbs.micronaut.demo.ratelimit.impl;
+
+import com.dbs.micronaut.demo.ratelimit.RateLimiter;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MutableHttpResponse;
+import io.micronaut.http.annotation.Filter;
+import io.micronaut.http.filter.HttpServerFilter;
+import io.micronaut.http.filter.ServerFilterChain;
+import io.reactivex.Flowable;
+import org.reactivestreams.Publisher;
+
+import javax.inject.Inject;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns away every request to the web service that its client makes faster than its route's rate limit allows, with a
+ * 429 - TOO MANY REQUESTS that says (in seconds) when to try again, when "rate-limit.enabled" is set to true.
+ * <p>
+ * DEVELOPER NOTE: A client is identified by its IP address, or, if "rate-limit.client-header" is set, by its API key
+ * (the value of that header) when it sends one. The API key isn't checked here: a client could make up a new one for
+ * every request, get a new bucket every time, and grow the map of buckets with every request. So the header is empty
+ * (IP addresses only) by default, and must only be set to a header that something trusted in front of the service (an
+ * API gateway) sets.
+ * <p>
+ * This filter runs after the tracing filter (so that requests turned away are traced too), and before the other
+ * filters, so that a request that is turned away never takes a permit from the concurrency limiter (see
+ * CustomerConcurrencyLimitFilter).
+ */
+@Filter("/v1/**")
+@Requires(property = "rate-limit.enabled", value = "true")
+public class RateLimitFilter implements HttpServerFilter {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    /**
+     * Filters with a lower order run first (TracingFilter has the highest precedence, the other filters keep the
+     * default order of 0).
+     */
+    private static final int ORDER = -100;
+
+    private static final String UNKNOWN_CLIENT = "unknown";
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final RateLimiter rateLimiter;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final String clientHeader;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    @Inject
+    RateLimitFilter(RateLimiter rateLimiter, @Value("${rate-limit.client-header:}") String clientHeader) {
+        this.rateLimiter = rateLimiter;
+        this.clientHeader = clientHeader.trim().isEmpty() ? null : clientHeader.trim();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Pass the given request on if its client is within the rate limit of its route, otherwise turn it away.
+     */
+    @Override
+    public Publisher<MutableHttpResponse<?>> doFilter(HttpRequest<?> request, ServerFilterChain chain) {
+        long waitNanos = rateLimiter.tryAcquire(request.getPath(), toClient(request));
+        if (waitNanos > 0) {
+            long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1)
+                    / TimeUnit.SECONDS.toNanos(1));
+            return Flowable.just(HttpResponse.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds)));
+        }
+        return chain.proceed(request);
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    /**
+     * Return the client making the given request: its API key, or else its IP address.
+     */
+    private String toClient(HttpRequest<?> request) {
+        if (clientHeader != null) {
+            String apiKey = request.getHeaders().get(clientHeader);
+            if ((apiKey != null) && !apiKey.isEmpty()) {
+                return apiKey;
+            }
+        }
+        if ((request.getRemoteAddress() == null) || (request.getRemoteAddress().getAddress() == null)) {
+            return UNKNOWN_CLIENT;
+        }
+        return request.getRemoteAddress().getAddress().getHostAddress();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,276 @@
+package com.dbs.micronaut.demo.ratelimit.impl;
+
+import com.dbs.micronaut.demo.ratelimit.RateLimiter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.scheduling.annotation.Scheduled;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Rate limits every client of every configured route with a token bucket of its own, without any locks.
+ * <p>
+ * DEVELOPER NOTE: A token bucket holds up to "burst" tokens and is refilled at "rate" tokens per second; a request
+ * takes a token, or is turned away if there is none. Rather than storing a token count and a refill time (which would
+ * need a lock to update together), each bucket stores a single number: the time at which it will be full again (the
+ * "generic cell rate algorithm"). Taking a token pushes that time one token's worth (1/rate seconds) into the future,
+ * which is allowed as long as it stays within "burst" tokens' worth of now. That's a single compare-and-set on an
+ * AtomicLong, retried only if another request of the same client got there first. A bucket whose time is in the past
+ * is simply full.
+ * <p>
+ * The buckets of each route are kept in a ConcurrentHashMap, keyed by client. Its lookups don't lock at all, and it
+ * only locks the one bin (of many) that a new client is added to, so requests of different clients never wait for
+ * each other. A bucket that has been full for longer than "idle-timeout" is evicted in the background: it would be
+ * created again full, so forgetting it changes nothing, and it keeps the map from growing with every client ever seen.
+ * <p>
+ * Routes are configured as "path=rate/burst" (a regular expression for the whole path, the requests per second, and
+ * the requests allowed at once), separated by semicolons. The first route whose path matches a request applies.
+ */
+@Slf4j
+@Singleton
+@Requires(property = "rate-limit.enabled", value = "true")
+public class RateLimiterImpl implements RateLimiter, MeterBinder {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    static final String INVALID_ROUTE = "Invalid rate-limit route [%s], must be path=rate/burst.";
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    /**
+     * An array rather than a list, so that looking a path up doesn't create an iterator on every request.
+     */
+    private final Route[] routes;
+    private final long idleNanos;
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    /**
+     * Create a new RateLimiterImpl.
+     *
+     * @param routes      the rate-limited routes, as "path=rate/burst" separated by semicolons
+     * @param idleTimeout how long a client's bucket is kept once it's full again
+     */
+    @Inject
+    RateLimiterImpl(@Value("${rate-limit.routes:}") String routes,
+                    @Value("${rate-limit.idle-timeout:5m}") Duration idleTimeout) {
+        this.routes = parseRoutes(routes);
+        this.idleNanos = idleTimeout.toNanos();
+        for (Route route : this.routes) {
+            log.info("Rate limiting [{}] to {} requests per second per client, {} at once", route.path,
+                    TimeUnit.SECONDS.toNanos(1) / (double) route.intervalNanos, route.burstNanos / route.intervalNanos);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Try to take a token from the given client's bucket for the first route matching the given path.
+     *
+     * @return 0 if the request may go ahead, or how many nanoseconds the client must wait for its next token
+     */
+    @Override
+    public long tryAcquire(String path, String client) {
+        return tryAcquire(path, client, System.nanoTime());
+    }
+
+    /**
+     * Forget the buckets that have been full for longer than the idle timeout.
+     */
+    @Scheduled(fixedDelay = "${rate-limit.eviction-interval:1m}")
+    public void evictIdle() {
+        evictIdle(System.nanoTime());
+    }
+
+    /**
+     * Register the rate limit metrics with Micrometer (and therefore the /metrics endpoint).
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("rate-limit.allowed", allowed, LongAdder::sum)
+                .description("Requests to rate-limited routes that were let through")
+                .register(registry);
+        FunctionCounter.builder("rate-limit.rejected", rejected, LongAdder::sum)
+                .description("Requests to rate-limited routes that were turned away with a 429")
+                .register(registry);
+        FunctionCounter.builder("rate-limit.evicted", evicted, LongAdder::sum)
+                .description("Idle client buckets that were forgotten")
+                .register(registry);
+        Gauge.builder("rate-limit.clients", this, RateLimiterImpl::getClientCount)
+                .description("Client buckets currently kept, over all rate-limited routes")
+                .register(registry);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    /**
+     * Try to take a token, as of the given System.nanoTime().
+     */
+    long tryAcquire(String path, String client, long nowNanos) {
+        Route route = findRoute(path);
+        if (route == null) {
+            return 0;
+        }
+
+        Bucket bucket = route.buckets.get(client);
+        if (bucket == null) {
+            bucket = route.buckets.computeIfAbsent(client, key -> new Bucket(nowNanos));
+        }
+        while (true) {
+            long fullAt = bucket.get();
+            long nextFullAt = Math.max(fullAt, nowNanos) + route.intervalNanos;
+            long waitNanos = nextFullAt - nowNanos - route.burstNanos;
+            if (waitNanos > 0) {
+                rejected.increment();
+                return waitNanos;
+            }
+            if (bucket.compareAndSet(fullAt, nextFullAt)) {
+                allowed.increment();
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Forget the buckets that have been full for longer than the idle timeout, as of the given System.nanoTime().
+     * <p>
+     * DEVELOPER NOTE: A request that looked its bucket up just before it was evicted still takes its token from the
+     * evicted bucket, and the client's next request starts a new (full) one. That can only happen to a client that
+     * hasn't made a request for the whole idle timeout, so at worst it gets one token it shouldn't have.
+     */
+    void evictIdle(long nowNanos) {
+        for (Route route : routes) {
+            for (Map.Entry<String, Bucket> entry : route.buckets.entrySet()) {
+                if ((nowNanos - entry.getValue().get() > idleNanos)
+                        && route.buckets.remove(entry.getKey(), entry.getValue())) {
+                    evicted.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Return the number of client buckets kept, over all routes.
+     */
+    int getClientCount() {
+        int clients = 0;
+        for (Route route : routes) {
+            clients += route.buckets.size();
+        }
+        return clients;
+    }
+
+    private Route findRoute(String path) {
+        for (Route route : routes) {
+            if (route.matcher.get().reset(path).matches()) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Return the routes in the given "path=rate/burst;path=rate/burst" configuration.
+     *
+     * @throws IllegalArgumentException if a route isn't in that format
+     */
+    private static Route[] parseRoutes(String routes) {
+        List<Route> parsed = new ArrayList<>();
+        for (String route : routes.split(";")) {
+            if (route.trim().isEmpty()) {
+                continue;
+            }
+            int equals = route.lastIndexOf('=');
+            int slash = route.lastIndexOf('/');
+            if ((equals <= 0) || (slash < equals)) {
+                throw new IllegalArgumentException(String.format(INVALID_ROUTE, route.trim()));
+            }
+            try {
+                double rate = Double.parseDouble(route.substring(equals + 1, slash).trim());
+                int burst = Integer.parseInt(route.substring(slash + 1).trim());
+                if ((rate <= 0) || (burst < 1)) {
+                    throw new IllegalArgumentException(String.format(INVALID_ROUTE, route.trim()));
+                }
+                long intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / rate));
+                parsed.add(new Route(Pattern.compile(route.substring(0, equals).trim()), intervalNanos,
+                        intervalNanos * burst));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(String.format(INVALID_ROUTE, route.trim()), e);
+            }
+        }
+        return parsed.toArray(new Route[0]);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * A rate-limited route, and the buckets of its clients.
+     */
+    private static class Route {
+
+        private final Pattern path;
+
+        /**
+         * A matcher for the path per thread, reset for every request: Pattern.matcher() would allocate a new one (and
+         * its group arrays) every time, on every request to the web service.
+         */
+        private final ThreadLocal<Matcher> matcher;
+
+        /**
+         * The time it takes to refill one token.
+         */
+        private final long intervalNanos;
+
+        /**
+         * The time it takes to refill a whole (empty) bucket.
+         */
+        private final long burstNanos;
+
+        private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+        private Route(Pattern path, long intervalNanos, long burstNanos) {
+            this.path = path;
+            this.matcher = ThreadLocal.withInitial(() -> path.matcher(""));
+            this.intervalNanos = intervalNanos;
+            this.burstNanos = burstNanos;
+        }
+    }
+
+    /**
+     * A client's token bucket: the System.nanoTime() at which it will be full again.
+     */
+    private static class Bucket extends AtomicLong {
+
+        private Bucket(long fullAtNanos) {
+            super(fullAtNanos);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.dbs.micronaut.demo.sql;
+
+import com.dbs.micronaut.demo.sql.contract.SqlStatisticsDTO;
+
+/**
+ * Records how long every JDBC statement takes, grouped by the "shape" of its SQL (the SQL with its literal values and
+ * IN lists collapsed), and keeps a log of the statements slower than a threshold.
+ */
+public interface SqlStatistics {
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Record one execution of the given SQL. Called on the thread that executed it, so that slow statements can be
+     * traced back to the code that ran them.
+     *
+     * @param rows       the number of rows updated, or 0 for a query (whose rows are recorded by recordFetch)
+     * @param parameters the bind parameters of the statement, by index (starting at 1), or null if it had none
+     * @param failed     true if the statement threw an exception
+     */
+    void recordExecution(String sql, long elapsedNanos, long rows, Object[] parameters, boolean failed);
+
+    /**
+     * Record the rows read from a result of the given SQL, once its ResultSet is closed.
+     *
+     * @param fetches the number of round trips to the database it (probably) took to read them
+     */
+    void recordFetch(String sql, long rows, long fetches);
+
+    /**
+     * Return the statement shapes that have taken the most time in total (at most the given number of them), slowest
+     * first, and the most recent slow statements.
+     */
+    SqlStatisticsDTO getStatistics(int maxStatements);
+
+    /**
+     * Forget every statement recorded so far.
+     */
+    void reset();
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,54 @@
+package com.dbs.micronaut.demo.sql.contract;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Admin contract describing one execution of a statement that took longer than the slow statement threshold.
+ */
+@Data
+public class SlowStatementDTO {
+
+    // -------------------------------------------------- PROPERTIES ---------------------------------------------------
+
+    /**
+     * The SQL, as executed.
+     */
+    @JsonProperty("sql")
+    private String sql;
+
+    /**
+     * The bind parameters of the statement, in order (long values are truncated).
+     */
+    @JsonProperty("parameters")
+    private List<String> parameters;
+
+    /**
+     * How long the statement took to execute, in milliseconds.
+     */
+    @JsonProperty("elapsedMillis")
+    private double elapsedMillis;
+
+    /**
+     * The application method that executed the statement (usually a repository method), for example
+     * "CustomerRepositoryImpl.findById:52".
+     */
+    @JsonProperty("origin")
+    private String origin;
+
+    /**
+     * The name of the thread that executed the statement.
+     */
+    @JsonProperty("thread")
+    private String thread;
+
+    /**
+     * When the statement finished, in milliseconds since the epoch.
+     */
+    @JsonProperty("timestamp")
+    private long timestamp;
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,75 @@
+package com.dbs.micronaut.demo.sql.contract;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * Admin contract describing the executions of every statement of one shape (the same SQL, apart from its values).
+ */
+@Data
+public class SqlStatementStatsDTO {
+
+    // -------------------------------------------------- PROPERTIES ---------------------------------------------------
+
+    /**
+     * The SQL, with literal values replaced by "?" and IN lists of any length collapsed to "(?...)".
+     */
+    @JsonProperty("sql")
+    private String sql;
+
+    /**
+     * How many times a statement of this shape was executed.
+     */
+    @JsonProperty("executions")
+    private long executions;
+
+    /**
+     * How many of those executions threw an exception.
+     */
+    @JsonProperty("errors")
+    private long errors;
+
+    /**
+     * The total time spent executing statements of this shape, in milliseconds.
+     */
+    @JsonProperty("totalMillis")
+    private double totalMillis;
+
+    /**
+     * The mean execution time, in milliseconds.
+     */
+    @JsonProperty("meanMillis")
+    private double meanMillis;
+
+    /**
+     * The median execution time, in milliseconds (rounded up to a power of two microseconds).
+     */
+    @JsonProperty("p50Millis")
+    private double p50Millis;
+
+    /**
+     * The 99th percentile execution time, in milliseconds (rounded up to a power of two microseconds).
+     */
+    @JsonProperty("p99Millis")
+    private double p99Millis;
+
+    /**
+     * The longest execution time, in milliseconds.
+     */
+    @JsonProperty("maxMillis")
+    private double maxMillis;
+
+    /**
+     * The total number of rows read (by queries) or updated (by everything else).
+     */
+    @JsonProperty("rows")
+    private long rows;
+
+    /**
+     * The total number of round trips made to read the rows of queries.
+     */
+    @JsonProperty("fetches")
+    private long fetches;
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,29 @@
+package com.dbs.micronaut.demo.sql.contract;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Admin contract describing where the application's database time goes.
+ */
+@Data
+public class SqlStatisticsDTO {
+
+    // -------------------------------------------------- PROPERTIES ---------------------------------------------------
+
+    /**
+     * The statement shapes that have taken the most time in total, slowest first.
+     */
+    @JsonProperty("statements")
+    private List<SqlStatementStatsDTO> statements;
+
+    /**
+     * The most recent statements slower than the slow statement threshold, oldest first.
+     */
+    @JsonProperty("slowStatements")
+    private List<SlowStatementDTO> slowStatements;
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
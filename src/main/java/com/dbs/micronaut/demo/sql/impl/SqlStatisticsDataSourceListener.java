@@ -0,0 +1,56 @@
+package com.dbs.micronaut.demo.sql.impl;
+
+import com.dbs.micronaut.demo.sql.SqlStatistics;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.event.BeanCreatedEvent;
+import io.micronaut.context.event.BeanCreatedEventListener;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+import javax.sql.DataSource;
+
+/**
+ * Replaces every DataSource bean (just after Micronaut creates it) with one that records every JDBC statement in
+ * SqlStatistics, unless "sql.statistics.enabled" is set to false.
+ * <p>
+ * DEVELOPER NOTE: The DataSource is wrapped (rather than Hibernate's statement logging being used) so that every
+ * statement is measured, whoever runs it, and so that the measurement includes the driver and the database but not
+ * the connection pool: waiting for a connection already has its own Hikari metrics.
+ * <p>
+ * SqlStatistics is only looked up when the first Connection is handed out. DataSources are created so early in
+ * startup that the @Value Durations of SqlStatisticsImpl can't be converted yet.
+ *
+ * @see SqlStatisticsJdbcHandler
+ */
+@Singleton
+@Requires(property = "sql.statistics.enabled", notEquals = "false")
+public class SqlStatisticsDataSourceListener implements BeanCreatedEventListener<DataSource> {
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final Provider<SqlStatistics> sqlStatisticsProvider;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    @Inject
+    SqlStatisticsDataSourceListener(Provider<SqlStatistics> sqlStatisticsProvider) {
+        this.sqlStatisticsProvider = sqlStatisticsProvider;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Replace the given DataSource with a measured one.
+     */
+    @Override
+    public DataSource onCreated(BeanCreatedEvent<DataSource> event) {
+        return SqlStatisticsJdbcHandler.measure(sqlStatisticsProvider::get, DataSource.class, event.getBean(), null);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,61 @@
+package com.dbs.micronaut.demo.sql.impl;
+
+import com.dbs.micronaut.demo.sql.SqlStatistics;
+import com.dbs.micronaut.demo.sql.contract.SqlStatisticsDTO;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.management.endpoint.annotation.Delete;
+import io.micronaut.management.endpoint.annotation.Endpoint;
+import io.micronaut.management.endpoint.annotation.Read;
+
+import javax.inject.Inject;
+
+/**
+ * Admin endpoint that reports the statement shapes taking the most database time, and the most recent slow statements
+ * (GET /sqlstats). A DELETE to /sqlstats starts the statistics again from scratch, for example before a load test.
+ */
+@Endpoint(id = "sqlstats", defaultSensitive = false)
+public class SqlStatisticsEndpoint {
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final SqlStatistics sqlStatistics;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final int topStatements;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    @Inject
+    SqlStatisticsEndpoint(SqlStatistics sqlStatistics,
+                          @Value("${sql.statistics.top-statements:20}") int topStatements) {
+        this.sqlStatistics = sqlStatistics;
+        this.topStatements = topStatements;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Return the statement shapes that have taken the most time in total, and the most recent slow statements.
+     */
+    @Read
+    public SqlStatisticsDTO getSqlStatistics() {
+        return sqlStatistics.getStatistics(topStatements);
+    }
+
+    /**
+     * Forget every statement recorded so far.
+     */
+    @Delete
+    public void reset() {
+        sqlStatistics.reset();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
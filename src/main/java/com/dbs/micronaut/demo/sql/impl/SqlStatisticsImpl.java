@@ -0,0 +1,381 @@
+package com.dbs.micronaut.demo.sql.impl;
+
+import com.dbs.micronaut.demo.sql.SqlStatistics;
+import com.dbs.micronaut.demo.sql.contract.SlowStatementDTO;
+import com.dbs.micronaut.demo.sql.contract.SqlStatementStatsDTO;
+import com.dbs.micronaut.demo.sql.contract.SqlStatisticsDTO;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micronaut.context.annotation.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps statistics of every JDBC statement executed by the application in memory, grouped by statement shape, and
+ * logs (and keeps the most recent of) the statements slower than "sql.statistics.slow-threshold".
+ * <p>
+ * DEVELOPER NOTE: This replaces Hibernate's "show_sql" logging, which printed every statement but said nothing about
+ * which of them were actually worth looking at. Statements are grouped by shape, so that the same lookup of a
+ * thousand different customers adds up in one place. Each shape keeps a latency histogram with power-of-two
+ * microsecond buckets, which is just 32 counters however many statements it has seen, at the cost of percentiles
+ * only being accurate to a factor of two (plenty to tell a 1ms query from a 100ms one).
+ * <p>
+ * Recording a statement is a map lookup (by the SQL as executed, so the SQL is only normalized the first time it's
+ * seen) and a handful of atomic increments. Only slow statements pay for formatting their parameters and walking the
+ * stack to find the repository method that executed them. There is a limit on the number of shapes kept, so SQL built
+ * with literal values can't use up the heap; statements beyond the limit are added up as a single "(other)" shape.
+ */
+@Slf4j
+@Singleton
+public class SqlStatisticsImpl implements SqlStatistics, MeterBinder {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    static final String OTHER_SHAPE = "(other)";
+
+    private static final int BUCKETS = 32;
+
+    private static final int MAX_PARAMETER_LENGTH = 100;
+
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin \\(\\?(?: ?, ?\\?)*\\)");
+
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final long slowThresholdNanos;
+    private final int maxShapes;
+    private final int slowLogSize;
+
+    /**
+     * Every SQL seen so far (as executed) mapped to the statistics of its shape.
+     */
+    private final Map<String, StatementStats> statsBySql = new ConcurrentHashMap<>();
+
+    /**
+     * Every shape seen so far mapped to its statistics.
+     */
+    private final Map<String, StatementStats> statsByShape = new ConcurrentHashMap<>();
+
+    private final ArrayDeque<SlowStatementDTO> slowStatements;
+
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong slowExecutions = new AtomicLong();
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    @Inject
+    SqlStatisticsImpl(@Value("${sql.statistics.slow-threshold:200ms}") Duration slowThreshold,
+                      @Value("${sql.statistics.max-shapes:500}") int maxShapes,
+                      @Value("${sql.statistics.slow-log-size:100}") int slowLogSize) {
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.maxShapes = maxShapes;
+        this.slowLogSize = slowLogSize;
+        this.slowStatements = new ArrayDeque<>(slowLogSize);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Record one execution of the given SQL, and log it if it was slow.
+     */
+    @Override
+    public void recordExecution(String sql, long elapsedNanos, long rows, Object[] parameters, boolean failed) {
+        StatementStats stats = getStats(sql);
+        stats.record(elapsedNanos, rows, failed);
+        executions.increment();
+        totalNanos.add(elapsedNanos);
+        if (elapsedNanos >= slowThresholdNanos) {
+            recordSlowStatement(sql, elapsedNanos, parameters);
+        }
+    }
+
+    /**
+     * Record the rows read from a result of the given SQL.
+     */
+    @Override
+    public void recordFetch(String sql, long rows, long fetches) {
+        StatementStats stats = getStats(sql);
+        stats.rows.add(rows);
+        stats.fetches.add(fetches);
+    }
+
+    /**
+     * Return the statement shapes that have taken the most time in total, and the most recent slow statements.
+     */
+    @Override
+    public SqlStatisticsDTO getStatistics(int maxStatements) {
+        SqlStatisticsDTO statisticsDto = new SqlStatisticsDTO();
+        statisticsDto.setStatements(statsByShape.values().stream()
+                .sorted(Comparator.comparingLong((StatementStats stats) -> stats.totalNanos.sum()).reversed())
+                .limit(maxStatements)
+                .map(StatementStats::toDto)
+                .collect(Collectors.toList()));
+        synchronized (slowStatements) {
+            statisticsDto.setSlowStatements(new ArrayList<>(slowStatements));
+        }
+        return statisticsDto;
+    }
+
+    /**
+     * Forget every statement recorded so far.
+     */
+    @Override
+    public void reset() {
+        statsBySql.clear();
+        statsByShape.clear();
+        synchronized (slowStatements) {
+            slowStatements.clear();
+        }
+    }
+
+    /**
+     * Register the SQL statement metrics with Micrometer (and therefore the /metrics endpoint).
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionTimer.builder("sql.statements", this, statistics -> statistics.executions.sum(),
+                statistics -> statistics.totalNanos.sum(), TimeUnit.NANOSECONDS)
+                .description("JDBC statements executed")
+                .register(registry);
+        FunctionCounter.builder("sql.statements.slow", slowExecutions, AtomicLong::get)
+                .description("JDBC statements slower than the slow statement threshold")
+                .register(registry);
+        Gauge.builder("sql.statements.shapes", statsByShape, Map::size)
+                .description("Distinct statement shapes seen")
+                .register(registry);
+    }
+
+    /**
+     * Return the shape of the given SQL: the SQL with its whitespace collapsed, its literal values replaced by "?", and
+     * its IN lists (of any length) collapsed to "in (?...)".
+     */
+    static String normalize(String sql) {
+        StringBuilder shape = new StringBuilder(sql.length());
+        int length = sql.length();
+        for (int i = 0; i < length; i++) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                while ((i + 1 < length) && Character.isWhitespace(sql.charAt(i + 1))) {
+                    i++;
+                }
+                if ((shape.length() > 0) && (i + 1 < length)) {
+                    shape.append(' ');
+                }
+            } else if (c == '\'') {
+
+                // A string literal (with '' as an escaped quote)
+                i++;
+                while ((i < length) && ((sql.charAt(i) != '\'') || isEscapedQuote(sql, i))) {
+                    i += (sql.charAt(i) == '\'') ? 2 : 1;
+                }
+                shape.append('?');
+            } else if (Character.isDigit(c) && !isPartOfName(shape)) {
+
+                // A number (not a digit in a name, like "customer0_")
+                while ((i + 1 < length) && (Character.isDigit(sql.charAt(i + 1)) || (sql.charAt(i + 1) == '.'))) {
+                    i++;
+                }
+                shape.append('?');
+            } else {
+                shape.append(c);
+            }
+        }
+        return IN_LIST.matcher(shape).replaceAll("in (?...)");
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    /**
+     * Return the statistics of the shape of the given SQL.
+     */
+    private StatementStats getStats(String sql) {
+        StatementStats stats = statsBySql.get(sql);
+        if (stats != null) {
+            return stats;
+        }
+        String shape = normalize(sql);
+        stats = statsByShape.get(shape);
+        if (stats == null) {
+            stats = (statsByShape.size() < maxShapes) ? statsByShape.computeIfAbsent(shape, StatementStats::new)
+                    : statsByShape.computeIfAbsent(OTHER_SHAPE, StatementStats::new);
+        }
+        if (statsBySql.size() < maxShapes * 4) {
+            statsBySql.put(sql, stats);
+        }
+        return stats;
+    }
+
+    /**
+     * Log the given slow statement, and keep it, forgetting the oldest slow statement if there are already too many.
+     */
+    private void recordSlowStatement(String sql, long elapsedNanos, Object[] parameters) {
+        slowExecutions.incrementAndGet();
+        SlowStatementDTO slowStatementDto = new SlowStatementDTO();
+        slowStatementDto.setSql(sql);
+        slowStatementDto.setParameters(formatParameters(parameters));
+        slowStatementDto.setElapsedMillis(elapsedNanos / 1_000_000.0);
+        slowStatementDto.setOrigin(findOrigin());
+        slowStatementDto.setThread(Thread.currentThread().getName());
+        slowStatementDto.setTimestamp(System.currentTimeMillis());
+        log.warn("Slow SQL ({} ms) from {}: {} {}", String.format("%.1f", slowStatementDto.getElapsedMillis()),
+                slowStatementDto.getOrigin(), sql, slowStatementDto.getParameters());
+        synchronized (slowStatements) {
+            if (slowStatements.size() == slowLogSize) {
+                slowStatements.removeFirst();
+            }
+            slowStatements.addLast(slowStatementDto);
+        }
+    }
+
+    /**
+     * Return the application method (outside of this package's JDBC plumbing) that is executing a statement right now,
+     * preferring a repository method, as "SimpleClassName.method:line".
+     */
+    private static String findOrigin() {
+        List<StackWalker.StackFrame> frames = STACK_WALKER.walk(stream -> stream
+                .filter(frame -> frame.getClassName().startsWith("com.dbs.micronaut.demo.")
+                        && !frame.getClassName().equals(SqlStatisticsImpl.class.getName())
+                        && !frame.getClassName().equals(SqlStatisticsJdbcHandler.class.getName())
+                        && (frame.getClassName().indexOf('$') < 0))
+                .collect(Collectors.toList()));
+        StackWalker.StackFrame origin = frames.stream()
+                .filter(frame -> frame.getClassName().contains("Repository"))
+                .findFirst()
+                .orElse(frames.isEmpty() ? null : frames.get(0));
+        if (origin == null) {
+            return null;
+        }
+        String className = origin.getClassName();
+        return className.substring(className.lastIndexOf('.') + 1) + "." + origin.getMethodName() + ":"
+                + origin.getLineNumber();
+    }
+
+    private static List<String> formatParameters(Object[] parameters) {
+        List<String> formatted = new ArrayList<>();
+        if (parameters == null) {
+            return formatted;
+        }
+        for (Object parameter : parameters) {
+            String value = (parameter instanceof byte[]) ? "byte[" + ((byte[]) parameter).length + "]"
+                    : String.valueOf(parameter);
+            formatted.add((value.length() > MAX_PARAMETER_LENGTH) ? value.substring(0, MAX_PARAMETER_LENGTH) + "..."
+                    : value);
+        }
+        return formatted;
+    }
+
+    /**
+     * Return true if the quote at the given index of the given SQL is followed by another (so it's an escaped quote).
+     */
+    private static boolean isEscapedQuote(String sql, int index) {
+        return (index + 1 < sql.length()) && (sql.charAt(index + 1) == '\'');
+    }
+
+    /**
+     * Return true if the given (partial) shape ends in the middle of a name, so that a digit is part of the name.
+     */
+    private static boolean isPartOfName(StringBuilder shape) {
+        if (shape.length() == 0) {
+            return false;
+        }
+        char previous = shape.charAt(shape.length() - 1);
+        return Character.isLetterOrDigit(previous) || (previous == '_') || (previous == '$') || (previous == '.');
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * The statistics of every statement of one shape.
+     */
+    private static class StatementStats {
+
+        private final String shape;
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder fetches = new LongAdder();
+
+        /**
+         * Bucket i counts the executions that took less than 2^i microseconds (and at least 2^(i-1)).
+         */
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        private StatementStats(String shape) {
+            this.shape = shape;
+        }
+
+        private void record(long elapsedNanos, long updatedRows, boolean failed) {
+            executions.increment();
+            if (failed) {
+                errors.increment();
+            }
+            totalNanos.add(elapsedNanos);
+            maxNanos.accumulate(elapsedNanos);
+            rows.add(updatedRows);
+            buckets.incrementAndGet(Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(elapsedNanos / 1000)));
+        }
+
+        /**
+         * Return the given percentile (between 0 and 1) of the execution times, in milliseconds, rounded up to the
+         * upper bound of its bucket.
+         */
+        private double percentileMillis(long count, double percentile) {
+            long target = Math.max(1, (long) Math.ceil(count * percentile));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= target) {
+                    return (1L << i) / 1000.0;
+                }
+            }
+            return maxNanos.get() / 1_000_000.0;
+        }
+
+        private SqlStatementStatsDTO toDto() {
+            long count = executions.sum();
+            SqlStatementStatsDTO statsDto = new SqlStatementStatsDTO();
+            statsDto.setSql(shape);
+            statsDto.setExecutions(count);
+            statsDto.setErrors(errors.sum());
+            statsDto.setTotalMillis(totalNanos.sum() / 1_000_000.0);
+            statsDto.setMeanMillis((count == 0) ? 0 : statsDto.getTotalMillis() / count);
+            statsDto.setP50Millis((count == 0) ? 0 : percentileMillis(count, 0.5));
+            statsDto.setP99Millis((count == 0) ? 0 : percentileMillis(count, 0.99));
+            statsDto.setMaxMillis(maxNanos.get() / 1_000_000.0);
+            statsDto.setRows(rows.sum());
+            statsDto.setFetches(fetches.sum());
+            return statsDto;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.dbs.micronaut.demo.sql.impl;
+
+import com.dbs.micronaut.demo.sql.SqlStatistics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * The InvocationHandler behind a measured DataSource, Connection, Statement or ResultSet. DataSources hand out
+ * measured Connections, Connections hand out measured Statements, and every execute method of a Statement is timed
+ * and recorded (along with its bind parameters) in SqlStatistics. The ResultSets of queries count the rows read from
+ * them, and record them when they're closed.
+ * <p>
+ * DEVELOPER NOTE: A handler is created for every Statement, so it can hold the Statement's bind parameters (set one at
+ * a time before it's executed) without any locking: JDBC objects aren't used by more than one thread at a time.
+ *
+ * @see SqlStatisticsDataSourceListener
+ */
+class SqlStatisticsJdbcHandler implements InvocationHandler {
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final Supplier<SqlStatistics> sqlStatistics;
+    private final Object target;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    /**
+     * The SQL a PreparedStatement was prepared with (or a ResultSet's Statement executed), or null.
+     */
+    private final String sql;
+
+    /**
+     * The bind parameters of a PreparedStatement, by index (starting at 1), or null if none have been set.
+     */
+    private Object[] parameters;
+
+    /**
+     * The number of rows read from a ResultSet so far, or -1 once it has been closed.
+     */
+    private long rows;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    SqlStatisticsJdbcHandler(Supplier<SqlStatistics> sqlStatistics, Object target, String sql) {
+        this.sqlStatistics = sqlStatistics;
+        this.target = target;
+        this.sql = sql;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Return the given JDBC object (a DataSource, Connection, Statement or ResultSet), measured.
+     *
+     * @param sqlStatistics supplies the SqlStatistics to record statements in. A measured DataSource only calls it
+     *                      when it hands out a Connection, so a DataSource can be measured before the SqlStatistics
+     *                      bean can be created.
+     */
+    static <T> T measure(Supplier<SqlStatistics> sqlStatistics, Class<T> type, T target, String sql) {
+        return type.cast(Proxy.newProxyInstance(SqlStatisticsJdbcHandler.class.getClassLoader(), new Class<?>[]{type},
+                new SqlStatisticsJdbcHandler(sqlStatistics, target, sql)));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String methodName = method.getName();
+        Class<?> returnType = method.getReturnType();
+        if (methodName.equals("equals") && (method.getParameterCount() == 1)) {
+            return proxy == args[0];
+        }
+        if (target instanceof ResultSet) {
+            return invokeResultSet(method, args);
+        }
+
+        // Hand out measured Connections and Statements
+        if ((returnType == Connection.class) && methodName.equals("getConnection") && !(target instanceof Statement)) {
+            SqlStatistics statistics = sqlStatistics.get();
+            return measure(() -> statistics, Connection.class, (Connection) invokeTarget(method, args), null);
+        }
+        if ((target instanceof Connection) && Statement.class.isAssignableFrom(returnType)) {
+            return measureObject(returnType, invokeTarget(method, args), firstStringArgument(args));
+        }
+        if (!(target instanceof Statement)) {
+            return invokeTarget(method, args);
+        }
+
+        // Remember bind parameters
+        if ((target instanceof PreparedStatement) && methodName.startsWith("set") && (args != null)
+                && (args.length >= 2) && (args[0] instanceof Integer)) {
+            setParameter((Integer) args[0], methodName.equals("setNull") ? null : args[1]);
+        } else if (methodName.equals("clearParameters") && (parameters != null)) {
+            Arrays.fill(parameters, null);
+        }
+
+        // Time every statement execution, and hand out measured ResultSets
+        String statementSql = (firstStringArgument(args) != null) ? firstStringArgument(args) : sql;
+        boolean getResultSet = methodName.equals("getResultSet");
+        if ((statementSql == null) || !(methodName.startsWith("execute") || getResultSet)) {
+            return invokeTarget(method, args);
+        }
+        Object result = getResultSet ? invokeTarget(method, args) : invokeExecute(method, args, statementSql);
+        return (result instanceof ResultSet) ? measureObject(ResultSet.class, result, statementSql) : result;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    /**
+     * Execute the statement (by calling the given method on the real Statement), and record how long it took and how
+     * many rows it updated.
+     */
+    private Object invokeExecute(Method method, Object[] args, String statementSql) throws Throwable {
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = invokeTarget(method, args);
+        } catch (Throwable e) {
+            sqlStatistics.get().recordExecution(statementSql, System.nanoTime() - start, 0, parameters, true);
+            throw e;
+        }
+        sqlStatistics.get().recordExecution(statementSql, System.nanoTime() - start, updatedRows(result), parameters,
+                false);
+        return result;
+    }
+
+    /**
+     * Call the given method on the real ResultSet, counting the rows read, and recording them when it's closed.
+     */
+    private Object invokeResultSet(Method method, Object[] args) throws Throwable {
+        String methodName = method.getName();
+        if (methodName.equals("close") && (rows >= 0)) {
+            int fetchSize = ((ResultSet) target).getFetchSize();
+            long fetches = (fetchSize <= 0) ? 1 : Math.max(1, (rows + fetchSize - 1) / fetchSize);
+            sqlStatistics.get().recordFetch(sql, rows, fetches);
+            rows = -1;
+        }
+        Object result = invokeTarget(method, args);
+        if (methodName.equals("next") && Boolean.TRUE.equals(result) && (rows >= 0)) {
+            rows++;
+        }
+        return result;
+    }
+
+    private void setParameter(int index, Object value) {
+        if ((parameters == null) || (index > parameters.length)) {
+            parameters = (parameters == null) ? new Object[index] : Arrays.copyOf(parameters, index);
+        }
+        if (index > 0) {
+            parameters[index - 1] = value;
+        }
+    }
+
+    /**
+     * Return the number of rows updated, given the result of an execute method.
+     */
+    private static long updatedRows(Object result) {
+        if ((result instanceof Integer) || (result instanceof Long)) {
+            return ((Number) result).longValue();
+        }
+        if (result instanceof int[]) {
+            return Arrays.stream((int[]) result).filter(count -> count > 0).sum();
+        }
+        if (result instanceof long[]) {
+            return Arrays.stream((long[]) result).filter(count -> count > 0).sum();
+        }
+        return 0;
+    }
+
+    private static String firstStringArgument(Object[] args) {
+        return ((args != null) && (args.length > 0) && (args[0] instanceof String)) ? (String) args[0] : null;
+    }
+
+    /**
+     * Return the given JDBC object (of the given type: a kind of Statement, or a ResultSet), measured.
+     */
+    @SuppressWarnings("unchecked")
+    private Object measureObject(Class<?> type, Object object, String objectSql) {
+        return measure(sqlStatistics, (Class<Object>) type, object, objectSql);
+    }
+
+    /**
+     * Call the given method on the real JDBC object, rethrowing whatever the method itself throws.
+     */
+    private Object invokeTarget(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,31 @@
+package com.dbs.micronaut.demo.startup;
+
+import java.util.Map;
+
+/**
+ * Records what the application spends its startup time on: when each phase of startup was reached, and how long each
+ * bean took to create.
+ */
+public interface StartupTimeline {
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Record that the given phase of startup has just been reached.
+     */
+    void mark(String phase);
+
+    /**
+     * Return the phases of startup reached so far mapped to when they were reached (in milliseconds since the JVM
+     * started), in the order they were reached.
+     */
+    Map<String, Long> getPhases();
+
+    /**
+     * Return (at most the given number of) the beans that took the longest to create during startup, mapped to how
+     * long they took (in milliseconds), slowest first.
+     */
+    Map<String, Long> getSlowestBeans(int maxBeans);
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,29 @@
+package com.dbs.micronaut.demo.startup.contract;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * Admin contract describing what the application spent its startup time on.
+ */
+@Data
+public class StartupTimelineDTO {
+
+    // -------------------------------------------------- PROPERTIES ---------------------------------------------------
+
+    /**
+     * The phases of startup mapped to when they were reached, in milliseconds since the JVM started.
+     */
+    @JsonProperty("phases")
+    private Map<String, Long> phases;
+
+    /**
+     * The beans that took the longest to create mapped to how long they took, in milliseconds, slowest first.
+     */
+    @JsonProperty("slowestBeans")
+    private Map<String, Long> slowestBeans;
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
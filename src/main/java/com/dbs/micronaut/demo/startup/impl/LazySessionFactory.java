@@ -0,0 +1,109 @@
+package com.dbs.micronaut.demo.startup.impl;
+
+import com.dbs.micronaut.demo.startup.StartupTimeline;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.SessionFactoryBuilder;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The InvocationHandler behind a stand-in SessionFactory, which builds the real SessionFactory the first time any
+ * method is called, and forwards every call to it.
+ *
+ * @see LazySessionFactoryListener
+ */
+@Slf4j
+class LazySessionFactory implements InvocationHandler {
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final SessionFactoryBuilder builder;
+    private final StartupTimeline startupTimeline;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private volatile SessionFactory sessionFactory;
+    private boolean closed;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    LazySessionFactory(SessionFactoryBuilder builder, StartupTimeline startupTimeline) {
+        this.builder = builder;
+        this.startupTimeline = startupTimeline;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Answer a call to the stand-in SessionFactory. Identity methods, and closing a SessionFactory that was never
+     * built, don't build it.
+     */
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName() + "/" + method.getParameterCount()) {
+            case "equals/1":
+                return proxy == args[0];
+            case "hashCode/0":
+                return System.identityHashCode(proxy);
+            case "toString/0":
+                return "LazySessionFactory[" + ((sessionFactory == null) ? "not built" : sessionFactory) + "]";
+            case "getWrappedObject/0":
+                return get();
+            case "isOpen/0":
+            case "isClosed/0":
+            case "close/0":
+                synchronized (this) {
+                    if (sessionFactory == null) {
+                        if ("close".equals(method.getName())) {
+                            closed = true;
+                            return null;
+                        }
+                        return "isOpen".equals(method.getName()) != closed;
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+        return LazySessionFactoryListener.invoke(get(), method, args);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    /**
+     * Return the real SessionFactory, building it first if this is the first time it's needed.
+     */
+    private SessionFactory get() {
+        SessionFactory current = sessionFactory;
+        if (current == null) {
+            synchronized (this) {
+                current = sessionFactory;
+                if (current == null) {
+                    if (closed) {
+                        throw new IllegalStateException("The SessionFactory has been closed");
+                    }
+                    long start = System.nanoTime();
+                    current = builder.build();
+                    sessionFactory = current;
+                    startupTimeline.mark("session-factory-built");
+                    log.info("Built the SessionFactory on first use in {}ms",
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                }
+            }
+        }
+        return current;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
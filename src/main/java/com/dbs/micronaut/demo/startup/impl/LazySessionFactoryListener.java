@@ -0,0 +1,99 @@
+package com.dbs.micronaut.demo.startup.impl;
+
+import com.dbs.micronaut.demo.startup.StartupTimeline;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.event.BeanCreatedEvent;
+import io.micronaut.context.event.BeanCreatedEventListener;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.SessionFactoryBuilder;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.core.InfrastructureProxy;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Defers building the Hibernate SessionFactory from application startup until it is first used (typically the first
+ * repository call), when "startup.lazy-session-factory" is set to true.
+ * <p>
+ * DEVELOPER NOTE: Building the SessionFactory is the slowest part of starting this application: Hibernate builds the
+ * persisters for every entity, and (with hbm2ddl) compares the whole schema with the database. Micronaut builds it
+ * eagerly while starting the application context, so the HTTP server can't start until it is done.
+ * <p>
+ * This listener replaces the SessionFactoryBuilder bean (just after Micronaut creates it) with one whose build() method
+ * returns a stand-in SessionFactory straight away. The stand-in is a java.lang.reflect.Proxy: an object created at
+ * runtime that implements the SessionFactory interfaces by sending every method call to a single InvocationHandler.
+ * The handler builds the real SessionFactory the first time any method is called, and forwards every call to it from
+ * then on. The stand-in also implements Spring's InfrastructureProxy, so that Spring's transaction management (which
+ * keeps track of the current Session by SessionFactory) sees through it to the real SessionFactory.
+ * <p>
+ * Anything that uses the SessionFactory during startup builds it during startup anyway. Notably, the Hibernate metrics
+ * binder reads its statistics as soon as it is created, so it should be disabled
+ * ("micronaut.metrics.binders.hibernate.enabled: false") along with this option.
+ */
+@Singleton
+@Requires(property = "startup.lazy-session-factory", value = "true")
+public class LazySessionFactoryListener implements BeanCreatedEventListener<SessionFactoryBuilder> {
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final StartupTimeline startupTimeline;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    @Inject
+    LazySessionFactoryListener(StartupTimeline startupTimeline) {
+        this.startupTimeline = startupTimeline;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Replace the SessionFactoryBuilder with one that builds the SessionFactory lazily.
+     */
+    @Override
+    public SessionFactoryBuilder onCreated(BeanCreatedEvent<SessionFactoryBuilder> event) {
+        SessionFactoryBuilder builder = event.getBean();
+        return (SessionFactoryBuilder) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{SessionFactoryBuilder.class}, (proxy, method, args) -> {
+                    if ("build".equals(method.getName()) && (method.getParameterCount() == 0)) {
+                        return createLazySessionFactory(builder);
+                    }
+                    Object result = invoke(builder, method, args);
+                    return (result == builder) ? proxy : result;
+                });
+    }
+
+    /**
+     * Return a stand-in SessionFactory that builds the real one with the given SessionFactoryBuilder when first used.
+     */
+    SessionFactory createLazySessionFactory(SessionFactoryBuilder builder) {
+        return (SessionFactory) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{SessionFactoryImplementor.class, InfrastructureProxy.class},
+                new LazySessionFactory(builder, startupTimeline));
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    /**
+     * Call the given method on the given target, rethrowing whatever the method itself throws.
+     */
+    static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,54 @@
+package com.dbs.micronaut.demo.startup.impl;
+
+import com.dbs.micronaut.demo.startup.StartupTimeline;
+import com.dbs.micronaut.demo.startup.contract.StartupTimelineDTO;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.management.endpoint.annotation.Endpoint;
+import io.micronaut.management.endpoint.annotation.Read;
+
+import javax.inject.Inject;
+
+/**
+ * Admin endpoint that reports what the application spent its startup time on (GET /startup).
+ */
+@Endpoint(id = "startup", defaultSensitive = false)
+public class StartupTimelineEndpoint {
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final StartupTimeline startupTimeline;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final int reportedBeans;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    @Inject
+    StartupTimelineEndpoint(StartupTimeline startupTimeline,
+                            @Value("${startup.timeline.reported-beans:10}") int reportedBeans) {
+        this.startupTimeline = startupTimeline;
+        this.reportedBeans = reportedBeans;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Return the phases of startup and the beans that took the longest to create.
+     */
+    @Read
+    public StartupTimelineDTO getStartupTimeline() {
+        StartupTimelineDTO startupTimelineDto = new StartupTimelineDTO();
+        startupTimelineDto.setPhases(startupTimeline.getPhases());
+        startupTimelineDto.setSlowestBeans(startupTimeline.getSlowestBeans(reportedBeans));
+        return startupTimelineDto;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,159 @@
+package com.dbs.micronaut.demo.startup.impl;
+
+import com.dbs.micronaut.demo.startup.StartupTimeline;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.context.event.BeanCreatedEvent;
+import io.micronaut.context.event.BeanCreatedEventListener;
+import io.micronaut.runtime.event.annotation.EventListener;
+import io.micronaut.runtime.server.event.ServerStartupEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the startup timeline of the application, logs it once the HTTP server has started, and serves it on the
+ * /startup endpoint.
+ * <p>
+ * DEVELOPER NOTE: A BeanCreatedEventListener is called by Micronaut every time a bean of its type argument has been
+ * created... and since every bean is an Object, this one hears about every single bean. Micronaut doesn't say when it
+ * *started* creating a bean, only when it finished, so a bean's creation time here is the time since the previous bean
+ * finished being created (on the same thread). Since creating a bean first creates all of its dependencies (each of
+ * which is reported first), this is roughly the time spent in the bean itself, rather than in its dependencies. So the
+ * DataSource's time is mostly the connection pool opening its connections, and the SessionFactory's time is mostly
+ * Hibernate scanning the entities and updating the database schema.
+ * <p>
+ * Beans are only timed until the HTTP server has started. After that, startup is over.
+ */
+@Slf4j
+@Singleton
+public class StartupTimelineImpl implements StartupTimeline, BeanCreatedEventListener<Object> {
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final int reportedBeans;
+
+    /**
+     * The System.nanoTime() at which the JVM started.
+     */
+    private final long jvmStartNanos;
+
+    /**
+     * The phases reached so far mapped to their nanoseconds since the JVM started (guarded by itself).
+     */
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+
+    /**
+     * The creation time (in nanoseconds) of every bean, by bean type.
+     */
+    private final Map<String, Long> beanNanos = new ConcurrentHashMap<>();
+
+    /**
+     * When the previous bean was created on each thread.
+     */
+    private final ThreadLocal<Long> previousBeanNanos = new ThreadLocal<>();
+
+    private volatile boolean started;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    /**
+     * Create a new StartupTimelineImpl, reporting the given number of slowest beans.
+     */
+    @Inject
+    StartupTimelineImpl(@Value("${startup.timeline.reported-beans:10}") int reportedBeans) {
+        this.reportedBeans = reportedBeans;
+        this.jvmStartNanos = System.nanoTime()
+                - TimeUnit.MILLISECONDS.toNanos(ManagementFactory.getRuntimeMXBean().getUptime());
+        mark("context");
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Time the bean that has just been created, and mark the phases that creating it completes.
+     */
+    @Override
+    public Object onCreated(BeanCreatedEvent<Object> event) {
+        if (started) {
+            return event.getBean();
+        }
+
+        long now = System.nanoTime();
+        Long previous = previousBeanNanos.get();
+        previousBeanNanos.set(now);
+        beanNanos.merge(event.getBeanDefinition().getBeanType().getName(), now - ((previous == null) ? now : previous),
+                Long::sum);
+
+        if (event.getBean() instanceof DataSource) {
+            mark("datasource");
+        } else if (event.getBean() instanceof SessionFactory) {
+            mark("session-factory");
+        }
+        return event.getBean();
+    }
+
+    /**
+     * Mark the end of startup, and log the timeline.
+     */
+    @EventListener
+    public void onStartup(ServerStartupEvent event) {
+        mark("server");
+        started = true;
+        previousBeanNanos.remove();
+        log.info("Startup timeline (ms since JVM start): {}, slowest beans (ms): {}", getPhases(),
+                getSlowestBeans(reportedBeans));
+    }
+
+    /**
+     * Record that the given phase of startup has just been reached.
+     */
+    @Override
+    public void mark(String phase) {
+        long nanos = System.nanoTime() - jvmStartNanos;
+        synchronized (phases) {
+            phases.putIfAbsent(phase, nanos);
+        }
+    }
+
+    /**
+     * Return the phases of startup reached so far mapped to when they were reached (in milliseconds since the JVM
+     * started), in the order they were reached.
+     */
+    @Override
+    public Map<String, Long> getPhases() {
+        Map<String, Long> phaseMillis = new LinkedHashMap<>();
+        synchronized (phases) {
+            phases.forEach((phase, nanos) -> phaseMillis.put(phase, TimeUnit.NANOSECONDS.toMillis(nanos)));
+        }
+        return phaseMillis;
+    }
+
+    /**
+     * Return (at most the given number of) the beans that took the longest to create during startup, mapped to how
+     * long they took (in milliseconds), slowest first.
+     */
+    @Override
+    public Map<String, Long> getSlowestBeans(int maxBeans) {
+        Map<String, Long> slowestBeans = new LinkedHashMap<>();
+        beanNanos.entrySet().stream()
+                .sorted(Collections.reverseOrder(Map.Entry.comparingByValue()))
+                .limit(maxBeans)
+                .forEach(entry -> slowestBeans.put(entry.getKey(), TimeUnit.NANOSECONDS.toMillis(entry.getValue())));
+        return slowestBeans;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,51 @@
+package com.dbs.micronaut.demo.tenant;
+
+import io.micronaut.http.HttpRequest;
+
+import java.util.Set;
+
+/**
+ * Works out which tenant (business unit) a request is made for, from a request header ("X-Tenant-Id" by default).
+ * <p>
+ * DEVELOPER NOTE: Every tenant other than the default one has a data source (and so a connection pool) of its own,
+ * named after the tenant (see "datasources" in application.yml). Requests without
+ * the header, and everything that doesn't run on behalf of a request (scheduled jobs, warm-up, imports), belong to the
+ * default tenant. Unless "tenancy.enabled" is set to true, everything belongs to the default tenant.
+ */
+public interface TenantResolver {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    String DEFAULT_TENANT = "default";
+
+    String UNKNOWN_TENANT = "Unknown tenant [%s].";
+
+    String TENANT_NOT_ROUTED = "[%s] is only available to the default tenant, not to tenant [%s].";
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Return the tenant that the given request is made for, or null if its header names a tenant that doesn't exist.
+     */
+    String getTenant(HttpRequest<?> request);
+
+    /**
+     * Return the tenant that the request being handled by the current thread is made for (the default tenant, if
+     * there is none).
+     */
+    String getCurrentTenant();
+
+    /**
+     * Return true if the request being handled by the current thread (if any) is made for the default tenant.
+     */
+    boolean isDefaultTenant();
+
+    /**
+     * Return every tenant other than the default one.
+     */
+    Set<String> getTenants();
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
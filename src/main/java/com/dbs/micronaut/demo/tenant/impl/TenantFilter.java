@@ -0,0 +1,94 @@
+package com.dbs.micronaut.demo.tenant.impl;
+
+import com.dbs.micronaut.demo.exception.BusinessException;
+import com.dbs.micronaut.demo.tenant.TenantResolver;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.MutableHttpResponse;
+import io.micronaut.http.annotation.Filter;
+import io.micronaut.http.filter.HttpServerFilter;
+import io.micronaut.http.filter.ServerFilterChain;
+import io.reactivex.Flowable;
+import org.reactivestreams.Publisher;
+
+import javax.inject.Inject;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Checks the tenant of every request to the web service, and times every request per tenant (see the
+ * "tenant.requests" metric, tagged by tenant), when "tenancy.enabled" is set to true.
+ * <p>
+ * DEVELOPER NOTE: Requests for a tenant that doesn't exist get a 400 - BAD REQUEST, rather than quietly being served
+ * the default tenant's data. So do requests for any other tenant than the default one to paths that aren't routed to
+ * the tenant's own data source ("tenancy.routed-paths", a regular expression): those would otherwise be answered from
+ * the default tenant's data.
+ */
+@Filter("/v1/**")
+@Requires(property = "tenancy.enabled", value = "true")
+public class TenantFilter implements HttpServerFilter {
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final TenantResolver tenantResolver;
+    private final MeterRegistry meterRegistry;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final String header;
+    private final Pattern routedPaths;
+
+    /**
+     * The request timer of every tenant, created on its first request.
+     */
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    @Inject
+    TenantFilter(TenantResolver tenantResolver, MeterRegistry meterRegistry,
+                 @Value("${tenancy.header:X-Tenant-Id}") String header,
+                 @Value("${tenancy.routed-paths:/v1/customers(/[0-9]+)?}") String routedPaths) {
+        this.tenantResolver = tenantResolver;
+        this.meterRegistry = meterRegistry;
+        this.header = header;
+        this.routedPaths = Pattern.compile(routedPaths);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    @Override
+    public Publisher<MutableHttpResponse<?>> doFilter(HttpRequest<?> request, ServerFilterChain chain) {
+        String tenant = tenantResolver.getTenant(request);
+        if (tenant == null) {
+            return Flowable.just(HttpResponse.badRequest(new BusinessException(String.format(
+                    TenantResolver.UNKNOWN_TENANT, request.getHeaders().get(header)))));
+        }
+        if (!tenant.equals(TenantResolver.DEFAULT_TENANT) && !routedPaths.matcher(request.getPath()).matches()) {
+            return Flowable.just(HttpResponse.badRequest(new BusinessException(String.format(
+                    TenantResolver.TENANT_NOT_ROUTED, request.getPath(), tenant))));
+        }
+
+        Timer timer = timers.computeIfAbsent(tenant, name -> Timer.builder("tenant.requests")
+                .description("Requests to the web service, by tenant")
+                .tag("tenant", name)
+                .register(meterRegistry));
+        long start = System.nanoTime();
+        return Flowable.fromPublisher(chain.proceed(request))
+                .doFinally(() -> timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
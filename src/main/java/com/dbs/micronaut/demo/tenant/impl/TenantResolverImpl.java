@@ -0,0 +1,90 @@
+package com.dbs.micronaut.demo.tenant.impl;
+
+import com.dbs.micronaut.demo.tenant.TenantResolver;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.context.ServerRequestContext;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Works out which tenant a request is made for (see TenantResolver).
+ * <p>
+ * DEVELOPER NOTE: The tenant isn't kept in a ThreadLocal of its own. Micronaut already keeps the request being handled
+ * in ServerRequestContext, and carries it along to the threads that the request's RxJava work moves on to, so the
+ * tenant is simply read from the current request's header whenever it's needed.
+ */
+@Singleton
+public class TenantResolverImpl implements TenantResolver {
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final boolean enabled;
+    private final String header;
+    private final Set<String> tenants;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    /**
+     * Create a new TenantResolverImpl.
+     *
+     * @param tenants the comma-separated names of the tenants other than the default one
+     */
+    @Inject
+    TenantResolverImpl(@Value("${tenancy.enabled:false}") boolean enabled,
+                       @Value("${tenancy.header:X-Tenant-Id}") String header,
+                       @Value("${tenancy.tenants:}") String tenants) {
+        this.enabled = enabled;
+        this.header = header;
+        Set<String> tenantNames = new LinkedHashSet<>();
+        for (String tenant : tenants.split(",")) {
+            if (!tenant.trim().isEmpty() && !tenant.trim().equals(DEFAULT_TENANT)) {
+                tenantNames.add(tenant.trim());
+            }
+        }
+        this.tenants = Collections.unmodifiableSet(tenantNames);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    @Override
+    public String getTenant(HttpRequest<?> request) {
+        String tenant = enabled ? request.getHeaders().get(header) : null;
+        if ((tenant == null) || tenant.trim().isEmpty()) {
+            return DEFAULT_TENANT;
+        }
+        tenant = tenant.trim();
+        return (tenant.equals(DEFAULT_TENANT) || tenants.contains(tenant)) ? tenant : null;
+    }
+
+    @Override
+    public String getCurrentTenant() {
+        if (!enabled) {
+            return DEFAULT_TENANT;
+        }
+        Optional<HttpRequest<Object>> request = ServerRequestContext.currentRequest();
+        String tenant = request.isPresent() ? getTenant(request.get()) : DEFAULT_TENANT;
+        return (tenant == null) ? DEFAULT_TENANT : tenant;
+    }
+
+    @Override
+    public boolean isDefaultTenant() {
+        return !enabled || DEFAULT_TENANT.equals(getCurrentTenant());
+    }
+
+    @Override
+    public Set<String> getTenants() {
+        return tenants;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,17 @@
+package com.dbs.micronaut.demo.tracing;
+
+/**
+ * Keeps a Span current until closed. See Tracer.activate().
+ */
+public interface Scope extends AutoCloseable {
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Make the previously current Span current again.
+     */
+    @Override
+    void close();
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,50 @@
+package com.dbs.micronaut.demo.tracing;
+
+/**
+ * A named, timed piece of the work done for a request. See Tracer.
+ * <p>
+ * DEVELOPER NOTE: Only a small fraction of traces are "sampled" (recorded). A Span that isn't sampled still carries
+ * its trace ID along (so that every service agrees on which traces to record), but it ignores attributes and is never
+ * exported, which keeps the cost of tracing the other requests close to nothing.
+ */
+public interface Span {
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Return the ID of the trace this Span belongs to (32 lowercase hex characters).
+     */
+    String getTraceId();
+
+    /**
+     * Return the ID of this Span (16 lowercase hex characters).
+     */
+    String getSpanId();
+
+    /**
+     * Returns whether or not this Span (and its trace) is being recorded.
+     */
+    boolean isSampled();
+
+    /**
+     * Return this Span as a W3C "traceparent" header value, to continue its trace in another service.
+     */
+    String getTraceparent();
+
+    /**
+     * Attach the given attribute (for example, the SQL of a JDBC statement) to this Span.
+     */
+    void setAttribute(String key, Object value);
+
+    /**
+     * Record that the work of this Span failed with the given error.
+     */
+    void setError(Throwable error);
+
+    /**
+     * End this Span, and export it if it is sampled. Ending a Span more than once has no effect.
+     */
+    void end();
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
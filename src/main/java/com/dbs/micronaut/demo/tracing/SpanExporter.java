@@ -0,0 +1,27 @@
+package com.dbs.micronaut.demo.tracing;
+
+import com.dbs.micronaut.demo.tracing.contract.SpanDTO;
+
+import java.util.List;
+
+/**
+ * Receives every sampled Span as it ends, and sends it somewhere it can be looked at.
+ */
+public interface SpanExporter {
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Export the given ended Span. Called on the thread that ended the Span, so this must be quick.
+     */
+    void export(SpanDTO span);
+
+    /**
+     * Return the most recently exported Spans still held in memory, oldest first.
+     *
+     * @return an empty list if this exporter doesn't hold Spans in memory
+     */
+    List<SpanDTO> getRecentSpans();
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,32 @@
+package com.dbs.micronaut.demo.tracing;
+
+import com.dbs.micronaut.demo.tracing.impl.TracingInterceptor;
+import io.micronaut.aop.Around;
+import io.micronaut.context.annotation.Type;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Record a Span for every call of the annotated method (or every public method of the annotated class).
+ * <p>
+ * DEVELOPER NOTE: This is Micronaut AOP. Because of the @Around annotation, Micronaut generates (at compile time) a
+ * subclass of the bean that runs the TracingInterceptor around each annotated method. There is no reflection and no
+ * runtime proxy generation involved. Methods returning a Single or a Publisher are timed until their result is
+ * emitted, not just until the method returns.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Around
+@Type(TracingInterceptor.class)
+public @interface Traced {
+
+    /**
+     * The name of the Span, defaulting to "[simple class name].[method name]".
+     */
+    String value() default "";
+}
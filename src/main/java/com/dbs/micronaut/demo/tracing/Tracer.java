@@ -0,0 +1,52 @@
+package com.dbs.micronaut.demo.tracing;
+
+/**
+ * Records how long the work done for a request takes, as a tree of named, timed Spans. Spans started while another
+ * Span is current become its children, so one slow request can be broken down into where its time actually went
+ * (controller, service, repository, each SQL statement, JSON serialization).
+ * <p>
+ * Trace and span IDs follow the W3C Trace Context format, so traces can be continued from (and by) any
+ * OpenTelemetry-compatible service through the "traceparent" HTTP header.
+ */
+public interface Tracer {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    /**
+     * The W3C Trace Context HTTP header carrying the trace ID, parent span ID and sampling decision.
+     */
+    String TRACEPARENT = "traceparent";
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Start a Span with the given name, as a child of the current Span (or as the root of a new trace if there is no
+     * current Span). The Span is not made current.
+     */
+    Span startSpan(String name);
+
+    /**
+     * Start a Span with the given name, continuing the trace described by the given W3C "traceparent" header value (or
+     * as the root of a new trace if the value is missing or invalid). The Span is not made current.
+     */
+    Span startSpan(String name, String traceparent);
+
+    /**
+     * Return the current Span of this thread.
+     *
+     * @return null if there is no current Span
+     */
+    Span getCurrentSpan();
+
+    /**
+     * Make the given Span the current Span of this thread until the returned Scope is closed, at which point the
+     * previously current Span becomes current again.
+     *
+     * @param span the Span to make current, or null for none
+     */
+    Scope activate(Span span);
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
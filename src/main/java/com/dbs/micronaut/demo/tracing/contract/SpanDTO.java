@@ -0,0 +1,72 @@
+package com.dbs.micronaut.demo.tracing.contract;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * Contract describing an ended Span. The property names follow the OpenTelemetry (OTLP/JSON) span format, so exported
+ * spans can be loaded into OpenTelemetry tooling.
+ */
+@Data
+public class SpanDTO {
+
+    // -------------------------------------------------- PROPERTIES ---------------------------------------------------
+
+    /**
+     * The ID of the trace the Span belongs to (32 lowercase hex characters).
+     */
+    @JsonProperty("traceId")
+    private String traceId;
+
+    /**
+     * The ID of the Span (16 lowercase hex characters).
+     */
+    @JsonProperty("spanId")
+    private String spanId;
+
+    /**
+     * The ID of the parent Span, or null for the root Span of a trace.
+     */
+    @JsonProperty("parentSpanId")
+    private String parentSpanId;
+
+    /**
+     * What the Span timed, for example "CustomerServiceImpl.getCustomer" or "jdbc.executeQuery".
+     */
+    @JsonProperty("name")
+    private String name;
+
+    /**
+     * The name of the thread the Span was started on.
+     */
+    @JsonProperty("thread")
+    private String thread;
+
+    /**
+     * When the Span started, in nanoseconds since the epoch.
+     */
+    @JsonProperty("startTimeUnixNano")
+    private long startTimeUnixNano;
+
+    /**
+     * When the Span ended, in nanoseconds since the epoch.
+     */
+    @JsonProperty("endTimeUnixNano")
+    private long endTimeUnixNano;
+
+    /**
+     * Details of the Span's work (for example, the SQL of a JDBC statement).
+     */
+    @JsonProperty("attributes")
+    private Map<String, Object> attributes;
+
+    /**
+     * The error the work of the Span failed with, or null if it succeeded.
+     */
+    @JsonProperty("error")
+    private String error;
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,112 @@
+package com.dbs.micronaut.demo.tracing.impl;
+
+import com.dbs.micronaut.demo.tracing.SpanExporter;
+import com.dbs.micronaut.demo.tracing.contract.SpanDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.scheduling.TaskExecutors;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Appends every ended Span to a file, one JSON object per line, for loading into OpenTelemetry-compatible tooling.
+ * <p>
+ * DEVELOPER NOTE: Spans end on request threads (including the Netty event loop), which must never wait on the disk,
+ * so the writing itself is handed off to the I/O thread pool. Spans are serialized with a plain ObjectMapper of this
+ * class' own, rather than the application's, so that writing a Span never traces the serialization of that Span.
+ */
+@Slf4j
+@Singleton
+@Requires(property = "tracing.exporter", value = "file")
+public class FileSpanExporter implements SpanExporter {
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final ExecutorService executorService;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final BufferedWriter writer;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    /**
+     * Create a new FileSpanExporter, appending to the given file.
+     */
+    @Inject
+    FileSpanExporter(@Named(TaskExecutors.IO) ExecutorService executorService,
+                     @Value("${tracing.file:traces.jsonl}") String file) {
+        this.executorService = executorService;
+        try {
+            this.writer = Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open trace file " + file, e);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Append the given ended Span to the file (in the background).
+     */
+    @Override
+    public void export(SpanDTO span) {
+        executorService.execute(() -> write(span));
+    }
+
+    /**
+     * Spans are not held in memory.
+     */
+    @Override
+    public List<SpanDTO> getRecentSpans() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Close the file.
+     */
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    private synchronized void write(SpanDTO span) {
+        try {
+            writer.write(objectMapper.writeValueAsString(span));
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            log.warn("Unable to write span [{}] to the trace file", span.getName(), e);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,69 @@
+package com.dbs.micronaut.demo.tracing.impl;
+
+import com.dbs.micronaut.demo.tracing.SpanExporter;
+import com.dbs.micronaut.demo.tracing.contract.SpanDTO;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the most recently ended Spans in memory, where they can be read through the /traces admin endpoint (and by
+ * tests). This is the default exporter.
+ */
+@Singleton
+@Requires(property = "tracing.exporter", notEquals = "file")
+public class InMemorySpanExporter implements SpanExporter {
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final int maxSpans;
+
+    private final ArrayDeque<SpanDTO> spans;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    @Inject
+    InMemorySpanExporter(@Value("${tracing.in-memory.max-spans:1000}") int maxSpans) {
+        this.maxSpans = maxSpans;
+        this.spans = new ArrayDeque<>(maxSpans);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Keep the given ended Span, forgetting the oldest Span if there are already too many.
+     */
+    @Override
+    public synchronized void export(SpanDTO span) {
+        if (spans.size() == maxSpans) {
+            spans.removeFirst();
+        }
+        spans.addLast(span);
+    }
+
+    /**
+     * Return the Spans held in memory, oldest first.
+     */
+    @Override
+    public synchronized List<SpanDTO> getRecentSpans() {
+        return new ArrayList<>(spans);
+    }
+
+    /**
+     * Forget every Span held in memory.
+     */
+    public synchronized void clear() {
+        spans.clear();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,126 @@
+package com.dbs.micronaut.demo.tracing.impl;
+
+import com.dbs.micronaut.demo.tracing.Span;
+import com.dbs.micronaut.demo.tracing.contract.SpanDTO;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A Span started by the TracerImpl.
+ * <p>
+ * DEVELOPER NOTE: A Span that isn't sampled never reads the clock, never allocates its attribute map, and is never
+ * exported. All it does is carry its IDs along, so that the trace can be continued (unsampled) downstream.
+ */
+class SpanImpl implements Span {
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final TracerImpl tracer;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final String traceId;
+    private final String spanId;
+    private final String parentSpanId;
+    private final String name;
+    private final boolean sampled;
+    private final String thread;
+    private final long startTimeUnixNano;
+
+    private Map<String, Object> attributes;
+    private String error;
+    private boolean ended;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    /**
+     * Create a new (started) SpanImpl.
+     *
+     * @param parentSpanId the ID of the parent Span, or null for the root Span of a trace
+     */
+    SpanImpl(TracerImpl tracer, String traceId, String spanId, String parentSpanId, String name, boolean sampled) {
+        this.tracer = tracer;
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.name = name;
+        this.sampled = sampled;
+        this.thread = sampled ? Thread.currentThread().getName() : null;
+        this.startTimeUnixNano = sampled ? tracer.nowUnixNano() : 0;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    @Override
+    public String getTraceId() {
+        return traceId;
+    }
+
+    @Override
+    public String getSpanId() {
+        return spanId;
+    }
+
+    @Override
+    public boolean isSampled() {
+        return sampled;
+    }
+
+    @Override
+    public String getTraceparent() {
+        return "00-" + traceId + "-" + spanId + (sampled ? "-01" : "-00");
+    }
+
+    @Override
+    public synchronized void setAttribute(String key, Object value) {
+        if (sampled && !ended) {
+            if (attributes == null) {
+                attributes = new LinkedHashMap<>();
+            }
+            attributes.put(key, value);
+        }
+    }
+
+    @Override
+    public synchronized void setError(Throwable error) {
+        if (sampled && !ended) {
+            this.error = error.getClass().getName() + ": " + error.getMessage();
+        }
+    }
+
+    @Override
+    public void end() {
+        SpanDTO spanDto;
+        synchronized (this) {
+            if (!sampled || ended) {
+                return;
+            }
+            ended = true;
+            spanDto = new SpanDTO();
+            spanDto.setTraceId(traceId);
+            spanDto.setSpanId(spanId);
+            spanDto.setParentSpanId(parentSpanId);
+            spanDto.setName(name);
+            spanDto.setThread(thread);
+            spanDto.setStartTimeUnixNano(startTimeUnixNano);
+            spanDto.setEndTimeUnixNano(tracer.nowUnixNano());
+            spanDto.setAttributes(attributes);
+            spanDto.setError(error);
+        }
+        tracer.export(spanDto);
+    }
+
+    @Override
+    public String toString() {
+        return name + " " + getTraceparent();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
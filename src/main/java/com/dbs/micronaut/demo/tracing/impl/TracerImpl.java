@@ -0,0 +1,199 @@
+package com.dbs.micronaut.demo.tracing.impl;
+
+import com.dbs.micronaut.demo.tracing.Scope;
+import com.dbs.micronaut.demo.tracing.Span;
+import com.dbs.micronaut.demo.tracing.SpanExporter;
+import com.dbs.micronaut.demo.tracing.Tracer;
+import com.dbs.micronaut.demo.tracing.contract.SpanDTO;
+import io.micronaut.context.annotation.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts Spans, keeps track of the current Span of each thread, and decides which traces are sampled.
+ * <p>
+ * DEVELOPER NOTE: Recording every request would cost far more than it tells us, so only a fraction of new traces
+ * (tracing.sample-ratio) are sampled. A trace continued from another service keeps the sampling decision made by
+ * that service ("parent-based" sampling), so a trace is either recorded in every service it passes through or in none
+ * of them. With the default ratio of 1%, the cost of tracing is the cost of the sampled requests (a few microseconds
+ * each) spread over a hundred requests.
+ * <p>
+ * The "current Span" is held in a ThreadLocal. Work that hops to another thread (an RxJava scheduler, for example)
+ * takes the current Span along with it, see TracingRunnableInstrumenter.
+ */
+@Slf4j
+@Singleton
+public class TracerImpl implements Tracer {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    private static final String INVALID_TRACE_ID = "00000000000000000000000000000000";
+    private static final String INVALID_SPAN_ID = "0000000000000000";
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final SpanExporter spanExporter;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final boolean enabled;
+    private final double sampleRatio;
+
+    private final ThreadLocal<Span> currentSpan = new ThreadLocal<>();
+
+    /**
+     * The wall clock only has millisecond precision, so span times are measured with System.nanoTime() from a single
+     * reading of the wall clock.
+     */
+    private final long epochNanos = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+    private final long epochNanoTime = System.nanoTime();
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    @Inject
+    TracerImpl(SpanExporter spanExporter, @Value("${tracing.enabled:true}") boolean enabled,
+               @Value("${tracing.sample-ratio:0.01}") double sampleRatio) {
+        this.spanExporter = spanExporter;
+        this.enabled = enabled;
+        this.sampleRatio = sampleRatio;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Start a Span with the given name, as a child of the current Span (or as the root of a new trace if there is no
+     * current Span). The Span is not made current.
+     */
+    @Override
+    public Span startSpan(String name) {
+        Span parent = currentSpan.get();
+        if (parent == null) {
+            return new SpanImpl(this, newTraceId(), newSpanId(), null, name, isSampled());
+        }
+        return new SpanImpl(this, parent.getTraceId(), newSpanId(), parent.getSpanId(), name, parent.isSampled());
+    }
+
+    /**
+     * Start a Span with the given name, continuing the trace described by the given W3C "traceparent" header value (or
+     * as the root of a new trace if the value is missing or invalid). The Span is not made current.
+     * <p>
+     * The header value is "[version]-[trace ID]-[parent span ID]-[flags]", for example
+     * "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01", where a flags value of 01 means "sampled".
+     */
+    @Override
+    public Span startSpan(String name, String traceparent) {
+        if ((traceparent == null) || (traceparent.length() != 55) || (traceparent.charAt(2) != '-')
+                || (traceparent.charAt(35) != '-') || (traceparent.charAt(52) != '-')
+                || !isHex(traceparent, 0, 55) || traceparent.startsWith("ff")) {
+            return new SpanImpl(this, newTraceId(), newSpanId(), null, name, isSampled());
+        }
+
+        String traceId = traceparent.substring(3, 35);
+        String parentSpanId = traceparent.substring(36, 52);
+        if (traceId.equals(INVALID_TRACE_ID) || parentSpanId.equals(INVALID_SPAN_ID)) {
+            return new SpanImpl(this, newTraceId(), newSpanId(), null, name, isSampled());
+        }
+        boolean sampled = enabled && ((Character.digit(traceparent.charAt(54), 16) & 1) == 1);
+        return new SpanImpl(this, traceId, newSpanId(), parentSpanId, name, sampled);
+    }
+
+    /**
+     * Return the current Span of this thread.
+     *
+     * @return null if there is no current Span
+     */
+    @Override
+    public Span getCurrentSpan() {
+        return currentSpan.get();
+    }
+
+    /**
+     * Make the given Span the current Span of this thread until the returned Scope is closed, at which point the
+     * previously current Span becomes current again.
+     */
+    @Override
+    public Scope activate(Span span) {
+        Span previous = currentSpan.get();
+        currentSpan.set(span);
+        return () -> {
+            if (previous == null) {
+                currentSpan.remove();
+            } else {
+                currentSpan.set(previous);
+            }
+        };
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    /**
+     * Return the current time, in nanoseconds since the epoch.
+     */
+    long nowUnixNano() {
+        return epochNanos + (System.nanoTime() - epochNanoTime);
+    }
+
+    /**
+     * Export the given ended Span. An exporter that fails must not fail the request being traced.
+     */
+    void export(SpanDTO spanDto) {
+        try {
+            spanExporter.export(spanDto);
+        } catch (RuntimeException e) {
+            log.warn("Unable to export span [{}]", spanDto.getName(), e);
+        }
+    }
+
+    /**
+     * Returns whether or not a new trace should be sampled.
+     */
+    private boolean isSampled() {
+        return enabled && (ThreadLocalRandom.current().nextDouble() < sampleRatio);
+    }
+
+    private static String newTraceId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return toHex(random.nextLong() | 1) + toHex(random.nextLong());
+    }
+
+    private static String newSpanId() {
+        return toHex(ThreadLocalRandom.current().nextLong() | 1);
+    }
+
+    /**
+     * Return the given value as 16 lowercase hex characters.
+     */
+    private static String toHex(long value) {
+        String hex = Long.toHexString(value);
+        return (hex.length() == 16) ? hex : "0000000000000000".substring(hex.length()) + hex;
+    }
+
+    /**
+     * Returns whether or not the given range of the given value is lowercase hex, dashes aside.
+     */
+    private static boolean isHex(String value, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if ((c != '-') && ((c < '0') || (c > '9')) && ((c < 'a') || (c > 'f'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,44 @@
+package com.dbs.micronaut.demo.tracing.impl;
+
+import com.dbs.micronaut.demo.tracing.SpanExporter;
+import com.dbs.micronaut.demo.tracing.contract.SpanDTO;
+import io.micronaut.management.endpoint.annotation.Endpoint;
+import io.micronaut.management.endpoint.annotation.Read;
+
+import javax.inject.Inject;
+import java.util.List;
+
+/**
+ * Admin endpoint that returns the most recently recorded Spans (GET /traces), oldest first. Only the in-memory
+ * exporter holds Spans to return.
+ */
+@Endpoint(id = "traces", defaultSensitive = false)
+public class TracesEndpoint {
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final SpanExporter spanExporter;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    @Inject
+    TracesEndpoint(SpanExporter spanExporter) {
+        this.spanExporter = spanExporter;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Return the most recently recorded Spans, oldest first.
+     */
+    @Read
+    public List<SpanDTO> getTraces() {
+        return spanExporter.getRecentSpans();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,51 @@
+package com.dbs.micronaut.demo.tracing.impl;
+
+import com.dbs.micronaut.demo.tracing.Tracer;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.event.BeanCreatedEvent;
+import io.micronaut.context.event.BeanCreatedEventListener;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.sql.DataSource;
+
+/**
+ * Replaces every DataSource bean (just after Micronaut creates it) with one that records a Span for every JDBC
+ * statement executed while a request is being traced, unless "tracing.jdbc.enabled" is set to false.
+ * <p>
+ * DEVELOPER NOTE: Wrapping the DataSource catches every statement, whoever runs it: Hibernate, Spring's transaction
+ * management, or plain JDBC code. The connection pool itself is untouched (and unwrap() still reaches it).
+ *
+ * @see TracingJdbcHandler
+ */
+@Singleton
+@Requires(property = "tracing.jdbc.enabled", notEquals = "false")
+public class TracingDataSourceListener implements BeanCreatedEventListener<DataSource> {
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final Tracer tracer;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    @Inject
+    TracingDataSourceListener(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Replace the given DataSource with a traced one.
+     */
+    @Override
+    public DataSource onCreated(BeanCreatedEvent<DataSource> event) {
+        return TracingJdbcHandler.trace(tracer, DataSource.class, event.getBean(), null);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
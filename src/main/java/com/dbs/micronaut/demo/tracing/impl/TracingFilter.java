@@ -0,0 +1,83 @@
+package com.dbs.micronaut.demo.tracing.impl;
+
+import com.dbs.micronaut.demo.tracing.Scope;
+import com.dbs.micronaut.demo.tracing.Span;
+import com.dbs.micronaut.demo.tracing.Tracer;
+import io.micronaut.core.order.Ordered;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.MutableHttpResponse;
+import io.micronaut.http.annotation.Filter;
+import io.micronaut.http.filter.HttpServerFilter;
+import io.micronaut.http.filter.ServerFilterChain;
+import io.reactivex.Flowable;
+import org.reactivestreams.Publisher;
+
+import javax.inject.Inject;
+
+/**
+ * Starts the root Span of every API request, continuing the caller's trace if the request has a W3C "traceparent"
+ * header, and tells the caller which trace the request was recorded under with a W3C "traceresponse" header.
+ * <p>
+ * DEVELOPER NOTE: This filter runs before every other filter, so that the Span covers everything the request goes
+ * through (including being turned away by the concurrency limit). The change stream is not traced: it is a single
+ * request that never ends.
+ */
+@Filter("/v1/**")
+public class TracingFilter implements HttpServerFilter {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    private static final String CHANGES_PATH = "/v1/customers/changes";
+
+    private static final String TRACERESPONSE = "traceresponse";
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final Tracer tracer;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    @Inject
+    TracingFilter(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    /**
+     * Handle the given request in a new Span, made current for the rest of the chain.
+     */
+    @Override
+    public Publisher<MutableHttpResponse<?>> doFilter(HttpRequest<?> request, ServerFilterChain chain) {
+        if (CHANGES_PATH.equals(request.getPath())) {
+            return chain.proceed(request);
+        }
+
+        String traceparent = request.getHeaders().get(Tracer.TRACEPARENT);
+        Span span = tracer.startSpan("HTTP " + request.getMethod().name(), traceparent);
+        span.setAttribute("http.method", request.getMethod().name());
+        span.setAttribute("http.target", request.getUri().toString());
+
+        Publisher<MutableHttpResponse<?>> responses;
+        try (Scope scope = tracer.activate(span)) {
+            responses = chain.proceed(request);
+        }
+        return TracingSubscriber.trace(Flowable.fromPublisher(responses).doOnNext(response -> {
+            span.setAttribute("http.status_code", response.getStatus().getCode());
+            response.header(TRACERESPONSE, span.getTraceparent());
+        }), tracer, span);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,82 @@
+package com.dbs.micronaut.demo.tracing.impl;
+
+import com.dbs.micronaut.demo.tracing.Scope;
+import com.dbs.micronaut.demo.tracing.Span;
+import com.dbs.micronaut.demo.tracing.Traced;
+import com.dbs.micronaut.demo.tracing.Tracer;
+import io.micronaut.aop.MethodInterceptor;
+import io.micronaut.aop.MethodInvocationContext;
+import io.micronaut.core.order.Ordered;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import org.reactivestreams.Publisher;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Records a Span for every call of a method annotated with @Traced.
+ *
+ * @see Traced
+ */
+@Singleton
+public class TracingInterceptor implements MethodInterceptor<Object, Object> {
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final Tracer tracer;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    @Inject
+    TracingInterceptor(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Run outside of every other interceptor (transactions, for example), so that their work is timed too.
+     */
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    /**
+     * Call the intercepted method in a new Span. A Single or Publisher result is traced until it completes.
+     */
+    @Override
+    public Object intercept(MethodInvocationContext<Object, Object> context) {
+        String name = context.getValue(Traced.class, String.class).filter(value -> !value.isEmpty())
+                .orElseGet(() -> context.getDeclaringType().getSimpleName() + "." + context.getMethodName());
+        Span span = tracer.startSpan(name);
+
+        Object result;
+        try (Scope scope = tracer.activate(span)) {
+            result = context.proceed();
+        } catch (Throwable e) {
+            span.setError(e);
+            span.end();
+            throw e;
+        }
+
+        if (result instanceof Single) {
+            return Single.fromPublisher(TracingSubscriber.trace(((Single<?>) result).toFlowable(), tracer, span));
+        }
+        if (result instanceof Flowable) {
+            return Flowable.fromPublisher(TracingSubscriber.trace((Flowable<?>) result, tracer, span));
+        }
+        if (result instanceof Publisher) {
+            return TracingSubscriber.trace((Publisher<?>) result, tracer, span);
+        }
+        span.end();
+        return result;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,123 @@
+package com.dbs.micronaut.demo.tracing.impl;
+
+import com.dbs.micronaut.demo.tracing.Scope;
+import com.dbs.micronaut.demo.tracing.Span;
+import com.dbs.micronaut.demo.tracing.Tracer;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+
+/**
+ * The InvocationHandler behind a traced DataSource, Connection or Statement. DataSources hand out traced Connections,
+ * Connections hand out traced Statements, and every execute method of a Statement is timed in a Span of its own,
+ * along with its SQL.
+ * <p>
+ * DEVELOPER NOTE: Statements are only timed while a sampled Span is current. Everything else (including every
+ * statement of an unsampled request) goes straight through to the real JDBC object.
+ *
+ * @see TracingDataSourceListener
+ */
+class TracingJdbcHandler implements InvocationHandler {
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final Tracer tracer;
+    private final Object target;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    /**
+     * The SQL a PreparedStatement was prepared with, or null.
+     */
+    private final String sql;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    TracingJdbcHandler(Tracer tracer, Object target, String sql) {
+        this.tracer = tracer;
+        this.target = target;
+        this.sql = sql;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Return the given JDBC object (a DataSource, Connection or Statement), traced.
+     */
+    static <T> T trace(Tracer tracer, Class<T> type, T target, String sql) {
+        return type.cast(Proxy.newProxyInstance(TracingJdbcHandler.class.getClassLoader(), new Class<?>[]{type},
+                new TracingJdbcHandler(tracer, target, sql)));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String methodName = method.getName();
+        Class<?> returnType = method.getReturnType();
+        if (methodName.equals("equals") && (method.getParameterCount() == 1)) {
+            return proxy == args[0];
+        }
+
+        // Hand out traced Connections and Statements
+        if ((returnType == Connection.class) && methodName.equals("getConnection") && !(target instanceof Statement)) {
+            return trace(tracer, Connection.class, (Connection) invokeTarget(method, args), null);
+        }
+        if ((target instanceof Connection) && Statement.class.isAssignableFrom(returnType)) {
+            String statementSql = ((args != null) && (args.length > 0) && (args[0] instanceof String))
+                    ? (String) args[0] : null;
+            return traceStatement(returnType, invokeTarget(method, args), statementSql);
+        }
+
+        // Time statement execution, when it's being recorded
+        Span parent = tracer.getCurrentSpan();
+        if (!(target instanceof Statement) || !methodName.startsWith("execute") || (parent == null)
+                || !parent.isSampled()) {
+            return invokeTarget(method, args);
+        }
+        Span span = tracer.startSpan("jdbc." + methodName);
+        span.setAttribute("db.statement", ((args != null) && (args.length > 0) && (args[0] instanceof String))
+                ? args[0] : sql);
+        try (Scope scope = tracer.activate(span)) {
+            return invokeTarget(method, args);
+        } catch (Throwable e) {
+            span.setError(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    /**
+     * Return the given Statement (of the given type: Statement, PreparedStatement or CallableStatement), traced.
+     */
+    @SuppressWarnings("unchecked")
+    private Object traceStatement(Class<?> type, Object statement, String statementSql) {
+        return trace(tracer, (Class<Object>) type, statement, statementSql);
+    }
+
+    /**
+     * Call the given method on the real JDBC object, rethrowing whatever the method itself throws.
+     */
+    private Object invokeTarget(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,112 @@
+package com.dbs.micronaut.demo.tracing.impl;
+
+import com.dbs.micronaut.demo.tracing.Scope;
+import com.dbs.micronaut.demo.tracing.Span;
+import com.dbs.micronaut.demo.tracing.Tracer;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+
+import java.io.IOException;
+
+/**
+ * A Jackson serializer that times another serializer in a Span of its own, when it serializes the whole response body
+ * (rather than a value nested inside of it) of a traced request.
+ * <p>
+ * DEVELOPER NOTE: Jackson's bean serializers are "resolved" and "contextualized" after they are created, so this
+ * wrapper has to pass those steps on to the serializer it wraps, or the wrapped serializer would never be fully set up.
+ *
+ * @see TracingSerializerModifier
+ */
+class TracingJsonSerializer extends JsonSerializer<Object> implements ContextualSerializer, ResolvableSerializer {
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final Tracer tracer;
+    private final JsonSerializer<Object> serializer;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final String spanName;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    @SuppressWarnings("unchecked")
+    TracingJsonSerializer(Tracer tracer, JsonSerializer<?> serializer, String spanName) {
+        this.tracer = tracer;
+        this.serializer = (JsonSerializer<Object>) serializer;
+        this.spanName = spanName;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    @Override
+    public void serialize(Object value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        Span parent = tracer.getCurrentSpan();
+        if ((parent == null) || !parent.isSampled() || !gen.getOutputContext().inRoot()) {
+            serializer.serialize(value, gen, serializers);
+            return;
+        }
+
+        Span span = tracer.startSpan(spanName);
+        try (Scope scope = tracer.activate(span)) {
+            serializer.serialize(value, gen, serializers);
+        } catch (IOException | RuntimeException e) {
+            span.setError(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    @Override
+    public void serializeWithType(Object value, JsonGenerator gen, SerializerProvider serializers,
+                                  TypeSerializer typeSer) throws IOException {
+        serializer.serializeWithType(value, gen, serializers, typeSer);
+    }
+
+    @Override
+    public JsonSerializer<?> createContextual(SerializerProvider prov, BeanProperty property)
+            throws JsonMappingException {
+        if (serializer instanceof ContextualSerializer) {
+            JsonSerializer<?> contextual = ((ContextualSerializer) serializer).createContextual(prov, property);
+            return (contextual == serializer) ? this : new TracingJsonSerializer(tracer, contextual, spanName);
+        }
+        return this;
+    }
+
+    @Override
+    public void resolve(SerializerProvider provider) throws JsonMappingException {
+        if (serializer instanceof ResolvableSerializer) {
+            ((ResolvableSerializer) serializer).resolve(provider);
+        }
+    }
+
+    @Override
+    public boolean isEmpty(SerializerProvider provider, Object value) {
+        return serializer.isEmpty(provider, value);
+    }
+
+    @Override
+    public boolean usesObjectId() {
+        return serializer.usesObjectId();
+    }
+
+    @Override
+    public Class<Object> handledType() {
+        return serializer.handledType();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
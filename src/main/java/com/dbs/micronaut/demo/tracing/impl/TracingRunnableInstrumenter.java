@@ -0,0 +1,57 @@
+package com.dbs.micronaut.demo.tracing.impl;
+
+import com.dbs.micronaut.demo.tracing.Scope;
+import com.dbs.micronaut.demo.tracing.Span;
+import com.dbs.micronaut.demo.tracing.Tracer;
+import io.micronaut.scheduling.instrument.RunnableInstrumenter;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Carries the current Span across RxJava scheduler hops (subscribeOn, observeOn, timers...).
+ * <p>
+ * DEVELOPER NOTE: The current Span lives in a ThreadLocal, so work handed to another thread would normally lose it, and
+ * everything done there would start a brand new (unrelated) trace. Micronaut installs an RxJava "schedule handler"
+ * that passes every Runnable given to an RxJava scheduler through each RunnableInstrumenter bean before it's
+ * scheduled. This one captures the Span current on the scheduling thread, and makes it current again on whichever
+ * thread the Runnable ends up running on.
+ */
+@Singleton
+public class TracingRunnableInstrumenter implements RunnableInstrumenter {
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final Tracer tracer;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    @Inject
+    TracingRunnableInstrumenter(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Return the given Runnable, running in the Span current now.
+     */
+    @Override
+    public Runnable instrument(Runnable runnable) {
+        Span span = tracer.getCurrentSpan();
+        if (span == null) {
+            return runnable;
+        }
+        return () -> {
+            try (Scope scope = tracer.activate(span)) {
+                runnable.run();
+            }
+        };
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
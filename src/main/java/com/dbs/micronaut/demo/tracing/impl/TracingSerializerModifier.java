@@ -0,0 +1,66 @@
+package com.dbs.micronaut.demo.tracing.impl;
+
+import com.dbs.micronaut.demo.tracing.Tracer;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Records a Span for the JSON serialization of every API contract (DTO) returned as a response body.
+ * <p>
+ * DEVELOPER NOTE: Micronaut adds every BeanSerializerModifier bean to the ObjectMapper it creates. Jackson asks the
+ * modifier about each class the first time it builds a serializer for it, and this one wraps the serializer of every
+ * contract class of this application in a TracingJsonSerializer. Every other class (and every contract class after
+ * the first lookup) costs nothing extra.
+ */
+@Singleton
+public class TracingSerializerModifier extends BeanSerializerModifier {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    private static final String CONTRACT_PACKAGE = ".contract.";
+
+    private static final String APPLICATION_PACKAGE = "com.dbs.micronaut.demo.";
+
+    private static final String TRACING_PACKAGE = "com.dbs.micronaut.demo.tracing.";
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final Tracer tracer;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    @Inject
+    TracingSerializerModifier(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Return the given serializer, traced if it serializes a contract class of this application (other than Spans).
+     */
+    @Override
+    public JsonSerializer<?> modifySerializer(SerializationConfig config, BeanDescription beanDesc,
+                                              JsonSerializer<?> serializer) {
+        Class<?> beanClass = beanDesc.getBeanClass();
+        String className = beanClass.getName();
+        if (className.startsWith(APPLICATION_PACKAGE) && className.contains(CONTRACT_PACKAGE)
+                && !className.startsWith(TRACING_PACKAGE)) {
+            return new TracingJsonSerializer(tracer, serializer, "json.serialize " + beanClass.getSimpleName());
+        }
+        return serializer;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,107 @@
+package com.dbs.micronaut.demo.tracing.impl;
+
+import com.dbs.micronaut.demo.tracing.Scope;
+import com.dbs.micronaut.demo.tracing.Span;
+import com.dbs.micronaut.demo.tracing.Tracer;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * Makes a Span current while a reactive result is subscribed to and while each of its signals is delivered, and ends
+ * the Span once the result completes, fails or is cancelled.
+ * <p>
+ * DEVELOPER NOTE: A method returning a Single or a Publisher hasn't done any work yet when it returns... the work
+ * happens when (and on whichever thread) the result is subscribed to. Timing the method call itself would therefore
+ * time nothing. Wrapping the result instead times the actual work, and keeps the Span current for the code that runs
+ * during the subscription (the Single.fromCallable() body of a controller method, for example) and for the code that
+ * receives the result (Micronaut serializing the response body, for example).
+ */
+class TracingSubscriber<T> implements Subscriber<T>, Subscription {
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    private final Subscriber<? super T> downstream;
+    private final Tracer tracer;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final Span span;
+
+    private Subscription upstream;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    private TracingSubscriber(Subscriber<? super T> downstream, Tracer tracer, Span span) {
+        this.downstream = downstream;
+        this.tracer = tracer;
+        this.span = span;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Return the given Publisher, traced by the given (started) Span.
+     */
+    static <T> Publisher<T> trace(Publisher<T> source, Tracer tracer, Span span) {
+        return subscriber -> {
+            try (Scope scope = tracer.activate(span)) {
+                source.subscribe(new TracingSubscriber<>(subscriber, tracer, span));
+            }
+        };
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+        upstream = subscription;
+        try (Scope scope = tracer.activate(span)) {
+            downstream.onSubscribe(this);
+        }
+    }
+
+    @Override
+    public void onNext(T value) {
+        try (Scope scope = tracer.activate(span)) {
+            downstream.onNext(value);
+        }
+    }
+
+    @Override
+    public void onError(Throwable error) {
+        span.setError(error);
+        try (Scope scope = tracer.activate(span)) {
+            downstream.onError(error);
+        } finally {
+            span.end();
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        try (Scope scope = tracer.activate(span)) {
+            downstream.onComplete();
+        } finally {
+            span.end();
+        }
+    }
+
+    @Override
+    public void request(long n) {
+        upstream.request(n);
+    }
+
+    @Override
+    public void cancel() {
+        upstream.cancel();
+        span.setAttribute("cancelled", true);
+        span.end();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,142 @@
+package com.dbs.micronaut.demo.blocking.impl;
+
+import com.dbs.micronaut.demo.BaseTest;
+import com.dbs.micronaut.demo.blocking.BlockingCallDetector;
+import com.dbs.micronaut.demo.blocking.BlockingCallDetector.CallType;
+import com.dbs.micronaut.demo.customer.contract.CustomerDTO;
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.client.RxHttpClient;
+import io.micronaut.http.client.annotation.Client;
+import io.micronaut.test.annotation.MicronautTest;
+import io.netty.util.concurrent.FastThreadLocalThread;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DEVELOPER NOTE: The "blocking" environment (see application-blocking.yml in the test resources) enables the
+ * detector, so the DataSource and the SessionFactory are checked for this test.
+ */
+@MicronautTest(environments = "blocking")
+class BlockingCallDetectorImplTest extends BaseTest {
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    @Inject
+    private SessionFactory sessionFactory;
+
+    @Inject
+    @Client("/")
+    private RxHttpClient client;
+
+    /**
+     * Class under test
+     */
+    @Inject
+    private BlockingCallDetector blockingCallDetector;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- TEST METHODS --------------------------------------------------
+
+    @BeforeEach
+    void beforeEach() {
+        super.setup();
+    }
+
+    /**
+     * GIVEN a Customer in the database
+     * WHEN the Customer is requested (and read on the event loop thread that serves the request)
+     * THEN the Hibernate and JDBC calls should be counted as blocking calls
+     * AND the repository should be reported as a call site.
+     */
+    @Test
+    void getCustomer_blocksEventLoop() {
+
+        // GIVEN a Customer in the database
+        Customer customer = new Customer();
+        customer.setCustomerId(876_543);
+        customer.setFullName("Blocking Customer");
+        customer.setStreetAddress("1 Event Loop Lane");
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.save(customer);
+            session.getTransaction().commit();
+        }
+        long hibernateCalls = blockingCallDetector.getBlockingCalls(CallType.HIBERNATE);
+        long jdbcCalls = blockingCallDetector.getBlockingCalls(CallType.JDBC);
+
+        // WHEN the Customer is requested (and read on the event loop thread that serves the request)
+        CustomerDTO customerDto = client.toBlocking().retrieve(HttpRequest.GET("/v1/customers/876543"),
+                CustomerDTO.class);
+        assertEquals("Blocking Customer", customerDto.getFullName());
+
+        // THEN the Hibernate and JDBC calls should be counted as blocking calls
+        assertTrue(blockingCallDetector.getBlockingCalls(CallType.HIBERNATE) > hibernateCalls);
+        assertTrue(blockingCallDetector.getBlockingCalls(CallType.JDBC) > jdbcCalls);
+
+        // AND the repository should be reported as a call site.
+        assertTrue(blockingCallDetector.getCallSites().stream()
+                .anyMatch(callSite -> callSite.contains(".CustomerRepositoryImpl.findByIdOrNull:")));
+    }
+
+    /**
+     * GIVEN the detector is enabled
+     * WHEN Hibernate and JDBC are called on a thread that is NOT an event loop thread
+     * THEN no blocking calls should be counted.
+     */
+    @Test
+    void checkBlockingCall_notEventLoop() {
+
+        // GIVEN the detector is enabled
+        long hibernateCalls = blockingCallDetector.getBlockingCalls(CallType.HIBERNATE);
+        long jdbcCalls = blockingCallDetector.getBlockingCalls(CallType.JDBC);
+
+        // WHEN Hibernate and JDBC are called on a thread that is NOT an event loop thread
+        assertFalse(blockingCallDetector.isEventLoopThread());
+        try (Session session = sessionFactory.openSession()) {
+            session.find(Customer.class, 1);
+        }
+
+        // THEN no blocking calls should be counted.
+        assertEquals(hibernateCalls, blockingCallDetector.getBlockingCalls(CallType.HIBERNATE));
+        assertEquals(jdbcCalls, blockingCallDetector.getBlockingCalls(CallType.JDBC));
+    }
+
+    /**
+     * GIVEN an event loop thread
+     * WHEN it makes the same blocking call three times
+     * THEN all three calls should be counted
+     * AND the call site should only be reported once.
+     */
+    @Test
+    void checkBlockingCall_eventLoopThread() throws InterruptedException {
+
+        // GIVEN an event loop thread
+        long socketCalls = blockingCallDetector.getBlockingCalls(CallType.SOCKET);
+        int callSites = blockingCallDetector.getCallSites().size();
+        Thread eventLoop = new FastThreadLocalThread(() -> {
+
+            // WHEN it makes the same blocking call three times
+            for (int i = 0; i < 3; i++) {
+                blockingCallDetector.checkBlockingCall(CallType.SOCKET, "test");
+            }
+        });
+        eventLoop.start();
+        eventLoop.join();
+
+        // THEN all three calls should be counted
+        assertEquals(socketCalls + 3, blockingCallDetector.getBlockingCalls(CallType.SOCKET));
+
+        // AND the call site should only be reported once.
+        assertEquals(callSites + 1, blockingCallDetector.getCallSites().size());
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,101 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.BaseTest;
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.dbs.micronaut.demo.customer.entity.Order;
+import com.dbs.micronaut.demo.customer.event.CustomerChange;
+import com.dbs.micronaut.demo.customer.event.EntityChangeEvent;
+import com.dbs.micronaut.demo.customer.event.EntityChangeEvent.ChangeType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerChangeLogImplTest extends BaseTest {
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    /**
+     * Class under test
+     */
+    private CustomerChangeLogImpl customerChangeLog;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- TEST METHODS --------------------------------------------------
+
+    @BeforeEach
+    public void setup() {
+        super.setup();
+        customerChangeLog = new CustomerChangeLogImpl(3);
+    }
+
+    /**
+     * GIVEN a committed Customer change and a committed Order change
+     * WHEN the changes are read from the start of the log
+     * THEN both changes should be returned in the order they were committed
+     * AND the Order change should name the Customer that owns the Order.
+     */
+    @Test
+    void read_inOrder() {
+
+        // GIVEN a committed Customer change and a committed Order change
+        Customer customer = podamFactory.manufacturePojo(Customer.class);
+        Order order = new Order();
+        order.setOrderNumber(podamFactory.manufacturePojo(String.class));
+        order.setCustomer(customer);
+        customerChangeLog.onEntityChange(new EntityChangeEvent(customer, ChangeType.UPDATED));
+        customerChangeLog.onEntityChange(new EntityChangeEvent(order, ChangeType.DELETED));
+
+        // WHEN the changes are read from the start of the log
+        List<CustomerChange> changes = customerChangeLog.read(0, 10);
+
+        // THEN both changes should be returned in the order they were committed
+        assertEquals(2, changes.size());
+        assertEquals(1, changes.get(0).getOffset());
+        assertEquals(ChangeType.UPDATED, changes.get(0).getChangeType());
+        assertEquals(CustomerChange.EntityType.CUSTOMER, changes.get(0).getEntityType());
+        assertEquals(customer.getCustomerId(), changes.get(0).getCustomerId());
+        assertEquals(2, changes.get(1).getOffset());
+        assertEquals(ChangeType.DELETED, changes.get(1).getChangeType());
+
+        // AND the Order change should name the Customer that owns the Order.
+        assertEquals(CustomerChange.EntityType.ORDER, changes.get(1).getEntityType());
+        assertEquals(order.getOrderNumber(), changes.get(1).getOrderNumber());
+        assertEquals(customer.getCustomerId(), changes.get(1).getCustomerId());
+        assertTrue(customerChangeLog.read(3, 10).isEmpty());
+    }
+
+    /**
+     * GIVEN more committed changes than the log can hold
+     * WHEN the changes are read from the start of the log
+     * THEN only the most recent changes should be returned
+     * AND the oldest offset should show that the earlier changes were overwritten.
+     */
+    @Test
+    void read_wrapsAround() {
+
+        // GIVEN more committed changes than the log can hold
+        for (int i = 0; i < 5; i++) {
+            customerChangeLog.onEntityChange(new EntityChangeEvent(podamFactory.manufacturePojo(Customer.class),
+                    ChangeType.CREATED));
+        }
+
+        // WHEN the changes are read from the start of the log
+        List<CustomerChange> changes = customerChangeLog.read(1, 10);
+
+        // THEN only the most recent changes should be returned
+        assertEquals(3, changes.size());
+        assertEquals(3, changes.get(0).getOffset());
+        assertEquals(5, changes.get(2).getOffset());
+
+        // AND the oldest offset should show that the earlier changes were overwritten.
+        assertEquals(3, customerChangeLog.getOldestOffset());
+        assertEquals(6, customerChangeLog.getNextOffset());
+        assertEquals(1, customerChangeLog.read(5, 10).size());
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,262 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.BaseTest;
+import com.dbs.micronaut.demo.customer.CustomerChangeLog;
+import com.dbs.micronaut.demo.customer.CustomerChangePoller;
+import com.dbs.micronaut.demo.customer.CustomerIdFilter;
+import com.dbs.micronaut.demo.customer.CustomerSearchIndex;
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.dbs.micronaut.demo.customer.event.EntityChangeEvent;
+import io.micronaut.context.event.ApplicationEventPublisher;
+import io.micronaut.scheduling.TaskScheduler;
+import io.micronaut.test.annotation.MicronautTest;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * DEVELOPER NOTE: The "change-poller" environment (see application-change-poller.yml in the test resources) enables the
+ * change poller, with batches of two Customers, two batches per poll, no lag, and an interval so long that these tests
+ * poll for themselves. The Customers are written with plain JDBC, the way another system would write them, so the
+ * application never hears about them other than through the poller.
+ */
+@MicronautTest(environments = "change-poller")
+class CustomerChangePollerImplTest extends BaseTest {
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    @Inject
+    private DataSource dataSource;
+
+    @Inject
+    private CustomerSearchIndex customerSearchIndex;
+
+    @Inject
+    private CustomerIdFilter customerIdFilter;
+
+    @Inject
+    private CustomerChangeLog customerChangeLog;
+
+    @Inject
+    private CustomerWriterImpl customerWriterImpl;
+
+    @Inject
+    private SessionFactory sessionFactory;
+
+    /**
+     * Class under test
+     */
+    @Inject
+    private CustomerChangePoller customerChangePoller;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- TEST METHODS --------------------------------------------------
+
+    @BeforeEach
+    void beforeEach() {
+        super.setup();
+        customerChangePoller.poll();
+    }
+
+    /**
+     * GIVEN a Customer inserted, and another renamed, directly in the database
+     * WHEN the database is polled for changes
+     * THEN both Customers should be found, and refreshed in the search index and ID filter
+     * AND the next poll should find nothing new.
+     */
+    @Test
+    void poll_changedElsewhere() throws SQLException {
+
+        // GIVEN a Customer inserted, and another renamed, directly in the database
+        insertCustomer(765_401, "Polled Ingrid", Instant.now().minusSeconds(3600));
+        insertCustomer(765_402, "Polled Inserted", Instant.now());
+        renameCustomer(765_401, "Polled Renamed", Instant.now());
+
+        // WHEN the database is polled for changes
+        int found = customerChangePoller.poll();
+
+        // THEN both Customers should be found, and refreshed in the search index and ID filter
+        assertEquals(2, found);
+        assertArrayEquals(new int[]{765_402}, customerSearchIndex.search("Polled Inserted", 10));
+        assertArrayEquals(new int[]{765_401}, customerSearchIndex.search("Polled Renamed", 10));
+        assertTrue(customerIdFilter.mightContain(765_402));
+
+        // AND the next poll should find nothing new.
+        assertEquals(0, customerChangePoller.poll());
+    }
+
+    /**
+     * GIVEN a Customer in the database
+     * WHEN it is updated by this application, and another Customer is saved through a Session
+     * THEN their update timestamps should be set, so that the next poll finds them
+     * AND the changes found should not be recorded in the change log a second time.
+     */
+    @Test
+    void poll_writtenByApplication() throws SQLException {
+
+        // GIVEN a Customer in the database
+        insertCustomer(765_421, "Original Name", Instant.now().minusSeconds(3600));
+
+        // WHEN it is updated by this application, and another Customer is saved through a Session
+        Customer updated = customer(765_421);
+        customerWriterImpl.update(updated);
+        Customer saved = customer(765_422);
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.save(saved);
+            session.getTransaction().commit();
+        }
+
+        // THEN their update timestamps should be set, so that the next poll finds them
+        assertNotNull(updated.getUpdatedAt());
+        assertNotNull(saved.getUpdatedAt());
+        long nextOffset = customerChangeLog.getNextOffset();
+        assertEquals(2, customerChangePoller.poll());
+
+        // AND the changes found should not be recorded in the change log a second time.
+        assertEquals(nextOffset, customerChangeLog.getNextOffset());
+    }
+
+    /**
+     * GIVEN five Customers changed directly in the database
+     * WHEN the database is polled for changes, again and again
+     * THEN each poll should find no more than two batches of two Customers, until every change has been found.
+     */
+    @Test
+    void poll_boundedBatches() throws SQLException {
+
+        // GIVEN five Customers changed directly in the database
+        Instant now = Instant.now();
+        for (int customerId = 765_411; customerId <= 765_415; customerId++) {
+            insertCustomer(customerId, "Batched Customer", now);
+        }
+
+        // WHEN the database is polled for changes, again and again
+        // THEN each poll should find no more than two batches of two Customers, until every change has been found.
+        assertEquals(4, customerChangePoller.poll());
+        assertEquals(1, customerChangePoller.poll());
+        assertEquals(0, customerChangePoller.poll());
+    }
+
+    /**
+     * GIVEN three Customers changed directly in the database, and a listener that fails on the second of them once
+     * WHEN the database is polled for changes, twice
+     * THEN the first poll should fail after publishing the first change
+     * AND the second poll should publish the second and third changes, so that no change is lost.
+     */
+    @Test
+    void poll_listenerFails() throws SQLException {
+
+        // GIVEN three Customers changed directly in the database, and a listener that fails on the second of them once
+        ApplicationEventPublisher eventPublisher_mock = mock(ApplicationEventPublisher.class);
+        CustomerChangePollerImpl poller = new CustomerChangePollerImpl(dataSource, eventPublisher_mock,
+                mock(TaskScheduler.class), Duration.ofSeconds(10), 0.2, 500, 20, Duration.ZERO);
+        Instant now = Instant.now();
+        for (int customerId = 765_451; customerId <= 765_453; customerId++) {
+            insertCustomer(customerId, "Retried Customer", now);
+        }
+        List<Integer> published = new ArrayList<>();
+        AtomicBoolean failed = new AtomicBoolean();
+        doAnswer(invocation -> {
+            int customerId = ((Customer) ((EntityChangeEvent) invocation.getArgument(0)).getEntity()).getCustomerId();
+            published.add(customerId);
+            if ((customerId == 765_452) && failed.compareAndSet(false, true)) {
+                throw new IllegalStateException("Listener failed");
+            }
+            return null;
+        }).when(eventPublisher_mock).publishEvent(any());
+
+        // WHEN the database is polled for changes, twice
+        // THEN the first poll should fail after publishing the first change
+        assertThrows(IllegalStateException.class, poller::poll);
+        assertEquals(Arrays.asList(765_451, 765_452), published);
+
+        // AND the second poll should publish the second and third changes, so that no change is lost.
+        assertEquals(2, poller.poll());
+        assertEquals(Arrays.asList(765_451, 765_452, 765_452, 765_453), published);
+    }
+
+    /**
+     * GIVEN a change poller with an interval of 10 seconds and a jitter of 0.2
+     * WHEN the delays until its next polls are picked
+     * THEN they should all be between 8 and 12 seconds, and not all the same.
+     */
+    @Test
+    void nextDelayNanos_jittered() {
+
+        // GIVEN a change poller with an interval of 10 seconds and a jitter of 0.2
+        CustomerChangePollerImpl poller = new CustomerChangePollerImpl(dataSource,
+                mock(ApplicationEventPublisher.class), mock(TaskScheduler.class), Duration.ofSeconds(10), 0.2, 500, 20,
+                Duration.ofSeconds(5));
+
+        // WHEN the delays until its next polls are picked
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < 1000; i++) {
+            long delay = poller.nextDelayNanos();
+            min = Math.min(min, delay);
+            max = Math.max(max, delay);
+        }
+
+        // THEN they should all be between 8 and 12 seconds, and not all the same.
+        assertTrue(min >= TimeUnit.SECONDS.toNanos(8), "Shortest delay was " + min);
+        assertTrue(max <= TimeUnit.SECONDS.toNanos(12), "Longest delay was " + max);
+        assertTrue(max > min);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    private void insertCustomer(int customerId, String fullName, Instant updatedAt) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("insert into CUSTOMERS (CUST_ID, "
+                     + "CUST_FULL_NAME, CUST_STREET_ADDR, CUST_UPDATED_AT) values (?, ?, ?, ?)")) {
+            statement.setInt(1, customerId);
+            statement.setString(2, fullName);
+            statement.setString(3, "1 Polling Street");
+            statement.setTimestamp(4, Timestamp.from(updatedAt));
+            statement.executeUpdate();
+        }
+    }
+
+    private static Customer customer(int customerId) {
+        Customer customer = new Customer();
+        customer.setCustomerId(customerId);
+        customer.setFullName("Written Name");
+        customer.setStreetAddress("1 Polling Street");
+        return customer;
+    }
+
+    private void renameCustomer(int customerId, String fullName, Instant updatedAt) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "update CUSTOMERS set CUST_FULL_NAME = ?, CUST_UPDATED_AT = ? where CUST_ID = ?")) {
+            statement.setString(1, fullName);
+            statement.setTimestamp(2, Timestamp.from(updatedAt));
+            statement.setInt(3, customerId);
+            statement.executeUpdate();
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
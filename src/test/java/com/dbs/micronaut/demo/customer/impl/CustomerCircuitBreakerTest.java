@@ -0,0 +1,95 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.BaseTest;
+import com.dbs.micronaut.demo.customer.impl.CustomerCircuitBreaker.State;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerCircuitBreakerTest extends BaseTest {
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    /**
+     * Class under test
+     */
+    private CustomerCircuitBreaker customerCircuitBreaker;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- TEST METHODS --------------------------------------------------
+
+    @BeforeEach
+    public void setup() {
+        super.setup();
+        customerCircuitBreaker = new CustomerCircuitBreaker("default", 10, 0.5,
+                TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    /**
+     * GIVEN a closed circuit breaker watching the last 10 calls
+     * WHEN half of the calls fail
+     * THEN the circuit breaker should open
+     * AND refuse every call.
+     */
+    @Test
+    void onFailure_opens() {
+
+        // GIVEN a closed circuit breaker watching the last 10 calls
+        assertEquals(State.CLOSED, customerCircuitBreaker.getState());
+
+        // WHEN half of the calls fail
+        for (int i = 0; i < 4; i++) {
+            assertTrue(customerCircuitBreaker.tryAcquire());
+            customerCircuitBreaker.onSuccess();
+        }
+        for (int i = 0; i < 3; i++) {
+            assertTrue(customerCircuitBreaker.tryAcquire());
+            customerCircuitBreaker.onFailure();
+            assertEquals(State.CLOSED, customerCircuitBreaker.getState());
+        }
+        assertTrue(customerCircuitBreaker.tryAcquire());
+        customerCircuitBreaker.onFailure();
+
+        // THEN the circuit breaker should open
+        assertEquals(State.OPEN, customerCircuitBreaker.getState());
+
+        // AND refuse every call.
+        assertFalse(customerCircuitBreaker.tryAcquire());
+    }
+
+    /**
+     * GIVEN an open circuit breaker
+     * WHEN the open duration has passed
+     * THEN a single trial call should be let through
+     * AND the circuit breaker should close again if it succeeds.
+     */
+    @Test
+    void tryAcquire_halfOpenTrial() throws InterruptedException {
+
+        // GIVEN an open circuit breaker
+        for (int i = 0; i < 5; i++) {
+            customerCircuitBreaker.tryAcquire();
+            customerCircuitBreaker.onFailure();
+        }
+        assertEquals(State.OPEN, customerCircuitBreaker.getState());
+
+        // WHEN the open duration has passed
+        Thread.sleep(60);
+
+        // THEN a single trial call should be let through
+        assertTrue(customerCircuitBreaker.tryAcquire());
+        assertEquals(State.HALF_OPEN, customerCircuitBreaker.getState());
+        assertFalse(customerCircuitBreaker.tryAcquire());
+
+        // AND the circuit breaker should close again if it succeeds.
+        customerCircuitBreaker.onSuccess();
+        assertEquals(State.CLOSED, customerCircuitBreaker.getState());
+        assertTrue(customerCircuitBreaker.tryAcquire());
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
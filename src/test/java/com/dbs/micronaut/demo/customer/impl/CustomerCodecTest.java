@@ -0,0 +1,77 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.BaseTest;
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerCodecTest extends BaseTest {
+
+    // ------------------------------------------------- TEST METHODS --------------------------------------------------
+
+    /**
+     * GIVEN a Customer
+     * WHEN it is encoded and decoded again
+     * THEN an equal Customer should be returned
+     * AND the encoded form should be barely larger than the Customer's text.
+     */
+    @Test
+    void encode_roundTrip() {
+
+        // GIVEN a Customer
+        Customer customer = new Customer();
+        customer.setCustomerId(123456);
+        customer.setFullName("Zoë Ångström");
+        customer.setStreetAddress("1 Main Street");
+        customer.setLastReadTimestamp(Instant.parse("2019-01-02T03:04:05.006Z"));
+
+        // WHEN it is encoded and decoded again
+        byte[] bytes = CustomerCodec.encode(customer);
+        Customer decoded = CustomerCodec.decode(bytes);
+
+        // THEN an equal Customer should be returned
+        assertEquals(customer, decoded);
+
+        // AND the encoded form should be barely larger than the Customer's text.
+        int textLength = (customer.getFullName() + customer.getStreetAddress()).getBytes(StandardCharsets.UTF_8).length;
+        assertTrue(bytes.length <= textLength + 16, "Encoded size was " + bytes.length);
+    }
+
+    /**
+     * GIVEN a Customer without a name, address or last read timestamp
+     * WHEN it is encoded and decoded again
+     * THEN the missing values should still be missing.
+     */
+    @Test
+    void encode_nulls() {
+
+        // GIVEN a Customer without a name, address or last read timestamp
+        Customer customer = new Customer();
+        customer.setCustomerId(1);
+
+        // WHEN it is encoded and decoded again
+        Customer decoded = CustomerCodec.decode(CustomerCodec.encode(customer));
+
+        // THEN the missing values should still be missing.
+        assertEquals(1, (int) decoded.getCustomerId());
+        assertNull(decoded.getFullName());
+        assertNull(decoded.getStreetAddress());
+        assertNull(decoded.getLastReadTimestamp());
+    }
+
+    /**
+     * GIVEN bytes written in an unknown format
+     * WHEN they are decoded
+     * THEN null should be returned (a cache miss).
+     */
+    @Test
+    void decode_unknownVersion() {
+        assertNull(CustomerCodec.decode(new byte[]{99, 1, 0, 0, 0}));
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
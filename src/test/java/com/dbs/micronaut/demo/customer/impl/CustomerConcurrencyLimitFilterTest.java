@@ -0,0 +1,143 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.BaseTest;
+import com.dbs.micronaut.demo.customer.CustomerConcurrencyLimiter;
+import com.dbs.micronaut.demo.customer.CustomerConcurrencyLimiter.Priority;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MutableHttpResponse;
+import io.micronaut.http.filter.ServerFilterChain;
+import io.reactivex.Flowable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CustomerConcurrencyLimitFilterTest extends BaseTest {
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    @Mock
+    private CustomerConcurrencyLimiter customerConcurrencyLimiter_mock;
+
+    @Mock
+    private HttpRequest<Object> request_mock;
+
+    @Mock
+    private HttpHeaders headers_mock;
+
+    @Mock
+    private ServerFilterChain chain_mock;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    /**
+     * Class under test
+     */
+    private CustomerConcurrencyLimitFilter customerConcurrencyLimitFilter;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- TEST METHODS --------------------------------------------------
+
+    @BeforeEach
+    public void setup() {
+        super.setup();
+        customerConcurrencyLimitFilter = new CustomerConcurrencyLimitFilter(customerConcurrencyLimiter_mock,
+                "X-Caller-Priority");
+
+        doReturn("/v1/customers/1").when(request_mock).getPath();
+        doReturn(headers_mock).when(request_mock).getHeaders();
+        doReturn(Flowable.just(HttpResponse.ok())).when(chain_mock).proceed(any());
+    }
+
+    /**
+     * GIVEN a request with no priority header, and a permit available
+     * WHEN the request is filtered
+     * THEN it should be handled as a NORMAL request
+     * AND the permit should be released once the response has been sent.
+     */
+    @Test
+    void doFilter_admitted() {
+
+        // GIVEN a request with no priority header, and a permit available
+        doReturn(true).when(customerConcurrencyLimiter_mock).tryAcquire(Priority.NORMAL);
+
+        // WHEN the request is filtered
+        MutableHttpResponse<?> response = Flowable.fromPublisher(
+                customerConcurrencyLimitFilter.doFilter(request_mock, chain_mock)).blockingFirst();
+
+        // THEN it should be handled as a NORMAL request
+        assertEquals(HttpStatus.OK, response.getStatus());
+        verify(chain_mock).proceed(request_mock);
+
+        // AND the permit should be released once the response has been sent.
+        verify(customerConcurrencyLimiter_mock).release();
+    }
+
+    /**
+     * GIVEN a SHEDDABLE request and a CRITICAL request, and no permits available
+     * WHEN the requests are filtered
+     * THEN the SHEDDABLE request should be turned away with a 429 - TOO MANY REQUESTS
+     * AND the CRITICAL request should be turned away with a 503 - SERVICE UNAVAILABLE
+     * AND neither request should be handled.
+     */
+    @Test
+    void doFilter_rejected() {
+
+        // GIVEN a SHEDDABLE request and a CRITICAL request, and no permits available
+        doReturn(false).when(customerConcurrencyLimiter_mock).tryAcquire(any());
+
+        // WHEN the requests are filtered
+        doReturn("sheddable").when(headers_mock).get("X-Caller-Priority");
+        MutableHttpResponse<?> sheddableResponse = Flowable.fromPublisher(
+                customerConcurrencyLimitFilter.doFilter(request_mock, chain_mock)).blockingFirst();
+        doReturn("CRITICAL").when(headers_mock).get("X-Caller-Priority");
+        MutableHttpResponse<?> criticalResponse = Flowable.fromPublisher(
+                customerConcurrencyLimitFilter.doFilter(request_mock, chain_mock)).blockingFirst();
+
+        // THEN the SHEDDABLE request should be turned away with a 429 - TOO MANY REQUESTS
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, sheddableResponse.getStatus());
+        assertEquals("1", sheddableResponse.getHeaders().get(HttpHeaders.RETRY_AFTER));
+        verify(customerConcurrencyLimiter_mock).tryAcquire(Priority.SHEDDABLE);
+
+        // AND the CRITICAL request should be turned away with a 503 - SERVICE UNAVAILABLE
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, criticalResponse.getStatus());
+        verify(customerConcurrencyLimiter_mock).tryAcquire(Priority.CRITICAL);
+
+        // AND neither request should be handled.
+        verifyZeroInteractions(chain_mock);
+        verify(customerConcurrencyLimiter_mock, never()).release();
+    }
+
+    /**
+     * GIVEN a bulk import request, and no permits available
+     * WHEN the request is filtered
+     * THEN it should be handled without a permit.
+     */
+    @Test
+    void doFilter_importNotLimited() {
+
+        // GIVEN a bulk import request, and no permits available
+        doReturn("/v1/customers/import").when(request_mock).getPath();
+        doReturn(false).when(customerConcurrencyLimiter_mock).tryAcquire(any());
+
+        // WHEN the request is filtered
+        MutableHttpResponse<?> response = Flowable.fromPublisher(
+                customerConcurrencyLimitFilter.doFilter(request_mock, chain_mock)).blockingFirst();
+
+        // THEN it should be handled without a permit.
+        assertEquals(HttpStatus.OK, response.getStatus());
+        verify(chain_mock).proceed(request_mock);
+        verifyZeroInteractions(customerConcurrencyLimiter_mock);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
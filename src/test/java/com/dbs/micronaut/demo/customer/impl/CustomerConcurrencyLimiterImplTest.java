@@ -0,0 +1,113 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.BaseTest;
+import com.dbs.micronaut.demo.customer.CustomerConcurrencyLimiter.Priority;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerConcurrencyLimiterImplTest extends BaseTest {
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    /**
+     * Class under test
+     */
+    private CustomerConcurrencyLimiterImpl customerConcurrencyLimiter;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- TEST METHODS --------------------------------------------------
+
+    @BeforeEach
+    public void setup() {
+        super.setup();
+        customerConcurrencyLimiter = new CustomerConcurrencyLimiterImpl(20, 4, 200, 0.2);
+    }
+
+    /**
+     * GIVEN a limiter with a limit of 20
+     * WHEN more requests of each priority are started than the limit allows
+     * THEN SHEDDABLE requests should be turned away once half the limit is in use
+     * AND NORMAL requests should be turned away once 90% of the limit is in use
+     * AND CRITICAL requests should be turned away once the whole limit is in use
+     * AND a released permit should be available again.
+     */
+    @Test
+    void tryAcquire_priorityShares() {
+
+        // GIVEN a limiter with a limit of 20
+        assertEquals(20, customerConcurrencyLimiter.getLimit());
+
+        // WHEN more requests of each priority are started than the limit allows
+        // THEN SHEDDABLE requests should be turned away once half the limit is in use
+        assertEquals(10, acquireAll(Priority.SHEDDABLE));
+
+        // AND NORMAL requests should be turned away once 90% of the limit is in use
+        assertEquals(8, acquireAll(Priority.NORMAL));
+
+        // AND CRITICAL requests should be turned away once the whole limit is in use
+        assertEquals(2, acquireAll(Priority.CRITICAL));
+        assertEquals(20, customerConcurrencyLimiter.getInFlight());
+        assertEquals(1, customerConcurrencyLimiter.getRejections(Priority.CRITICAL));
+
+        // AND a released permit should be available again.
+        customerConcurrencyLimiter.release();
+        assertTrue(customerConcurrencyLimiter.tryAcquire(Priority.CRITICAL));
+    }
+
+    /**
+     * GIVEN a busy limiter and a database answering at a steady latency
+     * WHEN the database gets ten times slower
+     * THEN the limit should shrink, but never below the minimum
+     * AND when the database recovers, the limit should grow again.
+     */
+    @Test
+    void recordLatency_adaptsToDatabase() {
+
+        // GIVEN a busy limiter and a database answering at a steady latency
+        acquireAll(Priority.CRITICAL);
+        record(TimeUnit.MILLISECONDS.toNanos(2), 200);
+        int steadyLimit = customerConcurrencyLimiter.getLimit();
+        assertTrue(steadyLimit > 20);
+
+        // WHEN the database gets ten times slower
+        record(TimeUnit.MILLISECONDS.toNanos(20), 200);
+
+        // THEN the limit should shrink, but never below the minimum
+        int slowLimit = customerConcurrencyLimiter.getLimit();
+        assertTrue(slowLimit < steadyLimit);
+        assertTrue(slowLimit >= 4);
+
+        // AND when the database recovers, the limit should grow again.
+        acquireAll(Priority.CRITICAL);
+        record(TimeUnit.MILLISECONDS.toNanos(2), 200);
+        assertTrue(customerConcurrencyLimiter.getLimit() > slowLimit);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    /**
+     * Start requests of the given priority until one is turned away, and return how many were started.
+     */
+    private int acquireAll(Priority priority) {
+        int acquired = 0;
+        while (customerConcurrencyLimiter.tryAcquire(priority)) {
+            acquired++;
+        }
+        return acquired;
+    }
+
+    private void record(long latencyNanos, int samples) {
+        for (int i = 0; i < samples; i++) {
+            customerConcurrencyLimiter.recordLatency(latencyNanos);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -3,21 +3,34 @@ package com.dbs.micronaut.demo.customer.impl;
 import com.dbs.micronaut.demo.BaseTest;
 import com.dbs.micronaut.demo.customer.CustomerService;
 import com.dbs.micronaut.demo.customer.CustomerTranslator;
+import com.dbs.micronaut.demo.customer.OrderService;
+import com.dbs.micronaut.demo.customer.contract.CustomerChangeDTO;
 import com.dbs.micronaut.demo.customer.contract.CustomerDTO;
 import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.dbs.micronaut.demo.customer.entity.CustomerOrderSummary;
+import com.dbs.micronaut.demo.customer.event.EntityChangeEvent;
+import com.dbs.micronaut.demo.customer.event.EntityChangeEvent.ChangeType;
 import com.dbs.micronaut.demo.exception.BusinessException;
+import io.micronaut.core.type.Argument;
 import io.micronaut.http.HttpRequest;
 import io.micronaut.http.HttpResponse;
 import io.micronaut.http.HttpStatus;
 import io.micronaut.http.client.RxHttpClient;
 import io.micronaut.http.client.annotation.Client;
 import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.micronaut.http.client.sse.RxSseClient;
+import io.micronaut.http.sse.Event;
 import io.micronaut.test.annotation.MicronautTest;
 import io.micronaut.test.annotation.MockBean;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import javax.inject.Inject;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -40,6 +53,17 @@ public class CustomerControllerImplTest extends BaseTest {
         return spy(new CustomerTranslatorImpl());
     }
 
+    @Inject
+    private OrderService orderService_mock;
+
+    @MockBean(OrderServiceImpl.class)
+    protected OrderService orderService() {
+        return mock(OrderService.class);
+    }
+
+    @Inject
+    private CustomerChangeLogImpl customerChangeLog;
+
     // -----------------------------------------------------------------------------------------------------------------
 
     // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
@@ -50,7 +74,23 @@ public class CustomerControllerImplTest extends BaseTest {
     private static final String V1_GET_CUSTOMER_URI = "/v1/customers/%s";
 
     /**
-     * The Micronaut client that will be used to connect to the server
+     * The URI for retrieving a batch of customers
+     */
+    private static final String V1_GET_CUSTOMERS_URI = "/v1/customers?ids=%s";
+
+    /**
+     * The URI for searching for customers by name
+     */
+    private static final String V1_SEARCH_CUSTOMERS_URI = "/v1/customers/search?q=%s";
+
+    /**
+     * The URI for streaming customer changes
+     */
+    private static final String V1_GET_CUSTOMER_CHANGES_URI = "/v1/customers/changes?since=%s";
+
+    /**
+     * The Micronaut client that will be used to connect to the server (it can also read Server-Sent Events, as an
+     * RxSseClient)
      */
     @Inject
     @Client("/")
@@ -91,7 +131,10 @@ public class CustomerControllerImplTest extends BaseTest {
         CustomerDTO actualCustomerDto = response.body();
         assertEquals(expectedCustomer.getCustomerId(), actualCustomerDto.getId());
         assertEquals(expectedCustomer.getFullName(), actualCustomerDto.getFullName());
-        assertTrue(expectedCustomer.getLastReadTimestamp().isEqual(actualCustomerDto.getLastReadTimestamp()));
+
+        // The JSON only carries microseconds (the clock of some platforms has nanoseconds)
+        assertEquals(expectedCustomer.getLastReadTimestamp().truncatedTo(ChronoUnit.MICROS),
+                actualCustomerDto.getLastReadTimestamp());
     }
 
     /**
@@ -147,5 +190,212 @@ public class CustomerControllerImplTest extends BaseTest {
         verify(customerService_mock).getCustomer(customerId);
     }
 
+    /**
+     * GIVEN valid customer IDs and customers with some of those IDs are in the system
+     * WHEN the GET customers API endpoint is called
+     * THEN the Customers that were found should be returned, in the order they were asked for.
+     */
+    @Test
+    void getCustomers_success() throws BusinessException {
+
+        // GIVEN valid customer IDs and customers with some of those IDs are in the system
+        Customer firstCustomer = podamFactory.manufacturePojo(Customer.class);
+        firstCustomer.setCustomerId(7);
+        Customer secondCustomer = podamFactory.manufacturePojo(Customer.class);
+        secondCustomer.setCustomerId(3);
+        IntObjectMap<Customer> customers = new IntObjectHashMap<>();
+        customers.put(7, firstCustomer);
+        customers.put(3, secondCustomer);
+
+        // Mock dependencies
+        doReturn(customers).when(customerService_mock).getCustomers(new int[]{7, 5, 3});
+
+        // WHEN the GET customers API endpoint is called
+        HttpResponse<List<CustomerDTO>> response = client.toBlocking().exchange(
+                HttpRequest.GET(String.format(V1_GET_CUSTOMERS_URI, "7,5,3")), Argument.listOf(CustomerDTO.class));
+        assertEquals(response.getStatus(), HttpStatus.OK);
+
+        // THEN the Customers that were found should be returned, in the order they were asked for.
+        List<CustomerDTO> actualCustomerDtos = response.body();
+        assertEquals(2, actualCustomerDtos.size());
+        assertEquals(firstCustomer.getCustomerId(), actualCustomerDtos.get(0).getId());
+        assertEquals(secondCustomer.getCustomerId(), actualCustomerDtos.get(1).getId());
+    }
+
+    /**
+     * GIVEN customers in the system, one of them with Orders
+     * WHEN the GET customers API endpoint is called with orderSummary=true
+     * THEN the Customers should be returned with their order counts and latest order numbers.
+     */
+    @Test
+    void getCustomers_orderSummary() throws BusinessException {
+
+        // GIVEN customers in the system, one of them with Orders
+        Customer firstCustomer = podamFactory.manufacturePojo(Customer.class);
+        firstCustomer.setCustomerId(8);
+        Customer secondCustomer = podamFactory.manufacturePojo(Customer.class);
+        secondCustomer.setCustomerId(9);
+        IntObjectMap<Customer> customers = new IntObjectHashMap<>();
+        customers.put(8, firstCustomer);
+        customers.put(9, secondCustomer);
+        CustomerOrderSummary summary = new CustomerOrderSummary();
+        summary.setCustomerId(8);
+        summary.setOrderCount(3);
+        summary.setLatestOrderNumber("ORDER-3");
+        IntObjectMap<CustomerOrderSummary> summaries = new IntObjectHashMap<>();
+        summaries.put(8, summary);
+
+        // Mock dependencies
+        doReturn(customers).when(customerService_mock).getCustomers(new int[]{8, 9});
+        doReturn(summaries).when(orderService_mock).getCustomerOrderSummaries(new int[]{8, 9});
+
+        // WHEN the GET customers API endpoint is called with orderSummary=true
+        HttpResponse<List<CustomerDTO>> response = client.toBlocking().exchange(
+                HttpRequest.GET(String.format(V1_GET_CUSTOMERS_URI, "8,9") + "&orderSummary=true"),
+                Argument.listOf(CustomerDTO.class));
+        assertEquals(response.getStatus(), HttpStatus.OK);
+
+        // THEN the Customers should be returned with their order counts and latest order numbers.
+        List<CustomerDTO> actualCustomerDtos = response.body();
+        assertEquals(Integer.valueOf(3), actualCustomerDtos.get(0).getOrderCount());
+        assertEquals("ORDER-3", actualCustomerDtos.get(0).getLatestOrderNumber());
+        assertEquals(Integer.valueOf(0), actualCustomerDtos.get(1).getOrderCount());
+        assertNull(actualCustomerDtos.get(1).getLatestOrderNumber());
+    }
+
+    /**
+     * GIVEN a customer ID that is not a number
+     * WHEN the GET customers API endpoint is called
+     * THEN a BAD REQUEST status should be returned.
+     */
+    @Test
+    void getCustomers_notANumber() {
+
+        // GIVEN a customer ID that is not a number
+        String customerIds = "1,x";
+
+        // WHEN the GET customers API endpoint is called
+        HttpClientResponseException ex = assertThrows(HttpClientResponseException.class, () -> client.toBlocking()
+                .exchange(HttpRequest.GET(String.format(V1_GET_CUSTOMERS_URI, customerIds)), Argument.listOf(CustomerDTO.class)));
+
+        // THEN a BAD REQUEST status should be returned.
+        assertEquals(ex.getStatus(), HttpStatus.BAD_REQUEST);
+        assertEquals(ex.getMessage(), String.format(CustomerService.INVALID_CUSTOMER_ID, "x"));
+        verifyZeroInteractions(customerService_mock);
+    }
+
+    /**
+     * GIVEN a customer in the system
+     * WHEN the PUT customer API endpoint is called with a new full name
+     * THEN the changed Customer should be returned.
+     */
+    @Test
+    void updateCustomer_success() throws BusinessException {
+
+        // GIVEN a customer in the system
+        Customer updatedCustomer = podamFactory.manufacturePojo(Customer.class);
+        Integer customerId = Math.abs(updatedCustomer.getCustomerId()) + 1;
+        updatedCustomer.setCustomerId(customerId);
+        CustomerDTO customerDto = new CustomerDTO();
+        customerDto.setFullName(updatedCustomer.getFullName());
+
+        // Mock dependencies
+        doReturn(updatedCustomer).when(customerService_mock).updateCustomer(customerId, updatedCustomer.getFullName());
+
+        // WHEN the PUT customer API endpoint is called with a new full name
+        HttpResponse<CustomerDTO> response = client.toBlocking().exchange(
+                HttpRequest.PUT(String.format(V1_GET_CUSTOMER_URI, customerId), customerDto), CustomerDTO.class);
+        assertEquals(response.getStatus(), HttpStatus.OK);
+
+        // THEN the changed Customer should be returned.
+        assertEquals(customerId, response.body().getId());
+        assertEquals(updatedCustomer.getFullName(), response.body().getFullName());
+    }
+
+    /**
+     * GIVEN customers whose names match a search query are in the system
+     * WHEN the search customers API endpoint is called
+     * THEN the matching Customers should be returned, best matches first.
+     */
+    @Test
+    void searchCustomers_success() throws BusinessException {
+
+        // GIVEN customers whose names match a search query are in the system
+        Customer firstCustomer = podamFactory.manufacturePojo(Customer.class);
+        Customer secondCustomer = podamFactory.manufacturePojo(Customer.class);
+
+        // Mock dependencies
+        doReturn(List.of(firstCustomer, secondCustomer)).when(customerService_mock)
+                .searchCustomers("john smi", CustomerService.DEFAULT_SEARCH_RESULTS);
+
+        // WHEN the search customers API endpoint is called
+        HttpResponse<List<CustomerDTO>> response = client.toBlocking().exchange(
+                HttpRequest.GET(String.format(V1_SEARCH_CUSTOMERS_URI, "john+smi")), Argument.listOf(CustomerDTO.class));
+        assertEquals(response.getStatus(), HttpStatus.OK);
+
+        // THEN the matching Customers should be returned, best matches first.
+        List<CustomerDTO> actualCustomerDtos = response.body();
+        assertEquals(2, actualCustomerDtos.size());
+        assertEquals(firstCustomer.getCustomerId(), actualCustomerDtos.get(0).getId());
+        assertEquals(secondCustomer.getCustomerId(), actualCustomerDtos.get(1).getId());
+    }
+
+    /**
+     * GIVEN a client that has seen every customer change so far
+     * WHEN a Customer is updated and then deleted
+     * AND the client resumes the customer change stream
+     * THEN the update and the delete should be streamed, in order, with their offsets as event IDs.
+     */
+    @Test
+    void getCustomerChanges_resume() {
+
+        // GIVEN a client that has seen every customer change so far
+        long lastSeenOffset = customerChangeLog.getNextOffset() - 1;
+
+        // WHEN a Customer is updated and then deleted
+        Customer customer = podamFactory.manufacturePojo(Customer.class);
+        customerChangeLog.onEntityChange(new EntityChangeEvent(customer, ChangeType.UPDATED));
+        customerChangeLog.onEntityChange(new EntityChangeEvent(customer, ChangeType.DELETED));
+
+        // AND the client resumes the customer change stream
+        List<Event<CustomerChangeDTO>> events = ((RxSseClient) client)
+                .eventStream(HttpRequest.GET(String.format(V1_GET_CUSTOMER_CHANGES_URI, lastSeenOffset)),
+                        CustomerChangeDTO.class)
+                .take(2)
+                .timeout(10, TimeUnit.SECONDS)
+                .toList()
+                .blockingGet();
+
+        // THEN the update and the delete should be streamed, in order, with their offsets as event IDs.
+        assertEquals(String.valueOf(lastSeenOffset + 1), events.get(0).getId());
+        assertEquals("UPDATED", events.get(0).getData().getChangeType());
+        assertEquals(customer.getCustomerId(), events.get(0).getData().getCustomerId());
+        assertEquals(String.valueOf(lastSeenOffset + 2), events.get(1).getId());
+        assertEquals("DELETED", events.get(1).getData().getChangeType());
+    }
+
+    /**
+     * GIVEN a client resuming from an offset that the change log doesn't have
+     * WHEN the client resumes the customer change stream
+     * THEN a RESET event should be streamed first.
+     */
+    @Test
+    void getCustomerChanges_missedChanges() {
+
+        // GIVEN a client resuming from an offset that the change log doesn't have
+        long unknownOffset = customerChangeLog.getNextOffset() + 1000;
+
+        // WHEN the client resumes the customer change stream
+        Event<CustomerChangeDTO> event = ((RxSseClient) client)
+                .eventStream(HttpRequest.GET(String.format(V1_GET_CUSTOMER_CHANGES_URI, unknownOffset)),
+                        CustomerChangeDTO.class)
+                .timeout(10, TimeUnit.SECONDS)
+                .blockingFirst();
+
+        // THEN a RESET event should be streamed first.
+        assertEquals("reset", event.getName());
+        assertEquals("RESET", event.getData().getChangeType());
+    }
+
     // -----------------------------------------------------------------------------------------------------------------
 }
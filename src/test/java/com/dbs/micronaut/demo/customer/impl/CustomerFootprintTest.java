@@ -0,0 +1,181 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.BaseTest;
+import com.dbs.micronaut.demo.customer.contract.CustomerDTO;
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.dbs.micronaut.demo.customer.entity.StreetAddressConverter;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Allocation budgets for looking up a Customer.
+ * <p>
+ * DEVELOPER NOTE: Every lookup allocates a Customer and a CustomerDTO (and whatever those drag along), so every byte
+ * added to them is multiplied by the request rate. These tests measure the bytes allocated by the current thread (as
+ * reported by the JVM, the same number the JMH gc profiler reports as gc.alloc.rate.norm), and fail when a lookup
+ * allocates more than its budget. The budgets leave a little room for JVMs with larger object headers; if a change
+ * really needs to exceed one, raise it deliberately, and look for "Allocated" in the test output to see by how much.
+ */
+@Slf4j
+class CustomerFootprintTest extends BaseTest {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    /**
+     * Bytes allowed for a Customer as the repositories build it (the Customer and its last read timestamp).
+     */
+    private static final long CUSTOMER_BUDGET = 64;
+
+    /**
+     * Bytes allowed for translating a Customer without Orders to a CustomerDTO.
+     */
+    private static final long CONTRACT_BUDGET = 48;
+
+    private static final int ITERATIONS = 100_000;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    /**
+     * Class under test
+     */
+    private CustomerTranslatorImpl customerTranslator;
+
+    /**
+     * Keeps the JIT from optimizing away what's measured.
+     */
+    private Object sink;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- TEST METHODS --------------------------------------------------
+
+    @BeforeEach
+    void beforeEach() {
+        super.setup();
+        customerTranslator = new CustomerTranslatorImpl();
+    }
+
+    /**
+     * GIVEN a Customer row read from the database
+     * WHEN a Customer is built from it, the way the repositories do
+     * THEN it should allocate no more than the budget.
+     */
+    @Test
+    void newCustomer_withinBudget() {
+
+        // GIVEN a Customer row read from the database
+        Integer customerId = 123_456;
+        String fullName = "Zoë Ångström";
+        String streetAddress = "1 Main Street";
+
+        // WHEN a Customer is built from it, the way the repositories do
+        long bytes = allocatedBytesPerIteration(() -> sink = customer(customerId, fullName, streetAddress));
+
+        // THEN it should allocate no more than the budget.
+        log.info("Allocated {} bytes per Customer", bytes);
+        assertTrue(bytes <= CUSTOMER_BUDGET, "Allocated " + bytes + " bytes per Customer");
+    }
+
+    /**
+     * GIVEN a Customer without Orders
+     * WHEN it is translated to a CustomerDTO
+     * THEN it should allocate no more than the budget.
+     */
+    @Test
+    void toContract_withinBudget() {
+
+        // GIVEN a Customer without Orders
+        Customer customer = customer(123_456, "Zoë Ångström", "1 Main Street");
+
+        // WHEN it is translated to a CustomerDTO
+        long bytes = allocatedBytesPerIteration(() -> sink = customerTranslator.toContract(customer));
+
+        // THEN it should allocate no more than the budget.
+        log.info("Allocated {} bytes per CustomerDTO", bytes);
+        assertTrue(bytes <= CONTRACT_BUDGET, "Allocated " + bytes + " bytes per CustomerDTO");
+    }
+
+    /**
+     * GIVEN a new Customer and a new CustomerDTO
+     * WHEN their (empty) Orders and order numbers are read
+     * THEN the Customer should have no Set of Orders (rather than a new one) and the CustomerDTO should have the shared
+     * empty List of order numbers.
+     */
+    @Test
+    void emptyCollections_shared() {
+
+        // GIVEN a new Customer and a new CustomerDTO
+        Customer customer = new Customer();
+        CustomerDTO customerDto = new CustomerDTO();
+
+        // WHEN their (empty) Orders and order numbers are read
+        // THEN the Customer should have no Set of Orders (rather than a new one) and the CustomerDTO should have the
+        // shared empty List of order numbers.
+        assertNull(customer.getOrders());
+        assertSame(Collections.emptyList(), customerDto.getOrderNumbers());
+        assertNull(customerDto.getLastReadTimestamp());
+    }
+
+    /**
+     * GIVEN two equal, but separately read, street addresses
+     * WHEN they are deduplicated
+     * THEN the same String should be returned for both.
+     */
+    @Test
+    void streetAddress_deduplicated() {
+
+        // GIVEN two equal, but separately read, street addresses
+        String first = new String("42 Shared Street".toCharArray());
+        String second = new String("42 Shared Street".toCharArray());
+
+        // WHEN they are deduplicated
+        String firstShared = StreetAddressConverter.deduplicate(first);
+        String secondShared = StreetAddressConverter.deduplicate(second);
+
+        // THEN the same String should be returned for both.
+        assertSame(firstShared, secondShared);
+        assertEquals("42 Shared Street", secondShared);
+        assertNull(StreetAddressConverter.deduplicate(null));
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    /**
+     * Return the average number of bytes allocated by the current thread by one run of the given code, once warmed up.
+     */
+    private static long allocatedBytesPerIteration(Runnable code) {
+        com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < ITERATIONS; i++) {
+            code.run();
+        }
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            code.run();
+        }
+        return (threadMXBean.getThreadAllocatedBytes(threadId) - before) / ITERATIONS;
+    }
+
+    private static Customer customer(Integer customerId, String fullName, String streetAddress) {
+        Customer customer = new Customer();
+        customer.setCustomerId(customerId);
+        customer.setFullName(fullName);
+        customer.setStreetAddress(streetAddress);
+        customer.setLastReadTimestamp(Instant.now());
+        return customer;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,120 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.BaseTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerHotKeyTrackerImplTest extends BaseTest {
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    /**
+     * Class under test
+     */
+    private CustomerHotKeyTrackerImpl customerHotKeyTracker;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- TEST METHODS --------------------------------------------------
+
+    @BeforeEach
+    public void setup() {
+        super.setup();
+
+        // A small hot set of 3 customer IDs that must be read at least 10 times to become hot
+        customerHotKeyTracker = new CustomerHotKeyTrackerImpl(1024, 3, 10);
+    }
+
+    /**
+     * GIVEN skewed traffic where a few customers receive most of the reads
+     * WHEN the reads are recorded
+     * THEN the most frequently read customers should be hot
+     * AND the rarely read customers should not be hot
+     * AND the hot customers should be ordered hottest first.
+     */
+    @Test
+    void recordRead_skewedTraffic() {
+
+        // GIVEN skewed traffic where a few customers receive most of the reads
+        // WHEN the reads are recorded
+        for (int i = 0; i < 100; i++) {
+            customerHotKeyTracker.recordRead(1);
+            if (i % 2 == 0) {
+                customerHotKeyTracker.recordRead(2);
+            }
+            if (i % 4 == 0) {
+                customerHotKeyTracker.recordRead(3);
+            }
+            customerHotKeyTracker.recordRead(1000 + i);
+        }
+
+        // THEN the most frequently read customers should be hot
+        assertTrue(customerHotKeyTracker.isHot(1));
+        assertTrue(customerHotKeyTracker.isHot(2));
+        assertTrue(customerHotKeyTracker.isHot(3));
+
+        // AND the rarely read customers should not be hot
+        assertFalse(customerHotKeyTracker.isHot(1000));
+
+        // AND the hot customers should be ordered hottest first.
+        Map<Integer, Long> hotCustomerIds = customerHotKeyTracker.getHotCustomerIds();
+        assertEquals(List.of(1, 2, 3), new ArrayList<>(hotCustomerIds.keySet()));
+        assertTrue(hotCustomerIds.get(1) >= 100);
+    }
+
+    /**
+     * GIVEN a full hot set
+     * WHEN a customer becomes hotter than the coldest hot customer
+     * THEN it should replace the coldest hot customer.
+     */
+    @Test
+    void recordRead_replacesColdest() {
+
+        // GIVEN a full hot set
+        for (int customerId = 1; customerId <= 3; customerId++) {
+            for (int i = 0; i < 10 * customerId; i++) {
+                customerHotKeyTracker.recordRead(customerId);
+            }
+        }
+
+        // WHEN a customer becomes hotter than the coldest hot customer
+        for (int i = 0; i < 50; i++) {
+            customerHotKeyTracker.recordRead(4);
+        }
+
+        // THEN it should replace the coldest hot customer.
+        assertTrue(customerHotKeyTracker.isHot(4));
+        assertFalse(customerHotKeyTracker.isHot(1));
+        assertEquals(3, customerHotKeyTracker.getHotCustomerIds().size());
+    }
+
+    /**
+     * GIVEN a hot customer
+     * WHEN the customer is no longer read and the counters decay
+     * THEN the customer should no longer be hot.
+     */
+    @Test
+    void decay_coolsOff() {
+
+        // GIVEN a hot customer
+        for (int i = 0; i < 15; i++) {
+            customerHotKeyTracker.recordRead(1);
+        }
+        assertTrue(customerHotKeyTracker.isHot(1));
+
+        // WHEN the customer is no longer read and the counters decay
+        customerHotKeyTracker.decay();
+
+        // THEN the customer should no longer be hot.
+        assertFalse(customerHotKeyTracker.isHot(1));
+        assertTrue(customerHotKeyTracker.getHotCustomerIds().isEmpty());
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,151 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.BaseTest;
+import com.dbs.micronaut.demo.customer.CustomerRepository;
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.dbs.micronaut.demo.customer.event.EntityChangeEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+class CustomerIdFilterImplTest extends BaseTest {
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    @Mock
+    private CustomerRepository customerRepository_mock;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    /**
+     * Class under test
+     */
+    private CustomerIdFilterImpl customerIdFilter;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- TEST METHODS --------------------------------------------------
+
+    @BeforeEach
+    public void setup() {
+        super.setup();
+        customerIdFilter = new CustomerIdFilterImpl(customerRepository_mock, true, 10_000, 0.01);
+
+        // The repository contains the even customer IDs from 2 to 20,000
+        doAnswer(invocation -> {
+            IntStream.rangeClosed(1, 10_000).forEach(i -> ((IntConsumer) invocation.getArgument(0)).accept(i * 2));
+            return null;
+        }).when(customerRepository_mock).forEachCustomerId(any());
+    }
+
+    /**
+     * GIVEN a filter that has not been built yet
+     * WHEN any customer ID is checked
+     * THEN it might exist.
+     */
+    @Test
+    void mightContain_notBuilt() {
+        assertTrue(customerIdFilter.mightContain(1));
+        assertEquals(1.0, customerIdFilter.getFalsePositiveRate());
+    }
+
+    /**
+     * GIVEN a disabled filter
+     * WHEN it is rebuilt, and a missing customer ID is checked
+     * THEN the repository should not be read
+     * AND the missing customer ID might exist.
+     */
+    @Test
+    void mightContain_disabled() {
+
+        // GIVEN a disabled filter
+        CustomerIdFilterImpl disabledFilter = new CustomerIdFilterImpl(customerRepository_mock, false, 10_000, 0.01);
+
+        // WHEN it is rebuilt, and a missing customer ID is checked
+        disabledFilter.rebuild();
+
+        // THEN the repository should not be read
+        verifyZeroInteractions(customerRepository_mock);
+
+        // AND the missing customer ID might exist.
+        assertTrue(disabledFilter.mightContain(1));
+    }
+
+    /**
+     * GIVEN a filter built from the repository
+     * WHEN customer IDs are checked
+     * THEN every existing customer ID might exist
+     * AND almost every missing customer ID should definitely not exist.
+     */
+    @Test
+    void mightContain_built() {
+
+        // GIVEN a filter built from the repository
+        customerIdFilter.rebuild();
+
+        // WHEN customer IDs are checked
+        // THEN every existing customer ID might exist
+        for (int i = 1; i <= 10_000; i++) {
+            assertTrue(customerIdFilter.mightContain(i * 2));
+        }
+
+        // AND almost every missing customer ID should definitely not exist.
+        long falsePositives = IntStream.rangeClosed(1, 10_000).filter(i -> customerIdFilter.mightContain(i * 2 + 1)).count();
+        assertTrue(falsePositives < 300, "Too many false positives: " + falsePositives);
+        assertEquals(10_000 - falsePositives, customerIdFilter.getDefiniteMisses());
+        assertTrue(customerIdFilter.getFalsePositiveRate() < 0.03);
+        assertTrue(customerIdFilter.getMemoryBytes() < 16 * 1024);
+    }
+
+    /**
+     * GIVEN a built filter
+     * WHEN a new Customer is committed to the database
+     * THEN its ID might exist.
+     */
+    @Test
+    void onEntityChange_customerCreated() {
+
+        // GIVEN a built filter
+        customerIdFilter.rebuild();
+        assertFalse(customerIdFilter.mightContain(3));
+
+        // WHEN a new Customer is committed to the database
+        Customer customer = new Customer();
+        customer.setCustomerId(3);
+        customerIdFilter.onEntityChange(new EntityChangeEvent(customer, EntityChangeEvent.ChangeType.CREATED));
+
+        // THEN its ID might exist.
+        assertTrue(customerIdFilter.mightContain(3));
+    }
+
+    /**
+     * GIVEN a filter that cannot be built because the repository is failing
+     * WHEN the filter is rebuilt
+     * THEN every customer ID might still exist.
+     */
+    @Test
+    void rebuild_failure() {
+
+        // GIVEN a filter that cannot be built because the repository is failing
+        doThrow(new IllegalStateException()).when(customerRepository_mock).forEachCustomerId(any());
+
+        // WHEN the filter is rebuilt
+        customerIdFilter.rebuild();
+
+        // THEN every customer ID might still exist.
+        assertTrue(customerIdFilter.mightContain(3));
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,92 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.BaseTest;
+import com.dbs.micronaut.demo.customer.contract.CustomerDTO;
+import com.dbs.micronaut.demo.customer.contract.CustomerImportReportDTO;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.client.RxHttpClient;
+import io.micronaut.http.client.annotation.Client;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.micronaut.http.client.multipart.MultipartBody;
+import io.micronaut.test.annotation.MicronautTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DEVELOPER NOTE: The "import" environment (see application-import.yml in the test resources) limits every request to
+ * 1KB, but leaves the multipart limit at its (much larger) default.
+ */
+@MicronautTest(environments = "import")
+class CustomerImportContentSubscriberFactoryTest extends BaseTest {
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    @Inject
+    @Client("/")
+    private RxHttpClient client;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- TEST METHODS --------------------------------------------------
+
+    @BeforeEach
+    void beforeEach() {
+        super.setup();
+    }
+
+    /**
+     * GIVEN a CSV file larger than the request size limit
+     * WHEN it is uploaded to the import
+     * THEN every row should be imported.
+     */
+    @Test
+    void importCustomers_largerThanRequestLimit() {
+
+        // GIVEN a CSV file larger than the request size limit
+        StringBuilder csv = new StringBuilder("fullName,id\n");
+        for (int i = 100; i < 200; i++) {
+            csv.append("Imported Customer ").append(i).append(",42000").append(i).append('\n');
+        }
+        assertTrue(csv.length() > 1024);
+
+        // WHEN it is uploaded to the import
+        MultipartBody body = MultipartBody.builder()
+                .addPart("file", "customers.csv", MediaType.TEXT_PLAIN_TYPE,
+                        csv.toString().getBytes(StandardCharsets.UTF_8))
+                .build();
+        CustomerImportReportDTO report = client.toBlocking().retrieve(HttpRequest.POST("/v1/customers/import", body)
+                .contentType(MediaType.MULTIPART_FORM_DATA_TYPE), CustomerImportReportDTO.class);
+
+        // THEN every row should be imported.
+        assertEquals(100, report.getRowsImported());
+    }
+
+    /**
+     * GIVEN a Customer larger than the request size limit
+     * WHEN it is sent to any other endpoint
+     * THEN the request should be rejected as too large.
+     */
+    @Test
+    void updateCustomer_largerThanRequestLimit() {
+
+        // GIVEN a Customer larger than the request size limit
+        CustomerDTO customer = new CustomerDTO();
+        customer.setId(42_000_999);
+        customer.setFullName(new String(new char[2048]).replace('\0', 'x'));
+
+        // WHEN it is sent to any other endpoint
+        // THEN the request should be rejected as too large.
+        HttpClientResponseException e = assertThrows(HttpClientResponseException.class,
+                () -> client.toBlocking().exchange(HttpRequest.PUT("/v1/customers/42000999", customer)));
+        assertEquals(HttpStatus.REQUEST_ENTITY_TOO_LARGE, e.getStatus());
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
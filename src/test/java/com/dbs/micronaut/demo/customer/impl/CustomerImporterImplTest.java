@@ -0,0 +1,161 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.BaseTest;
+import com.dbs.micronaut.demo.customer.CustomerImporter;
+import com.dbs.micronaut.demo.customer.CustomerImporter.Format;
+import com.dbs.micronaut.demo.customer.CustomerService;
+import com.dbs.micronaut.demo.customer.contract.CustomerImportErrorDTO;
+import com.dbs.micronaut.demo.customer.contract.CustomerImportReportDTO;
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.dbs.micronaut.demo.exception.BusinessException;
+import io.micronaut.test.annotation.MicronautTest;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DEVELOPER NOTE: The "import" environment (see application-import.yml in the test resources) makes chunks and batches
+ * tiny, so that even these small files are split into several chunks, imported in parallel, in several batches.
+ */
+@MicronautTest(environments = "import")
+class CustomerImporterImplTest extends BaseTest {
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    @Inject
+    private SessionFactory sessionFactory;
+
+    @Inject
+    private CustomerService customerService;
+
+    /**
+     * Class under test
+     */
+    @Inject
+    private CustomerImporter customerImporter;
+
+    private Path file;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- TEST METHODS --------------------------------------------------
+
+    @BeforeEach
+    void beforeEach() throws Exception {
+        super.setup();
+        file = Files.createTempFile("customer-import-test", ".tmp");
+    }
+
+    @AfterEach
+    void afterEach() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * GIVEN a CSV file with valid rows, invalid rows, and a Customer that already exists
+     * WHEN the file is imported
+     * THEN the valid rows should be saved, and every other row should be reported with its line number.
+     */
+    @Test
+    void importFile_csv() throws Exception {
+
+        // GIVEN a CSV file with valid rows, invalid rows, and a Customer that already exists
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.createNativeQuery("insert into CUSTOMERS (CUST_ID, CUST_FULL_NAME) values (41000001, 'Existing')")
+                    .executeUpdate();
+            session.getTransaction().commit();
+        }
+        StringBuilder csv = new StringBuilder("fullName,id,lastReadTimestamp\r\n")
+                .append("\"Bob \"\"Bobby\"\" Jones, Jr.\",41000002,2019-01-01T00:00:00Z\r\n")
+                .append("\r\n")
+                .append("Carl,-5,\r\n")
+                .append("Dora,abc,\r\n")
+                .append("Ed,41000001,\r\n")
+                .append("\"Fay,41000003,\r\n");
+        for (int i = 10; i < 30; i++) {
+            csv.append("Customer ").append(i).append(",410000").append(i).append(",\r\n");
+        }
+        Files.write(file, csv.toString().getBytes(StandardCharsets.UTF_8));
+
+        // WHEN the file is imported
+        CustomerImportReportDTO report = customerImporter.importFile(file, Format.CSV);
+
+        // THEN the valid rows should be saved, and every other row should be reported with its line number.
+        assertEquals("csv", report.getFormat());
+        assertEquals(25, report.getRowsRead());
+        assertEquals(21, report.getRowsImported());
+        assertEquals(4, report.getRowsFailed());
+        assertTrue(report.getChunks() > 1);
+        List<Long> errorLines = report.getErrors().stream().map(CustomerImportErrorDTO::getLine)
+                .collect(Collectors.toList());
+        assertEquals(Arrays.asList(4L, 5L, 6L, 7L), errorLines);
+        assertTrue(report.getErrors().get(2).getMessage().contains("41000001"));
+
+        try (Session session = sessionFactory.openSession()) {
+            assertEquals("Bob \"Bobby\" Jones, Jr.", session.get(Customer.class, 41000002).getFullName());
+            assertEquals("Customer 29", session.get(Customer.class, 41000029).getFullName());
+            assertEquals("Existing", session.get(Customer.class, 41000001).getFullName());
+        }
+    }
+
+    /**
+     * GIVEN an NDJSON file with a valid row, an invalid row, and another valid row
+     * WHEN the file is imported
+     * THEN the valid rows should be found by the CustomerService, and the invalid row should be reported.
+     */
+    @Test
+    void importFile_ndjson() throws Exception {
+
+        // GIVEN an NDJSON file with a valid row, an invalid row, and another valid row
+        String ndjson = "{\"id\":41000101,\"fullName\":\"Gail\"}\n"
+                + "{\"id\":41000102,\"fullName\":\n"
+                + "{\"id\":41000103,\"fullName\":\"Hal\"}";
+        Files.write(file, ndjson.getBytes(StandardCharsets.UTF_8));
+
+        // WHEN the file is imported
+        CustomerImportReportDTO report = customerImporter.importFile(file, Format.NDJSON);
+
+        // THEN the valid rows should be found by the CustomerService, and the invalid row should be reported.
+        assertEquals(3, report.getRowsRead());
+        assertEquals(2, report.getRowsImported());
+        assertEquals(1, report.getErrors().size());
+        assertEquals(2, report.getErrors().get(0).getLine());
+        assertEquals("Gail", customerService.getCustomer(41000101).getFullName());
+        assertEquals("Hal", customerService.getCustomer(41000103).getFullName());
+        assertNull(customerService.getCustomer(41000102));
+    }
+
+    /**
+     * GIVEN a CSV file without an ID column, and a file of an unknown format
+     * WHEN they are imported
+     * THEN a BusinessException should be thrown.
+     */
+    @Test
+    void importFile_invalidFile() throws Exception {
+
+        // GIVEN a CSV file without an ID column, and a file of an unknown format
+        Files.write(file, "fullName\nIvy\n".getBytes(StandardCharsets.UTF_8));
+
+        // WHEN they are imported
+        // THEN a BusinessException should be thrown.
+        assertThrows(BusinessException.class, () -> customerImporter.importFile(file, Format.CSV));
+        assertThrows(BusinessException.class, () -> customerImporter.getFormat(null, "customers.xml"));
+        assertEquals(Format.NDJSON, customerImporter.getFormat(null, "customers.jsonl"));
+        assertEquals(Format.CSV, customerImporter.getFormat("CSV", "customers.txt"));
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
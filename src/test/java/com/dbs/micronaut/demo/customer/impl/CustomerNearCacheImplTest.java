@@ -0,0 +1,190 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.BaseTest;
+import com.dbs.micronaut.demo.customer.CustomerHotKeyTracker;
+import com.dbs.micronaut.demo.customer.CustomerRepository;
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.dbs.micronaut.demo.customer.event.EntityChangeEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CustomerNearCacheImplTest extends BaseTest {
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    @Mock
+    private CustomerRepository customerRepository_mock;
+
+    @Mock
+    private CustomerHotKeyTracker customerHotKeyTracker_mock;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    /**
+     * Class under test
+     */
+    private CustomerNearCacheImpl customerNearCache;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- TEST METHODS --------------------------------------------------
+
+    @BeforeEach
+    public void setup() {
+        super.setup();
+        customerNearCache = new CustomerNearCacheImpl(customerRepository_mock, customerHotKeyTracker_mock);
+    }
+
+    /**
+     * GIVEN a pinned Customer
+     * WHEN the Customer is requested from the cache
+     * THEN the pinned Customer should be returned.
+     */
+    @Test
+    void get_pinned() {
+
+        // GIVEN a pinned Customer
+        Customer customer = podamFactory.manufacturePojo(Customer.class);
+        customerNearCache.pin(customer);
+
+        // WHEN the Customer is requested from the cache
+        // THEN the pinned Customer should be returned.
+        assertSame(customer, customerNearCache.get(customer.getCustomerId()));
+        assertNull(customerNearCache.get(customer.getCustomerId() + 1));
+    }
+
+    /**
+     * GIVEN a pinned Customer that is still hot and a pinned Customer that has cooled off
+     * WHEN the cache is refreshed
+     * THEN the hot Customer should be re-read from the repository
+     * AND the Customer that cooled off should be un-pinned.
+     */
+    @Test
+    void refresh_rereadsHotAndUnpinsCold() {
+
+        // GIVEN a pinned Customer that is still hot and a pinned Customer that has cooled off
+        Customer hotCustomer = podamFactory.manufacturePojo(Customer.class);
+        Customer coldCustomer = podamFactory.manufacturePojo(Customer.class);
+        coldCustomer.setCustomerId(hotCustomer.getCustomerId() + 1);
+        customerNearCache.pin(hotCustomer);
+        customerNearCache.pin(coldCustomer);
+
+        Customer refreshedCustomer = podamFactory.manufacturePojo(Customer.class);
+        refreshedCustomer.setCustomerId(hotCustomer.getCustomerId());
+
+        // Mock dependencies
+        doReturn(true).when(customerHotKeyTracker_mock).isHot(hotCustomer.getCustomerId());
+        doReturn(false).when(customerHotKeyTracker_mock).isHot(coldCustomer.getCustomerId());
+        doReturn(refreshedCustomer).when(customerRepository_mock).findByIdOrNull(hotCustomer.getCustomerId());
+
+        // WHEN the cache is refreshed
+        customerNearCache.refresh();
+
+        // THEN the hot Customer should be re-read from the repository
+        assertSame(refreshedCustomer, customerNearCache.get(hotCustomer.getCustomerId()));
+
+        // AND the Customer that cooled off should be un-pinned.
+        assertNull(customerNearCache.get(coldCustomer.getCustomerId()));
+        verify(customerRepository_mock, never()).findByIdOrNull(coldCustomer.getCustomerId());
+    }
+
+    /**
+     * GIVEN a pinned hot Customer
+     * WHEN the cache is refreshed but the Customer is no longer in the repository
+     * THEN the Customer should be un-pinned.
+     */
+    @Test
+    void refresh_unpinsDeleted() {
+
+        // GIVEN a pinned hot Customer
+        Customer customer = podamFactory.manufacturePojo(Customer.class);
+        customerNearCache.pin(customer);
+
+        // Mock dependencies
+        doReturn(true).when(customerHotKeyTracker_mock).isHot(customer.getCustomerId());
+        doReturn(null).when(customerRepository_mock).findByIdOrNull(customer.getCustomerId());
+
+        // WHEN the cache is refreshed but the Customer is no longer in the repository
+        customerNearCache.refresh();
+
+        // THEN the Customer should be un-pinned.
+        assertTrue(customerNearCache.getPinnedCustomerIds().isEmpty());
+    }
+
+    /**
+     * GIVEN two pinned hot Customers
+     * WHEN one is deleted and the other updated while the cache is re-reading them
+     * THEN the deleted Customer should stay un-pinned
+     * AND the updated Customer should not be replaced by the copy read before the update.
+     */
+    @Test
+    void refresh_concurrentChangesWin() {
+
+        // GIVEN two pinned hot Customers
+        Customer deletedCustomer = podamFactory.manufacturePojo(Customer.class);
+        Customer updatedCustomer = podamFactory.manufacturePojo(Customer.class);
+        updatedCustomer.setCustomerId(deletedCustomer.getCustomerId() + 1);
+        customerNearCache.pin(deletedCustomer);
+        customerNearCache.pin(updatedCustomer);
+        doReturn(true).when(customerHotKeyTracker_mock).isHot(anyInt());
+
+        Customer changedCustomer = podamFactory.manufacturePojo(Customer.class);
+        changedCustomer.setCustomerId(updatedCustomer.getCustomerId());
+        Customer staleCustomer = podamFactory.manufacturePojo(Customer.class);
+        staleCustomer.setCustomerId(updatedCustomer.getCustomerId());
+
+        // WHEN one is deleted and the other updated while the cache is re-reading them
+        doAnswer(invocation -> {
+            customerNearCache.onEntityChange(new EntityChangeEvent(deletedCustomer,
+                    EntityChangeEvent.ChangeType.DELETED));
+            customerNearCache.onEntityChange(new EntityChangeEvent(changedCustomer,
+                    EntityChangeEvent.ChangeType.UPDATED));
+            return deletedCustomer;
+        }).when(customerRepository_mock).findByIdOrNull(deletedCustomer.getCustomerId());
+        doReturn(staleCustomer).when(customerRepository_mock).findByIdOrNull(updatedCustomer.getCustomerId());
+        customerNearCache.refresh();
+
+        // THEN the deleted Customer should stay un-pinned
+        assertNull(customerNearCache.get(deletedCustomer.getCustomerId()));
+
+        // AND the updated Customer should not be replaced by the copy read before the update.
+        assertSame(changedCustomer, customerNearCache.get(updatedCustomer.getCustomerId()));
+    }
+
+    /**
+     * GIVEN two pinned Customers
+     * WHEN one Customer is updated and the other is deleted
+     * THEN the updated Customer should replace the pinned Customer
+     * AND the deleted Customer should be un-pinned.
+     */
+    @Test
+    void onEntityChange_updatedAndDeleted() {
+
+        // GIVEN two pinned Customers
+        Customer updatedCustomer = podamFactory.manufacturePojo(Customer.class);
+        Customer deletedCustomer = podamFactory.manufacturePojo(Customer.class);
+        deletedCustomer.setCustomerId(updatedCustomer.getCustomerId() + 1);
+        customerNearCache.pin(updatedCustomer);
+        customerNearCache.pin(deletedCustomer);
+
+        // WHEN one Customer is updated and the other is deleted
+        Customer changedCustomer = podamFactory.manufacturePojo(Customer.class);
+        changedCustomer.setCustomerId(updatedCustomer.getCustomerId());
+        customerNearCache.onEntityChange(new EntityChangeEvent(changedCustomer, EntityChangeEvent.ChangeType.UPDATED));
+        customerNearCache.onEntityChange(new EntityChangeEvent(deletedCustomer, EntityChangeEvent.ChangeType.DELETED));
+
+        // THEN the updated Customer should replace the pinned Customer
+        assertSame(changedCustomer, customerNearCache.get(updatedCustomer.getCustomerId()));
+
+        // AND the deleted Customer should be un-pinned.
+        assertNull(customerNearCache.get(deletedCustomer.getCustomerId()));
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,120 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.BaseTest;
+import com.dbs.micronaut.demo.customer.CustomerNearCache;
+import com.dbs.micronaut.demo.customer.contract.CustomerDTO;
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.MutableHttpResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.io.ByteArrayInputStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CustomerPayloadCacheImplTest extends BaseTest {
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    @Mock
+    private CustomerNearCache customerNearCache_mock;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Class under test (gzipping JSON of 200 bytes or more)
+     */
+    private CustomerPayloadCacheImpl customerPayloadCache;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- TEST METHODS --------------------------------------------------
+
+    @BeforeEach
+    public void setup() {
+        super.setup();
+        customerPayloadCache = new CustomerPayloadCacheImpl(customerNearCache_mock, new CustomerTranslatorImpl(),
+                objectMapper, 200);
+    }
+
+    /**
+     * GIVEN a pinned Customer whose JSON is above the compression threshold
+     * WHEN its response is asked for twice by a client accepting gzip, and once by a client that doesn't
+     * THEN the first client should get the same gzipped JSON both times
+     * AND the second client should get the plain JSON.
+     */
+    @Test
+    void getResponse_gzipped() throws Exception {
+
+        // GIVEN a pinned Customer whose JSON is above the compression threshold
+        Customer customer = customer(1, "Customer With A Long Name ".repeat(10));
+        when(customerNearCache_mock.get(1)).thenReturn(customer);
+
+        // WHEN its response is asked for twice by a client accepting gzip, and once by a client that doesn't
+        MutableHttpResponse<byte[]> gzipped = customerPayloadCache.getResponse(customer, "deflate, gzip;q=0.8");
+        MutableHttpResponse<byte[]> gzippedAgain = customerPayloadCache.getResponse(customer, "gzip");
+        MutableHttpResponse<byte[]> plain = customerPayloadCache.getResponse(customer, "gzip;q=0, deflate");
+
+        // THEN the first client should get the same gzipped JSON both times
+        assertEquals("gzip", gzipped.getHeaders().get(HttpHeaders.CONTENT_ENCODING));
+        assertSame(gzipped.body(), gzippedAgain.body());
+        byte[] json;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.body()))) {
+            json = in.readAllBytes();
+        }
+        assertTrue(gzipped.body().length < json.length / 2);
+        assertEquals(customer.getFullName(), objectMapper.readValue(json, CustomerDTO.class).getFullName());
+
+        // AND the second client should get the plain JSON.
+        assertNull(plain.getHeaders().get(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(json, plain.body());
+    }
+
+    /**
+     * GIVEN a pinned Customer whose JSON is below the compression threshold, and a Customer that isn't pinned
+     * WHEN their responses are asked for by a client accepting gzip
+     * THEN the small Customer's JSON should not be gzipped
+     * AND the Customer that isn't pinned should be left to be serialized as usual.
+     */
+    @Test
+    void getResponse_smallOrNotPinned() throws Exception {
+
+        // GIVEN a pinned Customer whose JSON is below the compression threshold, and a Customer that isn't pinned
+        Customer small = customer(1, "Small");
+        Customer notPinned = customer(2, "Not Pinned");
+        when(customerNearCache_mock.get(1)).thenReturn(small);
+
+        // WHEN their responses are asked for by a client accepting gzip
+        MutableHttpResponse<byte[]> smallResponse = customerPayloadCache.getResponse(small, "gzip");
+        MutableHttpResponse<byte[]> notPinnedResponse = customerPayloadCache.getResponse(notPinned, "gzip");
+
+        // THEN the small Customer's JSON should not be gzipped
+        assertNull(smallResponse.getHeaders().get(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("Small", objectMapper.readValue(smallResponse.body(), CustomerDTO.class).getFullName());
+
+        // AND the Customer that isn't pinned should be left to be serialized as usual.
+        assertNull(notPinnedResponse);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    private static Customer customer(int customerId, String fullName) {
+        Customer customer = new Customer();
+        customer.setCustomerId(customerId);
+        customer.setFullName(fullName);
+        return customer;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,225 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.BaseTest;
+import com.dbs.micronaut.demo.customer.CustomerIdFilter;
+import com.dbs.micronaut.demo.customer.CustomerNearCache;
+import com.dbs.micronaut.demo.customer.RemoteCacheClient;
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.dbs.micronaut.demo.customer.event.EntityChangeEvent;
+import io.netty.util.collection.IntObjectMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CustomerRemoteCacheImplTest extends BaseTest {
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    @Mock
+    private CustomerNearCache customerNearCache1_mock;
+
+    @Mock
+    private CustomerNearCache customerNearCache2_mock;
+
+    @Mock
+    private CustomerIdFilter customerIdFilter1_mock;
+
+    @Mock
+    private CustomerIdFilter customerIdFilter2_mock;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    /**
+     * The remote cache shared by both instances
+     */
+    private InMemoryRemoteCacheClient remoteCacheClient;
+
+    /**
+     * Classes under test (one per application instance)
+     */
+    private CustomerRemoteCacheImpl customerRemoteCache1;
+    private CustomerRemoteCacheImpl customerRemoteCache2;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- TEST METHODS --------------------------------------------------
+
+    @BeforeEach
+    public void setup() {
+        super.setup();
+        remoteCacheClient = new InMemoryRemoteCacheClient(100);
+        customerRemoteCache1 = new CustomerRemoteCacheImpl(remoteCacheClient, customerNearCache1_mock,
+                customerIdFilter1_mock, true, Duration.ofMinutes(1));
+        customerRemoteCache2 = new CustomerRemoteCacheImpl(remoteCacheClient, customerNearCache2_mock,
+                customerIdFilter2_mock, true, Duration.ofMinutes(1));
+    }
+
+    /**
+     * GIVEN a Customer put in the remote cache by one instance
+     * WHEN another instance reads it, alone and in a batch
+     * THEN an equal Customer should be returned.
+     */
+    @Test
+    void get_sharedBetweenInstances() {
+
+        // GIVEN a Customer put in the remote cache by one instance
+        Customer customer = newCustomer(1);
+        customerRemoteCache1.put(customer);
+
+        // WHEN another instance reads it, alone and in a batch
+        Customer cached = customerRemoteCache2.get(1);
+        IntObjectMap<Customer> batch = customerRemoteCache2.getAll(new int[]{1, 2});
+
+        // THEN an equal Customer should be returned.
+        assertEquals(customer, cached);
+        assertEquals(1, batch.size());
+        assertEquals(customer, batch.get(1));
+        assertNull(customerRemoteCache2.get(2));
+    }
+
+    /**
+     * GIVEN a cached Customer
+     * WHEN one instance commits a change to it
+     * THEN it should be removed from the remote cache
+     * AND every other instance should evict it from its near-cache.
+     */
+    @Test
+    void onEntityChange_invalidatesEveryInstance() {
+
+        // GIVEN a cached Customer
+        Customer customer = newCustomer(1);
+        customerRemoteCache1.put(customer);
+
+        // WHEN one instance commits a change to it
+        customerRemoteCache1.onEntityChange(new EntityChangeEvent(customer, EntityChangeEvent.ChangeType.UPDATED));
+
+        // THEN it should be removed from the remote cache
+        assertNull(customerRemoteCache2.get(1));
+
+        // AND every other instance should evict it from its near-cache.
+        verify(customerNearCache2_mock).evict(1);
+        verify(customerNearCache1_mock, never()).evict(anyInt());
+    }
+
+    /**
+     * GIVEN a cached Customer
+     * WHEN one instance commits its deletion
+     * THEN every other instance should evict it from its near-cache
+     * AND no instance should add it back to its customer ID filter.
+     */
+    @Test
+    void onEntityChange_deletedNotAddedToFilters() {
+
+        // GIVEN a cached Customer
+        Customer customer = newCustomer(1);
+        customerRemoteCache1.put(customer);
+
+        // WHEN one instance commits its deletion
+        customerRemoteCache1.onEntityChange(new EntityChangeEvent(customer, EntityChangeEvent.ChangeType.DELETED));
+
+        // THEN every other instance should evict it from its near-cache
+        assertNull(customerRemoteCache2.get(1));
+        verify(customerNearCache2_mock).evict(1);
+
+        // AND no instance should add it back to its customer ID filter.
+        verify(customerIdFilter1_mock, never()).add(anyInt());
+        verify(customerIdFilter2_mock, never()).add(anyInt());
+    }
+
+    /**
+     * GIVEN a cached Customer
+     * WHEN every instance finds a change to it by polling the database
+     * THEN it should be removed from the remote cache
+     * AND no instance should be told to evict it from its near-cache.
+     */
+    @Test
+    void onEntityChange_polledNotPublished() {
+
+        // GIVEN a cached Customer
+        Customer customer = newCustomer(1);
+        customerRemoteCache1.put(customer);
+
+        // WHEN every instance finds a change to it by polling the database
+        customerRemoteCache1.onEntityChange(new EntityChangeEvent(customer, EntityChangeEvent.ChangeType.UPDATED,
+                true));
+        customerRemoteCache2.onEntityChange(new EntityChangeEvent(customer, EntityChangeEvent.ChangeType.UPDATED,
+                true));
+
+        // THEN it should be removed from the remote cache
+        assertNull(customerRemoteCache2.get(1));
+
+        // AND no instance should be told to evict it from its near-cache.
+        verify(customerNearCache1_mock, never()).evict(anyInt());
+        verify(customerNearCache2_mock, never()).evict(anyInt());
+    }
+
+    /**
+     * GIVEN a Customer that only one instance knows about
+     * WHEN that instance commits its creation
+     * THEN every other instance should add it to its customer ID filter
+     * AND no instance should evict it from its near-cache.
+     */
+    @Test
+    void onEntityChange_createdAddedToEveryFilter() {
+
+        // GIVEN a Customer that only one instance knows about
+        Customer customer = newCustomer(1);
+
+        // WHEN that instance commits its creation
+        customerRemoteCache1.onEntityChange(new EntityChangeEvent(customer, EntityChangeEvent.ChangeType.CREATED));
+
+        // THEN every other instance should add it to its customer ID filter
+        verify(customerIdFilter2_mock).add(1);
+        verify(customerIdFilter1_mock, never()).add(anyInt());
+
+        // AND no instance should evict it from its near-cache.
+        verify(customerNearCache1_mock, never()).evict(anyInt());
+        verify(customerNearCache2_mock, never()).evict(anyInt());
+    }
+
+    /**
+     * GIVEN a remote cache that can't be reached
+     * WHEN a Customer is read and written
+     * THEN the read should be a miss
+     * AND no error should reach the caller.
+     */
+    @Test
+    void get_unreachable() {
+
+        // GIVEN a remote cache that can't be reached
+        RemoteCacheClient remoteCacheClient_mock = mock(RemoteCacheClient.class);
+        doThrow(new IllegalStateException("unreachable")).when(remoteCacheClient_mock).get(anyString());
+        doThrow(new IllegalStateException("unreachable")).when(remoteCacheClient_mock)
+                .set(anyString(), any(), anyLong());
+        CustomerRemoteCacheImpl customerRemoteCache = new CustomerRemoteCacheImpl(remoteCacheClient_mock,
+                customerNearCache1_mock, customerIdFilter1_mock, true, Duration.ofMinutes(1));
+
+        // WHEN a Customer is read and written
+        // THEN the read should be a miss
+        assertNull(customerRemoteCache.get(1));
+
+        // AND no error should reach the caller.
+        customerRemoteCache.put(newCustomer(1));
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    private Customer newCustomer(int customerId) {
+        Customer customer = new Customer();
+        customer.setCustomerId(customerId);
+        customer.setFullName("Full Name " + customerId);
+        customer.setStreetAddress(customerId + " Main Street");
+        return customer;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
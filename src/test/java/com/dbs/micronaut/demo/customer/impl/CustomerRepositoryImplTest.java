@@ -4,15 +4,23 @@ import com.dbs.micronaut.demo.BaseTest;
 import com.dbs.micronaut.demo.customer.CustomerRepository;
 import com.dbs.micronaut.demo.customer.entity.Customer;
 import io.micronaut.test.annotation.MicronautTest;
+import io.netty.util.collection.IntObjectMap;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * DEVELOPER NOTES: This test class uses the @MicronautTest annotation to test the JPA-based CustomerRepositoryImpl.
@@ -38,6 +46,9 @@ class CustomerRepositoryImplTest extends BaseTest {
     @Inject
     private CustomerRepository customerRepository;
 
+    @Inject
+    private CustomerRepositoryImpl customerRepositoryImpl;
+
     // -----------------------------------------------------------------------------------------------------------------
 
     // ------------------------------------------------- TEST METHODS --------------------------------------------------
@@ -88,5 +99,98 @@ class CustomerRepositoryImplTest extends BaseTest {
         assertFalse(actualCustomer.isPresent());
     }
 
+    /**
+     * GIVEN a Customer with a given ID is in the database
+     * WHEN the customer IDs are streamed from the database
+     * THEN the customer ID should be included.
+     */
+    @Test
+    void forEachCustomerId_success() {
+
+        // GIVEN a Customer with a given ID is in the database
+        Customer expectedCustomer = new Customer();
+        expectedCustomer.setCustomerId(podamFactory.manufacturePojo(Integer.class));
+        entityManager.persist(expectedCustomer);
+
+        // WHEN the customer IDs are streamed from the database
+        List<Integer> customerIds = new ArrayList<>();
+        customerRepository.forEachCustomerId(customerIds::add);
+
+        // THEN the customer ID should be included.
+        assertTrue(customerIds.contains(expectedCustomer.getCustomerId()));
+    }
+
+    /**
+     * GIVEN a Customer with a given name is in the database
+     * WHEN the customer names are streamed from the database
+     * THEN the customer's name should be included, with its ID.
+     */
+    @Test
+    void forEachCustomerName_success() {
+
+        // GIVEN a Customer with a given name is in the database
+        Customer expectedCustomer = new Customer();
+        expectedCustomer.setCustomerId(podamFactory.manufacturePojo(Integer.class));
+        expectedCustomer.setFullName(podamFactory.manufacturePojo(String.class));
+        entityManager.persist(expectedCustomer);
+
+        // WHEN the customer names are streamed from the database
+        Map<Integer, String> customerNames = new HashMap<>();
+        customerRepository.forEachCustomerName((fullName, customerId) -> customerNames.put(customerId, fullName));
+
+        // THEN the customer's name should be included, with its ID.
+        assertEquals(expectedCustomer.getFullName(), customerNames.get(expectedCustomer.getCustomerId()));
+    }
+
+    /**
+     * GIVEN two Customers are in the database
+     * WHEN an attempt is made to read those Customers, and a Customer that is NOT in the database, all at once
+     * THEN only the two Customers should be returned, keyed by their IDs.
+     */
+    @Test
+    void findAllById_success() {
+
+        // GIVEN two Customers are in the database
+        Customer firstCustomer = new Customer();
+        firstCustomer.setCustomerId(podamFactory.manufacturePojo(Integer.class));
+        entityManager.persist(firstCustomer);
+        Customer secondCustomer = new Customer();
+        secondCustomer.setCustomerId(firstCustomer.getCustomerId() + 1);
+        entityManager.persist(secondCustomer);
+
+        // WHEN an attempt is made to read those Customers, and a Customer that is NOT in the database, all at once
+        IntObjectMap<Customer> actualCustomers = customerRepository.findAllById(new int[]{
+                firstCustomer.getCustomerId(), secondCustomer.getCustomerId(), firstCustomer.getCustomerId() + 2});
+
+        // THEN only the two Customers should be returned, keyed by their IDs.
+        assertEquals(2, actualCustomers.size());
+        assertEquals(firstCustomer, actualCustomers.get(firstCustomer.getCustomerId()));
+        assertEquals(secondCustomer, actualCustomers.get(secondCustomer.getCustomerId()));
+        assertNull(customerRepository.findByIdOrNull(firstCustomer.getCustomerId() + 2));
+    }
+
+    /**
+     * GIVEN a Customer with a given ID is in the database
+     * WHEN an attempt is made to read that Customer, and one that is NOT in the database, with a query timeout
+     * THEN the Customer should be returned, and null for the Customer that is NOT in the database.
+     */
+    @Test
+    void findByIdOrNull_timeout() {
+
+        // GIVEN a Customer with a given ID is in the database
+        Customer expectedCustomer = new Customer();
+        expectedCustomer.setCustomerId(podamFactory.manufacturePojo(Integer.class));
+        entityManager.persist(expectedCustomer);
+        Integer customerId = expectedCustomer.getCustomerId();
+
+        // WHEN an attempt is made to read that Customer, and one that is NOT in the database, with a query timeout
+        Customer actualCustomer = customerRepositoryImpl.findByIdOrNull(customerId, Duration.ofMillis(100));
+        Customer missingCustomer = customerRepositoryImpl.findByIdOrNull(customerId + 1, Duration.ofMillis(100));
+
+        // THEN the Customer should be returned, and null for the Customer that is NOT in the database.
+        assertEquals(expectedCustomer, actualCustomer);
+        assertNull(missingCustomer);
+    }
+
     // -----------------------------------------------------------------------------------------------------------------
 }
@@ -0,0 +1,139 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.BaseTest;
+import com.dbs.micronaut.demo.customer.CustomerRepository;
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.dbs.micronaut.demo.customer.event.EntityChangeEvent;
+import com.dbs.micronaut.demo.customer.event.EntityChangeEvent.ChangeType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.util.function.ObjIntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+class CustomerSearchIndexImplTest extends BaseTest {
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    @Mock
+    private CustomerRepository customerRepository_mock;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    /**
+     * Class under test
+     */
+    private CustomerSearchIndexImpl customerSearchIndex;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- TEST METHODS --------------------------------------------------
+
+    @BeforeEach
+    public void setup() {
+        super.setup();
+        customerSearchIndex = new CustomerSearchIndexImpl(customerRepository_mock);
+
+        // The repository contains four Customers
+        doAnswer(invocation -> {
+            ObjIntConsumer<String> consumer = invocation.getArgument(0);
+            consumer.accept("John Smith", 1);
+            consumer.accept("Jane Smithers-Jones", 2);
+            consumer.accept("Johnny Smith", 3);
+            consumer.accept(null, 4);
+            return null;
+        }).when(customerRepository_mock).forEachCustomerName(any());
+    }
+
+    /**
+     * GIVEN an index built from the repository
+     * WHEN Customers are searched for by whole words and by the starts of words
+     * THEN only Customers matching every word should be returned
+     * AND Customers matching whole words should rank before Customers matching only the starts of words.
+     */
+    @Test
+    void search_ranked() {
+
+        // GIVEN an index built from the repository
+        customerSearchIndex.rebuild();
+        assertEquals(3, customerSearchIndex.getCustomerCount());
+
+        // WHEN Customers are searched for by whole words and by the starts of words
+        // THEN only Customers matching every word should be returned
+        // AND Customers matching whole words should rank before Customers matching only the starts of words.
+        assertArrayEquals(new int[]{1, 3, 2}, customerSearchIndex.search("smith", 10));
+        assertArrayEquals(new int[]{1, 3}, customerSearchIndex.search("JOHN smi", 10));
+        assertArrayEquals(new int[]{2}, customerSearchIndex.search("jones sm", 10));
+        assertArrayEquals(new int[]{2}, customerSearchIndex.search("smithers", 10));
+        assertArrayEquals(new int[]{1, 3}, customerSearchIndex.search("smith", 2));
+        assertArrayEquals(new int[0], customerSearchIndex.search("smithsonian", 10));
+        assertArrayEquals(new int[0], customerSearchIndex.search("x", 10));
+    }
+
+    /**
+     * GIVEN an index built from the repository
+     * WHEN a Customer is renamed, another is deleted and another is created
+     * THEN searches should only find Customers by their current names.
+     */
+    @Test
+    void onEntityChange_incremental() {
+
+        // GIVEN an index built from the repository
+        customerSearchIndex.rebuild();
+
+        // WHEN a Customer is renamed, another is deleted and another is created
+        Customer renamedCustomer = new Customer();
+        renamedCustomer.setCustomerId(1);
+        renamedCustomer.setFullName("John Doe");
+        customerSearchIndex.onEntityChange(new EntityChangeEvent(renamedCustomer, ChangeType.UPDATED));
+        Customer deletedCustomer = new Customer();
+        deletedCustomer.setCustomerId(3);
+        customerSearchIndex.onEntityChange(new EntityChangeEvent(deletedCustomer, ChangeType.DELETED));
+        Customer createdCustomer = new Customer();
+        createdCustomer.setCustomerId(5);
+        createdCustomer.setFullName("Mary Smith");
+        customerSearchIndex.onEntityChange(new EntityChangeEvent(createdCustomer, ChangeType.CREATED));
+
+        // THEN searches should only find Customers by their current names.
+        assertArrayEquals(new int[]{5, 2}, customerSearchIndex.search("smith", 10));
+        assertArrayEquals(new int[]{1}, customerSearchIndex.search("doe", 10));
+        assertArrayEquals(new int[0], customerSearchIndex.search("johnny", 10));
+        assertEquals(3, customerSearchIndex.getCustomerCount());
+    }
+
+    /**
+     * GIVEN an index built from the repository
+     * WHEN the index is rebuilt, and a Customer is deleted while the rebuild is streaming names from the repository
+     * THEN the rebuilt index should not contain the deleted Customer.
+     */
+    @Test
+    void rebuild_changedDuringRebuild() {
+
+        // GIVEN an index built from the repository
+        customerSearchIndex.rebuild();
+
+        // WHEN the index is rebuilt, and a Customer is deleted while the rebuild is streaming names from the repository
+        doAnswer(invocation -> {
+            ObjIntConsumer<String> consumer = invocation.getArgument(0);
+            consumer.accept("John Smith", 1);
+            Customer deletedCustomer = new Customer();
+            deletedCustomer.setCustomerId(1);
+            customerSearchIndex.onEntityChange(new EntityChangeEvent(deletedCustomer, ChangeType.DELETED));
+            consumer.accept("Johnny Smith", 3);
+            return null;
+        }).when(customerRepository_mock).forEachCustomerName(any());
+        customerSearchIndex.rebuild();
+
+        // THEN the rebuilt index should not contain the deleted Customer.
+        assertArrayEquals(new int[]{3}, customerSearchIndex.search("smith", 10));
+        assertEquals(1, customerSearchIndex.getCustomerCount());
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
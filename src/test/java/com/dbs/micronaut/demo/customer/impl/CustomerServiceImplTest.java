@@ -1,17 +1,27 @@
 package com.dbs.micronaut.demo.customer.impl;
 
 import com.dbs.micronaut.demo.BaseTest;
+import com.dbs.micronaut.demo.customer.CustomerConcurrencyLimiter;
+import com.dbs.micronaut.demo.customer.CustomerHotKeyTracker;
+import com.dbs.micronaut.demo.customer.CustomerIdFilter;
+import com.dbs.micronaut.demo.customer.CustomerNearCache;
+import com.dbs.micronaut.demo.customer.CustomerRemoteCache;
 import com.dbs.micronaut.demo.customer.CustomerRepository;
+import com.dbs.micronaut.demo.customer.CustomerSearchIndex;
 import com.dbs.micronaut.demo.customer.CustomerService;
+import com.dbs.micronaut.demo.customer.CustomerWriter;
 import com.dbs.micronaut.demo.customer.entity.Customer;
 import com.dbs.micronaut.demo.exception.BusinessException;
+import com.dbs.micronaut.demo.tenant.TenantResolver;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.mockito.Mock;
 
-import java.util.Optional;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -31,6 +41,30 @@ class CustomerServiceImplTest extends BaseTest { // <-- (1) JUnit instantiates a
     @Mock // <-- (4) Mockito sees this annotation and will create a Mock instance of this class
     private CustomerRepository customerRepository_mock;
 
+    @Mock
+    private CustomerHotKeyTracker customerHotKeyTracker_mock;
+
+    @Mock
+    private CustomerNearCache customerNearCache_mock;
+
+    @Mock
+    private CustomerIdFilter customerIdFilter_mock;
+
+    @Mock
+    private CustomerSearchIndex customerSearchIndex_mock;
+
+    @Mock
+    private CustomerConcurrencyLimiter customerConcurrencyLimiter_mock;
+
+    @Mock
+    private CustomerRemoteCache customerRemoteCache_mock;
+
+    @Mock
+    private TenantResolver tenantResolver_mock;
+
+    @Mock
+    private CustomerWriter customerWriter_mock;
+
     // -----------------------------------------------------------------------------------------------------------------
 
     // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
@@ -49,7 +83,18 @@ class CustomerServiceImplTest extends BaseTest { // <-- (1) JUnit instantiates a
         super.setup(); // <-- (3) This line is executed to have Mockito scan this class for Mockito annotations
 
         // Create a spy so that protected methods can/may be mocked
-        customerService_spy = spy(new CustomerServiceImpl(customerRepository_mock));
+        customerService_spy = spy(new CustomerServiceImpl(customerRepository_mock, customerHotKeyTracker_mock,
+                customerNearCache_mock, customerIdFilter_mock, customerSearchIndex_mock,
+                customerConcurrencyLimiter_mock, customerRemoteCache_mock, tenantResolver_mock, customerWriter_mock));
+
+        // Every request is for the default tenant unless a test says otherwise
+        doReturn(true).when(tenantResolver_mock).isDefaultTenant();
+
+        // Every customer ID might exist unless a test says otherwise
+        doReturn(true).when(customerIdFilter_mock).mightContain(anyInt());
+
+        // Nothing is in the shared remote cache unless a test says otherwise
+        doReturn(new IntObjectHashMap<>()).when(customerRemoteCache_mock).getAll(any());
     }
 
     /**
@@ -66,7 +111,7 @@ class CustomerServiceImplTest extends BaseTest { // <-- (1) JUnit instantiates a
         Integer customerId = expectedCustomer.getCustomerId();
 
         // Mock dependencies
-        doReturn(Optional.of(expectedCustomer)).when(customerRepository_mock).findById(customerId);
+        doReturn(expectedCustomer).when(customerRepository_mock).findByIdOrNull(customerId);
 
         // WHEN the customer is requested
         Customer actualCustomer = customerService_spy.getCustomer(customerId);
@@ -75,7 +120,89 @@ class CustomerServiceImplTest extends BaseTest { // <-- (1) JUnit instantiates a
         assertEquals(expectedCustomer, actualCustomer);
 
         // Verify dependency mocks
-        verify(customerRepository_mock).findById(customerId);
+        verify(customerRepository_mock).findByIdOrNull(customerId);
+        verify(customerConcurrencyLimiter_mock).recordLatency(anyLong());
+    }
+
+    /**
+     * GIVEN a valid customer ID and a hot customer with that ID is pinned in the near-cache
+     * WHEN the customer is requested
+     * THEN the pinned Customer should be returned
+     * AND the repository should not be called.
+     */
+    @Test
+    void getCustomer_pinned() throws BusinessException {
+
+        // GIVEN a valid customer ID and a hot customer with that ID is pinned in the near-cache
+        Customer expectedCustomer = podamFactory.manufacturePojo(Customer.class);
+        Integer customerId = expectedCustomer.getCustomerId();
+
+        // Mock dependencies
+        doReturn(expectedCustomer).when(customerNearCache_mock).get(customerId);
+
+        // WHEN the customer is requested
+        Customer actualCustomer = customerService_spy.getCustomer(customerId);
+
+        // THEN the pinned Customer should be returned
+        assertEquals(expectedCustomer, actualCustomer);
+
+        // AND the repository should not be called.
+        verify(customerHotKeyTracker_mock).recordRead(customerId);
+        verifyZeroInteractions(customerRepository_mock);
+    }
+
+    /**
+     * GIVEN a valid customer ID and another instance has put the customer with that ID in the shared remote cache
+     * WHEN the customer is requested
+     * THEN the cached Customer should be returned
+     * AND the repository should not be called.
+     */
+    @Test
+    void getCustomer_remoteCached() throws BusinessException {
+
+        // GIVEN a valid customer ID and another instance has put the customer with that ID in the shared remote cache
+        Customer expectedCustomer = podamFactory.manufacturePojo(Customer.class);
+        Integer customerId = expectedCustomer.getCustomerId();
+
+        // Mock dependencies
+        doReturn(expectedCustomer).when(customerRemoteCache_mock).get(customerId);
+
+        // WHEN the customer is requested
+        Customer actualCustomer = customerService_spy.getCustomer(customerId);
+
+        // THEN the cached Customer should be returned
+        assertEquals(expectedCustomer, actualCustomer);
+
+        // AND the repository should not be called.
+        verifyZeroInteractions(customerRepository_mock);
+    }
+
+    /**
+     * GIVEN a valid customer ID and a customer with that ID is in the system
+     * WHEN the customer is requested and the customer has become hot
+     * THEN the Customer should be read from the repository
+     * AND pinned in the near-cache.
+     */
+    @Test
+    void getCustomer_becomesHot() throws BusinessException {
+
+        // GIVEN a valid customer ID and a customer with that ID is in the system
+        Customer expectedCustomer = podamFactory.manufacturePojo(Customer.class);
+        Integer customerId = expectedCustomer.getCustomerId();
+
+        // Mock dependencies
+        doReturn(expectedCustomer).when(customerRepository_mock).findByIdOrNull(customerId);
+        doReturn(true).when(customerHotKeyTracker_mock).isHot(customerId);
+
+        // WHEN the customer is requested and the customer has become hot
+        Customer actualCustomer = customerService_spy.getCustomer(customerId);
+
+        // THEN the Customer should be read from the repository
+        assertEquals(expectedCustomer, actualCustomer);
+        verify(customerRepository_mock).findByIdOrNull(customerId);
+
+        // AND pinned in the near-cache.
+        verify(customerNearCache_mock).pin(expectedCustomer);
     }
 
     /**
@@ -90,7 +217,7 @@ class CustomerServiceImplTest extends BaseTest { // <-- (1) JUnit instantiates a
         Integer customerId = podamFactory.manufacturePojo(Integer.class);
 
         // Mock dependencies
-        doReturn(Optional.empty()).when(customerRepository_mock).findById(customerId);
+        doReturn(null).when(customerRepository_mock).findByIdOrNull(customerId);
 
         // WHEN the customer is requested, but the customer is NOT in the system
         Customer actualCustomer = customerService_spy.getCustomer(customerId);
@@ -99,7 +226,58 @@ class CustomerServiceImplTest extends BaseTest { // <-- (1) JUnit instantiates a
         assertNull(actualCustomer);
 
         // Verify dependency mocks
-        verify(customerRepository_mock).findById(customerId);
+        verify(customerRepository_mock).findByIdOrNull(customerId);
+    }
+
+    /**
+     * GIVEN a customer ID that the customer ID filter knows does not exist
+     * WHEN the customer is requested
+     * THEN null should be returned
+     * AND the repository should not be called.
+     */
+    @Test
+    void getCustomer_definitelyMissing() throws BusinessException {
+
+        // GIVEN a customer ID that the customer ID filter knows does not exist
+        Integer customerId = podamFactory.manufacturePojo(Integer.class);
+
+        // Mock dependencies
+        doReturn(false).when(customerIdFilter_mock).mightContain(customerId);
+
+        // WHEN the customer is requested
+        Customer actualCustomer = customerService_spy.getCustomer(customerId);
+
+        // THEN null should be returned
+        assertNull(actualCustomer);
+
+        // AND the repository should not be called.
+        verifyZeroInteractions(customerRepository_mock);
+    }
+
+    /**
+     * GIVEN a request for a tenant other than the default one
+     * WHEN a customer is requested
+     * THEN the Customer should be read from the (tenant-routed) repository
+     * AND none of the default tenant's caches should be used.
+     */
+    @Test
+    void getCustomer_otherTenant() throws BusinessException {
+
+        // GIVEN a request for a tenant other than the default one
+        Customer expectedCustomer = podamFactory.manufacturePojo(Customer.class);
+        int customerId = Math.abs(expectedCustomer.getCustomerId()) + 1;
+        doReturn(false).when(tenantResolver_mock).isDefaultTenant();
+        doReturn(expectedCustomer).when(customerRepository_mock).findByIdOrNull(customerId);
+
+        // WHEN a customer is requested
+        Customer actualCustomer = customerService_spy.getCustomer(customerId);
+
+        // THEN the Customer should be read from the (tenant-routed) repository
+        assertSame(expectedCustomer, actualCustomer);
+
+        // AND none of the default tenant's caches should be used.
+        verifyZeroInteractions(customerNearCache_mock, customerIdFilter_mock, customerRemoteCache_mock,
+                customerHotKeyTracker_mock);
     }
 
     /**
@@ -125,6 +303,191 @@ class CustomerServiceImplTest extends BaseTest { // <-- (1) JUnit instantiates a
         assertEquals(String.format(CustomerService.INVALID_CUSTOMER_ID, customerId), ex.getMessage());
     }
 
+    /**
+     * GIVEN a pinned customer, a customer in the system, a missing customer and a definitely missing customer
+     * WHEN the customers are requested together
+     * THEN the pinned customer and the customer in the system should be returned
+     * AND only the customers that aren't pinned, but might exist, should be read from the repository (all at once).
+     */
+    @Test
+    void getCustomers_found() throws BusinessException {
+
+        // GIVEN a pinned customer, a customer in the system, a missing customer and a definitely missing customer
+        Customer pinnedCustomer = podamFactory.manufacturePojo(Customer.class);
+        pinnedCustomer.setCustomerId(1);
+        Customer storedCustomer = podamFactory.manufacturePojo(Customer.class);
+        storedCustomer.setCustomerId(2);
+        IntObjectMap<Customer> storedCustomers = new IntObjectHashMap<>();
+        storedCustomers.put(2, storedCustomer);
+
+        // Mock dependencies
+        doReturn(pinnedCustomer).when(customerNearCache_mock).get(1);
+        doReturn(false).when(customerIdFilter_mock).mightContain(4);
+        doReturn(storedCustomers).when(customerRepository_mock).findAllById(new int[]{2, 3});
+
+        // WHEN the customers are requested together
+        IntObjectMap<Customer> actualCustomers = customerService_spy.getCustomers(new int[]{1, 2, 3, 4});
+
+        // THEN the pinned customer and the customer in the system should be returned
+        assertEquals(2, actualCustomers.size());
+        assertSame(pinnedCustomer, actualCustomers.get(1));
+        assertSame(storedCustomer, actualCustomers.get(2));
+
+        // AND only the customers that aren't pinned, but might exist, should be read from the repository (all at once).
+        verify(customerRepository_mock).findAllById(new int[]{2, 3});
+        verifyNoMoreInteractions(customerRepository_mock);
+    }
+
+    /**
+     * GIVEN a batch of customer IDs containing an invalid customer ID
+     * WHEN the customers are requested together
+     * THEN a BusinessException should be thrown
+     * AND the repository should not be called.
+     */
+    @Test
+    void getCustomers_invalidCustomerId() {
+
+        // GIVEN a batch of customer IDs containing an invalid customer ID
+        int[] customerIds = {1, -2, 3};
+
+        // WHEN the customers are requested together
+        // THEN a BusinessException should be thrown
+        BusinessException ex = assertThrows(BusinessException.class,
+                () -> customerService_spy.getCustomers(customerIds));
+        assertEquals(String.format(CustomerService.INVALID_CUSTOMER_ID, -2), ex.getMessage());
+
+        // AND the repository should not be called.
+        verifyZeroInteractions(customerRepository_mock);
+    }
+
+    /**
+     * GIVEN two Customers match a search query, and the index ranks the second one first
+     * WHEN the Customers are searched for
+     * THEN both Customers should be returned, in the order the index ranked them.
+     */
+    @Test
+    void searchCustomers_ranked() throws BusinessException {
+
+        // GIVEN two Customers match a search query, and the index ranks the second one first
+        Customer firstCustomer = podamFactory.manufacturePojo(Customer.class);
+        firstCustomer.setCustomerId(7);
+        Customer secondCustomer = podamFactory.manufacturePojo(Customer.class);
+        secondCustomer.setCustomerId(3);
+        IntObjectMap<Customer> customers = new IntObjectHashMap<>();
+        customers.put(7, firstCustomer);
+        customers.put(3, secondCustomer);
+        doReturn(new int[]{3, 7}).when(customerSearchIndex_mock).search("smi", 10);
+        doReturn(customers).when(customerRepository_mock).findAllById(any());
+
+        // WHEN the Customers are searched for
+        List<Customer> actualCustomers = customerService_spy.searchCustomers("smi", 10);
+
+        // THEN both Customers should be returned, in the order the index ranked them.
+        assertEquals(2, actualCustomers.size());
+        assertSame(secondCustomer, actualCustomers.get(0));
+        assertSame(firstCustomer, actualCustomers.get(1));
+    }
+
+    /**
+     * GIVEN a search query that is too short
+     * WHEN the Customers are searched for
+     * THEN a BusinessException should be thrown
+     * AND the search index should not be called.
+     */
+    @Test
+    void searchCustomers_queryTooShort() {
+
+        // GIVEN a search query that is too short
+        String query = " s ";
+
+        // WHEN the Customers are searched for
+        // THEN a BusinessException should be thrown
+        BusinessException ex = assertThrows(BusinessException.class,
+                () -> customerService_spy.searchCustomers(query, 10));
+        assertEquals(String.format(CustomerService.INVALID_SEARCH_QUERY, query, CustomerService.MIN_SEARCH_QUERY_LENGTH),
+                ex.getMessage());
+
+        // AND the search index should not be called.
+        verifyZeroInteractions(customerSearchIndex_mock);
+    }
+
+    /**
+     * GIVEN a customer in the system
+     * WHEN the customer's full name is changed
+     * THEN a copy of the Customer with the new full name should be written and returned
+     * AND the Customer read from the repository should be left as it was.
+     */
+    @Test
+    void updateCustomer_found() throws BusinessException {
+
+        // GIVEN a customer in the system
+        Customer existingCustomer = podamFactory.manufacturePojo(Customer.class);
+        int customerId = Math.abs(existingCustomer.getCustomerId()) + 1;
+        String fullName = existingCustomer.getFullName();
+        doReturn(existingCustomer).when(customerRepository_mock).findByIdOrNull(customerId);
+
+        // WHEN the customer's full name is changed
+        Customer updatedCustomer = customerService_spy.updateCustomer(customerId, "New Name");
+
+        // THEN a copy of the Customer with the new full name should be written and returned
+        assertNotSame(existingCustomer, updatedCustomer);
+        assertEquals("New Name", updatedCustomer.getFullName());
+        assertEquals(existingCustomer.getCustomerId(), updatedCustomer.getCustomerId());
+        assertEquals(existingCustomer.getStreetAddress(), updatedCustomer.getStreetAddress());
+        verify(customerWriter_mock).update(updatedCustomer);
+
+        // AND the Customer read from the repository should be left as it was.
+        assertEquals(fullName, existingCustomer.getFullName());
+    }
+
+    /**
+     * GIVEN a customer ID and a customer with that ID is NOT in the system
+     * WHEN the customer's full name is changed
+     * THEN null should be returned
+     * AND nothing should be written.
+     */
+    @Test
+    void updateCustomer_notFound() throws BusinessException {
+
+        // GIVEN a customer ID and a customer with that ID is NOT in the system
+        int customerId = 1234;
+        doReturn(null).when(customerRepository_mock).findByIdOrNull(customerId);
+
+        // WHEN the customer's full name is changed
+        Customer updatedCustomer = customerService_spy.updateCustomer(customerId, "New Name");
+
+        // THEN null should be returned
+        assertNull(updatedCustomer);
+
+        // AND nothing should be written.
+        verifyZeroInteractions(customerWriter_mock);
+    }
+
+    /**
+     * GIVEN a blank full name, and a full name that is too long
+     * WHEN a customer's full name is changed to either of them
+     * THEN a BusinessException should be thrown
+     * AND nothing should be read or written.
+     */
+    @Test
+    void updateCustomer_invalidFullName() {
+
+        // GIVEN a blank full name, and a full name that is too long
+        String blankName = "  ";
+        String longName = "x".repeat(CustomerService.MAX_FULL_NAME_LENGTH + 1);
+
+        // WHEN a customer's full name is changed to either of them
+        // THEN a BusinessException should be thrown
+        BusinessException blankException = assertThrows(BusinessException.class,
+                () -> customerService_spy.updateCustomer(1234, blankName));
+        assertThrows(BusinessException.class, () -> customerService_spy.updateCustomer(1234, longName));
+        assertEquals(String.format(CustomerService.INVALID_FULL_NAME, blankName, CustomerService.MAX_FULL_NAME_LENGTH),
+                blankException.getMessage());
+
+        // AND nothing should be read or written.
+        verifyZeroInteractions(customerRepository_mock, customerWriter_mock);
+    }
+
     /**
      * GIVEN a customer ID
      * WHEN the customer ID is checked to see if it is valid
@@ -141,5 +504,17 @@ class CustomerServiceImplTest extends BaseTest { // <-- (1) JUnit instantiates a
         assertEquals(expected, customerService_spy.isValidCustomerId(customerId));
     }
 
+    /**
+     * GIVEN a primitive customer ID
+     * WHEN the customer ID is checked to see if it is valid
+     * THEN false should be returned if the customer ID is zero or a negative number
+     * AND true should be returned if the customer ID is a positive number
+     */
+    @ParameterizedTest
+    @CsvSource({"-999, false", "0, false", "1234, true"})
+    void validCustomerId_primitive(int customerId, boolean expected) {
+        assertEquals(expected, customerService_spy.isValidCustomerId(customerId));
+    }
+
     // -----------------------------------------------------------------------------------------------------------------
 }
\ No newline at end of file
@@ -0,0 +1,194 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.BaseTest;
+import com.dbs.micronaut.demo.customer.CustomerRepository;
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.dbs.micronaut.demo.customer.event.EntityChangeEvent;
+import io.micronaut.test.annotation.MicronautTest;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import javax.inject.Inject;
+import javax.sql.DataSource;
+import java.util.Optional;
+import java.util.function.IntConsumer;
+import java.util.function.ObjIntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * DEVELOPER NOTE: The "snapshot" environment (see application-snapshot.yml in the test resources) turns on the
+ * snapshot repository, so it replaces the JPA-based CustomerRepositoryImpl for this test.
+ */
+@MicronautTest(environments = "snapshot")
+class CustomerSnapshotRepositoryImplTest extends BaseTest {
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    @Mock
+    private CustomerRepositoryImpl customerRepository_mock;
+
+    @Mock
+    private DataSource dataSource_mock;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    @Inject
+    private SessionFactory sessionFactory;
+
+    /**
+     * Class under test
+     */
+    @Inject
+    private CustomerRepository customerRepository;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- TEST METHODS --------------------------------------------------
+
+    @BeforeEach
+    void beforeEach() {
+        super.setup();
+
+        // Don't depend on the scheduled startup load having finished yet
+        ((CustomerSnapshotRepositoryImpl) customerRepository).reload();
+    }
+
+    /**
+     * GIVEN a Customer in the database
+     * WHEN the snapshot is reloaded
+     * THEN the Customer should be read from the snapshot.
+     */
+    @Test
+    void findById_afterReload() {
+
+        // GIVEN a Customer in the database
+        Customer expectedCustomer = newCustomer();
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.createNativeQuery("insert into CUSTOMERS (CUST_ID, CUST_FULL_NAME, CUST_STREET_ADDR) values (?, ?, ?)")
+                    .setParameter(1, expectedCustomer.getCustomerId())
+                    .setParameter(2, expectedCustomer.getFullName())
+                    .setParameter(3, expectedCustomer.getStreetAddress())
+                    .executeUpdate();
+            session.getTransaction().commit();
+        }
+
+        // WHEN the snapshot is reloaded
+        assertTrue(customerRepository instanceof CustomerSnapshotRepositoryImpl);
+        ((CustomerSnapshotRepositoryImpl) customerRepository).reload();
+
+        // THEN the Customer should be read from the snapshot.
+        Customer actualCustomer = customerRepository.findById(expectedCustomer.getCustomerId()).orElse(null);
+        assertNotNull(actualCustomer);
+        assertEquals(expectedCustomer.getFullName(), actualCustomer.getFullName());
+        assertEquals(expectedCustomer.getStreetAddress(), actualCustomer.getStreetAddress());
+        assertNotNull(actualCustomer.getLastReadTimestamp());
+    }
+
+    /**
+     * GIVEN a Customer that is not in the snapshot
+     * WHEN the Customer is committed by this application
+     * THEN the Customer should be read from the snapshot without a reload.
+     */
+    @Test
+    void findById_afterCommit() {
+
+        // GIVEN a Customer that is not in the snapshot
+        Customer expectedCustomer = newCustomer();
+        assertFalse(customerRepository.findById(expectedCustomer.getCustomerId()).isPresent());
+
+        // WHEN the Customer is committed by this application
+        ((CustomerSnapshotRepositoryImpl) customerRepository).onEntityChange(
+                new EntityChangeEvent(expectedCustomer, EntityChangeEvent.ChangeType.CREATED));
+
+        // THEN the Customer should be read from the snapshot without a reload.
+        Optional<Customer> actualCustomer = customerRepository.findById(expectedCustomer.getCustomerId());
+        assertTrue(actualCustomer.isPresent());
+        assertEquals(expectedCustomer.getFullName(), actualCustomer.get().getFullName());
+    }
+
+    /**
+     * GIVEN a Customer in the snapshot
+     * WHEN the Customer is deleted by this application
+     * THEN the Customer should no longer be read from the snapshot.
+     */
+    @Test
+    void findById_afterDelete() {
+
+        // GIVEN a Customer in the snapshot
+        Customer customer = newCustomer();
+        CustomerSnapshotRepositoryImpl snapshotRepository = (CustomerSnapshotRepositoryImpl) customerRepository;
+        snapshotRepository.onEntityChange(new EntityChangeEvent(customer, EntityChangeEvent.ChangeType.CREATED));
+        assertTrue(customerRepository.findById(customer.getCustomerId()).isPresent());
+
+        // WHEN the Customer is deleted by this application
+        snapshotRepository.onEntityChange(new EntityChangeEvent(customer, EntityChangeEvent.ChangeType.DELETED));
+
+        // THEN the Customer should no longer be read from the snapshot.
+        assertNull(customerRepository.findByIdOrNull(customer.getCustomerId()));
+    }
+
+    /**
+     * GIVEN a snapshot repository whose first snapshot hasn't loaded yet
+     * WHEN a Customer is read, and every customer ID and name is streamed
+     * THEN they should be read from the JPA-based repository instead of the (still empty) snapshot.
+     */
+    @Test
+    void reads_beforeFirstLoad() {
+
+        // GIVEN a snapshot repository whose first snapshot hasn't loaded yet
+        CustomerSnapshotRepositoryImpl snapshotRepository = new CustomerSnapshotRepositoryImpl(customerRepository_mock,
+                dataSource_mock, 1000, 64);
+        Customer expectedCustomer = newCustomer();
+        doReturn(expectedCustomer).when(customerRepository_mock).findByIdOrNull(expectedCustomer.getCustomerId());
+        IntConsumer idConsumer = customerId -> {
+        };
+        ObjIntConsumer<String> nameConsumer = (fullName, customerId) -> {
+        };
+
+        // WHEN a Customer is read, and every customer ID and name is streamed
+        Customer actualCustomer = snapshotRepository.findByIdOrNull(expectedCustomer.getCustomerId());
+        snapshotRepository.forEachCustomerId(idConsumer);
+        snapshotRepository.forEachCustomerName(nameConsumer);
+
+        // THEN they should be read from the JPA-based repository instead of the (still empty) snapshot.
+        assertSame(expectedCustomer, actualCustomer);
+        verify(customerRepository_mock).forEachCustomerId(idConsumer);
+        verify(customerRepository_mock).forEachCustomerName(nameConsumer);
+    }
+
+    /**
+     * GIVEN more initial customers than a snapshot can hold
+     * WHEN a snapshot repository is created for them
+     * THEN it should be refused.
+     */
+    @Test
+    void constructor_tooManyCustomers() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> new CustomerSnapshotRepositoryImpl(customerRepository_mock, dataSource_mock,
+                        CustomerSnapshotStore.MAX_CUSTOMERS + 1, 64));
+        assertEquals(String.format(CustomerSnapshotRepositoryImpl.INVALID_INITIAL_CUSTOMERS,
+                CustomerSnapshotStore.MAX_CUSTOMERS + 1, CustomerSnapshotStore.MAX_CUSTOMERS), e.getMessage());
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    private Customer newCustomer() {
+        Customer customer = new Customer();
+        customer.setCustomerId(Math.abs(podamFactory.manufacturePojo(Integer.class)) + 1);
+        customer.setFullName(podamFactory.manufacturePojo(String.class));
+        customer.setStreetAddress(podamFactory.manufacturePojo(String.class));
+        return customer;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,196 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.BaseTest;
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerSnapshotStoreTest extends BaseTest {
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerSnapshotStoreTest.class);
+
+    /**
+     * Class under test
+     */
+    private CustomerSnapshotStore customerSnapshotStore;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- TEST METHODS --------------------------------------------------
+
+    @BeforeEach
+    public void setup() {
+        super.setup();
+        customerSnapshotStore = new CustomerSnapshotStore(16, 1024);
+    }
+
+    /**
+     * GIVEN a Customer stored in the snapshot
+     * WHEN the Customer is read from the snapshot
+     * THEN a Customer with the same ID, name and address should be returned.
+     */
+    @Test
+    void get_success() {
+
+        // GIVEN a Customer stored in the snapshot
+        Customer expectedCustomer = podamFactory.manufacturePojo(Customer.class);
+        assertTrue(customerSnapshotStore.put(expectedCustomer.getCustomerId(), expectedCustomer.getFullName(),
+                expectedCustomer.getStreetAddress()));
+
+        // WHEN the Customer is read from the snapshot
+        Customer actualCustomer = customerSnapshotStore.get(expectedCustomer.getCustomerId());
+
+        // THEN a Customer with the same ID, name and address should be returned.
+        assertEquals(expectedCustomer.getCustomerId(), actualCustomer.getCustomerId());
+        assertEquals(expectedCustomer.getFullName(), actualCustomer.getFullName());
+        assertEquals(expectedCustomer.getStreetAddress(), actualCustomer.getStreetAddress());
+        assertNull(customerSnapshotStore.get(expectedCustomer.getCustomerId() + 1));
+        assertEquals(1, customerSnapshotStore.size());
+    }
+
+    /**
+     * GIVEN a Customer stored in the snapshot
+     * WHEN the Customer is replaced with null and non-ASCII values, and then removed
+     * THEN the latest values should be returned until it is removed.
+     */
+    @Test
+    void put_replaceAndRemove() {
+
+        // GIVEN a Customer stored in the snapshot
+        customerSnapshotStore.put(7, "Old Name", "Old Address");
+
+        // WHEN the Customer is replaced with null and non-ASCII values, and then removed
+        customerSnapshotStore.put(7, "Zoë Ünal", null);
+
+        // THEN the latest values should be returned until it is removed.
+        Customer customer = customerSnapshotStore.get(7);
+        assertEquals("Zoë Ünal", customer.getFullName());
+        assertNull(customer.getStreetAddress());
+        assertEquals(1, customerSnapshotStore.size());
+        assertTrue(customerSnapshotStore.getGarbageBytes() > 0);
+
+        customerSnapshotStore.remove(7);
+        assertNull(customerSnapshotStore.get(7));
+        assertEquals(0, customerSnapshotStore.size());
+
+        List<Integer> customerIds = new ArrayList<>();
+        customerSnapshotStore.forEachCustomerId(customerIds::add);
+        assertTrue(customerIds.isEmpty());
+    }
+
+    /**
+     * GIVEN a full snapshot
+     * WHEN more Customers are stored
+     * THEN they should be refused
+     * AND a grown copy should accept them while keeping the existing Customers.
+     */
+    @Test
+    void grow_success() {
+
+        // GIVEN a full snapshot
+        int customerId = 1;
+        while (customerSnapshotStore.put(customerId, "Name " + customerId, "Address " + customerId)) {
+            customerId++;
+        }
+
+        // WHEN more Customers are stored
+        // THEN they should be refused
+        assertNull(customerSnapshotStore.get(customerId));
+
+        // AND a grown copy should accept them while keeping the existing Customers.
+        CustomerSnapshotStore grown = customerSnapshotStore.grow();
+        assertTrue(grown.put(customerId, "Name " + customerId, "Address " + customerId));
+        for (int i = 1; i <= customerId; i++) {
+            assertEquals("Address " + i, grown.get(i).getStreetAddress());
+        }
+        assertEquals(customerId, grown.size());
+    }
+
+    /**
+     * GIVEN a million Customers
+     * WHEN they are loaded into the snapshot
+     * THEN they should all be stored off-heap, without growing the Java heap.
+     * <p>
+     * DEVELOPER NOTE: This test doubles as the footprint report for a million customers; look for "Snapshot footprint"
+     * in the test output.
+     */
+    @Test
+    void footprint_millionCustomers() {
+
+        // GIVEN a million Customers
+        int customers = 1_000_000;
+        long heapBefore = usedHeapBytes();
+        long directBefore = settledDirectBufferBytes();
+
+        // WHEN they are loaded into the snapshot
+        CustomerSnapshotStore millionCustomers = new CustomerSnapshotStore(customers, customers * 48);
+        for (int customerId = 1; customerId <= customers; customerId++) {
+            assertTrue(millionCustomers.put(customerId, "Customer Number " + customerId,
+                    customerId + " Main Street"));
+        }
+
+        // THEN they should all be stored off-heap, without growing the Java heap.
+        long heapBytes = usedHeapBytes() - heapBefore;
+        long offHeapBytes = settledDirectBufferBytes() - directBefore;
+        log.info("Snapshot footprint for {} customers: {} bytes off-heap ({} bytes allocated), {} bytes heap",
+                millionCustomers.size(), offHeapBytes, millionCustomers.getOffHeapBytes(), heapBytes);
+
+        assertEquals(customers, millionCustomers.size());
+        assertEquals(millionCustomers.getOffHeapBytes(), offHeapBytes);
+        assertTrue(heapBytes < 16 * 1024 * 1024, "Heap grew by " + heapBytes + " bytes");
+        assertEquals("500000 Main Street", millionCustomers.get(500_000).getStreetAddress());
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    private static long usedHeapBytes() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Return the bytes of direct buffers in use, once buffers left behind by earlier tests have been freed: they're
+     * freed by a background thread some time after they've been collected, which would otherwise be counted against
+     * (or for) the snapshot.
+     */
+    private static long settledDirectBufferBytes() {
+        long bytes = directBufferBytes();
+        for (int attempt = 0; attempt < 50; attempt++) {
+            System.gc();
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            long settled = directBufferBytes();
+            if (settled == bytes) {
+                break;
+            }
+            bytes = settled;
+        }
+        return bytes;
+    }
+
+    private static long directBufferBytes() {
+        return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> "direct".equals(pool.getName()))
+                .mapToLong(BufferPoolMXBean::getMemoryUsed)
+                .sum();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
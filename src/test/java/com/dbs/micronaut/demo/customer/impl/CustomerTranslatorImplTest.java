@@ -4,9 +4,22 @@ import com.dbs.micronaut.demo.BaseTest;
 import com.dbs.micronaut.demo.customer.CustomerTranslator;
 import com.dbs.micronaut.demo.customer.contract.CustomerDTO;
 import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.dbs.micronaut.demo.customer.entity.CustomerOrderSummary;
+import com.dbs.micronaut.demo.customer.entity.Order;
+import org.hibernate.collection.internal.PersistentSet;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.spy;
 
@@ -84,7 +97,11 @@ public class CustomerTranslatorImplTest extends BaseTest {
         assertEquals(customerDto.getId(), customer.getCustomerId());
         assertEquals(customerDto.getLastReadTimestamp(), customer.getLastReadTimestamp());
         assertEquals(customer.getStreetAddress(), "Unknown");
-
+        assertEquals(customerDto.getOrderNumbers().size(), customer.getOrders().size());
+        for (Order order : customer.getOrders()) {
+            assertTrue(customerDto.getOrderNumbers().contains(order.getOrderNumber()));
+            assertSame(customer, order.getCustomer());
+        }
     }
 
     /**
@@ -112,6 +129,7 @@ public class CustomerTranslatorImplTest extends BaseTest {
         assertNull(customerDto.getFullName());
         assertNull(customerDto.getId());
         assertNull(customerDto.getLastReadTimestamp());
+        assertTrue(customerDto.getOrderNumbers().isEmpty());
     }
 
     /**
@@ -138,6 +156,88 @@ public class CustomerTranslatorImplTest extends BaseTest {
         assertEquals(customer.getFullName(), customerDto.getFullName());
         assertEquals(customer.getCustomerId(), customerDto.getId());
         assertEquals(customer.getLastReadTimestamp(), customerDto.getLastReadTimestamp());
+        assertEquals(customer.getOrders().stream().map(Order::getOrderNumber).sorted().collect(Collectors.toList()),
+                customerDto.getOrderNumbers());
+    }
+
+    /**
+     * GIVEN a Customer whose Orders haven't been loaded
+     * WHEN the Customer is translated to a CustomerDTO contract
+     * THEN a CustomerDTO contract without order numbers should be returned
+     * <p>
+     * DEVELOPER NOTE: A PersistentSet that isn't attached to a session throws a LazyInitializationException as soon as
+     * it's read, so this also verifies that the translator doesn't try to.
+     */
+    @Test
+    void toContract_ordersNotLoaded() {
+
+        // GIVEN a Customer whose Orders haven't been loaded
+        Customer customer = podamFactory.manufacturePojo(Customer.class);
+        // PersistentSet is a raw Set in Hibernate 5.3, so there's no way to create it without an unchecked conversion
+        @SuppressWarnings("unchecked")
+        Set<Order> orders = new PersistentSet();
+        customer.setOrders(orders);
+
+        // WHEN the Customer is translated to a CustomerDTO contract
+        CustomerDTO customerDto = customerTranslator_spy.toContract(customer);
+
+        // THEN a CustomerDTO contract without order numbers should be returned
+        assertEquals(customer.getCustomerId(), customerDto.getId());
+        assertTrue(customerDto.getOrderNumbers().isEmpty());
+    }
+
+    /**
+     * GIVEN a fully populated CustomerDTO, Customer and CustomerOrderSummary
+     * WHEN they are translated
+     * THEN every property of the resulting Customer and CustomerDTO should be set
+     * AND a CustomerDTO translated to a Customer and back again should be unchanged.
+     * <p>
+     * DEVELOPER NOTE: The full translation tests above only check the properties that existed when they were written.
+     * This one looks the properties up, so it fails as soon as a property is added to Customer or CustomerDTO and not
+     * to the translator.
+     */
+    @Test
+    void translation_everyPropertyMapped() throws IntrospectionException, ReflectiveOperationException {
+
+        // GIVEN a fully populated CustomerDTO, Customer and CustomerOrderSummary
+        CustomerDTO customerDto = podamFactory.manufacturePojo(CustomerDTO.class);
+        Customer customer = podamFactory.manufacturePojo(Customer.class);
+        CustomerOrderSummary orderSummary = podamFactory.manufacturePojo(CustomerOrderSummary.class);
+
+        // WHEN they are translated
+        Customer translatedCustomer = customerTranslator_spy.toEntity(customerDto);
+        CustomerDTO translatedCustomerDto = customerTranslator_spy.toContract(customer, orderSummary);
+
+        // THEN every property of the resulting Customer and CustomerDTO should be set
+        assertEquals(Collections.emptyList(), unsetProperties(translatedCustomer));
+        assertEquals(Collections.emptyList(), unsetProperties(translatedCustomerDto));
+
+        // AND a CustomerDTO translated to a Customer and back again should be unchanged.
+        CustomerDTO roundTrip = customerTranslator_spy.toContract(translatedCustomer);
+        customerDto.setOrderCount(null);
+        customerDto.setLatestOrderNumber(null);
+        Collections.sort(customerDto.getOrderNumbers());
+        assertEquals(customerDto, roundTrip);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    /**
+     * Return the names of the properties of the given bean that are null (or empty, for collections).
+     */
+    private static List<String> unsetProperties(Object bean) throws IntrospectionException,
+            ReflectiveOperationException {
+        List<String> unset = new ArrayList<>();
+        for (PropertyDescriptor property : Introspector.getBeanInfo(bean.getClass(), Object.class)
+                .getPropertyDescriptors()) {
+            Object value = property.getReadMethod().invoke(bean);
+            if ((value == null) || ((value instanceof Collection) && ((Collection<?>) value).isEmpty())) {
+                unset.add(property.getName());
+            }
+        }
+        return unset;
     }
 
     // -----------------------------------------------------------------------------------------------------------------
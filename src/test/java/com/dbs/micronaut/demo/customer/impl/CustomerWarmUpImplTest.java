@@ -0,0 +1,145 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.BaseTest;
+import com.dbs.micronaut.demo.customer.CustomerController;
+import com.dbs.micronaut.demo.customer.CustomerHotKeyTracker;
+import io.micronaut.health.HealthStatus;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.management.health.indicator.HealthResult;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class CustomerWarmUpImplTest extends BaseTest {
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    /**
+     * Class under test
+     */
+    private CustomerWarmUpImpl customerWarmUp;
+
+    @Mock
+    private CustomerController customerController_mock;
+
+    @Mock
+    private CustomerHotKeyTracker customerHotKeyTracker_mock;
+
+    @Mock
+    private DataSource dataSource_mock;
+
+    @Mock
+    private Connection connection_mock;
+
+    @Mock
+    private ExecutorService executorService_mock;
+
+    private Path accessLog;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- TEST METHODS --------------------------------------------------
+
+    @BeforeEach
+    public void setup() {
+        super.setup();
+        accessLog = Paths.get(System.getProperty("java.io.tmpdir"), "customer-access-" + System.nanoTime() + ".log");
+        try {
+            when(dataSource_mock.getConnection()).thenReturn(connection_mock);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        when(customerController_mock.getCustomer(anyInt(), any(), any()))
+                .thenReturn(Single.just(HttpResponse.notFound()));
+        customerWarmUp = new CustomerWarmUpImpl(customerController_mock, customerHotKeyTracker_mock, dataSource_mock,
+                executorService_mock, true, "1, 2", accessLog.toString(), 100, Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    public void teardown() throws Exception {
+        Files.deleteIfExists(accessLog);
+    }
+
+    /**
+     * GIVEN configured customer IDs 1 and 2
+     * AND an access log holding customer IDs 2 and 3
+     * WHEN the application is warmed up
+     * THEN the health indicator should report DOWN until it is done, and UP afterwards
+     * AND synthetic requests should have been sent for customers 1, 2 and 3
+     * AND a database connection should have been opened.
+     */
+    @Test
+    void warmUp_success() throws Exception {
+
+        // GIVEN configured customer IDs 1 and 2
+        // AND an access log holding customer IDs 2 and 3
+        Files.write(accessLog, Arrays.asList("2", "3"), StandardCharsets.UTF_8);
+
+        // WHEN the application is warmed up
+        // THEN the health indicator should report DOWN until it is done, and UP afterwards
+        assertFalse(customerWarmUp.isReady());
+        assertEquals(HealthStatus.DOWN, getStatus());
+        customerWarmUp.warmUp();
+        assertTrue(customerWarmUp.isReady());
+        assertEquals(HealthStatus.UP, getStatus());
+
+        // AND synthetic requests should have been sent for customers 1, 2 and 3
+        verify(customerController_mock, times(34)).getCustomer(1, null, "gzip");
+        verify(customerController_mock, times(33)).getCustomer(2, null, "gzip");
+        verify(customerController_mock, times(33)).getCustomer(3, null, "gzip");
+
+        // AND a database connection should have been opened.
+        verify(connection_mock).close();
+    }
+
+    /**
+     * GIVEN hot customer IDs 7 and 5
+     * WHEN the server shuts down
+     * THEN the hot customer IDs should be saved to the access log, hottest first.
+     */
+    @Test
+    void onShutdown_savesHotCustomerIds() throws Exception {
+
+        // GIVEN hot customer IDs 7 and 5
+        Map<Integer, Long> hotCustomerIds = new LinkedHashMap<>();
+        hotCustomerIds.put(7, 500L);
+        hotCustomerIds.put(5, 100L);
+        when(customerHotKeyTracker_mock.getHotCustomerIds()).thenReturn(hotCustomerIds);
+
+        // WHEN the server shuts down
+        customerWarmUp.onShutdown(null);
+
+        // THEN the hot customer IDs should be saved to the access log, hottest first.
+        assertEquals(Arrays.asList("7", "5"), Files.readAllLines(accessLog, StandardCharsets.UTF_8));
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    private HealthStatus getStatus() {
+        return Flowable.fromPublisher(customerWarmUp.getResult()).blockingFirst().getStatus();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
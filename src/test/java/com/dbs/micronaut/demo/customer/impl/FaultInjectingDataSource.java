@@ -0,0 +1,129 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import org.h2.jdbcx.JdbcDataSource;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.logging.Logger;
+
+/**
+ * A local, in-memory H2 DataSource (with its own CUSTOMERS table) that can be told to answer slowly, or to fail.
+ */
+class FaultInjectingDataSource implements DataSource {
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private final JdbcDataSource dataSource = new JdbcDataSource();
+
+    private volatile long delayMillis;
+    private volatile boolean failing;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- CONSTRUCTORS --------------------------------------------------
+
+    /**
+     * Create a new FaultInjectingDataSource over an empty, in-memory H2 database with the given name.
+     */
+    FaultInjectingDataSource(String name) throws SQLException {
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("drop table if exists CUSTOMERS");
+            statement.execute("create table CUSTOMERS (CUST_ID int primary key, CUST_FULL_NAME varchar(255), "
+                    + "CUST_STREET_ADDR varchar(255))");
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------ PUBLIC METHODS -------------------------------------------------
+
+    /**
+     * Insert a Customer row.
+     */
+    void insert(int customerId, String fullName, String streetAddress) throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("insert into CUSTOMERS values (" + customerId + ", '" + fullName + "', '"
+                    + streetAddress + "')");
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (delayMillis > 0) {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted", e);
+            }
+        }
+        if (failing) {
+            throw new SQLException("Injected fault");
+        }
+        return dataSource.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return 0;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        throw new SQLException("Not a wrapper");
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return false;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PROPERTY METHODS ------------------------------------------------
+
+    /**
+     * Make every connection take the given number of milliseconds to open.
+     */
+    void setDelayMillis(long delayMillis) {
+        this.delayMillis = delayMillis;
+    }
+
+    /**
+     * Make every connection fail to open (or not).
+     */
+    void setFailing(boolean failing) {
+        this.failing = failing;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,210 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.BaseTest;
+import com.dbs.micronaut.demo.customer.OrderService;
+import com.dbs.micronaut.demo.customer.contract.OrderDTO;
+import com.dbs.micronaut.demo.customer.contract.OrderPageDTO;
+import com.dbs.micronaut.demo.customer.entity.OrderSummary;
+import com.dbs.micronaut.demo.exception.BusinessException;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.client.RxHttpClient;
+import io.micronaut.http.client.annotation.Client;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.micronaut.test.annotation.MicronautTest;
+import io.micronaut.test.annotation.MockBean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@MicronautTest
+public class OrderControllerImplTest extends BaseTest {
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    @Inject
+    private OrderService orderService_mock;
+
+    @MockBean(OrderServiceImpl.class)
+    protected OrderService orderService() {
+        return mock(OrderService.class);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    /**
+     * The URI for retrieving an order
+     */
+    private static final String V1_GET_ORDER_URI = "/v1/orders/%s";
+
+    /**
+     * The URI for retrieving a page of a customer's orders
+     */
+    private static final String V1_GET_CUSTOMER_ORDERS_URI = "/v1/customers/%s/orders";
+
+    /**
+     * The Micronaut client that will be used to connect to the server
+     */
+    @Inject
+    @Client("/")
+    private RxHttpClient client;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- TEST METHODS --------------------------------------------------
+
+    /**
+     * Initialize the test
+     */
+    @BeforeEach
+    void beforeEach() {
+        super.setup();
+    }
+
+    /**
+     * GIVEN a valid order number and an order with that order number is in the system
+     * WHEN the GET order API endpoint is called
+     * THEN the Order with the given order number should be returned.
+     */
+    @Test
+    void getOrder_success() throws BusinessException {
+
+        // GIVEN a valid order number and an order with that order number is in the system
+        OrderSummary expectedOrder = new OrderSummary("A-1", 7);
+
+        // Mock dependencies
+        doReturn(expectedOrder).when(orderService_mock).getOrder("A-1");
+
+        // WHEN the GET order API endpoint is called
+        HttpResponse<OrderDTO> response = client.toBlocking().exchange(
+                HttpRequest.GET(String.format(V1_GET_ORDER_URI, "A-1")), OrderDTO.class);
+        assertEquals(response.getStatus(), HttpStatus.OK);
+
+        // THEN the Order with the given order number should be returned.
+        assertEquals("A-1", response.body().getOrderNumber());
+        assertEquals(Integer.valueOf(7), response.body().getCustomerId());
+    }
+
+    /**
+     * GIVEN a valid order number and an order with that order number is not in the system
+     * WHEN the GET order API endpoint is called
+     * THEN a NOT FOUND status should be returned.
+     */
+    @Test
+    void getOrder_notFound() throws BusinessException {
+
+        // GIVEN a valid order number and an order with that order number is not in the system
+        doReturn(null).when(orderService_mock).getOrder("A-1");
+
+        // WHEN the GET order API endpoint is called
+        HttpClientResponseException ex = assertThrows(HttpClientResponseException.class, () -> client.toBlocking()
+                .exchange(HttpRequest.GET(String.format(V1_GET_ORDER_URI, "A-1")), OrderDTO.class));
+
+        // THEN a NOT FOUND status should be returned.
+        assertEquals(ex.getStatus(), HttpStatus.NOT_FOUND);
+    }
+
+    /**
+     * GIVEN a Customer with more Orders than fit on one page
+     * WHEN the GET customer orders API endpoint is called with a page size
+     * THEN a full page of Orders should be returned
+     * AND the page should say where the next page starts.
+     */
+    @Test
+    void getCustomerOrders_fullPage() throws BusinessException {
+
+        // GIVEN a Customer with more Orders than fit on one page
+        doReturn(Arrays.asList(new OrderSummary("A-1", 7), new OrderSummary("A-2", 7)))
+                .when(orderService_mock).getCustomerOrders(7, "A-0", 2);
+
+        // WHEN the GET customer orders API endpoint is called with a page size
+        HttpResponse<OrderPageDTO> response = client.toBlocking().exchange(HttpRequest.GET(
+                String.format(V1_GET_CUSTOMER_ORDERS_URI, 7) + "?after=A-0&limit=2"), OrderPageDTO.class);
+        assertEquals(response.getStatus(), HttpStatus.OK);
+
+        // THEN a full page of Orders should be returned
+        OrderPageDTO orderPageDto = response.body();
+        assertEquals(2, orderPageDto.getOrders().size());
+        assertEquals("A-1", orderPageDto.getOrders().get(0).getOrderNumber());
+
+        // AND the page should say where the next page starts.
+        assertEquals("A-2", orderPageDto.getNextAfter());
+    }
+
+    /**
+     * GIVEN a Customer with fewer Orders than fit on one page
+     * WHEN the GET customer orders API endpoint is called without a page size
+     * THEN the default page size should be used
+     * AND the page should say there is no next page.
+     */
+    @Test
+    void getCustomerOrders_lastPage() throws BusinessException {
+
+        // GIVEN a Customer with fewer Orders than fit on one page
+        doReturn(Collections.singletonList(new OrderSummary("A-1", 7)))
+                .when(orderService_mock).getCustomerOrders(7, null, OrderService.DEFAULT_PAGE_SIZE);
+
+        // WHEN the GET customer orders API endpoint is called without a page size
+        HttpResponse<OrderPageDTO> response = client.toBlocking().exchange(
+                HttpRequest.GET(String.format(V1_GET_CUSTOMER_ORDERS_URI, 7)), OrderPageDTO.class);
+
+        // THEN the default page size should be used
+        assertEquals(1, response.body().getOrders().size());
+
+        // AND the page should say there is no next page.
+        assertNull(response.body().getNextAfter());
+    }
+
+    /**
+     * GIVEN a Customer that is not in the system
+     * WHEN the GET customer orders API endpoint is called
+     * THEN a NOT FOUND status should be returned.
+     */
+    @Test
+    void getCustomerOrders_notFound() throws BusinessException {
+
+        // GIVEN a Customer that is not in the system
+        doReturn(null).when(orderService_mock).getCustomerOrders(7, null, OrderService.DEFAULT_PAGE_SIZE);
+
+        // WHEN the GET customer orders API endpoint is called
+        HttpClientResponseException ex = assertThrows(HttpClientResponseException.class, () -> client.toBlocking()
+                .exchange(HttpRequest.GET(String.format(V1_GET_CUSTOMER_ORDERS_URI, 7)), OrderPageDTO.class));
+
+        // THEN a NOT FOUND status should be returned.
+        assertEquals(ex.getStatus(), HttpStatus.NOT_FOUND);
+    }
+
+    /**
+     * GIVEN a page size that is out of range
+     * WHEN the GET customer orders API endpoint is called
+     * AND a BusinessException is thrown by the service
+     * THEN a BAD REQUEST status should be returned.
+     */
+    @Test
+    void getCustomerOrders_businessException() throws BusinessException {
+
+        // GIVEN a page size that is out of range
+        BusinessException exception = new BusinessException(podamFactory.manufacturePojo(String.class));
+        doThrow(exception).when(orderService_mock).getCustomerOrders(7, null, 0);
+
+        // WHEN the GET customer orders API endpoint is called
+        HttpClientResponseException ex = assertThrows(HttpClientResponseException.class, () -> client.toBlocking()
+                .exchange(HttpRequest.GET(String.format(V1_GET_CUSTOMER_ORDERS_URI, 7) + "?limit=0"),
+                        OrderPageDTO.class));
+
+        // THEN a BAD REQUEST status should be returned.
+        assertEquals(ex.getStatus(), HttpStatus.BAD_REQUEST);
+        assertEquals(ex.getMessage(), exception.getMessage());
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,256 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.BaseTest;
+import com.dbs.micronaut.demo.customer.OrderRepository;
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.dbs.micronaut.demo.customer.entity.CustomerOrderSummary;
+import com.dbs.micronaut.demo.customer.entity.Order;
+import com.dbs.micronaut.demo.customer.entity.OrderSummary;
+import io.micronaut.test.annotation.MicronautTest;
+import io.netty.util.collection.IntObjectMap;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * DEVELOPER NOTES: See the CustomerRepositoryImplTest class for how the JPA-based repositories are tested against an
+ * in-memory H2 database.
+ */
+@MicronautTest
+class OrderRepositoryImplTest extends BaseTest {
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    @Inject
+    private EntityManager entityManager;
+
+    @Inject
+    private SessionFactory sessionFactory;
+
+    /**
+     * Class under test
+     */
+    @Inject
+    private OrderRepository orderRepository;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- TEST METHODS --------------------------------------------------
+
+    /**
+     * Initialize the test
+     */
+    @BeforeEach
+    void beforeEach() {
+        super.setup();
+    }
+
+    /**
+     * GIVEN an Order with a given order number is in the database
+     * WHEN an attempt is made to read the Order from the database
+     * THEN a summary of the Order should be returned.
+     */
+    @Test
+    void findByOrderNumber_success() {
+
+        // GIVEN an Order with a given order number is in the database
+        Customer customer = persistCustomer();
+        Order expectedOrder = persistOrder(customer, podamFactory.manufacturePojo(String.class));
+
+        // WHEN an attempt is made to read the Order from the database
+        OrderSummary actualOrder = orderRepository.findByOrderNumber(expectedOrder.getOrderNumber());
+
+        // THEN a summary of the Order should be returned.
+        assertEquals(expectedOrder.getOrderNumber(), actualOrder.getOrderNumber());
+        assertEquals(customer.getCustomerId(), actualOrder.getCustomerId());
+    }
+
+    /**
+     * GIVEN an Order with a given order number is NOT in the database
+     * WHEN an attempt is made to read the Order from the database
+     * THEN null should be returned.
+     */
+    @Test
+    void findByOrderNumber_notFound() {
+
+        // GIVEN an Order with a given order number is NOT in the database
+        String orderNumber = podamFactory.manufacturePojo(String.class);
+
+        // WHEN an attempt is made to read the Order from the database
+        OrderSummary actualOrder = orderRepository.findByOrderNumber(orderNumber);
+
+        // THEN null should be returned.
+        assertNull(actualOrder);
+    }
+
+    /**
+     * GIVEN a Customer with three Orders is in the database
+     * WHEN the Orders are read two at a time, each page starting after the last order number of the previous page
+     * THEN every Order should be returned exactly once, sorted by order number.
+     */
+    @Test
+    void findByCustomerId_keysetPages() {
+
+        // GIVEN a Customer with three Orders is in the database
+        Customer customer = persistCustomer();
+        String prefix = podamFactory.manufacturePojo(String.class);
+        persistOrder(customer, prefix + "-C");
+        persistOrder(customer, prefix + "-A");
+        persistOrder(customer, prefix + "-B");
+
+        // WHEN the Orders are read two at a time, each page starting after the last order number of the previous page
+        List<OrderSummary> firstPage = orderRepository.findByCustomerId(customer.getCustomerId(), null, 2);
+        List<OrderSummary> secondPage = orderRepository.findByCustomerId(customer.getCustomerId(),
+                firstPage.get(1).getOrderNumber(), 2);
+        List<OrderSummary> thirdPage = orderRepository.findByCustomerId(customer.getCustomerId(),
+                secondPage.get(0).getOrderNumber(), 2);
+
+        // THEN every Order should be returned exactly once, sorted by order number.
+        assertEquals(2, firstPage.size());
+        assertEquals(prefix + "-A", firstPage.get(0).getOrderNumber());
+        assertEquals(prefix + "-B", firstPage.get(1).getOrderNumber());
+        assertEquals(1, secondPage.size());
+        assertEquals(prefix + "-C", secondPage.get(0).getOrderNumber());
+        assertEquals(customer.getCustomerId(), secondPage.get(0).getCustomerId());
+        assertTrue(thirdPage.isEmpty());
+    }
+
+    /**
+     * GIVEN a Customer whose Orders are inserted and deleted
+     * WHEN the order summary of the Customer is read after each change is committed
+     * THEN the order count and latest order number should reflect every committed change.
+     */
+    @Test
+    void findSummariesByCustomerId_maintainedIncrementally() {
+
+        // GIVEN a Customer whose Orders are inserted and deleted
+        Customer customer = new Customer();
+        customer.setCustomerId(podamFactory.manufacturePojo(Integer.class));
+        String prefix = podamFactory.manufacturePojo(String.class);
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.persist(customer);
+            persistOrder(session, customer, prefix + "-B");
+            persistOrder(session, customer, prefix + "-A");
+            session.getTransaction().commit();
+        }
+
+        // WHEN the order summary of the Customer is read after each change is committed
+        CustomerOrderSummary afterInserts = findSummary(customer);
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            persistOrder(session, customer, prefix + "-C");
+            session.getTransaction().commit();
+        }
+        CustomerOrderSummary afterThirdInsert = findSummary(customer);
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.delete(session.get(Order.class, prefix + "-C"));
+            session.delete(session.get(Order.class, prefix + "-A"));
+            session.getTransaction().commit();
+        }
+        CustomerOrderSummary afterDeletes = findSummary(customer);
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.delete(session.get(Order.class, prefix + "-B"));
+            session.delete(session.get(Customer.class, customer.getCustomerId()));
+            session.getTransaction().commit();
+        }
+
+        // THEN the order count and latest order number should reflect every committed change.
+        assertEquals(2, afterInserts.getOrderCount());
+        assertEquals(prefix + "-B", afterInserts.getLatestOrderNumber());
+        assertEquals(3, afterThirdInsert.getOrderCount());
+        assertEquals(prefix + "-C", afterThirdInsert.getLatestOrderNumber());
+        assertEquals(1, afterDeletes.getOrderCount());
+        assertEquals(prefix + "-B", afterDeletes.getLatestOrderNumber());
+        assertFalse(orderRepository.findSummariesByCustomerId(new int[]{customer.getCustomerId()})
+                .containsKey(customer.getCustomerId()));
+    }
+
+    /**
+     * GIVEN two Customers, one of which has two Orders
+     * WHEN the latest of those Orders is moved to the other Customer
+     * THEN both Customers' order summaries should reflect the move.
+     */
+    @Test
+    void findSummariesByCustomerId_orderMoved() {
+
+        // GIVEN two Customers, one of which has two Orders
+        Customer from = new Customer();
+        from.setCustomerId(podamFactory.manufacturePojo(Integer.class));
+        Customer to = new Customer();
+        to.setCustomerId(from.getCustomerId() + 1);
+        String prefix = podamFactory.manufacturePojo(String.class);
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.persist(from);
+            session.persist(to);
+            persistOrder(session, from, prefix + "-A");
+            persistOrder(session, from, prefix + "-B");
+            session.getTransaction().commit();
+        }
+
+        // WHEN the latest of those Orders is moved to the other Customer
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.get(Order.class, prefix + "-B").setCustomer(session.get(Customer.class, to.getCustomerId()));
+            session.getTransaction().commit();
+        }
+
+        // THEN both Customers' order summaries should reflect the move.
+        CustomerOrderSummary fromSummary = findSummary(from);
+        CustomerOrderSummary toSummary = findSummary(to);
+        assertEquals(1, fromSummary.getOrderCount());
+        assertEquals(prefix + "-A", fromSummary.getLatestOrderNumber());
+        assertEquals(1, toSummary.getOrderCount());
+        assertEquals(prefix + "-B", toSummary.getLatestOrderNumber());
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    private Customer persistCustomer() {
+        Customer customer = new Customer();
+        customer.setCustomerId(podamFactory.manufacturePojo(Integer.class));
+        entityManager.persist(customer);
+        return customer;
+    }
+
+    private CustomerOrderSummary findSummary(Customer customer) {
+
+        // The test's EntityManager outlives each read, so forget the summary it read last time
+        entityManager.clear();
+        IntObjectMap<CustomerOrderSummary> summaries = orderRepository.findSummariesByCustomerId(
+                new int[]{customer.getCustomerId()});
+        return summaries.get(customer.getCustomerId());
+    }
+
+    private void persistOrder(Session session, Customer customer, String orderNumber) {
+        Order order = new Order();
+        order.setOrderNumber(orderNumber);
+        order.setCustomer(customer);
+        session.persist(order);
+    }
+
+    private Order persistOrder(Customer customer, String orderNumber) {
+        Order order = new Order();
+        order.setOrderNumber(orderNumber);
+        order.setCustomer(customer);
+        entityManager.persist(order);
+        return order;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
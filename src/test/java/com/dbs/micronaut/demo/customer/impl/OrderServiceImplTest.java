@@ -0,0 +1,200 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.BaseTest;
+import com.dbs.micronaut.demo.customer.CustomerService;
+import com.dbs.micronaut.demo.customer.OrderRepository;
+import com.dbs.micronaut.demo.customer.OrderService;
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.dbs.micronaut.demo.customer.entity.OrderSummary;
+import com.dbs.micronaut.demo.exception.BusinessException;
+import com.dbs.micronaut.demo.tenant.TenantResolver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class OrderServiceImplTest extends BaseTest {
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    @Mock
+    private OrderRepository orderRepository_mock;
+
+    @Mock
+    private CustomerService customerService_mock;
+
+    @Mock
+    private TenantResolver tenantResolver_mock;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    /**
+     * Class under test (spied to test protected methods)
+     */
+    private OrderService orderService_spy;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- TEST METHODS --------------------------------------------------
+
+    @BeforeEach
+    public void setup() {
+        super.setup();
+
+        // Create a spy so that protected methods can/may be mocked
+        orderService_spy = spy(new OrderServiceImpl(orderRepository_mock, customerService_mock, tenantResolver_mock,
+                false));
+
+        // Every customer ID is valid, and every request is for the default tenant, unless a test says otherwise
+        doReturn(true).when(customerService_mock).isValidCustomerId(anyInt());
+        doReturn(true).when(tenantResolver_mock).isDefaultTenant();
+    }
+
+    /**
+     * GIVEN a valid order number and an Order with that order number is in the system
+     * WHEN the Order is requested
+     * THEN a summary of the Order should be returned.
+     */
+    @Test
+    void getOrder_found() throws BusinessException {
+
+        // GIVEN a valid order number and an Order with that order number is in the system
+        OrderSummary expectedOrder = new OrderSummary(podamFactory.manufacturePojo(String.class),
+                podamFactory.manufacturePojo(Integer.class));
+        doReturn(expectedOrder).when(orderRepository_mock).findByOrderNumber(expectedOrder.getOrderNumber());
+
+        // WHEN the Order is requested
+        OrderSummary actualOrder = orderService_spy.getOrder(expectedOrder.getOrderNumber());
+
+        // THEN a summary of the Order should be returned.
+        assertSame(expectedOrder, actualOrder);
+    }
+
+    /**
+     * GIVEN a blank order number
+     * WHEN the Order is requested
+     * THEN a BusinessException should be thrown
+     * AND the repository should not be called.
+     */
+    @Test
+    void getOrder_invalidOrderNumber() {
+
+        // GIVEN a blank order number
+        String orderNumber = " ";
+
+        // WHEN the Order is requested
+        // THEN a BusinessException should be thrown
+        BusinessException ex = assertThrows(BusinessException.class, () -> orderService_spy.getOrder(orderNumber));
+        assertEquals(String.format(OrderService.INVALID_ORDER_NUMBER, orderNumber), ex.getMessage());
+
+        // AND the repository should not be called.
+        verifyZeroInteractions(orderRepository_mock);
+    }
+
+    /**
+     * GIVEN a Customer with Orders is in the system
+     * WHEN a page of the Customer's Orders is requested
+     * THEN the page should be returned
+     * AND the Customer should not have to be looked up.
+     */
+    @Test
+    void getCustomerOrders_found() throws BusinessException {
+
+        // GIVEN a Customer with Orders is in the system
+        int customerId = podamFactory.manufacturePojo(Integer.class);
+        List<OrderSummary> expectedOrders = Collections.singletonList(new OrderSummary("A", customerId));
+        doReturn(expectedOrders).when(orderRepository_mock).findByCustomerId(customerId, "0", 10);
+
+        // WHEN a page of the Customer's Orders is requested
+        List<OrderSummary> actualOrders = orderService_spy.getCustomerOrders(customerId, "0", 10);
+
+        // THEN the page should be returned
+        assertSame(expectedOrders, actualOrders);
+
+        // AND the Customer should not have to be looked up.
+        verify(customerService_mock, never()).getCustomer(anyInt());
+    }
+
+    /**
+     * GIVEN a Customer with no Orders is in the system, and a Customer that is NOT in the system
+     * WHEN a page of each Customer's Orders is requested
+     * THEN an empty page should be returned for the Customer in the system
+     * AND null should be returned for the Customer NOT in the system.
+     */
+    @Test
+    void getCustomerOrders_noOrders() throws BusinessException {
+
+        // GIVEN a Customer with no Orders is in the system, and a Customer that is NOT in the system
+        Customer customer = podamFactory.manufacturePojo(Customer.class);
+        int missingCustomerId = customer.getCustomerId() + 1;
+        doReturn(Collections.emptyList()).when(orderRepository_mock).findByCustomerId(anyInt(), isNull(), anyInt());
+        doReturn(customer).when(customerService_mock).getCustomer(customer.getCustomerId().intValue());
+        doReturn(null).when(customerService_mock).getCustomer(missingCustomerId);
+
+        // WHEN a page of each Customer's Orders is requested
+        List<OrderSummary> customerOrders = orderService_spy.getCustomerOrders(customer.getCustomerId(), null, 10);
+        List<OrderSummary> missingCustomerOrders = orderService_spy.getCustomerOrders(missingCustomerId, null, 10);
+
+        // THEN an empty page should be returned for the Customer in the system
+        assertTrue(customerOrders.isEmpty());
+
+        // AND null should be returned for the Customer NOT in the system.
+        assertNull(missingCustomerOrders);
+    }
+
+    /**
+     * GIVEN a page size larger than the maximum page size
+     * WHEN a page of a Customer's Orders is requested
+     * THEN a BusinessException should be thrown.
+     */
+    @Test
+    void getCustomerOrders_invalidPageSize() {
+
+        // GIVEN a page size larger than the maximum page size
+        int pageSize = OrderService.MAX_PAGE_SIZE + 1;
+
+        // WHEN a page of a Customer's Orders is requested
+        // THEN a BusinessException should be thrown.
+        BusinessException ex = assertThrows(BusinessException.class,
+                () -> orderService_spy.getCustomerOrders(1, null, pageSize));
+        assertEquals(String.format(OrderService.INVALID_PAGE_SIZE, pageSize, OrderService.MAX_PAGE_SIZE),
+                ex.getMessage());
+        verifyZeroInteractions(orderRepository_mock);
+    }
+
+    /**
+     * GIVEN more customer IDs than may be requested at once, and an invalid customer ID
+     * WHEN their order summaries are requested
+     * THEN a BusinessException should be thrown
+     * AND the repository should not be called.
+     */
+    @Test
+    void getCustomerOrderSummaries_invalidCustomerIds() {
+
+        // GIVEN more customer IDs than may be requested at once, and an invalid customer ID
+        int[] tooManyCustomerIds = new int[CustomerService.MAX_CUSTOMER_IDS + 1];
+        doReturn(false).when(customerService_mock).isValidCustomerId(-1);
+
+        // WHEN their order summaries are requested
+        // THEN a BusinessException should be thrown
+        BusinessException ex = assertThrows(BusinessException.class,
+                () -> orderService_spy.getCustomerOrderSummaries(tooManyCustomerIds));
+        assertEquals(String.format(CustomerService.TOO_MANY_CUSTOMER_IDS, tooManyCustomerIds.length,
+                CustomerService.MAX_CUSTOMER_IDS), ex.getMessage());
+        ex = assertThrows(BusinessException.class,
+                () -> orderService_spy.getCustomerOrderSummaries(new int[]{1, -1}));
+        assertEquals(String.format(CustomerService.INVALID_CUSTOMER_ID, -1), ex.getMessage());
+
+        // AND the repository should not be called.
+        verifyZeroInteractions(orderRepository_mock);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,174 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.BaseTest;
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.dbs.micronaut.demo.customer.event.EntityChangeEvent;
+import com.dbs.micronaut.demo.customer.event.EntityChangeEvent.ChangeType;
+import com.dbs.micronaut.demo.customer.impl.CustomerCircuitBreaker.State;
+import com.dbs.micronaut.demo.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ResilientCustomerRepositoryImplTest extends BaseTest {
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    /**
+     * Class under test
+     */
+    private ResilientCustomerRepositoryImpl resilientCustomerRepository;
+
+    @Mock
+    private CustomerRepositoryImpl customerRepository_mock;
+
+    private FaultInjectingDataSource hedgeDataSource;
+    private ExecutorService executorService;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- TEST METHODS --------------------------------------------------
+
+    @BeforeEach
+    public void setup() {
+        super.setup();
+        executorService = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    public void teardown() {
+        executorService.shutdownNow();
+    }
+
+    /**
+     * GIVEN a database that is answering slowly
+     * AND an alternate datasource holding the Customer
+     * WHEN the Customer is looked up
+     * THEN the Customer should be read from the alternate datasource, well before the database would have answered.
+     */
+    @Test
+    void findByIdOrNull_hedgeWins() throws Exception {
+
+        // GIVEN a database that is answering slowly
+        when(customerRepository_mock.findByIdOrNull(anyInt(), any())).thenAnswer(invocation -> {
+            Thread.sleep(2000);
+            return null;
+        });
+
+        // AND an alternate datasource holding the Customer
+        hedgeDataSource = new FaultInjectingDataSource("hedge");
+        hedgeDataSource.insert(1, "Jane Doe", "1 Main St");
+        createRepository(hedgeDataSource);
+
+        // WHEN the Customer is looked up
+        long start = System.nanoTime();
+        Customer customer = resilientCustomerRepository.findByIdOrNull(1);
+
+        // THEN the Customer should be read from the alternate datasource, well before the database would have answered.
+        assertNotNull(customer);
+        assertEquals("Jane Doe", customer.getFullName());
+        assertEquals("1 Main St", customer.getStreetAddress());
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 1000);
+        assertEquals(1, resilientCustomerRepository.getHedges());
+    }
+
+    /**
+     * GIVEN a Customer that was read successfully
+     * WHEN the database starts failing
+     * THEN the previously read Customer should be returned instead
+     * AND the circuit breaker should open, so that the database isn't asked anymore.
+     */
+    @Test
+    void findByIdOrNull_circuitOpens() {
+
+        // GIVEN a Customer that was read successfully
+        Customer expectedCustomer = podamFactory.manufacturePojo(Customer.class);
+        when(customerRepository_mock.findByIdOrNull(eq(1), any())).thenReturn(expectedCustomer);
+        createRepository(null);
+        assertSame(expectedCustomer, resilientCustomerRepository.findByIdOrNull(1));
+
+        // WHEN the database starts failing
+        when(customerRepository_mock.findByIdOrNull(eq(1), any()))
+                .thenThrow(new IllegalStateException("Database is down"));
+
+        // THEN the previously read Customer should be returned instead
+        for (int i = 0; (i < 10) && (resilientCustomerRepository.getPrimaryState() != State.OPEN); i++) {
+            assertSame(expectedCustomer, resilientCustomerRepository.findByIdOrNull(1));
+        }
+
+        // AND the circuit breaker should open, so that the database isn't asked anymore.
+        assertEquals(State.OPEN, resilientCustomerRepository.getPrimaryState());
+        clearInvocations(customerRepository_mock);
+        assertSame(expectedCustomer, resilientCustomerRepository.findByIdOrNull(1));
+        verify(customerRepository_mock, never()).findByIdOrNull(anyInt(), any());
+    }
+
+    /**
+     * GIVEN a database that is failing
+     * WHEN a Customer that was never read before is looked up
+     * THEN a ServiceUnavailableException should be thrown.
+     */
+    @Test
+    void findByIdOrNull_unavailable() {
+
+        // GIVEN a database that is failing
+        when(customerRepository_mock.findByIdOrNull(anyInt(), any()))
+                .thenThrow(new IllegalStateException("Database is down"));
+        createRepository(null);
+
+        // WHEN a Customer that was never read before is looked up
+        // THEN a ServiceUnavailableException should be thrown.
+        assertThrows(ServiceUnavailableException.class, () -> resilientCustomerRepository.findByIdOrNull(1));
+        assertEquals(1, resilientCustomerRepository.getFallbacks());
+    }
+
+    /**
+     * GIVEN a Customer that was read successfully
+     * WHEN the Customer is updated
+     * AND the database starts failing
+     * THEN the previously read (now stale) Customer should NOT be returned instead.
+     */
+    @Test
+    void onEntityChange_forgetsFallback() {
+
+        // GIVEN a Customer that was read successfully
+        Customer expectedCustomer = podamFactory.manufacturePojo(Customer.class);
+        expectedCustomer.setCustomerId(1);
+        when(customerRepository_mock.findByIdOrNull(eq(1), any())).thenReturn(expectedCustomer);
+        createRepository(null);
+        assertSame(expectedCustomer, resilientCustomerRepository.findByIdOrNull(1));
+
+        // WHEN the Customer is updated
+        resilientCustomerRepository.onEntityChange(new EntityChangeEvent(expectedCustomer, ChangeType.UPDATED));
+
+        // AND the database starts failing
+        when(customerRepository_mock.findByIdOrNull(eq(1), any()))
+                .thenThrow(new IllegalStateException("Database is down"));
+
+        // THEN the previously read (now stale) Customer should NOT be returned instead.
+        assertThrows(ServiceUnavailableException.class, () -> resilientCustomerRepository.findByIdOrNull(1));
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    private void createRepository(FaultInjectingDataSource hedgeDataSource) {
+        resilientCustomerRepository = new ResilientCustomerRepositoryImpl(customerRepository_mock, hedgeDataSource,
+                "hedge", executorService, Duration.ofMillis(500), Duration.ofMillis(5), 4, 0.5,
+                Duration.ofSeconds(10), 100);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
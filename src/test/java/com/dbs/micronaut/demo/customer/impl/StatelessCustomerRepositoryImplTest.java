@@ -0,0 +1,113 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.BaseTest;
+import com.dbs.micronaut.demo.customer.CustomerRepository;
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import io.micronaut.test.annotation.MicronautTest;
+import io.netty.util.collection.IntObjectMap;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DEVELOPER NOTE: The "stateless" environment (see application-stateless.yml in the test resources) turns on stateless
+ * reads, so this repository replaces the JPA-based CustomerRepositoryImpl for this test. A StatelessSession uses a
+ * connection of its own, so the test Customers are committed before they are read.
+ */
+@MicronautTest(environments = "stateless")
+class StatelessCustomerRepositoryImplTest extends BaseTest {
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    @Inject
+    private SessionFactory sessionFactory;
+
+    /**
+     * Class under test
+     */
+    @Inject
+    private CustomerRepository customerRepository;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- TEST METHODS --------------------------------------------------
+
+    @BeforeEach
+    void beforeEach() {
+        super.setup();
+    }
+
+    /**
+     * GIVEN a Customer is in the database
+     * WHEN the Customer is read by its ID, and a Customer that is NOT in the database is read by its ID
+     * THEN the Customer should be returned, and null for the missing Customer.
+     */
+    @Test
+    void findByIdOrNull() {
+
+        // GIVEN a Customer is in the database
+        Customer expectedCustomer = persistCustomer();
+
+        // WHEN the Customer is read by its ID, and a Customer that is NOT in the database is read by its ID
+        assertTrue(customerRepository instanceof StatelessCustomerRepositoryImpl);
+        Customer actualCustomer = customerRepository.findByIdOrNull(expectedCustomer.getCustomerId());
+        Customer missingCustomer = customerRepository.findByIdOrNull(expectedCustomer.getCustomerId() + 1);
+
+        // THEN the Customer should be returned, and null for the missing Customer.
+        assertNotNull(actualCustomer);
+        assertNotSame(expectedCustomer, actualCustomer);
+        assertEquals(expectedCustomer.getFullName(), actualCustomer.getFullName());
+        assertEquals(expectedCustomer.getStreetAddress(), actualCustomer.getStreetAddress());
+        assertNotNull(actualCustomer.getLastReadTimestamp());
+        assertNull(missingCustomer);
+    }
+
+    /**
+     * GIVEN two Customers are in the database
+     * WHEN the Customers, and a Customer that is NOT in the database, are read by their IDs
+     * THEN the two Customers should be returned, keyed by their IDs.
+     */
+    @Test
+    void findAllById() {
+
+        // GIVEN two Customers are in the database
+        Customer firstCustomer = persistCustomer();
+        Customer secondCustomer = persistCustomer();
+
+        // WHEN the Customers, and a Customer that is NOT in the database, are read by their IDs
+        IntObjectMap<Customer> customers = customerRepository.findAllById(new int[]{firstCustomer.getCustomerId(),
+                secondCustomer.getCustomerId(), firstCustomer.getCustomerId() + 1});
+
+        // THEN the two Customers should be returned, keyed by their IDs.
+        assertEquals(2, customers.size());
+        assertEquals(firstCustomer.getFullName(), customers.get(firstCustomer.getCustomerId()).getFullName());
+        assertEquals(secondCustomer.getFullName(), customers.get(secondCustomer.getCustomerId()).getFullName());
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    /**
+     * Commit a new Customer with an odd ID, so that the (even) ID after it is never one of these test Customers.
+     */
+    private Customer persistCustomer() {
+        Customer customer = new Customer();
+        customer.setCustomerId(Math.abs(podamFactory.manufacturePojo(Integer.class) / 2) * 2 + 1);
+        customer.setFullName(podamFactory.manufacturePojo(String.class));
+        customer.setStreetAddress(podamFactory.manufacturePojo(String.class));
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.persist(customer);
+            session.getTransaction().commit();
+        }
+        return customer;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
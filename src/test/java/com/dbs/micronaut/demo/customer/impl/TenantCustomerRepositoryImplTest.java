@@ -0,0 +1,177 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.BaseTest;
+import com.dbs.micronaut.demo.customer.CustomerRepository;
+import com.dbs.micronaut.demo.customer.contract.CustomerDTO;
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import io.micronaut.core.type.Argument;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.client.RxHttpClient;
+import io.micronaut.http.client.annotation.Client;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.micronaut.test.annotation.MicronautTest;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DEVELOPER NOTE: The "tenancy" environment (see application-tenancy.yml in the test resources) adds a second tenant,
+ * "unitb", with a data source of its own (a separate in-memory database, whose CUSTOMERS table the test creates), and
+ * a cache of just two Customers per tenant.
+ */
+@MicronautTest(environments = "tenancy")
+class TenantCustomerRepositoryImplTest extends BaseTest {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    private static final String TENANT_HEADER = "X-Tenant-Id";
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    @Inject
+    private SessionFactory sessionFactory;
+
+    @Inject
+    @Named("unitb")
+    private DataSource unitbDataSource;
+
+    @Inject
+    @Client("/")
+    private RxHttpClient client;
+
+    /**
+     * Class under test
+     */
+    @Inject
+    private CustomerRepository customerRepository;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- TEST METHODS --------------------------------------------------
+
+    @BeforeEach
+    void beforeEach() throws SQLException {
+        super.setup();
+        try (Connection connection = unitbDataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("create table if not exists CUSTOMERS (CUST_ID int primary key, "
+                    + "CUST_FULL_NAME varchar(255), CUST_STREET_ADDR varchar(255))");
+        }
+    }
+
+    /**
+     * GIVEN Customers with the same ID in the default tenant's database and in tenant "unitb"'s database
+     * WHEN the Customer is requested without a tenant header, and for tenant "unitb"
+     * THEN each request should get its own tenant's Customer.
+     */
+    @Test
+    void getCustomer_routedByTenant() throws SQLException {
+
+        // GIVEN Customers with the same ID in the default tenant's database and in tenant "unitb"'s database
+        persistCustomer(765_431, "Default Customer");
+        insertCustomer(765_431, "Unit B Customer");
+
+        // WHEN the Customer is requested without a tenant header, and for tenant "unitb"
+        assertTrue(customerRepository instanceof TenantCustomerRepositoryImpl);
+        CustomerDTO defaultCustomer = client.toBlocking().retrieve(HttpRequest.GET("/v1/customers/765431"),
+                CustomerDTO.class);
+        CustomerDTO unitbCustomer = client.toBlocking().retrieve(HttpRequest.GET("/v1/customers/765431")
+                .header(TENANT_HEADER, "unitb"), CustomerDTO.class);
+
+        // THEN each request should get its own tenant's Customer.
+        assertEquals("Default Customer", defaultCustomer.getFullName());
+        assertEquals("Unit B Customer", unitbCustomer.getFullName());
+    }
+
+    /**
+     * GIVEN three Customers in tenant "unitb"'s database, and a cache quota of two Customers per tenant
+     * WHEN the three Customers are requested for tenant "unitb"
+     * THEN all three should be returned
+     * AND only two of them should be left in the tenant's cache.
+     */
+    @Test
+    void getCustomers_cacheQuota() throws SQLException {
+
+        // GIVEN three Customers in tenant "unitb"'s database, and a cache quota of two Customers per tenant
+        for (int customerId = 765_441; customerId <= 765_443; customerId++) {
+            insertCustomer(customerId, "Unit B Customer " + customerId);
+        }
+
+        // WHEN the three Customers are requested for tenant "unitb"
+        List<CustomerDTO> customers = client.toBlocking().retrieve(HttpRequest
+                .GET("/v1/customers?ids=765441,765442,765443").header(TENANT_HEADER, "unitb"),
+                Argument.listOf(CustomerDTO.class));
+
+        // THEN all three should be returned
+        assertEquals(3, customers.size());
+
+        // AND only two of them should be left in the tenant's cache.
+        assertEquals(2, ((TenantCustomerRepositoryImpl) customerRepository).getCacheSize("unitb"));
+    }
+
+    /**
+     * GIVEN a tenant that doesn't exist, and a path that isn't routed to tenant data sources
+     * WHEN a Customer is requested for the unknown tenant, and the path is requested for tenant "unitb"
+     * THEN both requests should get a 400 - BAD REQUEST.
+     */
+    @Test
+    void getCustomer_rejectedTenants() {
+
+        // GIVEN a tenant that doesn't exist, and a path that isn't routed to tenant data sources
+        HttpRequest<?> unknownTenant = HttpRequest.GET("/v1/customers/765431").header(TENANT_HEADER, "unitz");
+        HttpRequest<?> notRouted = HttpRequest.GET("/v1/customers/search?q=Customer").header(TENANT_HEADER, "unitb");
+
+        // WHEN a Customer is requested for the unknown tenant, and the path is requested for tenant "unitb"
+        HttpClientResponseException unknownTenantException = assertThrows(HttpClientResponseException.class,
+                () -> client.toBlocking().exchange(unknownTenant));
+        HttpClientResponseException notRoutedException = assertThrows(HttpClientResponseException.class,
+                () -> client.toBlocking().exchange(notRouted));
+
+        // THEN both requests should get a 400 - BAD REQUEST.
+        assertEquals(HttpStatus.BAD_REQUEST, unknownTenantException.getStatus());
+        assertEquals(HttpStatus.BAD_REQUEST, notRoutedException.getStatus());
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    private void persistCustomer(int customerId, String fullName) {
+        Customer customer = new Customer();
+        customer.setCustomerId(customerId);
+        customer.setFullName(fullName);
+        customer.setStreetAddress("1 Tenant Street");
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.save(customer);
+            session.getTransaction().commit();
+        }
+    }
+
+    private void insertCustomer(int customerId, String fullName) throws SQLException {
+        try (Connection connection = unitbDataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("merge into CUSTOMERS values (?, ?, ?)")) {
+            statement.setInt(1, customerId);
+            statement.setString(2, fullName);
+            statement.setString(3, "1 Tenant Street");
+            statement.executeUpdate();
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,213 @@
+package com.dbs.micronaut.demo.customer.impl;
+
+import com.dbs.micronaut.demo.BaseTest;
+import com.dbs.micronaut.demo.customer.CustomerWriter;
+import com.dbs.micronaut.demo.customer.contract.CustomerDTO;
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.dbs.micronaut.demo.exception.ServiceUnavailableException;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.client.RxHttpClient;
+import io.micronaut.http.client.annotation.Client;
+import io.micronaut.test.annotation.MicronautTest;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * DEVELOPER NOTE: The "write-behind" environment (see application-write-behind.yml in the test resources) enables
+ * write-behind, with batches of two Customers, and a flush interval so long that these tests flush for themselves.
+ */
+@MicronautTest(environments = "write-behind")
+class WriteBehindCustomerWriterTest extends BaseTest {
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    @Inject
+    private SessionFactory sessionFactory;
+
+    @Inject
+    private CustomerWriterImpl customerWriterImpl;
+
+    @Inject
+    @Client("/")
+    private RxHttpClient client;
+
+    /**
+     * Class under test
+     */
+    @Inject
+    private CustomerWriter customerWriter;
+
+    private Path journalFile;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- TEST METHODS --------------------------------------------------
+
+    @BeforeEach
+    void beforeEach() throws Exception {
+        super.setup();
+        journalFile = Files.createTempFile("customer-updates-test", ".journal");
+    }
+
+    @AfterEach
+    void afterEach() throws Exception {
+        Files.deleteIfExists(journalFile);
+    }
+
+    /**
+     * GIVEN a Customer in the database
+     * WHEN its full name is changed twice through the API
+     * THEN both changes should be acknowledged, but neither written to the database yet
+     * AND once flushed, only the latest full name should be written (and returned by the API).
+     */
+    @Test
+    void updateCustomer_writeBehind() {
+
+        // GIVEN a Customer in the database
+        persistCustomer(654_301, "Original Name");
+
+        // WHEN its full name is changed twice through the API
+        CustomerDTO first = client.toBlocking().retrieve(HttpRequest.PUT("/v1/customers/654301",
+                fullName("First Name")), CustomerDTO.class);
+        CustomerDTO second = client.toBlocking().retrieve(HttpRequest.PUT("/v1/customers/654301",
+                fullName("Second Name")), CustomerDTO.class);
+
+        // THEN both changes should be acknowledged, but neither written to the database yet
+        assertEquals("First Name", first.getFullName());
+        assertEquals("Second Name", second.getFullName());
+        assertTrue(customerWriter instanceof WriteBehindCustomerWriter);
+        assertEquals(1, ((WriteBehindCustomerWriter) customerWriter).getQueueDepth());
+        assertEquals("Original Name", readFullName(654_301));
+
+        // AND once flushed, only the latest full name should be written (and returned by the API).
+        ((WriteBehindCustomerWriter) customerWriter).flush();
+        assertEquals(0, ((WriteBehindCustomerWriter) customerWriter).getQueueDepth());
+        assertEquals("Second Name", readFullName(654_301));
+        assertEquals("Second Name", client.toBlocking().retrieve(HttpRequest.GET("/v1/customers/654301"),
+                CustomerDTO.class).getFullName());
+    }
+
+    /**
+     * GIVEN changes to three Customers journaled, one of which is deleted before they're written
+     * WHEN the application crashes before the changes are written, and is restarted
+     * THEN the changes should be replayed from the journal
+     * AND once flushed, the changes to the existing Customers should be written, and the other one dropped
+     * AND nothing should be replayed after the next restart.
+     */
+    @Test
+    void recover_afterCrash() throws Exception {
+
+        // GIVEN changes to three Customers journaled, one of which is deleted before they're written
+        persistCustomer(654_311, "Original Name");
+        persistCustomer(654_312, "Original Name");
+        persistCustomer(654_313, "Original Name");
+        WriteBehindCustomerWriter crashedWriter = new WriteBehindCustomerWriter(customerWriterImpl,
+                journalFile.toString(), 4096, 2, false);
+        crashedWriter.update(customer(654_311, "Replayed Name"));
+        crashedWriter.update(customer(654_312, "Replayed Name"));
+        crashedWriter.update(customer(654_313, "Replayed Name"));
+        deleteCustomer(654_312);
+
+        // WHEN the application crashes before the changes are written, and is restarted
+        WriteBehindCustomerWriter restartedWriter = new WriteBehindCustomerWriter(customerWriterImpl,
+                journalFile.toString(), 4096, 2, false);
+
+        // THEN the changes should be replayed from the journal
+        assertEquals(3, restartedWriter.getQueueDepth());
+
+        // AND once flushed, the changes to the existing Customers should be written, and the other one dropped
+        restartedWriter.flush();
+        assertEquals(0, restartedWriter.getQueueDepth());
+        assertEquals("Replayed Name", readFullName(654_311));
+        assertEquals("Replayed Name", readFullName(654_313));
+        assertNull(readFullName(654_312));
+
+        // AND nothing should be replayed after the next restart.
+        restartedWriter.close();
+        WriteBehindCustomerWriter nextWriter = new WriteBehindCustomerWriter(customerWriterImpl,
+                journalFile.toString(), 4096, 2, false);
+        assertEquals(0, nextWriter.getQueueDepth());
+        nextWriter.close();
+    }
+
+    /**
+     * GIVEN a tiny journal, and a database that is down
+     * WHEN Customers are changed until the journal is full
+     * THEN the change that doesn't fit should be refused
+     * AND every change journaled should stay pending, for the next flush.
+     */
+    @Test
+    void update_journalFull() throws Exception {
+
+        // GIVEN a tiny journal, and a database that is down
+        CustomerWriterImpl customerWriterImpl_mock = mock(CustomerWriterImpl.class);
+        doThrow(new IllegalStateException("Database is down")).when(customerWriterImpl_mock).updateAll(any());
+        WriteBehindCustomerWriter writer = new WriteBehindCustomerWriter(customerWriterImpl_mock,
+                journalFile.toString(), 200, 2, false);
+
+        // WHEN Customers are changed until the journal is full
+        writer.update(customer(1, "Name"));
+        writer.update(customer(2, "Name"));
+        writer.update(customer(3, "Name"));
+
+        // THEN the change that doesn't fit should be refused
+        assertThrows(ServiceUnavailableException.class, () -> writer.update(customer(4, "Name")));
+
+        // AND every change journaled should stay pending, for the next flush.
+        assertEquals(3, writer.getQueueDepth());
+        writer.close();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    private void persistCustomer(int customerId, String fullName) {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.save(customer(customerId, fullName));
+            session.getTransaction().commit();
+        }
+    }
+
+    private void deleteCustomer(int customerId) {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.delete(session.get(Customer.class, customerId));
+            session.getTransaction().commit();
+        }
+    }
+
+    private String readFullName(int customerId) {
+        try (Session session = sessionFactory.openSession()) {
+            Customer customer = session.get(Customer.class, customerId);
+            return (customer == null) ? null : customer.getFullName();
+        }
+    }
+
+    private static Customer customer(int customerId, String fullName) {
+        Customer customer = new Customer();
+        customer.setCustomerId(customerId);
+        customer.setFullName(fullName);
+        customer.setStreetAddress("1 Journal Street");
+        return customer;
+    }
+
+    private static CustomerDTO fullName(String fullName) {
+        CustomerDTO customerDto = new CustomerDTO();
+        customerDto.setFullName(fullName);
+        return customerDto;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,135 @@
+package com.dbs.micronaut.demo.ratelimit.impl;
+
+import com.dbs.micronaut.demo.BaseTest;
+import com.dbs.micronaut.demo.ratelimit.RateLimiter;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MutableHttpResponse;
+import io.micronaut.http.filter.ServerFilterChain;
+import io.reactivex.Flowable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class RateLimitFilterTest extends BaseTest {
+
+    // ------------------------------------------------- DEPENDENCIES --------------------------------------------------
+
+    @Mock
+    private RateLimiter rateLimiter_mock;
+
+    @Mock
+    private HttpRequest<Object> request_mock;
+
+    @Mock
+    private HttpHeaders headers_mock;
+
+    @Mock
+    private ServerFilterChain chain_mock;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    /**
+     * Class under test
+     */
+    private RateLimitFilter rateLimitFilter;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- TEST METHODS --------------------------------------------------
+
+    @BeforeEach
+    public void setup() {
+        super.setup();
+        rateLimitFilter = new RateLimitFilter(rateLimiter_mock, "X-Api-Key");
+
+        doReturn("/v1/customers/1").when(request_mock).getPath();
+        doReturn(headers_mock).when(request_mock).getHeaders();
+        doReturn(new InetSocketAddress("10.1.2.3", 54321)).when(request_mock).getRemoteAddress();
+        doReturn(Flowable.just(HttpResponse.ok())).when(chain_mock).proceed(any());
+    }
+
+    /**
+     * GIVEN a request with an API key, within its rate limit
+     * WHEN the request is filtered
+     * THEN it should be handled
+     * AND the rate limit of its API key should have been checked.
+     */
+    @Test
+    void doFilter_allowed() {
+
+        // GIVEN a request with an API key, within its rate limit
+        doReturn("key-1").when(headers_mock).get("X-Api-Key");
+        doReturn(0L).when(rateLimiter_mock).tryAcquire("/v1/customers/1", "key-1");
+
+        // WHEN the request is filtered
+        MutableHttpResponse<?> response = Flowable.fromPublisher(
+                rateLimitFilter.doFilter(request_mock, chain_mock)).blockingFirst();
+
+        // THEN it should be handled
+        assertEquals(HttpStatus.OK, response.getStatus());
+        verify(chain_mock).proceed(request_mock);
+
+        // AND the rate limit of its API key should have been checked.
+        verify(rateLimiter_mock).tryAcquire("/v1/customers/1", "key-1");
+    }
+
+    /**
+     * GIVEN a request without an API key, whose IP address is over its rate limit for another 1.2 seconds
+     * WHEN the request is filtered
+     * THEN it should be turned away with a 429 - TOO MANY REQUESTS, to try again in 2 seconds
+     * AND it should not be handled.
+     */
+    @Test
+    void doFilter_rejected() {
+
+        // GIVEN a request without an API key, whose IP address is over its rate limit for another 1.2 seconds
+        doReturn(TimeUnit.MILLISECONDS.toNanos(1200)).when(rateLimiter_mock).tryAcquire("/v1/customers/1",
+                "10.1.2.3");
+
+        // WHEN the request is filtered
+        MutableHttpResponse<?> response = Flowable.fromPublisher(
+                rateLimitFilter.doFilter(request_mock, chain_mock)).blockingFirst();
+
+        // THEN it should be turned away with a 429 - TOO MANY REQUESTS, to try again in 2 seconds
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatus());
+        assertEquals("2", response.getHeaders().get(HttpHeaders.RETRY_AFTER));
+
+        // AND it should not be handled.
+        verifyZeroInteractions(chain_mock);
+    }
+
+    /**
+     * GIVEN a filter without a client header (the default), and a request with an API key
+     * WHEN the request is filtered
+     * THEN the rate limit of its IP address should have been checked, not that of its API key.
+     */
+    @Test
+    void doFilter_ipAddressOnly() {
+
+        // GIVEN a filter without a client header (the default), and a request with an API key
+        RateLimitFilter ipRateLimitFilter = new RateLimitFilter(rateLimiter_mock, "");
+        doReturn("key-1").when(headers_mock).get("X-Api-Key");
+        doReturn(0L).when(rateLimiter_mock).tryAcquire("/v1/customers/1", "10.1.2.3");
+
+        // WHEN the request is filtered
+        Flowable.fromPublisher(ipRateLimitFilter.doFilter(request_mock, chain_mock)).blockingFirst();
+
+        // THEN the rate limit of its IP address should have been checked, not that of its API key.
+        verify(rateLimiter_mock).tryAcquire("/v1/customers/1", "10.1.2.3");
+        verifyZeroInteractions(headers_mock);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,146 @@
+package com.dbs.micronaut.demo.ratelimit.impl;
+
+import com.dbs.micronaut.demo.BaseTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterImplTest extends BaseTest {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    private static final String CUSTOMER_PATH = "/v1/customers/42";
+
+    private static final long ONE_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    /**
+     * Class under test: 10 requests per second per client, 5 at once, for a single customer.
+     */
+    private RateLimiterImpl rateLimiter;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- TEST METHODS --------------------------------------------------
+
+    @BeforeEach
+    void beforeEach() {
+        super.setup();
+        rateLimiter = new RateLimiterImpl("/v1/customers/[0-9]+=10/5; /v1/orders/.*=1/1", Duration.ofMinutes(5));
+    }
+
+    /**
+     * GIVEN a client that hasn't made any requests
+     * WHEN it makes a burst of requests at once
+     * THEN the first five should be allowed, and the next one turned away for a tenth of a second
+     * AND other clients and other paths should not be affected
+     * AND once a tenth of a second has passed, one more request should be allowed.
+     */
+    @Test
+    void tryAcquire_burst() {
+
+        // GIVEN a client that hasn't made any requests
+        long now = System.nanoTime();
+
+        // WHEN it makes a burst of requests at once
+        // THEN the first five should be allowed, and the next one turned away for a tenth of a second
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, rateLimiter.tryAcquire(CUSTOMER_PATH, "client-a", now));
+        }
+        assertEquals(ONE_SECOND / 10, rateLimiter.tryAcquire(CUSTOMER_PATH, "client-a", now));
+
+        // AND other clients and other paths should not be affected
+        assertEquals(0, rateLimiter.tryAcquire(CUSTOMER_PATH, "client-b", now));
+        assertEquals(0, rateLimiter.tryAcquire("/v1/customers", "client-a", now));
+
+        // AND once a tenth of a second has passed, one more request should be allowed.
+        assertEquals(0, rateLimiter.tryAcquire(CUSTOMER_PATH, "client-a", now + (ONE_SECOND / 10)));
+        assertTrue(rateLimiter.tryAcquire(CUSTOMER_PATH, "client-a", now + (ONE_SECOND / 10)) > 0);
+    }
+
+    /**
+     * GIVEN a client within its rate limit, and another that has used up its burst
+     * WHEN idle buckets are evicted a minute later, and again after the idle timeout
+     * THEN no bucket should be evicted a minute later
+     * AND both buckets should be evicted after the idle timeout.
+     */
+    @Test
+    void evictIdle() {
+
+        // GIVEN a client within its rate limit, and another that has used up its burst
+        long now = System.nanoTime();
+        rateLimiter.tryAcquire(CUSTOMER_PATH, "client-a", now);
+        rateLimiter.tryAcquire("/v1/orders/A-1", "client-b", now);
+        assertTrue(rateLimiter.tryAcquire("/v1/orders/A-1", "client-b", now) > 0);
+
+        // WHEN idle buckets are evicted a minute later, and again after the idle timeout
+        // THEN no bucket should be evicted a minute later
+        rateLimiter.evictIdle(now + TimeUnit.MINUTES.toNanos(1));
+        assertEquals(2, rateLimiter.getClientCount());
+
+        // AND both buckets should be evicted after the idle timeout.
+        rateLimiter.evictIdle(now + TimeUnit.MINUTES.toNanos(6));
+        assertEquals(0, rateLimiter.getClientCount());
+    }
+
+    /**
+     * GIVEN a route that allows 5 requests at once
+     * WHEN 8 threads make 100 requests each for the same client, all at once
+     * THEN no more requests should be allowed than the burst and the refill in the meantime.
+     */
+    @Test
+    void tryAcquire_concurrent() throws InterruptedException {
+
+        // GIVEN a route that allows 5 requests at once
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger allowed = new AtomicInteger();
+        long begin = System.nanoTime();
+
+        // WHEN 8 threads make 100 requests each for the same client, all at once
+        for (int thread = 0; thread < 8; thread++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 100; i++) {
+                    if (rateLimiter.tryAcquire(CUSTOMER_PATH, "client-a") == 0) {
+                        allowed.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        long elapsed = System.nanoTime() - begin;
+
+        // THEN no more requests should be allowed than the burst and the refill in the meantime.
+        assertTrue(allowed.get() >= 5);
+        assertTrue(allowed.get() <= 5 + 1 + (elapsed / (ONE_SECOND / 10)), "Allowed " + allowed.get());
+    }
+
+    /**
+     * GIVEN a route without a rate
+     * WHEN a rate limiter is created for it
+     * THEN it should be refused.
+     */
+    @Test
+    void constructor_invalidRoute() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> new RateLimiterImpl("/v1/customers/[0-9]+", Duration.ofMinutes(5)));
+        assertEquals(String.format(RateLimiterImpl.INVALID_ROUTE, "/v1/customers/[0-9]+"), e.getMessage());
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,91 @@
+package com.dbs.micronaut.demo.sql.impl;
+
+import com.dbs.micronaut.demo.BaseTest;
+import com.dbs.micronaut.demo.sql.contract.SqlStatementStatsDTO;
+import com.dbs.micronaut.demo.sql.contract.SqlStatisticsDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlStatisticsImplTest extends BaseTest {
+
+    // ------------------------------------------------- TEST METHODS --------------------------------------------------
+
+    @BeforeEach
+    public void setup() {
+        super.setup();
+    }
+
+    /**
+     * GIVEN SQL with literal values, IN lists and extra whitespace
+     * WHEN it is normalized
+     * THEN its values should be replaced by "?" and its IN lists collapsed, leaving digits in names alone.
+     */
+    @Test
+    void normalize() {
+
+        // GIVEN SQL with literal values, IN lists and extra whitespace
+        String sql = "select customer0_.customer_id from customer customer0_\n  where customer0_.full_name = 'O''Brien'"
+                + " and customer0_.customer_id in (?, ?, ?) and customer0_.version > 12.5";
+
+        // WHEN it is normalized
+        String shape = SqlStatisticsImpl.normalize(sql);
+
+        // THEN its values should be replaced by "?" and its IN lists collapsed, leaving digits in names alone.
+        assertEquals("select customer0_.customer_id from customer customer0_ where customer0_.full_name = ? and "
+                + "customer0_.customer_id in (?...) and customer0_.version > ?", shape);
+        assertEquals(shape, SqlStatisticsImpl.normalize(sql.replace("(?, ?, ?)", "(?)")));
+    }
+
+    /**
+     * GIVEN statistics with a 10ms slow statement threshold, and room for two shapes
+     * WHEN statements of three shapes are recorded
+     * THEN the shapes should be reported slowest (in total) first, the third added up as "(other)"
+     * AND only the slow statement should be logged, with its parameters.
+     */
+    @Test
+    void getStatistics() {
+
+        // GIVEN statistics with a 10ms slow statement threshold, and room for two shapes
+        SqlStatisticsImpl sqlStatistics = new SqlStatisticsImpl(Duration.ofMillis(10), 2, 10);
+
+        // WHEN statements of three shapes are recorded
+        for (int i = 0; i < 100; i++) {
+            sqlStatistics.recordExecution("select * from customer where customer_id = " + i, 100_000, 0, null,
+                    false);
+        }
+        sqlStatistics.recordFetch("select * from customer where customer_id = 1", 1, 1);
+        sqlStatistics.recordExecution("update customer set full_name = ? where customer_id = ?", 20_000_000, 1,
+                new Object[]{"Name", 1}, false);
+        sqlStatistics.recordExecution("delete from orders", 1_000, 5, null, true);
+        SqlStatisticsDTO statistics = sqlStatistics.getStatistics(10);
+
+        // THEN the shapes should be reported slowest (in total) first, the third added up as "(other)"
+        assertEquals(3, statistics.getStatements().size());
+        SqlStatementStatsDTO update = statistics.getStatements().get(0);
+        assertEquals("update customer set full_name = ? where customer_id = ?", update.getSql());
+        assertEquals(20.0, update.getMaxMillis(), 0.001);
+        assertEquals(1, update.getRows());
+        SqlStatementStatsDTO select = statistics.getStatements().get(1);
+        assertEquals("select * from customer where customer_id = ?", select.getSql());
+        assertEquals(100, select.getExecutions());
+        assertEquals(10.0, select.getTotalMillis(), 0.001);
+        assertEquals(0.128, select.getP99Millis(), 0.001);
+        assertEquals(1, select.getFetches());
+        assertEquals(SqlStatisticsImpl.OTHER_SHAPE, statistics.getStatements().get(2).getSql());
+        assertEquals(1, statistics.getStatements().get(2).getErrors());
+
+        // AND only the slow statement should be logged, with its parameters.
+        assertEquals(1, statistics.getSlowStatements().size());
+        assertEquals("update customer set full_name = ? where customer_id = ?",
+                statistics.getSlowStatements().get(0).getSql());
+        assertEquals("[Name, 1]", statistics.getSlowStatements().get(0).getParameters().toString());
+        assertTrue(statistics.getSlowStatements().get(0).getOrigin().startsWith("SqlStatisticsImplTest.getStatistics"));
+        assertEquals(1, sqlStatistics.getStatistics(1).getStatements().size());
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,97 @@
+package com.dbs.micronaut.demo.sql.impl;
+
+import com.dbs.micronaut.demo.BaseTest;
+import com.dbs.micronaut.demo.sql.contract.SqlStatementStatsDTO;
+import com.dbs.micronaut.demo.sql.contract.SqlStatisticsDTO;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlStatisticsJdbcHandlerTest extends BaseTest {
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private SqlStatisticsImpl sqlStatistics;
+
+    private DataSource dataSource;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- TEST METHODS --------------------------------------------------
+
+    @BeforeEach
+    public void setup() {
+        super.setup();
+        JdbcDataSource h2DataSource = new JdbcDataSource();
+        h2DataSource.setURL("jdbc:h2:mem:sqlstatistics;DB_CLOSE_DELAY=-1");
+        sqlStatistics = new SqlStatisticsImpl(Duration.ZERO, 100, 10);
+        dataSource = SqlStatisticsJdbcHandler.measure(() -> sqlStatistics, DataSource.class, h2DataSource, null);
+    }
+
+    /**
+     * GIVEN a measured DataSource
+     * WHEN rows are inserted and queried through it with PreparedStatements
+     * THEN every statement should be recorded under its shape, with the rows updated and read
+     * AND (with a zero slow statement threshold) logged with its bind parameters and the method that executed it.
+     */
+    @Test
+    void executeStatements() throws Exception {
+
+        // GIVEN a measured DataSource
+        // WHEN rows are inserted and queried through it with PreparedStatements
+        int rowsRead = 0;
+        try (Connection connection = dataSource.getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("create table if not exists measured (id int primary key, name varchar(20))");
+                statement.execute("delete from measured");
+            }
+            try (PreparedStatement insert = connection.prepareStatement("insert into measured values (?, ?)")) {
+                for (int i = 1; i <= 3; i++) {
+                    insert.setInt(1, i);
+                    insert.setString(2, "name " + i);
+                    insert.executeUpdate();
+                }
+            }
+            try (PreparedStatement select = connection.prepareStatement("select * from measured where id >= ?")) {
+                select.setInt(1, 2);
+                try (ResultSet resultSet = select.executeQuery()) {
+                    while (resultSet.next()) {
+                        rowsRead++;
+                    }
+                }
+            }
+        }
+        SqlStatisticsDTO statistics = sqlStatistics.getStatistics(10);
+        Map<String, SqlStatementStatsDTO> statements = statistics.getStatements().stream()
+                .collect(Collectors.toMap(SqlStatementStatsDTO::getSql, Function.identity()));
+
+        // THEN every statement should be recorded under its shape, with the rows updated and read
+        assertEquals(2, rowsRead);
+        assertEquals(3, statements.get("insert into measured values (?, ?)").getExecutions());
+        assertEquals(3, statements.get("insert into measured values (?, ?)").getRows());
+        assertEquals(1, statements.get("select * from measured where id >= ?").getExecutions());
+        assertEquals(2, statements.get("select * from measured where id >= ?").getRows());
+        assertEquals(1, statements.get("select * from measured where id >= ?").getFetches());
+
+        // AND (with a zero slow statement threshold) logged with its bind parameters and the method that executed it.
+        assertEquals(6, statistics.getSlowStatements().size());
+        assertEquals("[2]", statistics.getSlowStatements().get(5).getParameters().toString());
+        assertEquals("[3, name 3]", statistics.getSlowStatements().get(4).getParameters().toString());
+        assertTrue(statistics.getSlowStatements().get(5).getOrigin()
+                .startsWith("SqlStatisticsJdbcHandlerTest.executeStatements:"));
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,102 @@
+package com.dbs.micronaut.demo.startup.impl;
+
+import com.dbs.micronaut.demo.BaseTest;
+import com.dbs.micronaut.demo.startup.StartupTimeline;
+import io.micronaut.context.event.BeanCreatedEvent;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.SessionFactoryBuilder;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.core.InfrastructureProxy;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class LazySessionFactoryListenerTest extends BaseTest {
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    /**
+     * Class under test
+     */
+    private LazySessionFactoryListener lazySessionFactoryListener;
+
+    @Mock
+    private StartupTimeline startupTimeline_mock;
+
+    @Mock
+    private SessionFactoryBuilder sessionFactoryBuilder_mock;
+
+    @Mock
+    private SessionFactoryImplementor sessionFactory_mock;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- TEST METHODS --------------------------------------------------
+
+    @BeforeEach
+    public void setup() {
+        super.setup();
+        lazySessionFactoryListener = new LazySessionFactoryListener(startupTimeline_mock);
+        when(sessionFactoryBuilder_mock.build()).thenReturn(sessionFactory_mock);
+    }
+
+    /**
+     * GIVEN a SessionFactoryBuilder replaced by the listener
+     * WHEN the SessionFactory is built
+     * THEN the real SessionFactory should not be built until it is first used
+     * AND every call should then be forwarded to the real SessionFactory, which is only built once
+     * AND Spring should see through the stand-in to the real SessionFactory.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void onCreated_buildsOnFirstUse() {
+
+        // GIVEN a SessionFactoryBuilder replaced by the listener
+        BeanCreatedEvent<SessionFactoryBuilder> event = mock(BeanCreatedEvent.class);
+        when(event.getBean()).thenReturn(sessionFactoryBuilder_mock);
+        SessionFactoryBuilder lazyBuilder = lazySessionFactoryListener.onCreated(event);
+
+        // WHEN the SessionFactory is built
+        SessionFactory sessionFactory = lazyBuilder.build();
+
+        // THEN the real SessionFactory should not be built until it is first used
+        verify(sessionFactoryBuilder_mock, never()).build();
+        assertFalse(sessionFactory.isClosed());
+        verify(sessionFactoryBuilder_mock, never()).build();
+
+        // AND every call should then be forwarded to the real SessionFactory, which is only built once
+        sessionFactory.openSession();
+        sessionFactory.openSession();
+        verify(sessionFactoryBuilder_mock, times(1)).build();
+        verify(sessionFactory_mock, times(2)).openSession();
+        verify(startupTimeline_mock).mark("session-factory-built");
+
+        // AND Spring should see through the stand-in to the real SessionFactory.
+        assertSame(sessionFactory_mock, ((InfrastructureProxy) sessionFactory).getWrappedObject());
+    }
+
+    /**
+     * GIVEN a stand-in SessionFactory that has never been used
+     * WHEN it is closed
+     * THEN the real SessionFactory should never be built.
+     */
+    @Test
+    void close_withoutBuilding() {
+
+        // GIVEN a stand-in SessionFactory that has never been used
+        SessionFactory sessionFactory = lazySessionFactoryListener.createLazySessionFactory(sessionFactoryBuilder_mock);
+
+        // WHEN it is closed
+        sessionFactory.close();
+
+        // THEN the real SessionFactory should never be built.
+        assertTrue(sessionFactory.isClosed());
+        assertThrows(IllegalStateException.class, sessionFactory::openSession);
+        verify(sessionFactoryBuilder_mock, never()).build();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,85 @@
+package com.dbs.micronaut.demo.startup.impl;
+
+import com.dbs.micronaut.demo.BaseTest;
+import io.micronaut.context.event.BeanCreatedEvent;
+import io.micronaut.inject.BeanDefinition;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class StartupTimelineImplTest extends BaseTest {
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    /**
+     * Class under test
+     */
+    private StartupTimelineImpl startupTimeline;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- TEST METHODS --------------------------------------------------
+
+    @BeforeEach
+    public void setup() {
+        super.setup();
+        startupTimeline = new StartupTimelineImpl(10);
+    }
+
+    /**
+     * GIVEN a new startup timeline
+     * WHEN a DataSource, a slow SessionFactory and then the HTTP server are started
+     * THEN the phases should be reported in the order they were reached
+     * AND the SessionFactory should be reported as the slowest bean
+     * AND beans created after the HTTP server started should not be timed.
+     */
+    @Test
+    void onCreated_timesBeansAndPhases() throws InterruptedException {
+
+        // GIVEN a new startup timeline
+        // WHEN a DataSource, a slow SessionFactory and then the HTTP server are started
+        startupTimeline.onCreated(createEvent(mock(DataSource.class)));
+        Thread.sleep(20);
+        startupTimeline.onCreated(createEvent(mock(SessionFactory.class)));
+        startupTimeline.onStartup(null);
+        startupTimeline.onCreated(createEvent("late"));
+
+        // THEN the phases should be reported in the order they were reached
+        Map<String, Long> phases = startupTimeline.getPhases();
+        assertEquals(Arrays.asList("context", "datasource", "session-factory", "server"),
+                new ArrayList<>(phases.keySet()));
+        assertTrue(phases.get("session-factory") - phases.get("datasource") >= 20);
+
+        // AND the SessionFactory should be reported as the slowest bean
+        Map<String, Long> slowestBeans = startupTimeline.getSlowestBeans(1);
+        assertEquals(1, slowestBeans.size());
+        assertTrue(slowestBeans.keySet().iterator().next().contains("SessionFactory"));
+
+        // AND beans created after the HTTP server started should not be timed.
+        assertFalse(startupTimeline.getSlowestBeans(10).containsKey(String.class.getName()));
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    @SuppressWarnings("unchecked")
+    private BeanCreatedEvent<Object> createEvent(Object bean) {
+        BeanDefinition<Object> beanDefinition = mock(BeanDefinition.class);
+        when(beanDefinition.getBeanType()).thenReturn((Class<Object>) bean.getClass());
+        BeanCreatedEvent<Object> event = mock(BeanCreatedEvent.class);
+        when(event.getBean()).thenReturn(bean);
+        when(event.getBeanDefinition()).thenReturn(beanDefinition);
+        return event;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,107 @@
+package com.dbs.micronaut.demo.tracing.impl;
+
+import com.dbs.micronaut.demo.BaseTest;
+import com.dbs.micronaut.demo.tracing.Scope;
+import com.dbs.micronaut.demo.tracing.Span;
+import com.dbs.micronaut.demo.tracing.contract.SpanDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TracerImplTest extends BaseTest {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+    private static final String PARENT_SPAN_ID = "00f067aa0ba902b7";
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    private InMemorySpanExporter spanExporter;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- TEST METHODS --------------------------------------------------
+
+    @BeforeEach
+    public void setup() {
+        super.setup();
+        spanExporter = new InMemorySpanExporter(10);
+    }
+
+    /**
+     * GIVEN a tracer that never samples new traces on its own
+     * WHEN a Span continues a sampled trace from another service, and a child Span is started while it is current
+     * THEN both Spans should belong to the caller's trace, the first as a child of the caller's Span
+     * AND both should be exported when they end.
+     */
+    @Test
+    void startSpan_continuesSampledTrace() {
+
+        // GIVEN a tracer that never samples new traces on its own
+        TracerImpl tracer = new TracerImpl(spanExporter, true, 0);
+
+        // WHEN a Span continues a sampled trace from another service, and a child Span is started while it is current
+        Span span = tracer.startSpan("server", "00-" + TRACE_ID + "-" + PARENT_SPAN_ID + "-01");
+        Span child;
+        try (Scope scope = tracer.activate(span)) {
+            child = tracer.startSpan("child");
+            child.setAttribute("key", "value");
+            child.end();
+        }
+        span.end();
+        assertNull(tracer.getCurrentSpan());
+
+        // THEN both Spans should belong to the caller's trace, the first as a child of the caller's Span
+        assertTrue(span.isSampled());
+        assertEquals(TRACE_ID, span.getTraceId());
+        assertEquals("00-" + TRACE_ID + "-" + span.getSpanId() + "-01", span.getTraceparent());
+
+        // AND both should be exported when they end.
+        List<SpanDTO> spans = spanExporter.getRecentSpans();
+        assertEquals(2, spans.size());
+        assertEquals("child", spans.get(0).getName());
+        assertEquals(TRACE_ID, spans.get(0).getTraceId());
+        assertEquals(span.getSpanId(), spans.get(0).getParentSpanId());
+        assertEquals("value", spans.get(0).getAttributes().get("key"));
+        assertEquals(PARENT_SPAN_ID, spans.get(1).getParentSpanId());
+        assertTrue(spans.get(1).getEndTimeUnixNano() >= spans.get(1).getStartTimeUnixNano());
+    }
+
+    /**
+     * GIVEN a tracer that samples every new trace
+     * WHEN Spans are started for an unsampled caller, and for an invalid traceparent header
+     * THEN the unsampled caller's trace should be continued without being recorded
+     * AND the invalid header should start a new (sampled) trace.
+     */
+    @Test
+    void startSpan_unsampledAndInvalid() {
+
+        // GIVEN a tracer that samples every new trace
+        TracerImpl tracer = new TracerImpl(spanExporter, true, 1);
+
+        // WHEN Spans are started for an unsampled caller, and for an invalid traceparent header
+        Span unsampled = tracer.startSpan("unsampled", "00-" + TRACE_ID + "-" + PARENT_SPAN_ID + "-00");
+        unsampled.end();
+        Span invalid = tracer.startSpan("invalid", "00-" + TRACE_ID.toUpperCase() + "-" + PARENT_SPAN_ID + "-01");
+        invalid.end();
+
+        // THEN the unsampled caller's trace should be continued without being recorded
+        assertFalse(unsampled.isSampled());
+        assertEquals(TRACE_ID, unsampled.getTraceId());
+
+        // AND the invalid header should start a new (sampled) trace.
+        assertTrue(invalid.isSampled());
+        assertNotEquals(TRACE_ID, invalid.getTraceId());
+        assertEquals(32, invalid.getTraceId().length());
+        assertEquals(1, spanExporter.getRecentSpans().size());
+        assertNull(spanExporter.getRecentSpans().get(0).getParentSpanId());
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,136 @@
+package com.dbs.micronaut.demo.tracing.impl;
+
+import com.dbs.micronaut.demo.BaseTest;
+import com.dbs.micronaut.demo.customer.contract.CustomerDTO;
+import com.dbs.micronaut.demo.customer.entity.Customer;
+import com.dbs.micronaut.demo.tracing.Tracer;
+import com.dbs.micronaut.demo.tracing.contract.SpanDTO;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.client.RxHttpClient;
+import io.micronaut.http.client.annotation.Client;
+import io.micronaut.test.annotation.MicronautTest;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DEVELOPER NOTE: The "tracing" environment (see application-tracing.yml in the test resources) samples every trace.
+ */
+@MicronautTest(environments = "tracing")
+class TracingFilterTest extends BaseTest {
+
+    // -------------------------------------------------- CONSTANTS ----------------------------------------------------
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+    private static final String PARENT_SPAN_ID = "00f067aa0ba902b7";
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- MEMBER VARIABLES ------------------------------------------------
+
+    @Inject
+    private SessionFactory sessionFactory;
+
+    @Inject
+    private InMemorySpanExporter spanExporter;
+
+    @Inject
+    @Client("/")
+    private RxHttpClient client;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ------------------------------------------------- TEST METHODS --------------------------------------------------
+
+    @BeforeEach
+    void beforeEach() {
+        super.setup();
+        spanExporter.clear();
+    }
+
+    /**
+     * GIVEN a Customer in the database
+     * WHEN the Customer is requested as part of a sampled trace
+     * THEN the request should be recorded in the caller's trace
+     * AND the controller, service, repository, SQL and serialization should each be recorded under the right parent
+     */
+    @Test
+    void getCustomer_traced() throws InterruptedException {
+
+        // GIVEN a Customer in the database
+        Customer customer = new Customer();
+        customer.setCustomerId(987_654);
+        customer.setFullName("Traced Customer");
+        customer.setStreetAddress("1 Trace Street");
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.save(customer);
+            session.getTransaction().commit();
+        }
+
+        // WHEN the Customer is requested as part of a sampled trace
+        HttpResponse<CustomerDTO> response = client.toBlocking().exchange(HttpRequest.GET("/v1/customers/987654")
+                .header(Tracer.TRACEPARENT, "00-" + TRACE_ID + "-" + PARENT_SPAN_ID + "-01"), CustomerDTO.class);
+        assertEquals("Traced Customer", response.body().getFullName());
+
+        // THEN the request should be recorded in the caller's trace
+        Map<String, SpanDTO> spans = awaitSpans(TRACE_ID, "HTTP GET", "CustomerControllerImpl.getCustomer",
+                "CustomerServiceImpl.getCustomer", "CustomerRepositoryImpl.findByIdOrNull", "jdbc.executeQuery",
+                "json.serialize CustomerDTO");
+        SpanDTO server = spans.get("HTTP GET");
+        assertEquals(PARENT_SPAN_ID, server.getParentSpanId());
+        assertEquals(200, server.getAttributes().get("http.status_code"));
+        assertTrue(response.getHeaders().get("traceresponse").contains(TRACE_ID));
+
+        // AND the controller, service, repository, SQL and serialization should each be recorded under the right parent
+        SpanDTO controller = spans.get("CustomerControllerImpl.getCustomer");
+        SpanDTO service = spans.get("CustomerServiceImpl.getCustomer");
+        SpanDTO repository = spans.get("CustomerRepositoryImpl.findByIdOrNull");
+        SpanDTO sql = spans.get("jdbc.executeQuery");
+        assertEquals(server.getSpanId(), controller.getParentSpanId());
+        assertEquals(controller.getSpanId(), service.getParentSpanId());
+        assertEquals(service.getSpanId(), repository.getParentSpanId());
+        assertEquals(repository.getSpanId(), sql.getParentSpanId());
+        assertTrue(((String) sql.getAttributes().get("db.statement")).toLowerCase().contains("customers"));
+        assertEquals(server.getSpanId(), spans.get("json.serialize CustomerDTO").getParentSpanId());
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    // ----------------------------------------------- PRIVATE METHODS -------------------------------------------------
+
+    /**
+     * Wait (briefly) for the Spans with the given names to end in the given trace, and return that trace's Spans by
+     * name. The request's own Span ends just after the response has been sent, and Spans of other traces (background
+     * jobs, say) may end in between, so counting Spans isn't enough.
+     */
+    private Map<String, SpanDTO> awaitSpans(String traceId, String... names) throws InterruptedException {
+        Map<String, SpanDTO> spansByName = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            spansByName.clear();
+            for (SpanDTO span : spanExporter.getRecentSpans()) {
+                if (traceId.equals(span.getTraceId())) {
+                    spansByName.putIfAbsent(span.getName(), span);
+                }
+            }
+            if (spansByName.keySet().containsAll(Arrays.asList(names))) {
+                return spansByName;
+            }
+            Thread.sleep(10);
+        }
+        fail("Spans " + Arrays.toString(names) + " did not all end in trace [" + traceId + "], only "
+                + spansByName.keySet());
+        return spansByName;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+}